@@ -0,0 +1,67 @@
+package online.store.benchmark;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 不依赖数据库的热点路径基准测试入口
+ * <p>依次以每个线程数运行 SnowflakeIdGenerator、JwtUtil、MaskingUtil、商品 VO 转换与 Result 序列化的基准测试,
+ * 所有结果合并写入一个 JMH JSON 文件 (每条结果带 threads 字段), 不同构建的结果可直接比较</p>
+ * <p>运行: mvn -P benchmarks test-compile exec:exec -Dbench.main=online.store.benchmark.HotPathBenchmarks
+ * -Djmh.args="--threads 1,4,max --out target/jmh/hot-paths.json"</p>
+ * <p>参数: --threads 线程数, 逗号分隔, max 表示 CPU 线程数 (默认 1,max); --include 基准测试名称正则 (默认全部热点路径);
+ * --out 结果文件 (默认 target/jmh/hot-paths.json)</p>
+ */
+public class HotPathBenchmarks {
+
+    private static final String DEFAULT_INCLUDE =
+            "(SnowflakeIdGenerator|JwtUtil|MaskingUtil|ProductMapping|ResultSerialization)Benchmark";
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        Map<String, String> options = parse(args);
+        String include = options.getOrDefault("include", DEFAULT_INCLUDE);
+        Path out = Path.of(options.getOrDefault("out", "target/jmh/hot-paths.json"));
+
+        List<RunResult> results = new ArrayList<>();
+        for (String value : options.getOrDefault("threads", "1,max").split(",")) {
+            int threads = "max".equalsIgnoreCase(value.trim())
+                    ? Runtime.getRuntime().availableProcessors()
+                    : Integer.parseInt(value.trim());
+            results.addAll(new Runner(new OptionsBuilder().include(include).threads(threads).build()).run());
+        }
+
+        Path parent = out.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (PrintStream stream = new PrintStream(Files.newOutputStream(out), true, StandardCharsets.UTF_8)) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, stream).writeOut(results);
+        }
+        System.out.println("结果已写入 " + out.toAbsolutePath());
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("无法识别的参数: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+}
@@ -0,0 +1,166 @@
+package online.store.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HTTP 并发延迟压测, 用于对比平台线程与虚拟线程模式下的尾延迟
+ * <p>每个并发连接是一个虚拟线程, 循环发送请求并记录延迟, 预热后统计吞吐量和 p50/p99/p99.9 延迟。
+ * 压测程序本身使用虚拟线程, 5000 个并发连接也不会成为瓶颈</p>
+ * <p>对比方法: 分别以 --spring.threads.virtual.enabled=false 和 true 启动服务 (同时 --rate-limit.enabled=false 关闭限流),
+ * 对同一接口运行本程序。压测 5000 个连接前需调高服务端和压测端的文件描述符上限 (ulimit -n)</p>
+ * <p>运行: mvn -P benchmarks test-compile exec:exec -Dbench.main=online.store.benchmark.HttpLatencyBenchmark
+ * -Djmh.args="--url http://127.0.0.1:28080/api/products?page=1&amp;size=10 --connections 1000,5000 --duration 30s"</p>
+ * <p>参数: --url 压测地址; --connections 并发连接数, 逗号分隔依次压测; --warmup 预热时间 (默认 10s);
+ * --duration 统计时间 (默认 30s); --token 可选的 JWT, 作为 Bearer Token 发送</p>
+ */
+public class HttpLatencyBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        URI uri = URI.create(options.getOrDefault("url", "http://127.0.0.1:28080/api/products?page=1&size=10"));
+        Duration warmup = duration(options.getOrDefault("warmup", "10s"));
+        Duration duration = duration(options.getOrDefault("duration", "30s"));
+        String token = options.get("token");
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        HttpRequest request = builder.build();
+
+        System.out.printf("%-12s %12s %10s %10s %10s %10s %10s %8s%n",
+                "connections", "throughput/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)", "errors");
+        for (String value : options.getOrDefault("connections", "1000,5000").split(",")) {
+            int connections = Integer.parseInt(value.trim());
+            Result result = run(request, connections, warmup, duration);
+            long[] latencies = result.latencies();
+            System.out.printf("%-12d %12.1f %10.2f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                    connections,
+                    latencies.length / (duration.toMillis() / 1000.0),
+                    percentile(latencies, 0.50), percentile(latencies, 0.90),
+                    percentile(latencies, 0.99), percentile(latencies, 0.999),
+                    latencies.length == 0 ? 0.0 : latencies[latencies.length - 1] / 1e6,
+                    result.errors());
+        }
+    }
+
+    /**
+     * 一轮压测的结果
+     * @param latencies 统计期间成功请求的延迟 (纳秒), 升序
+     * @param errors 统计期间失败或非 2xx 的请求数
+     */
+    private record Result(long[] latencies, long errors) {
+    }
+
+    private static Result run(HttpRequest request, int connections, Duration warmup, Duration duration) throws InterruptedException {
+        long measureStart = System.nanoTime() + warmup.toNanos();
+        long measureEnd = measureStart + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        List<LatencyRecorder> recorders = new ArrayList<>(connections);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .version(HttpClient.Version.HTTP_1_1)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .executor(executor)
+                     .build()) {
+            for (int i = 0; i < connections; i++) {
+                LatencyRecorder recorder = new LatencyRecorder();
+                recorders.add(recorder);
+                executor.submit(() -> {
+                    while (true) {
+                        long start = System.nanoTime();
+                        if (start >= measureEnd) {
+                            return;
+                        }
+                        boolean ok;
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            ok = response.statusCode() / 100 == 2;
+                        } catch (Exception e) {
+                            ok = false;
+                        }
+                        if (start >= measureStart) {
+                            if (ok) {
+                                recorder.add(System.nanoTime() - start);
+                            } else {
+                                errors.incrementAndGet();
+                            }
+                        }
+                    }
+                });
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                // 等待最后一批请求返回
+            }
+        }
+        long[] latencies = recorders.stream().flatMapToLong(recorder -> Arrays.stream(recorder.values())).sorted().toArray();
+        return new Result(latencies, errors.get());
+    }
+
+    /**
+     * 单个连接的延迟记录, 只由所属虚拟线程写入
+     */
+    private static final class LatencyRecorder {
+
+        private long[] values = new long[1024];
+
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        long[] values() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("无法识别的参数: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+}
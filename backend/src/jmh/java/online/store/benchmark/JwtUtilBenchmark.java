@@ -0,0 +1,75 @@
+package online.store.benchmark;
+
+import io.jsonwebtoken.Claims;
+import online.store.common.utils.CacheStatsRegistry;
+import online.store.common.utils.JwtUtil;
+import online.store.config.JwtConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 生成与解析基准测试
+ * <p>parseCached 为同一 Token 命中 Claims 缓存的路径 (每个请求的常见情况),
+ * parseUncached 关闭缓存, 每次都完整解码并验签</p>
+ * <p>线程数通过 -t 指定, 或使用 {@link HotPathBenchmarks} 依次以多个线程数运行</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    private JwtUtil cached;
+
+    private JwtUtil uncached;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        cached = create(10000);
+        uncached = create(0);
+        token = cached.generateAccessToken("benchmark-user", "consumer");
+    }
+
+    @Benchmark
+    public String generateAccessToken() {
+        return cached.generateAccessToken("benchmark-user", "consumer");
+    }
+
+    @Benchmark
+    public Claims parseCached() {
+        return cached.parseToken(token);
+    }
+
+    @Benchmark
+    public Claims parseUncached() {
+        return uncached.parseToken(token);
+    }
+
+    private static JwtUtil create(int claimsCacheSize) {
+        JwtConfig config = new JwtConfig();
+        config.setSecret(SECRET);
+        config.setExpireTime(Duration.ofHours(1));
+        config.setRefreshExpireTime(Duration.ofDays(7));
+        config.setClaimsCacheSize(claimsCacheSize);
+        JwtUtil jwtUtil = new JwtUtil(config, new CacheStatsRegistry());
+        jwtUtil.init();
+        return jwtUtil;
+    }
+}
@@ -0,0 +1,52 @@
+package online.store.benchmark;
+
+import online.store.common.utils.MaskingUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 数据脱敏基准测试, 登录、注册和用户信息接口每次响应都会调用
+ * <p>线程数通过 -t 指定, 或使用 {@link HotPathBenchmarks} 依次以多个线程数运行</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MaskingUtilBenchmark {
+
+    /**
+     * 短前缀、常见长度与不合法的邮箱各一个, 覆盖各个分支
+     */
+    private static final String[] EMAILS = {"ab@example.com", "benchmark.user@example.com", "invalid-email"};
+
+    private static final String[] PHONES = {"13800138000", "+8613800138000", "12345"};
+
+    @Benchmark
+    @OperationsPerInvocation(3)
+    public void maskEmail(Blackhole blackhole) {
+        for (String email : EMAILS) {
+            blackhole.consume(MaskingUtil.maskEmail(email));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(3)
+    public void maskPhone(Blackhole blackhole) {
+        for (String phone : PHONES) {
+            blackhole.consume(MaskingUtil.maskPhone(phone));
+        }
+    }
+}
@@ -0,0 +1,748 @@
+package online.store.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.api.StatefulRedisConnection;
+import online.store.StoreApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 下单与充值端到端压测
+ * <p>启动 MySQL 与 Redis 替身 (本地 Docker 镜像, 无需联网; 也可使用已有实例), 用 store.sql 在独立的 store_loadtest 库中建表,
+ * 按指定规模生成用户和商品, 在同一进程内启动应用, 然后以虚拟线程模拟并发用户: 登录 → 浏览商品列表与详情 → 下单 → 按比例充值。
+ * 下单的商品按 Zipf 分布选择, 少数热点商品承担大部分订单, 用于观察热点行锁竞争</p>
+ * <p>输出每类请求的吞吐量与 p50/p95/p99 延迟、按异常类型分类的错误数 (库存不足、余额不足、并发冲突等)、
+ * 压测期间 InnoDB 行锁等待次数与总等待时间, 以及库存与订单项的一致性校验</p>
+ * <p>运行 (需提前 docker pull mysql:8.0 redis:7-alpine): mvn -P benchmarks test-compile exec:exec
+ * -Dbench.main=online.store.benchmark.OrderLoadTest -Djmh.args="--users 2000 --products 100 --concurrency 200 --skew 1.2 --duration 60s"</p>
+ * <p>参数: --standins docker|external (默认 docker); --mysql-image/--redis-image/--mysql-port/--redis-port docker 模式的镜像与映射端口 (默认 33306/36379);
+ * --jdbc-url/--db-user/--db-password/--redis-host/--redis-port 使用已有实例时的连接信息;
+ * --redis-database 压测使用的 Redis 库 (默认 15, 压测前清空); --users 用户数; --products 商品数; --stock 每个商品的初始库存;
+ * --balance 每个用户的初始余额; --concurrency 并发用户数; --warmup 预热时间; --duration 统计时间; --skew Zipf 指数 (0 为均匀分布);
+ * --quantity 每单购买数量; --recharge-ratio 每轮充值的概率; --properties 传给应用的额外配置, 分号分隔 (如 order.async.enabled=true);
+ * --url 压测已启动的应用而不在进程内启动; --out 将报告写入 JSON 文件</p>
+ */
+public class OrderLoadTest {
+
+    private static final String DATABASE = "store_loadtest";
+
+    private static final String PASSWORD = "LoadTest@123";
+
+    private static final String JDBC_PARAMS = "useSSL=false&serverTimezone=Asia/Shanghai&characterEncoding=UTF-8"
+            + "&allowPublicKeyRetrieval=true&rewriteBatchedStatements=true";
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    /**
+     * 压测中的请求类型
+     */
+    enum Op {
+        LOGIN, BROWSE, DETAIL, ORDER, ORDER_COMPLETE, RECHARGE
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        Settings settings = new Settings(options);
+        StandIns standIns = new StandIns(options);
+        ConfigurableApplicationContext app = null;
+        try {
+            standIns.start();
+            long seedStart = System.nanoTime();
+            long initialStock = seed(standIns, settings);
+            System.out.printf("已生成 %d 个用户、%d 个商品, 耗时 %.1fs%n",
+                    settings.users, settings.products, (System.nanoTime() - seedStart) / 1e9);
+
+            String baseUrl = options.get("url");
+            if (baseUrl == null) {
+                app = boot(standIns, options.getOrDefault("properties", ""));
+                baseUrl = "http://127.0.0.1:" + app.getEnvironment().getProperty("local.server.port");
+            }
+
+            Map<String, Long> locksBefore = lockStatus(standIns);
+            Report report = new Driver(URI.create(baseUrl), settings).run();
+            Map<String, Long> locksAfter = lockStatus(standIns);
+
+            report.lockWaits = locksAfter.get("Innodb_row_lock_waits") - locksBefore.get("Innodb_row_lock_waits");
+            report.lockWaitMillis = locksAfter.get("Innodb_row_lock_time") - locksBefore.get("Innodb_row_lock_time");
+            report.lockWaitMaxMillis = locksAfter.get("Innodb_row_lock_time_max");
+            checkConsistency(standIns, initialStock, report);
+            report.print();
+            if (options.containsKey("out")) {
+                MAPPER.writeValue(Path.of(options.get("out")).toFile(), report.toMap());
+                System.out.println("报告已写入 " + Path.of(options.get("out")).toAbsolutePath());
+            }
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+            standIns.stop();
+        }
+    }
+
+    /**
+     * 压测参数
+     */
+    static final class Settings {
+        final int users;
+        final int products;
+        final int stock;
+        final BigDecimal balance;
+        final int concurrency;
+        final Duration warmup;
+        final Duration duration;
+        final double skew;
+        final int quantity;
+        final double rechargeRatio;
+
+        Settings(Map<String, String> options) {
+            users = Integer.parseInt(options.getOrDefault("users", "1000"));
+            products = Integer.parseInt(options.getOrDefault("products", "100"));
+            stock = Integer.parseInt(options.getOrDefault("stock", "100000"));
+            balance = new BigDecimal(options.getOrDefault("balance", "100000"));
+            concurrency = Integer.parseInt(options.getOrDefault("concurrency", "200"));
+            warmup = duration(options.getOrDefault("warmup", "10s"));
+            duration = duration(options.getOrDefault("duration", "60s"));
+            skew = Double.parseDouble(options.getOrDefault("skew", "1.1"));
+            quantity = Integer.parseInt(options.getOrDefault("quantity", "1"));
+            rechargeRatio = Double.parseDouble(options.getOrDefault("recharge-ratio", "0.1"));
+        }
+    }
+
+    /**
+     * MySQL 与 Redis 替身: docker 模式下启动临时容器, 结束后删除; external 模式使用已有实例
+     */
+    static final class StandIns {
+        private final boolean docker;
+        private final String mysqlImage;
+        private final String redisImage;
+        private final int mysqlPort;
+        private final String dbUser;
+        private final String dbPassword;
+        private final String redisHost;
+        private final int redisPort;
+        private final int redisDatabase;
+        private final String serverUrl;
+        private final List<String> containers = new ArrayList<>();
+
+        StandIns(Map<String, String> options) {
+            docker = !"external".equals(options.getOrDefault("standins", "docker"));
+            mysqlImage = options.getOrDefault("mysql-image", "mysql:8.0");
+            redisImage = options.getOrDefault("redis-image", "redis:7-alpine");
+            if (docker) {
+                mysqlPort = Integer.parseInt(options.getOrDefault("mysql-port", "33306"));
+                dbUser = "root";
+                dbPassword = "loadtest";
+                redisHost = "127.0.0.1";
+                redisPort = Integer.parseInt(options.getOrDefault("redis-port", "36379"));
+                serverUrl = "jdbc:mysql://127.0.0.1:" + mysqlPort + "/";
+            } else {
+                mysqlPort = 0;
+                dbUser = options.getOrDefault("db-user", "root");
+                dbPassword = options.getOrDefault("db-password", "");
+                redisHost = options.getOrDefault("redis-host", "127.0.0.1");
+                redisPort = Integer.parseInt(options.getOrDefault("redis-port", "6379"));
+                serverUrl = options.getOrDefault("jdbc-url", "jdbc:mysql://127.0.0.1:3306/");
+            }
+            redisDatabase = Integer.parseInt(options.getOrDefault("redis-database", "15"));
+        }
+
+        void start() throws IOException, InterruptedException, SQLException {
+            if (docker) {
+                String suffix = Long.toString(ProcessHandle.current().pid());
+                containers.add(docker("run", "-d", "--rm", "--name", "store-loadtest-mysql-" + suffix,
+                        "-p", mysqlPort + ":3306",
+                        "-e", "MYSQL_ROOT_PASSWORD=" + dbPassword, mysqlImage,
+                        "--character-set-server=utf8mb4", "--collation-server=utf8mb4_unicode_ci"));
+                containers.add(docker("run", "-d", "--rm", "--name", "store-loadtest-redis-" + suffix,
+                        "-p", redisPort + ":6379", redisImage));
+            }
+            awaitMysql(Duration.ofMinutes(2));
+            RedisURI uri = RedisURI.Builder.redis(redisHost, redisPort).withDatabase(redisDatabase).build();
+            RedisClient client = RedisClient.create(uri);
+            try (StatefulRedisConnection<String, String> connection = client.connect()) {
+                // 清除上次压测遗留的库存预扣、幂等键等数据
+                connection.sync().flushdb();
+            } finally {
+                client.shutdown();
+            }
+        }
+
+        void stop() {
+            for (String container : containers) {
+                try {
+                    docker("rm", "-f", container);
+                } catch (IOException | InterruptedException e) {
+                    System.err.println("删除容器 " + container + " 失败: " + e.getMessage());
+                }
+            }
+        }
+
+        Connection connect(String database) throws SQLException {
+            return DriverManager.getConnection(serverUrl + database + "?" + JDBC_PARAMS, dbUser, dbPassword);
+        }
+
+        private void awaitMysql(Duration timeout) throws SQLException, InterruptedException {
+            long deadline = System.nanoTime() + timeout.toNanos();
+            while (true) {
+                try (Connection ignored = connect("")) {
+                    return;
+                } catch (SQLException e) {
+                    if (System.nanoTime() > deadline) {
+                        throw e;
+                    }
+                    TimeUnit.SECONDS.sleep(1);
+                }
+            }
+        }
+
+        private static String docker(String... args) throws IOException, InterruptedException {
+            List<String> command = new ArrayList<>();
+            command.add("docker");
+            command.addAll(Arrays.asList(args));
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (process.waitFor() != 0) {
+                throw new IOException(String.join(" ", command) + " 失败: " + output);
+            }
+            return output;
+        }
+    }
+
+    /**
+     * 建表并生成数据: 用户ID 1 为商家, 2 ~ users+1 为消费者, 商品ID 1 ~ products
+     * @return 所有商品的初始库存合计
+     */
+    private static long seed(StandIns standIns, Settings settings) throws IOException, SQLException {
+        String schema = new ClassPathResource("sql/store.sql").getContentAsString(StandardCharsets.UTF_8)
+                .replace("`store`", "`" + DATABASE + "`");
+        try (Connection connection = standIns.connect("")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("DROP DATABASE IF EXISTS `" + DATABASE + "`");
+            }
+            ScriptUtils.executeSqlScript(connection, new ByteArrayResource(schema.getBytes(StandardCharsets.UTF_8)));
+        }
+        // 所有用户使用同一密码, 只计算一次哈希; 成本因子与应用默认配置一致, 登录时不会触发重新哈希
+        String hash = new BCryptPasswordEncoder(10).encode(PASSWORD);
+        try (Connection connection = standIns.connect(DATABASE)) {
+            connection.setAutoCommit(false);
+            long consumerRole = roleId(connection, "consumer");
+            long merchantRole = roleId(connection, "merchant");
+            try (PreparedStatement user = connection.prepareStatement(
+                    "INSERT INTO `user` (id, username, password, email, balance, status) VALUES (?, ?, ?, ?, ?, 1)");
+                 PreparedStatement userRole = connection.prepareStatement(
+                         "INSERT INTO user_role (user_id, role_id) VALUES (?, ?)")) {
+                for (int i = 1; i <= settings.users + 1; i++) {
+                    String username = i == 1 ? "load_merchant" : "load_user_" + (i - 1);
+                    user.setLong(1, i);
+                    user.setString(2, username);
+                    user.setString(3, hash);
+                    user.setString(4, username + "@loadtest.local");
+                    user.setBigDecimal(5, i == 1 ? BigDecimal.ZERO : settings.balance);
+                    user.addBatch();
+                    userRole.setLong(1, i);
+                    userRole.setLong(2, i == 1 ? merchantRole : consumerRole);
+                    userRole.addBatch();
+                    if (i % 1000 == 0) {
+                        user.executeBatch();
+                        userRole.executeBatch();
+                    }
+                }
+                user.executeBatch();
+                userRole.executeBatch();
+            }
+            try (PreparedStatement product = connection.prepareStatement(
+                    "INSERT INTO product (id, name, description, price, cost_price, stock, category_id, status, merchant_id) "
+                            + "VALUES (?, ?, ?, 1.00, 0.50, ?, ?, 1, 1)")) {
+                for (int i = 1; i <= settings.products; i++) {
+                    product.setLong(1, i);
+                    product.setString(2, "压测商品 " + i);
+                    product.setString(3, "热度排名第 " + i + " 的压测商品");
+                    product.setInt(4, settings.stock);
+                    product.setInt(5, 1 + i % 10);
+                    product.addBatch();
+                    if (i % 1000 == 0) {
+                        product.executeBatch();
+                    }
+                }
+                product.executeBatch();
+            }
+            connection.commit();
+        }
+        return (long) settings.stock * settings.products;
+    }
+
+    private static long roleId(Connection connection, String roleName) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT id FROM role WHERE role_name = ?")) {
+            statement.setString(1, roleName);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (!rs.next()) {
+                    throw new IllegalStateException("store.sql 中缺少角色 " + roleName);
+                }
+                return rs.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * 在当前进程内启动应用, 连接替身实例并关闭限流
+     */
+    private static ConfigurableApplicationContext boot(StandIns standIns, String extraProperties) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("server.port", "0");
+        properties.put("spring.datasource.url", standIns.serverUrl + DATABASE + "?" + JDBC_PARAMS + "&nullCatalogMeansCurrent=true");
+        properties.put("spring.datasource.username", standIns.dbUser);
+        properties.put("spring.datasource.password", standIns.dbPassword);
+        properties.put("spring.data.redis.host", standIns.redisHost);
+        properties.put("spring.data.redis.port", String.valueOf(standIns.redisPort));
+        properties.put("spring.data.redis.password", "");
+        properties.put("spring.data.redis.database", String.valueOf(standIns.redisDatabase));
+        properties.put("rate-limit.enabled", "false");
+        properties.put("logging.level.root", "WARN");
+        for (String entry : extraProperties.split(";")) {
+            int separator = entry.indexOf('=');
+            if (separator > 0) {
+                properties.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+            }
+        }
+        return new SpringApplicationBuilder(StoreApplication.class).properties(properties).run();
+    }
+
+    private static Map<String, Long> lockStatus(StandIns standIns) throws SQLException {
+        Map<String, Long> status = new HashMap<>();
+        try (Connection connection = standIns.connect(DATABASE);
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SHOW GLOBAL STATUS LIKE 'Innodb_row_lock%'")) {
+            while (rs.next()) {
+                status.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return status;
+    }
+
+    /**
+     * 已售数量 (初始库存 - 剩余库存) 应等于订单项购买数量合计; 异步下单或 Redis 预扣开启时需等待落库和对账完成
+     */
+    private static void checkConsistency(StandIns standIns, long initialStock, Report report) throws SQLException {
+        try (Connection connection = standIns.connect(DATABASE); Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(SUM(stock), 0), COALESCE(SUM(stock < 0), 0) FROM product")) {
+                rs.next();
+                report.sold = initialStock - rs.getLong(1);
+                report.oversoldProducts = rs.getLong(2);
+            }
+            try (ResultSet rs = statement.executeQuery("SELECT COALESCE(SUM(quantity), 0), COUNT(DISTINCT order_id) FROM order_item")) {
+                rs.next();
+                report.orderedQuantity = rs.getLong(1);
+                report.persistedOrders = rs.getLong(2);
+            }
+        }
+    }
+
+    /**
+     * 并发用户驱动
+     */
+    static final class Driver {
+        private final URI baseUrl;
+        private final Settings settings;
+        private final double[] cdf;
+
+        Driver(URI baseUrl, Settings settings) {
+            this.baseUrl = baseUrl;
+            this.settings = settings;
+            this.cdf = zipf(settings.products, settings.skew);
+        }
+
+        Report run() throws InterruptedException {
+            long measureStart = System.nanoTime() + settings.warmup.toNanos();
+            long measureEnd = measureStart + settings.duration.toNanos();
+            List<Recorder> recorders = new ArrayList<>(settings.concurrency);
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+                 HttpClient client = HttpClient.newBuilder()
+                         .version(HttpClient.Version.HTTP_1_1)
+                         .connectTimeout(Duration.ofSeconds(10))
+                         .executor(executor)
+                         .build()) {
+                for (int i = 0; i < settings.concurrency; i++) {
+                    Recorder recorder = new Recorder();
+                    recorders.add(recorder);
+                    String username = "load_user_" + (i % settings.users + 1);
+                    executor.submit(() -> new VirtualUser(client, username, recorder, measureStart, measureEnd).run());
+                }
+                executor.shutdown();
+                executor.awaitTermination(settings.warmup.plus(settings.duration).toSeconds() + 120, TimeUnit.SECONDS);
+            }
+            return Report.merge(recorders, settings);
+        }
+
+        /**
+         * 一个并发用户: 登录一次, 之后循环 浏览 → 下单 → 按比例充值, 直到统计时间结束
+         */
+        private final class VirtualUser {
+            private final HttpClient client;
+            private final String username;
+            private final Recorder recorder;
+            private final long measureStart;
+            private final long measureEnd;
+            private String token;
+
+            VirtualUser(HttpClient client, String username, Recorder recorder, long measureStart, long measureEnd) {
+                this.client = client;
+                this.username = username;
+                this.recorder = recorder;
+                this.measureStart = measureStart;
+                this.measureEnd = measureEnd;
+            }
+
+            void run() {
+                Response login = call(Op.LOGIN, post("/api/auth/login",
+                        "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}"));
+                if (login == null || !login.ok()) {
+                    return;
+                }
+                token = login.data().path("accessToken").asText();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.nanoTime() < measureEnd) {
+                    call(Op.BROWSE, get("/api/products?pageNum=" + (1 + random.nextInt(5)) + "&pageSize=10"));
+                    long productId = sample(random);
+                    call(Op.DETAIL, get("/api/products/" + productId));
+                    order(productId);
+                    if (random.nextDouble() < settings.rechargeRatio) {
+                        call(Op.RECHARGE, post("/api/payment/recharge", "{\"amount\":100.00}"));
+                    }
+                }
+            }
+
+            /**
+             * 下单; 异步下单返回 202 时轮询订单状态, 另外记录提交到最终结果的耗时
+             */
+            private void order(long productId) {
+                long start = System.nanoTime();
+                Response response = call(Op.ORDER, post("/api/orders", "{\"productId\":" + productId
+                        + ",\"quantity\":" + settings.quantity
+                        + ",\"address\":\"压测地址\",\"consignee\":\"压测\",\"phone\":\"13800138000\"}"));
+                if (response == null || response.status() != 202) {
+                    return;
+                }
+                String orderNo = response.data().path("orderNo").asText();
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+                while (System.nanoTime() < deadline) {
+                    try {
+                        TimeUnit.MILLISECONDS.sleep(10);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    Response status = send(get("/api/orders/" + orderNo + "/status"));
+                    if (status == null || !status.ok() || "PENDING".equals(status.data().path("status").asText())) {
+                        continue;
+                    }
+                    String failReason = status.data().path("failReason").asText(null);
+                    record(Op.ORDER_COMPLETE, start, failReason == null ? null : classify(400, failReason));
+                    return;
+                }
+                record(Op.ORDER_COMPLETE, start, "Timeout (订单 30s 内未完成)");
+            }
+
+            private Response call(Op op, HttpRequest request) {
+                long start = System.nanoTime();
+                Response response = send(request);
+                record(op, start, response == null ? "IOException"
+                        : response.ok() ? null : classify(response.status(), response.message()));
+                return response;
+            }
+
+            /**
+             * 登录总是记录, 其他请求只记录预热结束后发出的
+             */
+            private void record(Op op, long start, String error) {
+                if (op == Op.LOGIN || start >= measureStart) {
+                    recorder.record(op, System.nanoTime() - start, error);
+                }
+            }
+
+            private Response send(HttpRequest request) {
+                try {
+                    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    JsonNode body = response.body().length == 0 ? MAPPER.nullNode() : MAPPER.readTree(response.body());
+                    return new Response(response.statusCode(), body);
+                } catch (IOException e) {
+                    return null;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return null;
+                }
+            }
+
+            private HttpRequest get(String path) {
+                return builder(path).GET().build();
+            }
+
+            private HttpRequest post(String path, String json) {
+                return builder(path).header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(json)).build();
+            }
+
+            private HttpRequest.Builder builder(String path) {
+                HttpRequest.Builder builder = HttpRequest.newBuilder(baseUrl.resolve(path)).timeout(Duration.ofSeconds(30));
+                if (token != null) {
+                    builder.header("Authorization", "Bearer " + token);
+                }
+                return builder;
+            }
+        }
+
+        /**
+         * 按 Zipf 分布选择商品, 排名越靠前 (ID 越小) 被选中的概率越高
+         */
+        private long sample(ThreadLocalRandom random) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            return (index >= 0 ? index : -index - 1) + 1L;
+        }
+
+        private static double[] zipf(int n, double skew) {
+            double[] cdf = new double[n];
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += 1.0 / Math.pow(i + 1, skew);
+                cdf[i] = sum;
+            }
+            for (int i = 0; i < n; i++) {
+                cdf[i] /= sum;
+            }
+            cdf[n - 1] = 1.0;
+            return cdf;
+        }
+    }
+
+    private record Response(int status, JsonNode body) {
+
+        boolean ok() {
+            return status >= 200 && status < 300;
+        }
+
+        JsonNode data() {
+            return body.path("data");
+        }
+
+        String message() {
+            return body.path("message").asText("");
+        }
+    }
+
+    /**
+     * 按异常类型归类错误, 数字替换为 # 以便同类错误合并
+     */
+    static String classify(int status, String message) {
+        if (status == 429) {
+            return "RateLimited (429)";
+        }
+        if (message.contains("库存不足")) {
+            return "InsufficientStockException";
+        }
+        if (message.contains("余额不足")) {
+            return "InsufficientBalanceException";
+        }
+        if (message.contains("并发冲突")) {
+            return "ConcurrencyConflict (ServiceBusyException)";
+        }
+        if (status == 409) {
+            return "IdempotencyConflictException";
+        }
+        String normalized = message.replaceAll("\\d+(\\.\\d+)?", "#");
+        if (normalized.length() > 60) {
+            normalized = normalized.substring(0, 60) + "...";
+        }
+        return (status == 503 ? "ServiceBusyException: " : "HTTP " + status + ": ") + normalized;
+    }
+
+    /**
+     * 单个并发用户的延迟与错误记录, 只由该用户的虚拟线程写入
+     */
+    static final class Recorder {
+        private final Map<Op, long[]> latencies = new EnumMap<>(Op.class);
+        private final Map<Op, Integer> counts = new EnumMap<>(Op.class);
+        private final Map<Op, Map<String, Long>> errors = new EnumMap<>(Op.class);
+
+        void record(Op op, long nanos, String error) {
+            if (error != null) {
+                errors.computeIfAbsent(op, key -> new HashMap<>()).merge(error, 1L, Long::sum);
+                return;
+            }
+            long[] values = latencies.computeIfAbsent(op, key -> new long[1024]);
+            int count = counts.getOrDefault(op, 0);
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+                latencies.put(op, values);
+            }
+            values[count] = nanos;
+            counts.put(op, count + 1);
+        }
+    }
+
+    /**
+     * 压测报告
+     */
+    static final class Report {
+        private final Settings settings;
+        private final Map<Op, long[]> latencies = new EnumMap<>(Op.class);
+        private final Map<Op, Map<String, Long>> errors = new EnumMap<>(Op.class);
+        long lockWaits;
+        long lockWaitMillis;
+        long lockWaitMaxMillis;
+        long sold;
+        long oversoldProducts;
+        long orderedQuantity;
+        long persistedOrders;
+
+        private Report(Settings settings) {
+            this.settings = settings;
+        }
+
+        static Report merge(List<Recorder> recorders, Settings settings) {
+            Report report = new Report(settings);
+            for (Op op : Op.values()) {
+                int total = recorders.stream().mapToInt(recorder -> recorder.counts.getOrDefault(op, 0)).sum();
+                long[] merged = new long[total];
+                int offset = 0;
+                for (Recorder recorder : recorders) {
+                    int count = recorder.counts.getOrDefault(op, 0);
+                    if (count > 0) {
+                        System.arraycopy(recorder.latencies.get(op), 0, merged, offset, count);
+                        offset += count;
+                    }
+                    recorder.errors.getOrDefault(op, Map.of()).forEach((error, n) ->
+                            report.errors.computeIfAbsent(op, key -> new TreeMap<>()).merge(error, n, Long::sum));
+                }
+                Arrays.sort(merged);
+                report.latencies.put(op, merged);
+            }
+            return report;
+        }
+
+        void print() {
+            double seconds = settings.duration.toMillis() / 1000.0;
+            System.out.printf("%n并发用户 %d, 商品 %d, Zipf 指数 %.2f, 统计时间 %.0fs%n",
+                    settings.concurrency, settings.products, settings.skew, seconds);
+            System.out.printf("%-16s %10s %10s %12s %10s %10s %10s %10s%n",
+                    "operation", "ok", "errors", "throughput/s", "p50(ms)", "p95(ms)", "p99(ms)", "max(ms)");
+            for (Op op : Op.values()) {
+                long[] values = latencies.get(op);
+                long errorCount = errors.getOrDefault(op, Map.of()).values().stream().mapToLong(Long::longValue).sum();
+                if (values.length == 0 && errorCount == 0) {
+                    continue;
+                }
+                System.out.printf("%-16s %10d %10d %12.1f %10.2f %10.2f %10.2f %10.2f%n",
+                        op, values.length, errorCount, values.length / seconds,
+                        percentile(values, 0.50), percentile(values, 0.95), percentile(values, 0.99),
+                        values.length == 0 ? 0.0 : values[values.length - 1] / 1e6);
+            }
+            System.out.println("\n错误分类:");
+            errors.forEach((op, byType) -> byType.forEach((type, count) ->
+                    System.out.printf("  %-16s %-60s %d%n", op, type, count)));
+            System.out.printf("%nInnoDB 行锁等待: %d 次, 合计 %d ms, 平均 %.2f ms, 最长 %d ms%n",
+                    lockWaits, lockWaitMillis, lockWaits == 0 ? 0.0 : (double) lockWaitMillis / lockWaits, lockWaitMaxMillis);
+            System.out.printf("一致性: 已售 %d, 订单项数量合计 %d, 已落库订单 %d, 超卖商品 %d%s%n",
+                    sold, orderedQuantity, persistedOrders, oversoldProducts,
+                    sold == orderedQuantity && oversoldProducts == 0 ? "" : " (不一致: 异步下单或 Redis 预扣尚未落库时属正常)");
+        }
+
+        Map<String, Object> toMap() {
+            double seconds = settings.duration.toMillis() / 1000.0;
+            Map<String, Object> operations = new LinkedHashMap<>();
+            for (Op op : Op.values()) {
+                long[] values = latencies.get(op);
+                Map<String, Object> stats = new LinkedHashMap<>();
+                stats.put("ok", values.length);
+                stats.put("throughputPerSecond", values.length / seconds);
+                stats.put("p50Millis", percentile(values, 0.50));
+                stats.put("p95Millis", percentile(values, 0.95));
+                stats.put("p99Millis", percentile(values, 0.99));
+                stats.put("maxMillis", values.length == 0 ? 0.0 : values[values.length - 1] / 1e6);
+                stats.put("errors", errors.getOrDefault(op, Map.of()));
+                operations.put(op.name(), stats);
+            }
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("users", settings.users);
+            map.put("products", settings.products);
+            map.put("concurrency", settings.concurrency);
+            map.put("skew", settings.skew);
+            map.put("durationSeconds", seconds);
+            map.put("operations", operations);
+            map.put("lockWaits", lockWaits);
+            map.put("lockWaitMillis", lockWaitMillis);
+            map.put("lockWaitMaxMillis", lockWaitMaxMillis);
+            map.put("sold", sold);
+            map.put("orderedQuantity", orderedQuantity);
+            map.put("persistedOrders", persistedOrders);
+            map.put("oversoldProducts", oversoldProducts);
+            return map;
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("无法识别的参数: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    private static Duration duration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        if (value.endsWith("s")) {
+            return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        if (value.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(value));
+    }
+}
@@ -0,0 +1,82 @@
+package online.store.benchmark;
+
+import online.store.enums.ProductStatus;
+import online.store.pojo.Product;
+import online.store.vo.product.ProductDetail;
+import online.store.vo.product.ProductPublic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品实体到 VO 的转换基准测试
+ * <p>对比 ProductServiceImpl 中使用的 BeanUtils.copyProperties (反射, 属性描述符有缓存) 与手写 setter 复制</p>
+ * <p>线程数通过 -t 指定, 或使用 {@link HotPathBenchmarks} 依次以多个线程数运行</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductMappingBenchmark {
+
+    private Product product;
+
+    @Setup
+    public void setUp() {
+        product = new Product();
+        product.setId(1971234567890123456L);
+        product.setName("华为手机 0000001");
+        product.setDescription("型号 1, 旗舰新品, 支持快充");
+        product.setImageUrl("https://example.com/images/1.png");
+        product.setPrice(new BigDecimal("4999.00"));
+        product.setCostPrice(new BigDecimal("3999.00"));
+        product.setStock(100);
+        product.setCategoryId(1);
+        product.setStatus(ProductStatus.ON_SALE);
+        product.setMerchantId(1001L);
+        product.setCreatedTime(LocalDateTime.now());
+        product.setUpdatedTime(LocalDateTime.now());
+    }
+
+    @Benchmark
+    public ProductDetail copyPropertiesDetail() {
+        ProductDetail vo = new ProductDetail();
+        BeanUtils.copyProperties(product, vo);
+        return vo;
+    }
+
+    @Benchmark
+    public ProductPublic copyPropertiesPublic() {
+        ProductPublic vo = new ProductPublic();
+        BeanUtils.copyProperties(product, vo);
+        return vo;
+    }
+
+    @Benchmark
+    public ProductPublic manualPublic() {
+        ProductPublic vo = new ProductPublic();
+        vo.setId(product.getId());
+        vo.setName(product.getName());
+        vo.setDescription(product.getDescription());
+        vo.setImageUrl(product.getImageUrl());
+        vo.setPrice(product.getPrice());
+        vo.setStock(product.getStock());
+        vo.setCategoryId(product.getCategoryId());
+        vo.setStatus(product.getStatus());
+        return vo;
+    }
+}
@@ -0,0 +1,69 @@
+package online.store.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import online.store.enums.ProductStatus;
+import online.store.pojo.Result;
+import online.store.vo.product.ProductPublic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 接口响应 Result JSON 序列化基准测试
+ * <p>ObjectMapper 与 Spring MVC 一样通过 Jackson2ObjectMapperBuilder 构建, size 为商品列表的条数 (每页大小)</p>
+ * <p>线程数通过 -t 指定, 或使用 {@link HotPathBenchmarks} 依次以多个线程数运行</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResultSerializationBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+
+    private Result<List<ProductPublic>> result;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        List<ProductPublic> products = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ProductPublic product = new ProductPublic();
+            product.setId(1971234567890123456L + i);
+            product.setName("华为手机 " + i);
+            product.setDescription("型号 " + i + ", 旗舰新品, 支持快充");
+            product.setImageUrl("https://example.com/images/" + i + ".png");
+            product.setPrice(new BigDecimal("4999.00"));
+            product.setStock(100);
+            product.setCategoryId(1);
+            product.setStatus(ProductStatus.ON_SALE);
+            products.add(product);
+        }
+        result = Result.success(products);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(result);
+    }
+}
@@ -0,0 +1,98 @@
+package online.store.benchmark;
+
+import online.store.common.utils.SnowflakeIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snowflake ID 生成器基准测试
+ * <p>对比原 synchronized 实现与 CAS 实现在多线程下的吞吐量</p>
+ * <p>默认使用全部 CPU 线程, 可通过 -Djmh.args="SnowflakeIdGeneratorBenchmark -t 1" 测试单线程</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(Threads.MAX)
+public class SnowflakeIdGeneratorBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private LegacySnowflakeIdGenerator legacy;
+
+    private SnowflakeIdGenerator lockFree;
+
+    @Setup
+    public void setUp() {
+        legacy = new LegacySnowflakeIdGenerator(1L, 1L);
+        lockFree = new SnowflakeIdGenerator(1L, 1L);
+    }
+
+    @Benchmark
+    public long legacyNextId() {
+        return legacy.nextId();
+    }
+
+    @Benchmark
+    public long lockFreeNextId() {
+        return lockFree.nextId();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long[] lockFreeNextIds() {
+        return lockFree.nextIds(BATCH_SIZE);
+    }
+
+    /**
+     * 原实现: synchronized 方法, 序列号耗尽时自旋等待下一毫秒
+     */
+    static class LegacySnowflakeIdGenerator {
+
+        private static final long TWEPOCH = 1757235720000L;
+        private static final long SEQUENCE_MASK = 4095L;
+
+        private final long workerId;
+        private final long datacenterId;
+        private long sequence = 0L;
+        private long lastTimestamp = -1L;
+
+        LegacySnowflakeIdGenerator(long workerId, long datacenterId) {
+            this.workerId = workerId;
+            this.datacenterId = datacenterId;
+        }
+
+        synchronized long nextId() {
+            long timestamp = System.currentTimeMillis();
+            if (timestamp < lastTimestamp) {
+                throw new IllegalStateException("Clock moved backwards");
+            }
+            if (lastTimestamp == timestamp) {
+                sequence = (sequence + 1) & SEQUENCE_MASK;
+                if (sequence == 0) {
+                    while (timestamp <= lastTimestamp) {
+                        timestamp = System.currentTimeMillis();
+                    }
+                }
+            } else {
+                sequence = 0L;
+            }
+            lastTimestamp = timestamp;
+            return ((timestamp - TWEPOCH) << 22) | (datacenterId << 17) | (workerId << 12) | sequence;
+        }
+    }
+}
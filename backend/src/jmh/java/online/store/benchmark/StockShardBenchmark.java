@@ -0,0 +1,184 @@
+package online.store.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 热点商品库存分片压测
+ * <p>多个线程同时购买同一个商品, 每次操作是一个完整的下单事务: 扣减库存分片、扣减用户余额、写入订单,
+ * 与 StockShardServiceImpl.deduct 及 OrderServiceImpl 分片下单路径执行的 SQL 一致。shards=1 相当于未分片的单行库存</p>
+ * <p>需要可用的 MySQL, 表在独立的 store_benchmark 库中创建, 不影响业务库。连接信息通过环境变量配置:
+ * STORE_BENCH_JDBC_URL (默认 jdbc:mysql://127.0.0.1:3306/store_benchmark), STORE_BENCH_DB_USER (默认 root), STORE_BENCH_DB_PASSWORD</p>
+ * <p>运行: mvn -P benchmarks test-compile exec:exec -Djmh.args="StockShardBenchmark"; 结果为每秒完成的订单数</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@Threads(32)
+public class StockShardBenchmark {
+
+    private static final long PRODUCT_ID = 1L;
+
+    private static final int USER_COUNT = 1000;
+
+    @Param({"1", "4", "16", "32"})
+    public int shards;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS product_stock_shard (" +
+                    "product_id BIGINT UNSIGNED NOT NULL, shard_no TINYINT UNSIGNED NOT NULL, stock INT NOT NULL DEFAULT 0, " +
+                    "updated_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, " +
+                    "PRIMARY KEY (product_id, shard_no)) ENGINE=InnoDB");
+            statement.execute("CREATE TABLE IF NOT EXISTS `user` (" +
+                    "id BIGINT UNSIGNED NOT NULL, balance DECIMAL(15,2) NOT NULL DEFAULT 0.00, PRIMARY KEY (id)) ENGINE=InnoDB");
+            statement.execute("CREATE TABLE IF NOT EXISTS orders (" +
+                    "id BIGINT UNSIGNED NOT NULL AUTO_INCREMENT, user_id BIGINT UNSIGNED NOT NULL, product_id BIGINT UNSIGNED NOT NULL, " +
+                    "total_amount DECIMAL(15,2) NOT NULL, PRIMARY KEY (id)) ENGINE=InnoDB");
+            statement.execute("TRUNCATE TABLE product_stock_shard");
+            statement.execute("TRUNCATE TABLE `user`");
+            statement.execute("TRUNCATE TABLE orders");
+
+            // 库存和余额足够整个压测期间使用, 不会因售罄提前结束
+            int stockPerShard = 100_000_000 / shards;
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO product_stock_shard (product_id, shard_no, stock) VALUES (?, ?, ?)")) {
+                for (int i = 0; i < shards; i++) {
+                    insert.setLong(1, PRODUCT_ID);
+                    insert.setInt(2, i);
+                    insert.setInt(3, stockPerShard);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+            try (PreparedStatement insert = connection.prepareStatement("INSERT INTO `user` (id, balance) VALUES (?, 100000000)")) {
+                for (int i = 1; i <= USER_COUNT; i++) {
+                    insert.setLong(1, i);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        }
+    }
+
+    /**
+     * 每个压测线程独占一个数据库连接, 模拟连接池中的一个连接
+     */
+    @State(Scope.Thread)
+    public static class Session {
+
+        private static final AtomicInteger NEXT_USER = new AtomicInteger();
+
+        private Connection connection;
+        private PreparedStatement selectShards;
+        private PreparedStatement deductShard;
+        private PreparedStatement deductBalance;
+        private PreparedStatement insertOrder;
+        private long userId;
+
+        @Setup(Level.Trial)
+        public void open() throws SQLException {
+            connection = connect();
+            connection.setAutoCommit(false);
+            selectShards = connection.prepareStatement(
+                    "SELECT shard_no FROM product_stock_shard WHERE product_id = ? AND stock >= ?");
+            deductShard = connection.prepareStatement(
+                    "UPDATE product_stock_shard SET stock = stock - ? WHERE product_id = ? AND shard_no = ? AND stock >= ?");
+            deductBalance = connection.prepareStatement(
+                    "UPDATE `user` SET balance = balance - ? WHERE id = ? AND balance >= ?");
+            insertOrder = connection.prepareStatement(
+                    "INSERT INTO orders (user_id, product_id, total_amount) VALUES (?, ?, ?)");
+            userId = NEXT_USER.incrementAndGet() % USER_COUNT + 1;
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Benchmark
+    public boolean order(Session session) throws SQLException {
+        try {
+            boolean deducted = deductRandomShard(session, 1);
+            session.deductBalance.setInt(1, 1);
+            session.deductBalance.setLong(2, session.userId);
+            session.deductBalance.setInt(3, 1);
+            session.deductBalance.executeUpdate();
+            session.insertOrder.setLong(1, session.userId);
+            session.insertOrder.setLong(2, PRODUCT_ID);
+            session.insertOrder.setInt(3, 1);
+            session.insertOrder.executeUpdate();
+            session.connection.commit();
+            return deducted;
+        } catch (SQLException e) {
+            session.connection.rollback();
+            throw e;
+        }
+    }
+
+    /**
+     * 快照读找出库存充足的分片, 从随机位置开始依次尝试扣减
+     */
+    private static boolean deductRandomShard(Session session, int quantity) throws SQLException {
+        List<Integer> candidates = new ArrayList<>();
+        session.selectShards.setLong(1, PRODUCT_ID);
+        session.selectShards.setInt(2, quantity);
+        try (ResultSet rs = session.selectShards.executeQuery()) {
+            while (rs.next()) {
+                candidates.add(rs.getInt(1));
+            }
+        }
+        int size = candidates.size();
+        int start = size > 1 ? ThreadLocalRandom.current().nextInt(size) : 0;
+        for (int i = 0; i < size; i++) {
+            session.deductShard.setInt(1, quantity);
+            session.deductShard.setLong(2, PRODUCT_ID);
+            session.deductShard.setInt(3, candidates.get((start + i) % size));
+            session.deductShard.setInt(4, quantity);
+            if (session.deductShard.executeUpdate() == 1) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Connection connect() throws SQLException {
+        String url = env("STORE_BENCH_JDBC_URL",
+                "jdbc:mysql://127.0.0.1:3306/store_benchmark?createDatabaseIfNotExist=true&useSSL=false&allowPublicKeyRetrieval=true");
+        return DriverManager.getConnection(url, env("STORE_BENCH_DB_USER", "root"), env("STORE_BENCH_DB_PASSWORD", ""));
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
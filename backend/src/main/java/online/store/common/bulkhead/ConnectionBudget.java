@@ -0,0 +1,24 @@
+package online.store.common.bulkhead;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 数据库连接预算
+ * <p>标注的 Bean 方法在执行前获取指定预算的许可, 预算用尽且等待超时后抛出 ServiceBusyException (503),
+ * 不再排队等待连接池; 预算见 connection-budget.budgets</p>
+ * <p>与其他 Spring 代理一样, 同一个类内部的方法调用不经过预算检查</p>
+ */
+@Documented
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConnectionBudget {
+
+    /**
+     * 预算名称, 见 {@link ConnectionBudgets#WRITE} 与 {@link ConnectionBudgets#READ}
+     */
+    String value();
+}
@@ -0,0 +1,31 @@
+package online.store.common.bulkhead;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 连接预算切面
+ * <p>优先级最高, 在事务和其他切面之外获取许可, 等待许可期间不占用数据库连接</p>
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class ConnectionBudgetAspect {
+
+    private final ConnectionBudgets connectionBudgets;
+
+    public ConnectionBudgetAspect(ConnectionBudgets connectionBudgets) {
+        this.connectionBudgets = connectionBudgets;
+    }
+
+    @Around("@annotation(budget)")
+    public Object limit(ProceedingJoinPoint joinPoint, ConnectionBudget budget) throws Throwable {
+        try (ConnectionBudgets.Permit ignored = connectionBudgets.acquire(budget.value())) {
+            return joinPoint.proceed();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package online.store.common.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import online.store.common.exception.ServiceBusyException;
+import online.store.config.ConnectionBudgetConfig;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 数据库连接预算 (舱壁)
+ * <p>所有请求共用一个连接池, 用信号量限制每类请求同时占用的连接数: 长事务的下单、充值请求用尽写预算后,
+ * 商品浏览仍可从读预算获得连接, 反之亦然; 预算用尽时快速失败, 而不是在连接池上排队直到超时</p>
+ * <p>指标: store.db.budget.active / store.db.budget.limit (当前占用与上限), store.db.budget.wait (获取许可的等待时间),
+ * store.db.budget.rejected (等待超时被拒绝的请求数), 标签 budget 为预算名称;
+ * 连接池本身的饱和度见 hikaricp.connections.*</p>
+ */
+@Component
+public class ConnectionBudgets {
+
+    /**
+     * 事务写路径: 下单、购物车结算、非账本模式充值
+     */
+    public static final String WRITE = "write";
+
+    /**
+     * 只读路径: 商品列表
+     */
+    public static final String READ = "read";
+
+    private static final Permit UNLIMITED = () -> {
+    };
+
+    private final ConnectionBudgetConfig config;
+
+    private final Map<String, Bulkhead> bulkheads;
+
+    public ConnectionBudgets(ConnectionBudgetConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.bulkheads = config.getBudgets().entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey,
+                        entry -> new Bulkhead(entry.getKey(), entry.getValue(), meterRegistry)));
+    }
+
+    /**
+     * 获取预算许可, 使用完毕后关闭以归还
+     * @param name 预算名称, 未配置的名称不限制
+     * @return 许可
+     * @throws ServiceBusyException 预算用尽且等待超时
+     */
+    public Permit acquire(String name) {
+        Bulkhead bulkhead = config.isEnabled() ? bulkheads.get(name) : null;
+        return bulkhead == null ? UNLIMITED : bulkhead.acquire();
+    }
+
+    /**
+     * 在预算内执行任务, 用于同一个类内部不经过代理的调用
+     * @param name 预算名称
+     * @param task 任务
+     * @return 任务结果
+     */
+    public <T> T call(String name, Supplier<T> task) {
+        try (Permit ignored = acquire(name)) {
+            return task.get();
+        }
+    }
+
+    /**
+     * 预算许可
+     */
+    public interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+
+    private static final class Bulkhead {
+
+        private final Semaphore semaphore;
+
+        private final long maxWaitNanos;
+
+        private final Timer waitTimer;
+
+        private final Counter rejected;
+
+        Bulkhead(String name, ConnectionBudgetConfig.Budget budget, MeterRegistry meterRegistry) {
+            this.semaphore = new Semaphore(budget.getPermits());
+            this.maxWaitNanos = budget.getMaxWait().toNanos();
+            this.waitTimer = Timer.builder("store.db.budget.wait")
+                    .description("获取连接预算许可的等待时间")
+                    .tag("budget", name)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("store.db.budget.rejected")
+                    .description("连接预算用尽被拒绝的请求数")
+                    .tag("budget", name)
+                    .register(meterRegistry);
+            Gauge.builder("store.db.budget.active", semaphore, s -> budget.getPermits() - s.availablePermits())
+                    .description("占用连接预算的请求数")
+                    .tag("budget", name)
+                    .register(meterRegistry);
+            Gauge.builder("store.db.budget.limit", budget, ConnectionBudgetConfig.Budget::getPermits)
+                    .description("连接预算上限")
+                    .tag("budget", name)
+                    .register(meterRegistry);
+        }
+
+        Permit acquire() {
+            long start = System.nanoTime();
+            boolean acquired;
+            try {
+                acquired = semaphore.tryAcquire() || semaphore.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ServiceBusyException("请求已中断, 请重试");
+            } finally {
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (!acquired) {
+                rejected.increment();
+                throw new ServiceBusyException("系统繁忙, 请稍后重试");
+            }
+            return semaphore::release;
+        }
+    }
+}
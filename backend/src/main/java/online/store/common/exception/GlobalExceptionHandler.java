@@ -2,6 +2,8 @@ package online.store.common.exception;
 
 import io.swagger.v3.oas.annotations.Hidden;
 import jakarta.validation.ConstraintViolationException;
+import lombok.RequiredArgsConstructor;
+import online.store.common.metrics.BusinessMetrics;
 import online.store.pojo.Result;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -26,8 +28,11 @@ import java.util.Map;
  */
 @Hidden // 解除 @RestControllerAdvice 注解造成的冲突, 详见 https://stackoverflow.com/questions/79274106/how-to-use-both-restcontrolleradvice-and-swagger-ui-in-spring-boot
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final BusinessMetrics businessMetrics;
+
     /**
      * 处理所有自定义的业务逻辑异常 (继承自 BusinessException)。
      * <p>
@@ -42,9 +47,33 @@ public class GlobalExceptionHandler {
     public ResponseEntity<Result<Void>> handleBusinessException(BaseException e) {
         // TODO: 日志记录
         // log.warn("业务逻辑校验失败: {}", e.getMessage());
+        businessMetrics.rejected(e);
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(Result.error(e.getMessage()));
     }
 
+    /**
+     * 处理系统繁忙异常 (如下单队列已满), 客户端应稍后重试
+     * @param e ServiceBusyException 捕获的异常
+     * @return 503 Service Unavailable
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Result<?> handleServiceBusyException(ServiceBusyException e) {
+        businessMetrics.rejected(e);
+        return Result.error(e.getMessage());
+    }
+
+    /**
+     * 处理幂等键冲突异常, 客户端应稍后使用相同的幂等键重试, 或为新请求生成新的幂等键
+     * @param e IdempotencyConflictException 捕获的异常
+     * @return 409 Conflict
+     */
+    @ExceptionHandler(IdempotencyConflictException.class)
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Result<?> handleIdempotencyConflictException(IdempotencyConflictException e) {
+        return Result.error(e.getMessage());
+    }
+
     /**
      * 处理非法参数异常, 业务逻辑异常 (例如: 用户名已存在, 密码错误等)
      * @param e IllegalArgumentException 捕获的异常
@@ -0,0 +1,11 @@
+package online.store.common.exception;
+
+/**
+ * 幂等键冲突异常
+ * <p>相同幂等键的请求正在处理中, 或幂等键已被请求内容不同的请求使用, 返回 HTTP 409</p>
+ */
+public class IdempotencyConflictException extends BaseException {
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package online.store.common.exception;
+
+/**
+ * 订单不存在异常
+ */
+public class OrderNotFoundException extends BaseException {
+    public OrderNotFoundException(String message) {
+        super(message);
+    }
+}
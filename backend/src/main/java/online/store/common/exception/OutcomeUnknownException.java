@@ -0,0 +1,11 @@
+package online.store.common.exception;
+
+/**
+ * 处理结果未知异常
+ * <p>等待写入确认超时或被中断, 写操作可能仍会生效; 返回 HTTP 503, 客户端应先查询结果再决定是否重试</p>
+ */
+public class OutcomeUnknownException extends ServiceBusyException {
+    public OutcomeUnknownException(String message) {
+        super(message);
+    }
+}
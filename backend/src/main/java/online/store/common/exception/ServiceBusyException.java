@@ -0,0 +1,11 @@
+package online.store.common.exception;
+
+/**
+ * 系统繁忙异常
+ * <p>队列已满、资源耗尽等需要客户端稍后重试的情况, 返回 HTTP 503</p>
+ */
+public class ServiceBusyException extends BaseException {
+    public ServiceBusyException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,139 @@
+package online.store.common.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import online.store.config.RateLimitConfig;
+import online.store.pojo.Result;
+import online.store.service.common.RateLimiter;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 限流过滤器, 在 JWT 认证过滤器之后执行
+ * <p>按配置的路径规则和角色对用户或客户端IP限流, 超出限制直接返回 429, 不进入业务逻辑和数据库</p>
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final String ANONYMOUS = "ANONYMOUS";
+
+    private static final String ROLE_PREFIX = "ROLE_";
+
+    private final RateLimiter rateLimiter;
+
+    private final RateLimitConfig rateLimitConfig;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 预先解析的规则, 按配置顺序匹配
+     */
+    private final List<CompiledRule> rules;
+
+    private record CompiledRule(RateLimitConfig.Rule rule, PathPattern pattern, Set<String> methods) {
+    }
+
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitConfig rateLimitConfig, ObjectMapper objectMapper) {
+        this.rateLimiter = rateLimiter;
+        this.rateLimitConfig = rateLimitConfig;
+        this.objectMapper = objectMapper;
+        this.rules = rateLimitConfig.getRules().stream()
+                .map(rule -> new CompiledRule(rule, PathPatternParser.defaultInstance.parse(rule.getPattern()),
+                        rule.getMethods().stream().map(method -> method.toUpperCase(Locale.ROOT)).collect(Collectors.toSet())))
+                .toList();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        CompiledRule matched = rateLimitConfig.isEnabled() ? match(request) : null;
+        if (matched == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        RateLimitConfig.Rule rule = matched.rule();
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean authenticated = authentication != null && authentication.isAuthenticated()
+                && !"anonymousUser".equals(authentication.getPrincipal());
+
+        // 按角色确定限额, 0 表示不限流
+        int capacity = rule.getCapacity();
+        if (!rule.getRoles().isEmpty()) {
+            Integer roleCapacity = rule.getRoles().get(authenticated ? role(authentication) : ANONYMOUS);
+            if (roleCapacity != null) {
+                capacity = roleCapacity;
+            }
+        }
+        if (capacity <= 0) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String key = rule.getKey() == RateLimitConfig.KeyType.USER && authenticated
+                ? rule.getName() + ":u:" + authentication.getName()
+                : rule.getName() + ":ip:" + clientIp(request);
+        long waitMillis = rateLimiter.acquire(key, capacity, rule.getPeriod());
+        if (waitMillis > 0) {
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf((waitMillis + 999) / 1000));
+            response.setContentType("application/json;charset=UTF-8");
+            response.getWriter().write(objectMapper.writeValueAsString(Result.error("请求过于频繁, 请稍后重试")));
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private CompiledRule match(HttpServletRequest request) {
+        if (rules.isEmpty()) {
+            return null;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+        for (CompiledRule rule : rules) {
+            if ((rule.methods().isEmpty() || rule.methods().contains(request.getMethod())) && rule.pattern().matches(path)) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 当前用户的角色名, 与 JWT 中的 role 一致 (大写, 不含 ROLE_ 前缀)
+     */
+    private static String role(Authentication authentication) {
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith(ROLE_PREFIX)) {
+                return name.substring(ROLE_PREFIX.length());
+            }
+        }
+        return ANONYMOUS;
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (rateLimitConfig.isTrustForwardedFor()) {
+            String forwarded = request.getHeader("X-Forwarded-For");
+            if (StringUtils.hasText(forwarded)) {
+                int comma = forwarded.indexOf(',');
+                return (comma < 0 ? forwarded : forwarded.substring(0, comma)).trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,53 @@
+package online.store.common.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+/**
+ * 业务指标
+ * <p>store.orders.created: 已提交的订单数; store.balance.recharges: 已提交的充值次数;
+ * store.business.rejections: 被业务规则拒绝的请求数, 标签 exception 为异常类型
+ * (InsufficientStockException 即售罄, InsufficientBalanceException 即余额不足)</p>
+ */
+@Component
+public class BusinessMetrics {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Counter ordersCreated;
+
+    private final Counter recharges;
+
+    public BusinessMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.ordersCreated = Counter.builder("store.orders.created").description("已提交的订单数").register(meterRegistry);
+        this.recharges = Counter.builder("store.balance.recharges").description("已提交的充值次数").register(meterRegistry);
+    }
+
+    /**
+     * 订单事务已提交
+     */
+    public void orderCreated() {
+        ordersCreated.increment();
+    }
+
+    /**
+     * 充值事务已提交
+     */
+    public void recharged() {
+        recharges.increment();
+    }
+
+    /**
+     * 请求被业务规则拒绝
+     * @param exception 拒绝原因对应的异常
+     */
+    public void rejected(Exception exception) {
+        Counter.builder("store.business.rejections")
+                .description("被业务规则拒绝的请求数")
+                .tag("exception", exception.getClass().getSimpleName())
+                .register(meterRegistry)
+                .increment();
+    }
+}
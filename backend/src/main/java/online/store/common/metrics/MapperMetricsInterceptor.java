@@ -0,0 +1,86 @@
+package online.store.common.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import online.store.config.MetricsConfig;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Mapper 语句指标拦截器
+ * <p>记录每条 Mapper 语句的耗时 (store.mapper) 和查询返回/更新影响的行数 (store.mapper.rows),
+ * 标签 statement 为 Mapper 接口名.方法名。MyBatis-Plus 自动配置会把容器中的 Interceptor 注册为插件</p>
+ */
+@Component
+@Intercepts({
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class, CacheKey.class, BoundSql.class})
+})
+public class MapperMetricsInterceptor implements Interceptor {
+
+    private final MeterRegistry meterRegistry;
+
+    private final MetricsConfig metricsConfig;
+
+    public MapperMetricsInterceptor(MeterRegistry meterRegistry, MetricsConfig metricsConfig) {
+        this.meterRegistry = meterRegistry;
+        this.metricsConfig = metricsConfig;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        if (!metricsConfig.isMapperTimers()) {
+            return invocation.proceed();
+        }
+        MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+        String name = shortName(statement.getId());
+        String command = statement.getSqlCommandType().name();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            Object result = invocation.proceed();
+            long rows = result instanceof List<?> list ? list.size() : result instanceof Integer count ? count : 0;
+            DistributionSummary.builder("store.mapper.rows")
+                    .description("Mapper 语句查询返回或更新影响的行数")
+                    .tag("statement", name)
+                    .tag("command", command)
+                    .register(meterRegistry)
+                    .record(rows);
+            return result;
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("store.mapper")
+                    .description("Mapper 语句耗时")
+                    .tag("statement", name)
+                    .tag("command", command)
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * online.store.mapper.UserMapper.selectById -> UserMapper.selectById
+     */
+    private static String shortName(String id) {
+        int method = id.lastIndexOf('.');
+        int type = method > 0 ? id.lastIndexOf('.', method - 1) : -1;
+        return type >= 0 ? id.substring(type + 1) : id;
+    }
+}
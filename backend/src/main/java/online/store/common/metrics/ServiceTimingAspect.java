@@ -0,0 +1,52 @@
+package online.store.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import online.store.config.MetricsConfig;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * 服务方法耗时切面
+ * <p>记录所有 @Service 类公共方法的耗时到 store.service 计时器, 标签为类名、方法名和抛出的异常类型。
+ * 事务方法的耗时包含持有行锁的时间, 例如 OrderServiceImpl.createOrderAndPay</p>
+ * <p>同一个类内部的方法调用不经过代理, 不会重复记录</p>
+ */
+@Aspect
+@Component
+public class ServiceTimingAspect {
+
+    private final MeterRegistry meterRegistry;
+
+    private final MetricsConfig metricsConfig;
+
+    public ServiceTimingAspect(MeterRegistry meterRegistry, MetricsConfig metricsConfig) {
+        this.meterRegistry = meterRegistry;
+        this.metricsConfig = metricsConfig;
+    }
+
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * *(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!metricsConfig.isServiceTimers()) {
+            return joinPoint.proceed();
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String exception = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder("store.service")
+                    .description("服务方法耗时")
+                    .tag("class", AopUtils.getTargetClass(joinPoint.getTarget()).getSimpleName())
+                    .tag("method", joinPoint.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(meterRegistry));
+        }
+    }
+}
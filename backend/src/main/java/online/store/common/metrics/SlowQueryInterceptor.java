@@ -0,0 +1,82 @@
+package online.store.common.metrics;
+
+import com.baomidou.mybatisplus.core.toolkit.PluginUtils;
+import online.store.service.common.SlowQueryLog;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 慢查询拦截器
+ * <p>在 StatementHandler 上计时, 耗时只包含语句执行与结果映射, 分页插件改写后的最终 SQL 也在此时确定;
+ * 达到阈值的语句交给 {@link SlowQueryLog} 记录。MyBatis-Plus 的 InnerInterceptor 只有执行前回调, 无法计时</p>
+ */
+@Component
+@Intercepts({
+        @Signature(type = StatementHandler.class, method = "query", args = {Statement.class, ResultHandler.class}),
+        @Signature(type = StatementHandler.class, method = "update", args = {Statement.class})
+})
+public class SlowQueryInterceptor implements Interceptor {
+
+    private final SlowQueryLog slowQueryLog;
+
+    public SlowQueryInterceptor(SlowQueryLog slowQueryLog) {
+        this.slowQueryLog = slowQueryLog;
+    }
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (slowQueryLog.isSlow(elapsed)) {
+                PluginUtils.MPStatementHandler handler = PluginUtils.mpStatementHandler(PluginUtils.realTarget(invocation.getTarget()));
+                slowQueryLog.record(handler.mappedStatement().getId(), handler.boundSql().getSql(), elapsed,
+                        () -> handler.mappedStatement().getStatementType() == StatementType.PREPARED
+                                ? captureParameters(handler.parameterHandler()) : null);
+            }
+        }
+    }
+
+    /**
+     * 让 ParameterHandler 向一个只记录参数的 PreparedStatement 设置参数, 得到占位符对应的参数值,
+     * 参数经过与实际执行相同的 TypeHandler 转换
+     * @return 按占位符顺序的参数值, 无法获取时返回 null
+     */
+    private static List<Object> captureParameters(ParameterHandler parameterHandler) {
+        List<Object> values = new ArrayList<>();
+        PreparedStatement recorder = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("set") && args != null && args.length >= 2
+                            && args[0] instanceof Integer index) {
+                        while (values.size() < index) {
+                            values.add(null);
+                        }
+                        values.set(index - 1, method.getName().equals("setNull") ? null : args[1]);
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        try {
+            parameterHandler.setParameters(recorder);
+            return values;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
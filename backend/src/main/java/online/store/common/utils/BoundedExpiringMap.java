@@ -0,0 +1,113 @@
+package online.store.common.utils;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntSupplier;
+
+/**
+ * 有容量上限、条目按过期时间失效的并发 Map, 用于各类本地缓存
+ * <p>写入时条目数达到上限则先清理已过期的条目, 仍然超限时额外丢弃约 10% 的条目 (不保证淘汰顺序),
+ * 清理开销分摊到多次写入; 读取到已过期的条目时将其移除并视为未命中</p>
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class BoundedExpiringMap<K, V> {
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    /**
+     * 条目数上限, 每次写入时读取, 配置变化后立即生效
+     */
+    private final IntSupplier maxSize;
+
+    /**
+     * @param maxSize 返回条目数上限的函数
+     */
+    public BoundedExpiringMap(IntSupplier maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 获取未过期的值
+     * @param key 键
+     * @param now 当前时间戳(毫秒)
+     * @return 值, 不存在或已过期时返回 null
+     */
+    public V get(K key, long now) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expireAt() <= now) {
+            entries.remove(key, entry);
+            return null;
+        }
+        return entry.value();
+    }
+
+    /**
+     * 获取未过期的值
+     * @param key 键
+     * @return 值, 不存在或已过期时返回 null
+     */
+    public V get(K key) {
+        return get(key, System.currentTimeMillis());
+    }
+
+    /**
+     * 写入值, 条目数达到上限时先清理
+     * @param key 键
+     * @param value 值
+     * @param expireAt 过期时间戳(毫秒)
+     * @return 是否因超出上限丢弃了未过期的条目
+     */
+    public boolean put(K key, V value, long expireAt) {
+        int max = maxSize.getAsInt();
+        boolean dropped = entries.size() >= max && evict(max, System.currentTimeMillis());
+        entries.put(key, new Entry<>(value, expireAt));
+        return dropped;
+    }
+
+    /**
+     * 移除条目
+     * @param key 键
+     */
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * 清空全部条目
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return 当前条目数 (含尚未清理的过期条目)
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * 清理已过期的条目, 仍然超限则丢弃部分条目
+     * @return 是否丢弃了未过期的条目
+     */
+    private boolean evict(int max, long now) {
+        entries.values().removeIf(entry -> entry.expireAt() <= now);
+        int overflow = entries.size() - max + max / 10;
+        boolean dropped = false;
+        Iterator<K> iterator = entries.keySet().iterator();
+        while (overflow-- > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            dropped = true;
+        }
+        return dropped;
+    }
+
+    private record Entry<V>(V value, long expireAt) {
+    }
+}
@@ -0,0 +1,64 @@
+package online.store.common.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 缓存命中计数器
+ * <p>使用 LongAdder 计数, 高并发下累加无竞争</p>
+ */
+public class CacheStats {
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder loads = new LongAdder();
+
+    private final LongAdder totalLoadNanos = new LongAdder();
+
+    /**
+     * 记录一次命中
+     */
+    public void recordHit() {
+        hits.increment();
+    }
+
+    /**
+     * 记录一次未命中
+     */
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    /**
+     * 记录一次未命中后加载 (查询数据库、验签等) 的耗时
+     * @param nanos 耗时(纳秒)
+     */
+    public void recordLoadTime(long nanos) {
+        loads.increment();
+        totalLoadNanos.add(nanos);
+    }
+
+    /**
+     * 获取当前计数快照
+     * @return 命中次数、未命中次数、命中率及平均加载耗时
+     */
+    public Snapshot snapshot() {
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+        long loadCount = loads.sum();
+        return new Snapshot(hitCount, missCount, total == 0 ? 0.0 : (double) hitCount / total,
+                loadCount == 0 ? 0.0 : totalLoadNanos.sum() / 1000.0 / loadCount);
+    }
+
+    /**
+     * 计数快照
+     * @param hits 命中次数
+     * @param misses 未命中次数
+     * @param hitRate 命中率 (0~1)
+     * @param averageLoadMicros 平均加载耗时(微秒)
+     */
+    public record Snapshot(long hits, long misses, double hitRate, double averageLoadMicros) {
+    }
+}
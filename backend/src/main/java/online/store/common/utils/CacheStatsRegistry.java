@@ -0,0 +1,36 @@
+package online.store.common.utils;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存命中计数器注册表
+ * <p>各缓存按名称注册计数器, 统一通过管理接口查看命中率</p>
+ */
+@Component
+public class CacheStatsRegistry {
+
+    private final Map<String, CacheStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * 获取或创建指定名称的计数器
+     * @param name 缓存名称
+     * @return 计数器
+     */
+    public CacheStats register(String name) {
+        return stats.computeIfAbsent(name, key -> new CacheStats());
+    }
+
+    /**
+     * 获取所有缓存的计数快照
+     * @return 缓存名称到计数快照的映射, 按名称排序
+     */
+    public Map<String, CacheStats.Snapshot> snapshot() {
+        Map<String, CacheStats.Snapshot> result = new TreeMap<>();
+        stats.forEach((name, counter) -> result.put(name, counter.snapshot()));
+        return result;
+    }
+}
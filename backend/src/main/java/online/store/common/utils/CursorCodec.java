@@ -0,0 +1,101 @@
+package online.store.common.utils;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import online.store.config.JwtConfig;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * 分页游标编解码工具
+ * <p>游标对客户端不透明: 内容 Base64URL 编码并附带 HMAC 签名, 防止客户端篡改游标中的位置信息</p>
+ * <p>签名密钥由 JWT 密钥以带标签的 HMAC 派生 (HMAC-SHA256(JWT 密钥, 标签)), 与 JWT 签名密钥不同:
+ * 游标签名不能被当作 Token 签名使用, 反之亦然</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class CursorCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    /**
+     * 签名截取的字节数
+     */
+    private static final int SIGNATURE_BYTES = 16;
+
+    /**
+     * 派生游标签名密钥的标签, 修改后已签发的游标全部失效
+     */
+    private static final String KEY_LABEL = "store/pagination-cursor/v1";
+
+    private final JwtConfig jwtConfig;
+
+    private SecretKeySpec key;
+
+    /**
+     * 初始化签名密钥, 由 JWT 密钥派生
+     */
+    @PostConstruct
+    public void init() {
+        SecretKeySpec master = new SecretKeySpec(jwtConfig.getSecret().getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        key = new SecretKeySpec(hmac(master, KEY_LABEL.getBytes(StandardCharsets.UTF_8)), ALGORITHM);
+    }
+
+    /**
+     * 编码游标
+     * @param payload 游标内容
+     * @return 不透明的游标字符串
+     */
+    public String encode(String payload) {
+        byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        return encoder.encodeToString(data) + "." + encoder.encodeToString(sign(data));
+    }
+
+    /**
+     * 解码游标
+     * @param cursor 游标字符串
+     * @return 游标内容
+     * @throws IllegalArgumentException 游标格式错误或签名不匹配
+     */
+    public String decode(String cursor) {
+        int separator = cursor.indexOf('.');
+        if (separator <= 0) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        byte[] data;
+        byte[] signature;
+        try {
+            Base64.Decoder decoder = Base64.getUrlDecoder();
+            data = decoder.decode(cursor.substring(0, separator));
+            signature = decoder.decode(cursor.substring(separator + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+        if (!MessageDigest.isEqual(sign(data), signature)) {
+            throw new IllegalArgumentException("无效的分页游标");
+        }
+        return new String(data, StandardCharsets.UTF_8);
+    }
+
+    private byte[] sign(byte[] data) {
+        return Arrays.copyOf(hmac(key, data), SIGNATURE_BYTES);
+    }
+
+    private static byte[] hmac(SecretKeySpec key, byte[] data) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(data);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("游标签名失败", e);
+        }
+    }
+}
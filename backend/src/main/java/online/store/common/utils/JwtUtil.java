@@ -1,6 +1,7 @@
 package online.store.common.utils;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 
@@ -13,7 +14,10 @@ import online.store.config.JwtConfig;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -33,17 +37,34 @@ public class JwtUtil {
     @Getter
     private final JwtConfig jwtConfig;
 
+    private final CacheStatsRegistry cacheStatsRegistry;
+
     /**
      * JWT 加密密钥
      */
     private SecretKey key;
 
+    /**
+     * JWT 解析器, 线程安全, 初始化后复用
+     */
+    private JwtParser parser;
+
+    /**
+     * 已验证 Token 的 Claims 缓存, Key 为 Token 摘要, 条目在 Token 过期时失效
+     */
+    private BoundedExpiringMap<String, Claims> claimsCache;
+
+    private CacheStats claimsStats;
+
     /**
      * 初始化加密密钥
      */
     @PostConstruct
     public void init() {
         key = Keys.hmacShaKeyFor(jwtConfig.getSecret().getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(key).build();
+        claimsStats = cacheStatsRegistry.register("jwt-claims");
+        claimsCache = new BoundedExpiringMap<>(jwtConfig::getClaimsCacheSize);
     }
 
     /**
@@ -84,15 +105,31 @@ public class JwtUtil {
 
     /**
      * 解析并验证 JWT
+     * <p>验证通过的 Claims 按 Token 摘要缓存至 Token 过期, 同一 Token 再次解析时跳过解码与验签</p>
      * @param token 登录用户JWT
-     * @return 解析签名后的 Claims (包含 payload 数据)
+     * @return 解析签名后的 Claims (包含 payload 数据), 调用方不应修改
      */
     public Claims parseToken(String token) {
-        return Jwts.parser()
-                .verifyWith(key)
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        int cacheSize = jwtConfig.getClaimsCacheSize();
+        if (cacheSize <= 0) {
+            return parser.parseSignedClaims(token).getPayload();
+        }
+        String digest = digest(token);
+        Claims cached = claimsCache.get(digest);
+        if (cached != null) {
+            claimsStats.recordHit();
+            return cached;
+        }
+        claimsStats.recordMiss();
+
+        long start = System.nanoTime();
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        claimsStats.recordLoadTime(System.nanoTime() - start);
+
+        if (claims.getExpiration() != null) {
+            claimsCache.put(digest, claims, claims.getExpiration().getTime());
+        }
+        return claims;
     }
 
     /**
@@ -108,4 +145,19 @@ public class JwtUtil {
             return true;
         }
     }
+
+    /**
+     * 计算 Token 的 SHA-256 摘要, 作为 Token 相关缓存和 Redis Key 的固定长度标识
+     * @param token JWT Token
+     * @return Base64URL 编码的摘要 (43 字符)
+     */
+    public static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 不可用", e);
+        }
+    }
+
 }
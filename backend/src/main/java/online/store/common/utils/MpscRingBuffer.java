@@ -0,0 +1,120 @@
+package online.store.common.utils;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界无锁环形缓冲区, 多生产者单消费者
+ * <p>每个槽位带一个序号: 序号等于写入位置时可写, 等于写入位置+1 时可读。生产者通过 CAS 推进写入位置,
+ * 不加锁也不会钉住虚拟线程; 缓冲区满时 {@link #offer} 立即返回 false, 由调用方决定丢弃还是降级</p>
+ * <p>{@link #drainTo} 只能由同一个消费线程调用</p>
+ * @param <E> 元素类型
+ */
+public final class MpscRingBuffer<E> {
+
+    private final int mask;
+
+    private final AtomicReferenceArray<E> slots;
+
+    private final AtomicLongArray sequences;
+
+    /**
+     * 下一个写入位置, 生产者共享
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * 下一个读取位置, 只由消费线程修改
+     */
+    private volatile long head;
+
+    /**
+     * @param capacity 容量, 向上取整为 2 的幂
+     */
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be between 1 and 2^30");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * 写入一个元素 (线程安全, 无锁)
+     * @param element 元素, 不能为 null
+     * @return 缓冲区已满时返回 false
+     */
+    public boolean offer(E element) {
+        if (element == null) {
+            throw new NullPointerException("element");
+        }
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & mask);
+            long diff = sequences.get(index) - position;
+            if (diff == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, element);
+                    // 发布: 消费者看到新序号时一定能看到元素
+                    sequences.set(index, position + 1);
+                    return true;
+                }
+            } else if (diff < 0) {
+                // 槽位尚未被消费者释放, 缓冲区已满
+                return false;
+            }
+            // diff > 0: 其他生产者已占用该位置, 重读写入位置
+        }
+    }
+
+    /**
+     * 按写入顺序取出至多 maxElements 个元素, 只能由消费线程调用
+     * @param target 接收元素的集合
+     * @param maxElements 最多取出的元素数
+     * @return 实际取出的元素数
+     */
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        long position = head;
+        int drained = 0;
+        while (drained < maxElements) {
+            int index = (int) (position & mask);
+            if (sequences.get(index) != position + 1) {
+                // 为空, 或生产者已占用位置但尚未写入
+                break;
+            }
+            target.add(slots.get(index));
+            slots.set(index, null);
+            // 释放槽位, 供绕一圈后的写入位置使用
+            sequences.set(index, position + mask + 1);
+            position++;
+            drained++;
+        }
+        head = position;
+        return drained;
+    }
+
+    /**
+     * @return 当前元素数量的近似值
+     */
+    public int size() {
+        return (int) Math.max(0, tail.get() - head);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
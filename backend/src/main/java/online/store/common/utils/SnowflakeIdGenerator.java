@@ -1,6 +1,8 @@
 package online.store.common.utils;
 
-import org.springframework.stereotype.Component;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
 
 /**
  * Snowflake算法ID生成器
@@ -8,106 +10,201 @@ import org.springframework.stereotype.Component;
  * Snowflake ID组成:
  * 1 bit (符号位，固定为0) | 41 bits (时间戳，精确到毫秒) | 10 bits (机器ID) | 12 bits (序列号)
  * </p>
+ * <p>
+ * 时间戳与序列号打包在同一个 AtomicLong 中通过 CAS 推进, 无锁且不会钉住虚拟线程。
+ * 机器ID由配置或 Redis 租约分配 (见 {@link online.store.config.IdGeneratorConfig}), 多实例部署不会产生重复ID。
+ * </p>
  */
-@Component
 public class SnowflakeIdGenerator {
 
     // 起始时间戳(毫秒) (2025-09-07 17:02:00)
-    private final long twepoch = 1757235720000L;
+    private static final long TWEPOCH = 1757235720000L;
 
     // 机器ID所占位数
-    private final long workerIdBits = 5L;
+    private static final long WORKER_ID_BITS = 5L;
     // 数据中心ID所占位数
-    private final long datacenterIdBits = 5L;
+    private static final long DATACENTER_ID_BITS = 5L;
     // 支持的最大机器ID，结果是31
-    private final long maxWorkerId = -1L ^ (-1L << workerIdBits);
+    public static final long MAX_WORKER_ID = ~(-1L << WORKER_ID_BITS);
     // 支持的最大数据中心ID，结果是31
-    private final long maxDatacenterId = -1L ^ (-1L << datacenterIdBits);
+    public static final long MAX_DATACENTER_ID = ~(-1L << DATACENTER_ID_BITS);
 
     // 序列在ID中占的位数
-    private final long sequenceBits = 12L;
+    private static final long SEQUENCE_BITS = 12L;
     // 机器ID向左移12位
-    private final long workerIdShift = sequenceBits;
+    private static final long WORKER_ID_SHIFT = SEQUENCE_BITS;
     // 数据中心ID向左移17位(12+5)
-    private final long datacenterIdShift = sequenceBits + workerIdBits;
+    private static final long DATACENTER_ID_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
     // 时间截向左移22位(5+5+12)
-    private final long timestampLeftShift = sequenceBits + workerIdBits + datacenterIdBits;
+    private static final long TIMESTAMP_LEFT_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS + DATACENTER_ID_BITS;
 
     // 生成序列的掩码，这里为4095
-    private final long sequenceMask = -1L ^ (-1L << sequenceBits);
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+
+    /**
+     * 数据中心ID与机器ID左移后的组合, 直接与时间戳和序列号按位或
+     */
+    private volatile long nodeBits;
+
+    /**
+     * 允许的最大时钟偏差(毫秒): 时钟回拨不超过此值时继续使用上次的时间戳,
+     * 序列号耗尽时最多提前借用这么多毫秒
+     */
+    private final long maxClockSkewMillis;
 
-    private long workerId;
-    private long datacenterId;
-    private long sequence = 0L;
-    private long lastTimestamp = -1L;
+    /**
+     * 打包的生成状态: 高位为相对起始时间的毫秒数, 低12位为该毫秒内最后分配的序列号
+     */
+    private final AtomicLong state = new AtomicLong(-1L);
+
+    /**
+     * 机器ID有效期截止时间 ({@link System#nanoTime()}) 的来源, 为 null 时机器ID长期有效;
+     * Redis 租约模式下租约过期后拒绝生成ID, 避免其他实例租到同一机器ID后产生重复ID
+     */
+    private volatile LongSupplier nodeDeadline;
 
     /**
      * 构造函数
-     * workerId 工作ID (0~31)
-     * datacenterId 数据中心ID (0~31)
+     * @param workerId 工作ID (0~31)
+     * @param datacenterId 数据中心ID (0~31)
+     * @param maxClockSkewMillis 允许的最大时钟偏差(毫秒)
      */
-    public SnowflakeIdGenerator() {
-        // 在单体应用中，可以硬编码或从配置文件读取
-        long workerId = 1L;
-        long datacenterId = 1L;
-        if (workerId > maxWorkerId || workerId < 0) {
-            throw new IllegalArgumentException(String.format("Worker ID can't be greater than %d or less than 0", maxWorkerId));
+    public SnowflakeIdGenerator(long workerId, long datacenterId, long maxClockSkewMillis) {
+        if (maxClockSkewMillis < 0) {
+            throw new IllegalArgumentException("Max clock skew can't be less than 0");
         }
-        if (datacenterId > maxDatacenterId || datacenterId < 0) {
-            throw new IllegalArgumentException(String.format("Datacenter ID can't be greater than %d or less than 0", maxDatacenterId));
+        this.maxClockSkewMillis = maxClockSkewMillis;
+        updateNode(workerId, datacenterId);
+    }
+
+    /**
+     * 构造函数, 默认允许 5 毫秒的时钟偏差
+     * @param workerId 工作ID (0~31)
+     * @param datacenterId 数据中心ID (0~31)
+     */
+    public SnowflakeIdGenerator(long workerId, long datacenterId) {
+        this(workerId, datacenterId, 5L);
+    }
+
+    /**
+     * 更新机器ID, 用于 Redis 租约丢失后重新分配
+     * @param workerId 工作ID (0~31)
+     * @param datacenterId 数据中心ID (0~31)
+     */
+    public void updateNode(long workerId, long datacenterId) {
+        if (workerId > MAX_WORKER_ID || workerId < 0) {
+            throw new IllegalArgumentException(String.format("Worker ID can't be greater than %d or less than 0", MAX_WORKER_ID));
         }
-        this.workerId = workerId;
-        this.datacenterId = datacenterId;
+        if (datacenterId > MAX_DATACENTER_ID || datacenterId < 0) {
+            throw new IllegalArgumentException(String.format("Datacenter ID can't be greater than %d or less than 0", MAX_DATACENTER_ID));
+        }
+        this.nodeBits = (datacenterId << DATACENTER_ID_SHIFT) | (workerId << WORKER_ID_SHIFT);
     }
 
     /**
-     * 获得下一个ID (线程安全, 多线程可能重复)
-     * @return Snowflake ID
+     * 设置机器ID的有效期, 用于 Redis 租约模式
+     * @param nodeDeadline 返回机器ID有效期截止时间 ({@link System#nanoTime()}) 的函数, 每次生成ID时读取
      */
-    public synchronized long nextId() {
-        long timestamp = timeGen();
+    public void setNodeDeadline(LongSupplier nodeDeadline) {
+        this.nodeDeadline = nodeDeadline;
+    }
 
-        // 如果当前时间小于上一次ID生成的时间戳，说明系统时钟回退过，这个时候应当抛出异常
-        if (timestamp < lastTimestamp) {
-            throw new RuntimeException(
-                    String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - timestamp));
+    /**
+     * 获得下一个ID (线程安全, 无锁)
+     * @return Snowflake ID
+     */
+    public long nextId() {
+        checkNode();
+        while (true) {
+            long current = state.get();
+            long next = nextState(current);
+            if (next >= 0 && state.compareAndSet(current, next)) {
+                return compose(next);
+            }
         }
+    }
 
-        // 如果是同一时间生成的，则进行毫秒内序列
-        if (lastTimestamp == timestamp) {
-            sequence = (sequence + 1) & sequenceMask;
-            // 毫秒内序列溢出
-            if (sequence == 0) {
-                // 阻塞到下一个毫秒,获得新的时间戳
-                timestamp = tilNextMillis(lastTimestamp);
+    /**
+     * 批量获得ID, 一次 CAS 分配同一毫秒内的连续序列号
+     * @param n 需要的ID数量
+     * @return 按生成顺序递增的ID数组
+     */
+    public long[] nextIds(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n can't be less than 0");
+        }
+        checkNode();
+        long[] ids = new long[n];
+        int filled = 0;
+        while (filled < n) {
+            long current = state.get();
+            long first = nextState(current);
+            if (first < 0) {
+                continue;
+            }
+            // 当前毫秒剩余的序列号全部可一次分配
+            long take = Math.min(n - filled, SEQUENCE_MASK - (first & SEQUENCE_MASK) + 1);
+            long last = first + take - 1;
+            if (state.compareAndSet(current, last)) {
+                for (long s = first; s <= last; s++) {
+                    ids[filled++] = compose(s);
+                }
             }
         }
+        return ids;
+    }
+
+    /**
+     * 根据当前状态计算下一个状态
+     * @param current 当前状态
+     * @return 下一个状态; 序列号耗尽且借用时间已达上限时返回 -1, 调用方重试
+     */
+    private long nextState(long current) {
+        long now = timeGen() - TWEPOCH;
+        if (current < 0) {
+            return now << SEQUENCE_BITS;
+        }
+        long lastTimestamp = current >>> SEQUENCE_BITS;
+
         // 时间戳改变，毫秒内序列重置
-        else {
-            sequence = 0L;
+        if (now > lastTimestamp) {
+            return now << SEQUENCE_BITS;
         }
 
-        // 上次生成ID的时间截
-        lastTimestamp = timestamp;
+        // 同一毫秒或时钟轻微回拨: 继续使用上次的时间戳, 超过容忍范围则拒绝生成
+        if (lastTimestamp - now > maxClockSkewMillis) {
+            throw new IllegalStateException(
+                    String.format("Clock moved backwards.  Refusing to generate id for %d milliseconds", lastTimestamp - now));
+        }
+        if ((current & SEQUENCE_MASK) < SEQUENCE_MASK) {
+            return current + 1;
+        }
 
-        // 移位并通过或运算拼到一起组成64位的ID
-        return ((timestamp - twepoch) << timestampLeftShift)
-                | (datacenterId << datacenterIdShift)
-                | (workerId << workerIdShift)
-                | sequence;
+        // 毫秒内序列溢出: 借用下一毫秒, 超出借用上限时短暂等待时钟追上
+        if (lastTimestamp + 1 - now > maxClockSkewMillis) {
+            LockSupport.parkNanos(100_000L);
+            return -1L;
+        }
+        return (lastTimestamp + 1) << SEQUENCE_BITS;
     }
 
     /**
-     * 阻塞到下一个毫秒，直到获得新的时间戳
-     * @param lastTimestamp 上次生成ID的时间截
-     * @return 当前时间戳
+     * 机器ID租约已过期时拒绝生成ID
      */
-    protected long tilNextMillis(long lastTimestamp) {
-        long timestamp = timeGen();
-        while (timestamp <= lastTimestamp) {
-            timestamp = timeGen();
+    private void checkNode() {
+        LongSupplier deadline = nodeDeadline;
+        if (deadline != null && System.nanoTime() - deadline.getAsLong() >= 0) {
+            throw new IllegalStateException("Worker ID lease expired.  Refusing to generate id until it is renewed");
         }
-        return timestamp;
+    }
+
+    /**
+     * 移位并通过或运算拼到一起组成64位的ID
+     */
+    private long compose(long packedState) {
+        return ((packedState >>> SEQUENCE_BITS) << TIMESTAMP_LEFT_SHIFT)
+                | nodeBits
+                | (packedState & SEQUENCE_MASK);
     }
 
     /**
@@ -0,0 +1,26 @@
+package online.store.common.utils;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+
+/**
+ * 后台工作线程工具类
+ * <p>spring.threads.virtual.enabled=true 时后台工作线程与 Tomcat 请求线程一样使用虚拟线程, 否则使用平台线程</p>
+ */
+public final class WorkerThreads {
+
+    private WorkerThreads() {
+    }
+
+    /**
+     * 创建并启动后台工作线程
+     * @param environment Spring 环境, 用于判断是否启用虚拟线程
+     * @param name 线程名称
+     * @param task 线程任务
+     * @return 已启动的线程
+     */
+    public static Thread start(Environment environment, String name, Runnable task) {
+        Thread.Builder builder = Threading.VIRTUAL.isActive(environment) ? Thread.ofVirtual() : Thread.ofPlatform();
+        return builder.name(name).start(task);
+    }
+}
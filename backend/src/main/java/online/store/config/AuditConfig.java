@@ -0,0 +1,57 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * 审计事件配置类，用于读取 application.yaml 中 audit 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "audit")
+public class AuditConfig {
+
+    /**
+     * 是否记录订单支付、余额充值等审计事件
+     */
+    private boolean enabled = true;
+
+    /**
+     * 环形缓冲区容量 (向上取整为 2 的幂), 缓冲区满时丢弃新事件, 不阻塞业务请求
+     */
+    private int bufferSize = 8192;
+
+    /**
+     * 每批写入的最多事件数
+     */
+    private int batchSize = 256;
+
+    /**
+     * 缓冲区为空时写入线程的等待间隔
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * 是否写入本地审计文件 (每行一个 JSON 事件)
+     */
+    private boolean fileEnabled = true;
+
+    /**
+     * 审计文件目录, 文件名为 audit-日期.log, 超过大小上限时滚动为 audit-日期.序号.log
+     */
+    private String directory = "data/audit";
+
+    /**
+     * 单个审计文件的大小上限
+     */
+    private DataSize maxFileSize = DataSize.ofMegabytes(100);
+
+    /**
+     * 是否写入 audit_event 表
+     */
+    private boolean tableEnabled = false;
+}
@@ -0,0 +1,42 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 购物车配置类，用于读取 application.yaml 中 cart 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "cart")
+public class CartConfig {
+
+    /**
+     * 每个用户购物车最多包含的商品种类数
+     */
+    private int maxItems = 100;
+
+    /**
+     * Redis 购物车的空闲过期时间, 每次修改后重新计时, 过期后下次访问从 cart_item 表重新加载
+     */
+    private Duration idleTtl = Duration.ofDays(7);
+
+    /**
+     * 购物车写回 cart_item 表的间隔
+     */
+    private Duration flushInterval = Duration.ofSeconds(5);
+
+    /**
+     * 每次写回最多处理的用户数
+     */
+    private int flushBatchSize = 500;
+
+    /**
+     * 写回单个用户购物车时持有的锁的过期时间, 需大于一次写回的最长耗时;
+     * 同一用户的写回在多个实例间串行执行, 较旧的快照不会覆盖较新的快照
+     */
+    private Duration flushLockTtl = Duration.ofSeconds(30);
+}
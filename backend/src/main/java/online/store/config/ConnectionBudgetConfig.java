@@ -0,0 +1,47 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 数据库连接预算配置类，用于读取 application.yaml 中 connection-budget 配置
+ * <p>每个预算限制同时执行的请求数, 即同时占用的数据库连接数上限; 预算之和应小于连接池大小,
+ * 为未设预算的请求 (登录、购物车、异步下单工作线程等) 留出连接</p>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "connection-budget")
+public class ConnectionBudgetConfig {
+
+    /**
+     * 是否启用连接预算
+     */
+    private boolean enabled = true;
+
+    /**
+     * 预算名称到预算的映射, 名称与 @ConnectionBudget 注解的值一致, 未配置的名称不限制
+     */
+    private Map<String, Budget> budgets = new LinkedHashMap<>();
+
+    /**
+     * 连接预算
+     */
+    @Data
+    public static class Budget {
+
+        /**
+         * 同时执行的最大请求数
+         */
+        private int permits = 10;
+
+        /**
+         * 预算用尽时的最长等待时间, 超时返回 503
+         */
+        private Duration maxWait = Duration.ofMillis(100);
+    }
+}
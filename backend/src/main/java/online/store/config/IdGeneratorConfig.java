@@ -0,0 +1,46 @@
+package online.store.config;
+
+import lombok.RequiredArgsConstructor;
+import online.store.common.utils.SnowflakeIdGenerator;
+import online.store.service.common.WorkerIdLeaseService;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ID 生成器配置
+ * <p>根据 snowflake.worker-id-source 使用固定机器ID或从 Redis 租用机器ID</p>
+ */
+@Configuration
+@RequiredArgsConstructor
+public class IdGeneratorConfig {
+
+    private final SnowflakeConfig snowflakeConfig;
+
+    /**
+     * Snowflake ID 生成器 Bean
+     * @param workerIdLeaseService 机器ID租约服务
+     * @return SnowflakeIdGenerator 实例
+     */
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(WorkerIdLeaseService workerIdLeaseService) {
+        long maxClockSkewMillis = snowflakeConfig.getMaxClockSkew().toMillis();
+        if (snowflakeConfig.getWorkerIdSource() != SnowflakeConfig.WorkerIdSource.REDIS) {
+            return new SnowflakeIdGenerator(snowflakeConfig.getWorkerId(), snowflakeConfig.getDatacenterId(), maxClockSkewMillis);
+        }
+        // 租用失败时直接启动失败, 避免多个实例使用相同机器ID生成重复主键
+        int nodeId = workerIdLeaseService.acquire();
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(workerId(nodeId), datacenterId(nodeId), maxClockSkewMillis);
+        workerIdLeaseService.onReassign(id -> generator.updateNode(workerId(id), datacenterId(id)));
+        // Redis 故障期间租约过期后停止生成ID, 续期或重新租用成功后恢复
+        generator.setNodeDeadline(workerIdLeaseService::expiresAt);
+        return generator;
+    }
+
+    private static long workerId(int nodeId) {
+        return nodeId & SnowflakeIdGenerator.MAX_WORKER_ID;
+    }
+
+    private static long datacenterId(int nodeId) {
+        return nodeId >> 5;
+    }
+}
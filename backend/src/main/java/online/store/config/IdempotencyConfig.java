@@ -0,0 +1,36 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 幂等键配置类，用于读取 application.yaml 中 idempotency 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "idempotency")
+public class IdempotencyConfig {
+
+    /**
+     * 是否处理 Idempotency-Key 请求头, 关闭后忽略该请求头
+     */
+    private boolean enabled = true;
+
+    /**
+     * 成功响应的保存时间, 期间使用相同幂等键的重试直接返回保存的响应
+     */
+    private Duration ttl = Duration.ofHours(24);
+
+    /**
+     * 处理中标记的保存时间, 应大于请求的最长处理时间; 实例在处理期间宕机时, 过期后允许重试
+     */
+    private Duration processingTtl = Duration.ofSeconds(30);
+
+    /**
+     * 幂等键的最大长度
+     */
+    private int maxKeyLength = 64;
+}
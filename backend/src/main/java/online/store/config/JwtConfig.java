@@ -28,4 +28,14 @@ public class JwtConfig {
      * 刷新 Token 过期时间 (毫秒)
      */
     private Duration refreshExpireTime;
+
+    /**
+     * 已验证 Token 的 Claims 缓存条数, 0 表示不缓存
+     */
+    private int claimsCacheSize = 10000;
+
+    /**
+     * 本地 Token 黑名单副本最多保存的记录数, 超出后未命中本地副本的 Token 改为查询 Redis
+     */
+    private int blacklistLocalSize = 100000;
 }
@@ -0,0 +1,51 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 余额账本配置类，用于读取 application.yaml 中 payment.ledger 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "payment.ledger")
+public class LedgerConfig {
+
+    /**
+     * 是否启用账本模式, 启用后充值只追加流水, 由合并任务计入 user.balance
+     */
+    private boolean enabled = false;
+
+    /**
+     * 待写入流水队列容量, 队列满时拒绝充值
+     */
+    private int queueCapacity = 10000;
+
+    /**
+     * 每次组提交最多写入的流水数
+     */
+    private int batchSize = 200;
+
+    /**
+     * 充值等待流水写入的最长时间
+     */
+    private Duration writeTimeout = Duration.ofSeconds(5);
+
+    /**
+     * 事务等待用户账本锁的最长时间, 超时返回 503
+     */
+    private Duration lockTimeout = Duration.ofSeconds(2);
+
+    /**
+     * 未计入余额的流水合并到 user.balance 的间隔
+     */
+    private Duration compactInterval = Duration.ofSeconds(5);
+
+    /**
+     * 每次合并最多处理的用户数
+     */
+    private int compactBatchSize = 500;
+}
@@ -0,0 +1,74 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 监控指标配置类，用于读取 application.yaml 中 metrics 配置
+ * <p>指标的导出、直方图与百分位数由 management.* 配置, 这里只控制应用自身埋点的开关</p>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "metrics")
+public class MetricsConfig {
+
+    /**
+     * 是否记录每个 @Service 公共方法的耗时 (store.service)
+     */
+    private boolean serviceTimers = true;
+
+    /**
+     * 是否记录每条 Mapper 语句的耗时与行数 (store.mapper / store.mapper.rows)
+     */
+    private boolean mapperTimers = true;
+
+    /**
+     * 慢查询记录配置
+     */
+    private SlowQuery slowQuery = new SlowQuery();
+
+    /**
+     * 慢查询记录配置 (语句耗时、EXPLAIN 执行计划)
+     */
+    @Data
+    public static class SlowQuery {
+
+        /**
+         * 是否记录慢查询
+         */
+        private boolean enabled = true;
+
+        /**
+         * 慢查询阈值, 语句执行时间达到该值即记录
+         */
+        private Duration threshold = Duration.ofMillis(200);
+
+        /**
+         * 最多记录的慢查询指纹 (归一化 SQL) 数量, 超出后淘汰最久未出现的指纹
+         */
+        private int maxFingerprints = 500;
+
+        /**
+         * 每个指纹保留的最近耗时样本数, 用于计算 p99
+         */
+        private int samples = 128;
+
+        /**
+         * 是否对慢查询执行 EXPLAIN 并记录执行计划摘要
+         */
+        private boolean explainEnabled = true;
+
+        /**
+         * 同一指纹两次 EXPLAIN 的最小间隔
+         */
+        private Duration explainInterval = Duration.ofMinutes(10);
+
+        /**
+         * 等待执行 EXPLAIN 的队列容量, 队列满时跳过本次 EXPLAIN
+         */
+        private int explainQueueCapacity = 64;
+    }
+}
@@ -0,0 +1,27 @@
+package online.store.config;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * MyBatis-Plus 配置
+ */
+@Configuration
+public class MybatisPlusConfig {
+
+    /**
+     * MyBatis-Plus 插件 Bean
+     * <p>分页插件: 使 IPage 分页查询生成 COUNT 与 LIMIT 语句</p>
+     * <p>语句指标与慢查询拦截器需要在语句执行后计时, 为独立的 Interceptor Bean, 由 MyBatis-Plus 自动配置注册</p>
+     * @return MybatisPlusInterceptor 实例
+     */
+    @Bean
+    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+        MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
+        interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
+        return interceptor;
+    }
+}
@@ -0,0 +1,91 @@
+package online.store.config;
+
+import lombok.Data;
+import online.store.enums.OrderLockMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 订单配置类，用于读取 application.yaml 中 order 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "order")
+public class OrderConfig {
+
+    /**
+     * 同步下单的并发控制方式
+     */
+    private OrderLockMode lockMode = OrderLockMode.PESSIMISTIC;
+
+    /**
+     * 乐观并发下单配置, 仅 lockMode 为 OPTIMISTIC 时生效
+     */
+    private Optimistic optimistic = new Optimistic();
+
+    /**
+     * 异步下单配置
+     */
+    private Async async = new Async();
+
+    /**
+     * 乐观并发下单配置
+     */
+    @Data
+    public static class Optimistic {
+
+        /**
+         * 最多尝试次数 (含首次), 商品价格被并发修改或发生锁冲突时重试
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * 首次重试前的退避时间, 之后每次翻倍并加入随机抖动
+         */
+        private Duration backoff = Duration.ofMillis(10);
+    }
+
+    /**
+     * 异步下单 (先受理后处理) 配置
+     */
+    @Data
+    public static class Async {
+
+        /**
+         * 是否启用异步下单, 启用后下单接口立即返回待处理订单号
+         */
+        private boolean enabled = false;
+
+        /**
+         * 下单队列容量, 队列满时拒绝新订单
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * 落库工作线程数
+         */
+        private int workers = 2;
+
+        /**
+         * 每批最多落库的订单数
+         */
+        private int batchSize = 100;
+
+        /**
+         * 订单日志文件路径, 用于重启后恢复未落库的订单
+         */
+        private String journalPath = "data/order-journal.log";
+
+        /**
+         * 每次写入订单日志后是否强制刷盘
+         */
+        private boolean journalFsync = false;
+
+        /**
+         * 订单处理结果在内存中的保留时间, 供状态查询使用
+         */
+        private Duration resultRetention = Duration.ofMinutes(10);
+    }
+}
@@ -0,0 +1,36 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 密码哈希配置类，用于读取 application.yaml 中 auth.password-hash 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth.password-hash")
+public class PasswordHashConfig {
+
+    /**
+     * BCrypt 成本因子 (4~31), 每加 1 计算时间翻倍; 修改后已有用户在下次登录时按新成本重新哈希
+     */
+    private int strength = 10;
+
+    /**
+     * 哈希线程数, 0 表示 CPU 核数的一半 (至少 1 个), 其余核心留给其他请求
+     */
+    private int poolSize = 0;
+
+    /**
+     * 等待哈希的请求队列容量, 队列满时直接拒绝
+     */
+    private int queueCapacity = 64;
+
+    /**
+     * 请求等待哈希结果的最长时间
+     */
+    private Duration timeout = Duration.ofSeconds(2);
+}
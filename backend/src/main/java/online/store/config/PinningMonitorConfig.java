@@ -0,0 +1,36 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 虚拟线程钉住监控配置类，用于读取 application.yaml 中 threads.pinning-monitor 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "threads.pinning-monitor")
+public class PinningMonitorConfig {
+
+    /**
+     * 启用虚拟线程时是否监控钉住事件
+     */
+    private boolean enabled = true;
+
+    /**
+     * 钉住时间超过此值才记录
+     */
+    private Duration threshold = Duration.ofMillis(20);
+
+    /**
+     * 钉住统计的输出间隔
+     */
+    private Duration reportInterval = Duration.ofMinutes(1);
+
+    /**
+     * 记录的调用栈深度, 相同调用栈的钉住事件合并统计
+     */
+    private int stackDepth = 8;
+}
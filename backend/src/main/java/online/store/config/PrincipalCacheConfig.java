@@ -0,0 +1,31 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 用户身份缓存配置类，用于读取 application.yaml 中 auth.principal-cache 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth.principal-cache")
+public class PrincipalCacheConfig {
+
+    /**
+     * 是否启用用户身份缓存, 关闭后每次获取当前用户都查询数据库
+     */
+    private boolean enabled = true;
+
+    /**
+     * 缓存有效期, 多实例部署时其他实例修改的状态/角色最迟在此时间后生效
+     */
+    private Duration ttl = Duration.ofSeconds(60);
+
+    /**
+     * 最多缓存的用户数
+     */
+    private int maxSize = 10000;
+}
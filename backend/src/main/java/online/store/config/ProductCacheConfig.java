@@ -0,0 +1,46 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 商品缓存配置类，用于读取 application.yaml 中 product.cache 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "product.cache")
+public class ProductCacheConfig {
+
+    /**
+     * 是否启用商品缓存, 关闭后每次查询商品都访问数据库
+     */
+    private boolean enabled = true;
+
+    /**
+     * 本地缓存最多保存的商品数, 超出后淘汰最久未访问的商品
+     */
+    private int localMaxSize = 10000;
+
+    /**
+     * 本地缓存有效期
+     */
+    private Duration localTtl = Duration.ofSeconds(30);
+
+    /**
+     * Redis 缓存有效期, 实际有效期会增加至多 10% 的随机值, 避免大量商品同时过期
+     */
+    private Duration redisTtl = Duration.ofMinutes(10);
+
+    /**
+     * 不存在的商品ID的缓存有效期, 防止恶意查询不存在的商品穿透到数据库
+     */
+    private Duration nullTtl = Duration.ofSeconds(60);
+
+    /**
+     * Redis 不可用时的熔断时间, 期间只使用本地缓存和数据库
+     */
+    private Duration circuitBreakDuration = Duration.ofSeconds(5);
+}
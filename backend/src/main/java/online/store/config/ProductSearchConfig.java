@@ -0,0 +1,25 @@
+package online.store.config;
+
+import lombok.Data;
+import online.store.enums.ProductSearchMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 商品搜索配置类，用于读取 application.yaml 中 product.search 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "product.search")
+public class ProductSearchConfig {
+
+    /**
+     * 默认搜索模式, 请求未指定搜索模式时使用
+     */
+    private ProductSearchMode mode = ProductSearchMode.NATURAL_LANGUAGE;
+
+    /**
+     * 使用全文索引的最短关键字长度, 应与 MySQL 的 ngram_token_size 一致, 更短的关键字退回 LIKE 查询
+     */
+    private int minKeywordLength = 2;
+}
@@ -0,0 +1,103 @@
+package online.store.config;
+
+import lombok.Data;
+import online.store.enums.RateLimitMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 限流配置类，用于读取 application.yaml 中 rate-limit 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitConfig {
+
+    /**
+     * 是否启用限流
+     */
+    private boolean enabled = true;
+
+    /**
+     * 计数方式
+     */
+    private RateLimitMode mode = RateLimitMode.LOCAL;
+
+    /**
+     * 是否信任 X-Forwarded-For 请求头中的客户端IP, 仅在经由可信反向代理访问时开启
+     */
+    private boolean trustForwardedFor = false;
+
+    /**
+     * 本地令牌桶的最大数量, 达到上限后新的计数键共用溢出桶, 已回满的令牌桶由定时任务清理
+     */
+    private int maxBuckets = 100_000;
+
+    /**
+     * Redis 不可用时的熔断时间, 期间使用本地令牌桶
+     */
+    private Duration circuitBreakDuration = Duration.ofSeconds(5);
+
+    /**
+     * 限流规则, 按顺序匹配, 请求只受第一条匹配规则限制
+     */
+    private List<Rule> rules = new ArrayList<>();
+
+    /**
+     * 限流规则
+     */
+    @Data
+    public static class Rule {
+
+        /**
+         * 规则名称, 用作计数键的一部分
+         */
+        private String name;
+
+        /**
+         * 路径模式, 如 /api/products/**
+         */
+        private String pattern;
+
+        /**
+         * 匹配的 HTTP 方法, 为空时匹配全部方法
+         */
+        private List<String> methods = new ArrayList<>();
+
+        /**
+         * 计数维度
+         */
+        private KeyType key = KeyType.USER;
+
+        /**
+         * 每个周期允许的请求数, 也是允许的突发请求数
+         */
+        private int capacity = 100;
+
+        /**
+         * 周期
+         */
+        private Duration period = Duration.ofSeconds(1);
+
+        /**
+         * 按角色覆盖每个周期允许的请求数, 键为角色名 (如 MERCHANT, 未登录为 ANONYMOUS), 0 表示不限流
+         */
+        private Map<String, Integer> roles = new HashMap<>();
+    }
+
+    /**
+     * 计数维度
+     * IP - 按客户端IP计数
+     * USER - 按登录用户计数, 未登录的请求按客户端IP计数
+     */
+    public enum KeyType {
+        IP,
+        USER
+    }
+}
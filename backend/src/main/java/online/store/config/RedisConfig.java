@@ -0,0 +1,32 @@
+package online.store.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * Redis 配置
+ * <p>提供 Redis 发布/订阅的监听容器, 用于多实例间同步本地缓存</p>
+ */
+@Configuration
+public class RedisConfig {
+
+    /**
+     * Redis 消息监听容器 Bean
+     * <p>Redis 不可用时容器启动会直接失败, 因此不随应用自动启动, 由 {@link online.store.task.RedisSubscriptionTask} 负责启动和重试</p>
+     * @param connectionFactory Redis 连接工厂
+     * @return RedisMessageListenerContainer 实例
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+}
@@ -0,0 +1,36 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 角色缓存配置类，用于读取 application.yaml 中 auth.role-cache 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth.role-cache")
+public class RoleCacheConfig {
+
+    /**
+     * 是否启用角色缓存, 关闭后每次解析角色都查询数据库
+     */
+    private boolean enabled = true;
+
+    /**
+     * 检查 role 表是否变化的间隔, 变化后重新加载角色表
+     */
+    private Duration refreshInterval = Duration.ofSeconds(60);
+
+    /**
+     * 用户角色ID缓存的有效期, 多实例部署时其他实例修改的用户角色最迟在此时间后生效
+     */
+    private Duration userTtl = Duration.ofMinutes(10);
+
+    /**
+     * 最多缓存角色ID的用户数
+     */
+    private int maxUsers = 100000;
+}
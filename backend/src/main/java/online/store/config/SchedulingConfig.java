@@ -0,0 +1,12 @@
+package online.store.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置, 启用 @Scheduled 注解的后台任务 (库存对账等)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
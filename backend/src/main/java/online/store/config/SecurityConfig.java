@@ -6,6 +6,8 @@ import lombok.RequiredArgsConstructor;
 import online.store.common.utils.JwtUtil;
 import online.store.pojo.Result;
 import online.store.common.filter.JwtAuthenticationFilter;
+import online.store.common.filter.RateLimitFilter;
+import online.store.service.common.RateLimiter;
 import online.store.service.common.TokenBlacklistService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -44,14 +46,23 @@ public class SecurityConfig {
 
     private final ObjectMapper objectMapper;
 
+    /**
+     * 限流计数服务
+     */
+    private final RateLimiter rateLimiter;
+
+    private final RateLimitConfig rateLimitConfig;
+
     /**
      * 密码编码器 Bean
-     * 使用 BCrypt 算法进行密码加密
+     * 使用 BCrypt 算法进行密码加密, 成本因子由 auth.password-hash.strength 配置
+     * <p>业务代码应通过 {@link online.store.service.auth.PasswordHashService} 在专用线程池中计算</p>
+     * @param passwordHashConfig 密码哈希配置
      * @return PasswordEncoder 实例
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(PasswordHashConfig passwordHashConfig) {
+        return new BCryptPasswordEncoder(passwordHashConfig.getStrength());
     }
 
     /**
@@ -76,6 +87,7 @@ public class SecurityConfig {
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         JwtAuthenticationFilter jwtFilter = new JwtAuthenticationFilter(jwtUtil, tokenBlacklistService);
+        RateLimitFilter rateLimitFilter = new RateLimitFilter(rateLimiter, rateLimitConfig, objectMapper);
 
         http
                 // 禁用 CSRF, 因为JWT无状态
@@ -101,6 +113,9 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/register", "/api/auth/login").permitAll()
                         // 放行公共商品查询接口
                         .requestMatchers(HttpMethod.GET, "/api/products/**").permitAll()
+                        // 放行健康检查和 Prometheus 抓取, 生产环境管理端点只监听内网端口; 其他管理端点仅管理员可访问
+                        .requestMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         // 放行所有 OPTIONS 请求，支持跨域预检请求
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         // 其他所有请求都需要认证
@@ -109,6 +124,8 @@ public class SecurityConfig {
 
                 // 4. 将 JWT 认证过滤器添加到 Spring Security 过滤器链中
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                // 限流过滤器在 JWT 认证之后执行, 按用户和角色限流, 超限请求不进入后续过滤器和业务逻辑
+                .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class)
 
                 // 5. 配置异常处理
                 .exceptionHandling(exceptions -> exceptions
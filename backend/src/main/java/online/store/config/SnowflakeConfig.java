@@ -0,0 +1,51 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Snowflake ID 生成器配置类，用于读取 application.yaml 中 snowflake 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "snowflake")
+public class SnowflakeConfig {
+
+    /**
+     * 机器ID来源: CONFIG 使用下方配置的固定ID, REDIS 启动时从 Redis 租用空闲ID
+     */
+    private WorkerIdSource workerIdSource = WorkerIdSource.CONFIG;
+
+    /**
+     * 工作ID (0~31), 仅 CONFIG 模式生效, 多实例部署时每个实例必须不同
+     */
+    private long workerId = 1L;
+
+    /**
+     * 数据中心ID (0~31), 仅 CONFIG 模式生效
+     */
+    private long datacenterId = 1L;
+
+    /**
+     * 允许的最大时钟偏差, 时钟轻微回拨或序列号耗尽时最多借用这么多毫秒
+     */
+    private Duration maxClockSkew = Duration.ofMillis(5);
+
+    /**
+     * REDIS 模式下机器ID租约时长, 实例宕机后租约过期即可被其他实例复用
+     */
+    private Duration leaseTtl = Duration.ofSeconds(30);
+
+    /**
+     * REDIS 模式下租约续期间隔, 应明显小于租约时长
+     */
+    private Duration leaseRenewInterval = Duration.ofSeconds(10);
+
+    public enum WorkerIdSource {
+        CONFIG,
+        REDIS
+    }
+}
@@ -0,0 +1,41 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Redis 库存预扣配置类，用于读取 application.yaml 中 stock.reservation 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock.reservation")
+public class StockReservationConfig {
+
+    /**
+     * 是否启用 Redis 库存预扣, 关闭后下单直接使用数据库行锁
+     */
+    private boolean enabled = true;
+
+    /**
+     * 启动时是否从 product 表预热在售商品库存
+     */
+    private boolean warmUp = true;
+
+    /**
+     * 预热时每批读取的商品数量
+     */
+    private int warmUpBatchSize = 1000;
+
+    /**
+     * Redis 库存与数据库库存的对账间隔
+     */
+    private Duration reconcileInterval = Duration.ofSeconds(60);
+
+    /**
+     * Redis 不可用时的熔断时间, 期间下单直接走数据库
+     */
+    private Duration circuitBreakDuration = Duration.ofSeconds(5);
+}
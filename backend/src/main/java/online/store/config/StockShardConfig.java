@@ -0,0 +1,31 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * 热点商品库存分片配置类，用于读取 application.yaml 中 stock.shard 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock.shard")
+public class StockShardConfig {
+
+    /**
+     * 单个商品最多的库存分片数
+     */
+    private int maxShards = 64;
+
+    /**
+     * 分片再平衡及 product.stock 合计同步的间隔
+     */
+    private Duration rebalanceInterval = Duration.ofSeconds(30);
+
+    /**
+     * 任一分片库存低于平均值的该比例时重新均分 (0~1)
+     */
+    private double rebalanceThreshold = 0.5;
+}
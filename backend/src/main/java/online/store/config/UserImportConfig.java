@@ -0,0 +1,29 @@
+package online.store.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 用户批量导入配置类，用于读取 application.yaml 中 auth.user-import 配置
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "auth.user-import")
+public class UserImportConfig {
+
+    /**
+     * 每批处理的行数: 每批一次唯一性查询、一次 user 批量写入和一次 user_role 批量写入
+     */
+    private int chunkSize = 500;
+
+    /**
+     * 单次导入最多处理的行数
+     */
+    private int maxRows = 100_000;
+
+    /**
+     * 导入结果中最多返回的错误行数, 超出部分只计数
+     */
+    private int maxErrors = 1000;
+}
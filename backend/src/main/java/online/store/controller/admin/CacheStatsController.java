@@ -0,0 +1,36 @@
+package online.store.controller.admin;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import online.store.common.utils.CacheStats;
+import online.store.common.utils.CacheStatsRegistry;
+import online.store.pojo.Result;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@Tag(name = "管理", description = "系统运行状态查询接口")
+@RestController
+@RequestMapping("/api/admin/cache")
+@SecurityRequirement(name = "bearerAuth")
+public class CacheStatsController {
+
+    @Resource
+    private CacheStatsRegistry cacheStatsRegistry;
+
+    /**
+     * 查询各缓存的命中次数与命中率
+     * @return 缓存名称到命中计数的映射
+     */
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "缓存命中统计", description = "仅管理员可查看")
+    public Result<Map<String, CacheStats.Snapshot>> stats() {
+        return Result.success(cacheStatsRegistry.snapshot());
+    }
+}
@@ -0,0 +1,33 @@
+package online.store.controller.admin;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import online.store.pojo.Result;
+import online.store.service.auth.PasswordHashService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "管理", description = "系统运行状态查询接口")
+@RestController
+@RequestMapping("/api/admin/password-hash")
+@SecurityRequirement(name = "bearerAuth")
+public class PasswordHashStatsController {
+
+    @Resource
+    private PasswordHashService passwordHashService;
+
+    /**
+     * 查询密码哈希线程池的耗时、排队与拒绝统计
+     * @return 哈希统计快照
+     */
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "密码哈希统计", description = "仅管理员可查看, 包含哈希耗时、排队时间、拒绝次数和当前队列长度")
+    public Result<PasswordHashService.Snapshot> stats() {
+        return Result.success(passwordHashService.snapshot());
+    }
+}
@@ -0,0 +1,39 @@
+package online.store.controller.admin;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import online.store.pojo.Result;
+import online.store.service.auth.RoleRegistry;
+import online.store.service.auth.UserPrincipalCache;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "管理", description = "系统运行状态查询接口")
+@RestController
+@RequestMapping("/api/admin/roles")
+@SecurityRequirement(name = "bearerAuth")
+public class RoleRegistryController {
+
+    @Resource
+    private RoleRegistry roleRegistry;
+
+    @Resource
+    private UserPrincipalCache userPrincipalCache;
+
+    /**
+     * 重新加载角色表, 清空用户角色ID缓存与用户身份缓存
+     * @return 加载的角色数量
+     */
+    @PostMapping("/reload")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "重新加载角色缓存", description = "仅管理员可操作, 直接修改 role 或 user_role 表后调用, 其他实例通过 Redis 通知同步重新加载")
+    public Result<String> reload() {
+        int size = roleRegistry.reloadAll();
+        userPrincipalCache.evictAll();
+        return Result.success("角色缓存已重新加载, 共 " + size + " 个角色");
+    }
+}
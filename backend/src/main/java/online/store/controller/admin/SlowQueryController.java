@@ -0,0 +1,48 @@
+package online.store.controller.admin;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import online.store.pojo.Result;
+import online.store.service.common.SlowQueryLog;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@Tag(name = "管理", description = "系统运行状态查询接口")
+@RestController
+@RequestMapping("/api/admin/slow-queries")
+@SecurityRequirement(name = "bearerAuth")
+public class SlowQueryController {
+
+    @Resource
+    private SlowQueryLog slowQueryLog;
+
+    /**
+     * 查询慢查询记录
+     * @return 按累计耗时降序的慢查询指纹, 包含次数、p99 耗时和执行计划摘要
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "慢查询记录", description = "仅管理员可查看, 按 SQL 指纹聚合, 包含执行计划摘要与是否全表扫描")
+    public Result<List<SlowQueryLog.Snapshot>> list() {
+        return Result.success(slowQueryLog.snapshot());
+    }
+
+    /**
+     * 清空慢查询记录, 用于优化后重新观察
+     * @return 操作结果
+     */
+    @DeleteMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "清空慢查询记录", description = "仅管理员可操作")
+    public Result<String> reset() {
+        slowQueryLog.reset();
+        return Result.success("慢查询记录已清空");
+    }
+}
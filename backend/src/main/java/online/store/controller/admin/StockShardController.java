@@ -0,0 +1,40 @@
+package online.store.controller.admin;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import online.store.pojo.Result;
+import online.store.service.stock.StockShardService;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@Tag(name = "管理", description = "系统运行状态查询接口")
+@RestController
+@RequestMapping("/api/admin/products")
+@SecurityRequirement(name = "bearerAuth")
+public class StockShardController {
+
+    @Resource
+    private StockShardService stockShardService;
+
+    /**
+     * 调整热点商品的库存分片数
+     * @param productId 商品ID
+     * @param shards 分片数, 0 表示关闭分片
+     * @return 操作结果
+     */
+    @PutMapping("/{productId}/stock-shards")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "调整库存分片数", description = "仅管理员可操作。将热点商品的库存拆分到多行, 并发下单分散到不同的行锁上; 库存合计不变。")
+    public Result<String> reshard(@Parameter(description = "商品ID") @PathVariable Long productId,
+                                  @Parameter(description = "分片数, 0表示关闭分片") @RequestParam int shards) {
+        stockShardService.reshard(productId, shards);
+        return Result.success("库存分片数已调整为 " + shards);
+    }
+}
@@ -0,0 +1,56 @@
+package online.store.controller.admin;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import online.store.pojo.Result;
+import online.store.service.auth.UserImportService;
+import online.store.vo.auth.UserImportResult;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@Tag(name = "管理", description = "系统运行状态查询接口")
+@RestController
+@RequestMapping("/api/admin/users")
+@SecurityRequirement(name = "bearerAuth")
+public class UserImportController {
+
+    private static final String TEXT_CSV = "text/csv";
+
+    @Resource
+    private UserImportService userImportService;
+
+    /**
+     * 批量导入用户
+     * <p>请求体直接作为数据流读取, 不会整体加载到内存</p>
+     * @param request HTTP 请求, Content-Type 为 text/csv 或 application/json
+     * @return 导入结果, 包含每个失败行的原因和导入速度
+     * @throws IOException 读取请求体失败
+     */
+    @PostMapping(value = "/import", consumes = {TEXT_CSV, MediaType.APPLICATION_JSON_VALUE})
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "批量导入用户", description = "仅管理员可用。请求体为 CSV (表头 username,password,email,phone) 或与注册接口请求体相同的 JSON 对象数组, " +
+            "导入的用户角色均为消费者。单行校验失败或用户名、邮箱已存在时跳过该行并在结果中报告; " +
+            "超过单次导入行数上限或遇到格式错误的行时停止读取, 之前的行照常导入, 结果标记为提前终止")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "导入完成或提前终止 (可能包含失败的行)"),
+            @ApiResponse(responseCode = "400", description = "数据格式错误, 如数据为空、缺少必需的列或不是对象数组"),
+            @ApiResponse(responseCode = "403", description = "权限不足, 只有管理员可以导入用户")
+    })
+    public Result<UserImportResult> importUsers(HttpServletRequest request) throws IOException {
+        MediaType contentType = MediaType.parseMediaType(request.getContentType());
+        UserImportResult result = contentType.isCompatibleWith(MediaType.APPLICATION_JSON)
+                ? userImportService.importJson(request.getInputStream())
+                : userImportService.importCsv(request.getInputStream());
+        return Result.success(result);
+    }
+}
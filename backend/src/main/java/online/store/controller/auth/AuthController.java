@@ -100,7 +100,7 @@ public class AuthController {
             // 解析Token获取剩余过期时间
             try {
                 Instant expiration = jwtUtil.parseToken(token).getExpiration().toInstant();
-                long remainingTime = Duration.between(Instant.now(), expiration).getSeconds();
+                long remainingTime = Duration.between(Instant.now(), expiration).toMillis();
 
                 // 将Token加入黑名单
                 if (remainingTime > 0) {
@@ -146,7 +146,7 @@ public class AuthController {
         // 虽然Token刷新通常发生在Access Token已过期后, 确保安全, 把旧的Access Token也加入黑名单
         if (refreshTokenRequest.getAccessToken() != null) {
             Instant expiration = jwtUtil.parseToken(refreshTokenRequest.getAccessToken()).getExpiration().toInstant();
-            long remainingTime = Duration.between(Instant.now(), expiration).getSeconds();
+            long remainingTime = Duration.between(Instant.now(), expiration).toMillis();
             if (remainingTime > 0) {
                 tokenBlacklistService.add(refreshTokenRequest.getAccessToken(), remainingTime);
             }
@@ -0,0 +1,116 @@
+package online.store.controller.cart;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import online.store.dto.cart.CartCheckoutRequest;
+import online.store.dto.cart.CartItemAddRequest;
+import online.store.dto.cart.CartItemUpdateRequest;
+import online.store.pojo.Result;
+import online.store.service.cart.CartService;
+import online.store.service.order.OrderService;
+import online.store.vo.cart.CartView;
+import online.store.vo.order.OrderResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "购物车", description = "购物车商品的添加、修改、删除、查询及结算接口")
+@RestController
+@RequestMapping("/api/cart")
+@Validated
+@RequiredArgsConstructor
+@SecurityRequirement(name = "bearerAuth")
+public class CartController {
+
+    private final CartService cartService;
+
+    private final OrderService orderService;
+
+    /**
+     * 查询购物车
+     *
+     * @return 购物车商品及选中商品合计
+     */
+    @GetMapping
+    @PreAuthorize("hasRole('CONSUMER')")
+    @Operation(summary = "查询购物车", description = "返回当前用户购物车中的全部商品, 以及选中的在售商品按当前价格计算的合计。")
+    public Result<CartView> getCart() {
+        return Result.success(cartService.getCart());
+    }
+
+    /**
+     * 加入购物车
+     *
+     * @param addRequest 商品ID和数量
+     * @return 操作结果
+     */
+    @PostMapping("/items")
+    @PreAuthorize("hasRole('CONSUMER')")
+    @Operation(summary = "加入购物车", description = "商品已在购物车中时累加数量并设为选中。")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "添加成功"),
+            @ApiResponse(responseCode = "400", description = "商品不存在、未出售或购物车商品种类已达上限"),
+            @ApiResponse(responseCode = "503", description = "购物车服务暂不可用")
+    })
+    public Result<String> addItem(@Valid @RequestBody CartItemAddRequest addRequest) {
+        cartService.addItem(addRequest.getProductId(), addRequest.getQuantity());
+        return Result.success("已加入购物车");
+    }
+
+    /**
+     * 修改购物车商品
+     *
+     * @param productId 商品ID
+     * @param updateRequest 新数量或选中状态
+     * @return 操作结果
+     */
+    @PutMapping("/items/{productId}")
+    @PreAuthorize("hasRole('CONSUMER')")
+    @Operation(summary = "修改购物车商品", description = "修改购物车中商品的数量或选中状态, 未提供的字段保持不变。")
+    public Result<String> updateItem(@Parameter(description = "商品ID") @PathVariable Long productId,
+                                   @Valid @RequestBody CartItemUpdateRequest updateRequest) {
+        cartService.updateItem(productId, updateRequest.getQuantity(), updateRequest.getSelected());
+        return Result.success("修改成功");
+    }
+
+    /**
+     * 移除购物车商品
+     *
+     * @param productId 商品ID
+     * @return 操作结果
+     */
+    @DeleteMapping("/items/{productId}")
+    @PreAuthorize("hasRole('CONSUMER')")
+    @Operation(summary = "移除购物车商品")
+    public Result<String> removeItem(@Parameter(description = "商品ID") @PathVariable Long productId) {
+        cartService.removeItem(productId);
+        return Result.success("删除成功");
+    }
+
+    /**
+     * 结算购物车
+     *
+     * @param checkoutRequest 收货信息
+     * @return 已支付订单
+     */
+    @PostMapping("/checkout")
+    @PreAuthorize("hasRole('CONSUMER')")
+    @Operation(summary = "结算购物车", description = "使用账户余额购买购物车中所有选中的商品, 生成一个订单。扣款、减库存和订单创建在同一事务中完成, 成功后从购物车移除已结算的商品。")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "订单创建成功"),
+            @ApiResponse(responseCode = "400", description = "没有选中的商品或业务校验失败 (如库存不足、余额不足)"),
+            @ApiResponse(responseCode = "503", description = "购物车服务暂不可用")
+    })
+    public ResponseEntity<Result<OrderResponse>> checkout(@Valid @RequestBody CartCheckoutRequest checkoutRequest) {
+        OrderResponse response = orderService.checkoutCart(checkoutRequest);
+        return ResponseEntity.status(HttpStatus.CREATED).body(Result.success(response));
+    }
+}
@@ -1,6 +1,7 @@
 package online.store.controller.order;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -8,10 +9,13 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import online.store.dto.order.OrderCreateRequest;
+import online.store.enums.OrderStatus;
 import online.store.pojo.Result;
+import online.store.service.common.IdempotencyService;
 import online.store.service.order.OrderService;
 import online.store.vo.order.OrderResponse;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
@@ -25,26 +29,52 @@ import org.springframework.web.bind.annotation.*;
 public class OrderController {
 
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
 
     /**
      * 创建订单并支付
      *
      * @param createRequest 包含商品ID、数量和收货信息的请求体
-     * @return 包含订单创建结果的统一响应体
+     * @param idempotencyKey 幂等键, 重试时携带相同的键返回首次请求的结果
+     * @return 包含订单创建结果的统一响应体, 异步下单时订单状态为待处理
      */
     @PostMapping
     @PreAuthorize("hasRole('CONSUMER')")
-    @ResponseStatus(HttpStatus.CREATED)
-    @Operation(summary = "创建订单并支付", description = "消费者使用账户余额购买商品并生成订单。这是一个原子操作，会同时完成扣款、减库存和订单创建。")
+    @Operation(summary = "创建订单并支付", description = "消费者使用账户余额购买商品并生成订单。这是一个原子操作，会同时完成扣款、减库存和订单创建。启用异步下单时立即返回待处理订单号，需通过订单状态接口查询结果。")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "订单创建成功"),
+            @ApiResponse(responseCode = "201", description = "订单创建成功"),
+            @ApiResponse(responseCode = "202", description = "订单已受理, 等待处理"),
             @ApiResponse(responseCode = "400", description = "请求参数无效或业务逻辑错误 (如库存不足、余额不足)"),
             @ApiResponse(responseCode = "403", description = "权限不足, 只有消费者可以下单"),
-            @ApiResponse(responseCode = "404", description = "指定商品或当前用户不存在")
+            @ApiResponse(responseCode = "404", description = "指定商品或当前用户不存在"),
+            @ApiResponse(responseCode = "409", description = "相同幂等键的请求正在处理中, 或幂等键已用于其他请求"),
+            @ApiResponse(responseCode = "503", description = "下单人数过多, 请稍后重试")
     })
-    public Result<OrderResponse> createOrder(@Valid @RequestBody OrderCreateRequest createRequest) {
-        OrderResponse response = orderService.createOrderAndPay(createRequest);
-        return Result.success(response);
+    public ResponseEntity<Result<OrderResponse>> createOrder(
+            @Valid @RequestBody OrderCreateRequest createRequest,
+            @Parameter(description = "幂等键 (如 UUID), 超时重试时携带相同的键不会重复下单")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        OrderResponse response = idempotencyService.execute("order", idempotencyKey, createRequest, OrderResponse.class,
+                () -> orderService.submitOrder(createRequest));
+        HttpStatus status = response.getStatus() == OrderStatus.PENDING ? HttpStatus.ACCEPTED : HttpStatus.CREATED;
+        return ResponseEntity.status(status).body(Result.success(response));
+    }
+
+    /**
+     * 查询订单状态
+     *
+     * @param orderNo 订单号
+     * @return 订单当前状态
+     */
+    @GetMapping("/{orderNo}/status")
+    @PreAuthorize("hasRole('CONSUMER')")
+    @Operation(summary = "查询订单状态", description = "查询当前用户订单的处理状态, 用于异步下单后轮询结果。处理失败的订单状态为已取消并附带失败原因。")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功"),
+            @ApiResponse(responseCode = "400", description = "订单不存在或不属于当前用户")
+    })
+    public Result<OrderResponse> getOrderStatus(@PathVariable String orderNo) {
+        return Result.success(orderService.getOrderStatus(orderNo));
     }
 
     // TODO: 在此可以继续添加其他订单相关接口:
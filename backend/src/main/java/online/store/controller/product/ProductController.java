@@ -11,8 +11,11 @@ import jakarta.annotation.Resource;
 import jakarta.validation.Valid;
 import online.store.dto.product.ProductCreate;
 import online.store.dto.product.ProductUpdate;
+import online.store.enums.ProductSearchMode;
+import online.store.enums.ProductSort;
 import online.store.pojo.Result;
 import online.store.service.product.ProductService;
+import online.store.vo.product.ProductCursorPage;
 import online.store.vo.product.ProductPublic;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -76,7 +79,8 @@ public class ProductController {
     public Result<IPage<ProductPublic>> listProducts(
             @Parameter(description = "页码") @RequestParam(defaultValue = "1") int pageNum,
             @Parameter(description = "每页数量") @RequestParam(defaultValue = "10") int pageSize,
-            @Parameter(description = "搜索关键字") @RequestParam(required = false) String keyword) {
+            @Parameter(description = "搜索关键字") @RequestParam(required = false) String keyword,
+            @Parameter(description = "搜索模式: LIKE, NATURAL_LANGUAGE, BOOLEAN, 默认使用配置") @RequestParam(required = false) ProductSearchMode searchMode) {
 
         // 对未登录用户进行pageSize限制
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -84,7 +88,26 @@ public class ProductController {
             pageSize = 20; // 未登录用户每页最多看20条
         }
 
-        IPage<ProductPublic> page = productService.listProductsPublic(pageNum, pageSize, keyword);
+        IPage<ProductPublic> page = productService.listProductsPublic(pageNum, pageSize, keyword, searchMode);
+        return Result.success(page);
+    }
+
+    @GetMapping("/cursor")
+    @Operation(summary = "游标分页查询商品", description = "公共接口，按上一页返回的游标继续查询，翻页深度不影响查询性能。未登录用户有查询限制。")
+    public Result<ProductCursorPage> listProductsByCursor(
+            @Parameter(description = "排序方式: CREATED_TIME_DESC, PRICE_ASC, PRICE_DESC") @RequestParam(defaultValue = "CREATED_TIME_DESC") ProductSort sort,
+            @Parameter(description = "每页数量") @RequestParam(defaultValue = "10") int size,
+            @Parameter(description = "上一页返回的游标, 首页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "是否返回商品总数") @RequestParam(defaultValue = "false") boolean withTotal) {
+
+        if (size < 1) {
+            throw new IllegalArgumentException("每页数量必须大于0");
+        }
+        // 对未登录用户进行size限制
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        int maxSize = authentication == null || authentication.getPrincipal().equals("anonymousUser") ? 20 : 100;
+
+        ProductCursorPage page = productService.listProductsByCursor(sort, Math.min(size, maxSize), cursor, withTotal);
         return Result.success(page);
     }
 }
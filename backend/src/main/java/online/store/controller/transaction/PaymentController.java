@@ -1,6 +1,7 @@
 package online.store.controller.transaction;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -11,6 +12,7 @@ import jakarta.annotation.Resource;
 import jakarta.validation.Valid;
 import online.store.dto.transaction.RechargeRequest;
 import online.store.pojo.Result;
+import online.store.service.common.IdempotencyService;
 import online.store.service.transaction.PaymentService;
 import online.store.vo.transaction.RechargeResponse;
 import org.springframework.http.HttpStatus;
@@ -18,6 +20,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
@@ -32,10 +35,14 @@ public class PaymentController {
     @Resource
     private PaymentService paymentService;
 
+    @Resource
+    private IdempotencyService idempotencyService;
+
     /**
      * 为当前用户的账户进行充值
      *
      * @param rechargeRequest 包含充值金额的请求体
+     * @param idempotencyKey 幂等键, 重试时携带相同的键返回首次请求的结果
      * @return 包含充值结果的统一响应体
      */
     @PostMapping("/recharge")
@@ -45,10 +52,15 @@ public class PaymentController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "充值成功", content = @Content(schema = @Schema(implementation = Result.class))),
             @ApiResponse(responseCode = "400", description = "请求参数无效 (如充值金额为负数)", content = @Content(schema =  @Schema(implementation = RechargeResponse.class))),
-            @ApiResponse(responseCode = "403", description = "权限不足, 只有消费者可以充值", content = @Content(schema = @Schema(implementation = RechargeResponse.class)))
+            @ApiResponse(responseCode = "403", description = "权限不足, 只有消费者可以充值", content = @Content(schema = @Schema(implementation = RechargeResponse.class))),
+            @ApiResponse(responseCode = "409", description = "相同幂等键的请求正在处理中, 或幂等键已用于其他请求", content = @Content(schema = @Schema(implementation = Result.class)))
     })
-    public Result<RechargeResponse> recharge(@Valid @RequestBody RechargeRequest rechargeRequest) {
-        RechargeResponse response = paymentService.rechargeAccount(rechargeRequest);
+    public Result<RechargeResponse> recharge(
+            @Valid @RequestBody RechargeRequest rechargeRequest,
+            @Parameter(description = "幂等键 (如 UUID), 超时重试时携带相同的键不会重复充值")
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        RechargeResponse response = idempotencyService.execute("recharge", idempotencyKey, rechargeRequest, RechargeResponse.class,
+                () -> paymentService.rechargeAccount(rechargeRequest));
         return Result.success(response);
     }
 
@@ -0,0 +1,30 @@
+package online.store.dto.cart;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+/**
+ * 购物车结算请求DTO, 结算购物车中所有选中的商品
+ */
+@Data
+@Schema(name = "CartCheckoutRequest DTO", description = "购物车结算请求数据体")
+public class CartCheckoutRequest {
+
+    @NotBlank(message = "收货地址不能为空")
+    @Size(max = 255, message = "收货地址长度不能超过255个字符")
+    @Schema(description = "收货地址", example = "XX省XX市XX区XX街道XX号", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String address;
+
+    @NotBlank(message = "收货人姓名不能为空")
+    @Size(max = 50, message = "收货人姓名长度不能超过50个字符")
+    @Schema(description = "收货人姓名", example = "张三", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String consignee;
+
+    @NotBlank(message = "联系电话不能为空")
+    @Pattern(regexp = "^1[3-9]\\d{9}$", message = "手机号码格式不正确")
+    @Schema(description = "联系电话", example = "13888888888", requiredMode = Schema.RequiredMode.REQUIRED)
+    private String phone;
+}
@@ -0,0 +1,25 @@
+package online.store.dto.cart;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+/**
+ * 加入购物车请求DTO
+ */
+@Data
+@Schema(name = "CartItemAddRequest DTO", description = "加入购物车请求数据体")
+public class CartItemAddRequest {
+
+    @NotNull(message = "商品ID不能为空")
+    @Schema(description = "商品ID", example = "1", requiredMode = Schema.RequiredMode.REQUIRED)
+    private Long productId;
+
+    @NotNull(message = "数量不能为空")
+    @Min(value = 1, message = "数量至少为1")
+    @Max(value = 9999, message = "数量不能超过9999")
+    @Schema(description = "增加的数量, 商品已在购物车中时累加", example = "1", requiredMode = Schema.RequiredMode.REQUIRED, minimum = "1")
+    private Integer quantity;
+}
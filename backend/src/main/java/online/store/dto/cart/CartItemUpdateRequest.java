@@ -0,0 +1,22 @@
+package online.store.dto.cart;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+
+/**
+ * 修改购物车商品请求DTO, 字段为空表示不修改
+ */
+@Data
+@Schema(name = "CartItemUpdateRequest DTO", description = "修改购物车商品请求数据体")
+public class CartItemUpdateRequest {
+
+    @Min(value = 1, message = "数量至少为1")
+    @Max(value = 9999, message = "数量不能超过9999")
+    @Schema(description = "新的购买数量", example = "2", minimum = "1")
+    private Integer quantity;
+
+    @Schema(description = "是否选中, 结算时只购买选中的商品", example = "true")
+    private Boolean selected;
+}
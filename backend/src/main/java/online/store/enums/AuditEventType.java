@@ -0,0 +1,28 @@
+package online.store.enums;
+
+import com.baomidou.mybatisplus.annotation.EnumValue;
+import lombok.Getter;
+
+/**
+ * 审计事件类型枚举
+ * 1-订单已支付, 2-余额已充值
+ */
+@Getter
+public enum AuditEventType {
+    ORDER_PAID(1, "订单已支付"),
+    BALANCE_RECHARGED(2, "余额已充值");
+
+    /**
+     * MyBatis-Plus 枚举值注解，标识该字段为枚举在数据库中的存储值为code
+     */
+    @EnumValue
+    private final int code;
+
+    private final String desc;
+
+    AuditEventType(int code, String desc) {
+        this.code = code;
+        this.desc = desc;
+    }
+
+}
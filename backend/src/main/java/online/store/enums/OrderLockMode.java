@@ -0,0 +1,11 @@
+package online.store.enums;
+
+/**
+ * 下单并发控制方式
+ * PESSIMISTIC - 悲观锁, 先 SELECT ... FOR UPDATE 锁定商品和用户再校验、扣减
+ * OPTIMISTIC - 乐观并发, 不加锁读取后以带条件的 UPDATE 原子扣减库存和余额, 条件不满足时重试
+ */
+public enum OrderLockMode {
+    PESSIMISTIC,
+    OPTIMISTIC
+}
@@ -0,0 +1,13 @@
+package online.store.enums;
+
+/**
+ * 商品搜索模式
+ * LIKE - 模糊匹配, 全表扫描, 用于关键字过短或全文索引不可用时
+ * NATURAL_LANGUAGE - 全文索引自然语言模式, 按相关度排序
+ * BOOLEAN - 全文索引布尔模式, 要求包含所有关键字, 按相关度排序
+ */
+public enum ProductSearchMode {
+    LIKE,
+    NATURAL_LANGUAGE,
+    BOOLEAN
+}
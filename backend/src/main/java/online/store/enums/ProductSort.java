@@ -0,0 +1,29 @@
+package online.store.enums;
+
+import lombok.Getter;
+
+/**
+ * 商品游标分页排序方式
+ * 相同排序值按商品ID同向排序, 保证顺序稳定
+ */
+@Getter
+public enum ProductSort {
+    CREATED_TIME_DESC("created_time", false),
+    PRICE_ASC("price", true),
+    PRICE_DESC("price", false);
+
+    /**
+     * 排序列名
+     */
+    private final String column;
+
+    /**
+     * 是否升序
+     */
+    private final boolean ascending;
+
+    ProductSort(String column, boolean ascending) {
+        this.column = column;
+        this.ascending = ascending;
+    }
+}
@@ -0,0 +1,11 @@
+package online.store.enums;
+
+/**
+ * 限流计数方式
+ * LOCAL - 单实例令牌桶, 计数保存在本地内存, 多实例部署时每个实例独立限流
+ * REDIS - Redis 滑动窗口, 多实例共享计数, Redis 不可用时临时退回本地令牌桶
+ */
+public enum RateLimitMode {
+    LOCAL,
+    REDIS
+}
@@ -0,0 +1,10 @@
+package online.store.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import online.store.pojo.AuditEvent;
+
+/**
+ * 审计事件Mapper接口
+ */
+public interface AuditEventMapper extends BaseMapper<AuditEvent> {
+}
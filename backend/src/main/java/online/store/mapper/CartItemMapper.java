@@ -0,0 +1,45 @@
+package online.store.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import online.store.pojo.CartItem;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 购物车Mapper接口
+ */
+public interface CartItemMapper extends BaseMapper<CartItem> {
+
+    /**
+     * 批量写入购物车商品, 已存在的 (user_id, product_id) 更新数量和选中状态
+     * @param items 购物车商品列表, 不能为空
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO cart_item (user_id, product_id, quantity, selected) VALUES " +
+            "<foreach collection='items' item='item' separator=','>" +
+            "(#{item.userId}, #{item.productId}, #{item.quantity}, #{item.selected.code})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), selected = VALUES(selected)" +
+            "</script>")
+    int upsertBatch(@Param("items") List<CartItem> items);
+
+    /**
+     * 删除用户购物车中不在保留列表内的商品
+     * @param userId 用户ID
+     * @param keepProductIds 需要保留的商品ID, 为空时删除该用户全部购物车商品
+     * @return 删除行数
+     */
+    @Delete("<script>" +
+            "DELETE FROM cart_item WHERE user_id = #{userId}" +
+            "<if test='keepProductIds != null and !keepProductIds.isEmpty()'>" +
+            " AND product_id NOT IN " +
+            "<foreach collection='keepProductIds' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</if>" +
+            "</script>")
+    int deleteExcept(@Param("userId") Long userId, @Param("keepProductIds") Collection<Long> keepProductIds);
+}
@@ -2,8 +2,13 @@ package online.store.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import online.store.pojo.Product;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -11,6 +16,75 @@ import java.util.Optional;
  */
 public interface ProductMapper extends BaseMapper<Product> {
 
+    /**
+     * 全文检索条件, 使用 ft_name_desc 全文索引
+     */
+    String MATCH_AGAINST = "MATCH(name, description) AGAINST(#{keyword} " +
+            "<choose><when test='booleanMode'>IN BOOLEAN MODE</when><otherwise>IN NATURAL LANGUAGE MODE</otherwise></choose>)";
+
     @Select("SELECT * FROM product WHERE id = #{id} FOR UPDATE")
     Optional<Product> selectByIdForUpdate(Long id);
+
+    /**
+     * 带条件扣减库存: 商品在售、库存充足、价格未变且未开启库存分片时才扣减, 由单条语句保证原子性, 无需事先加锁
+     * @param id 商品ID
+     * @param quantity 扣减数量
+     * @param price 下单时读取的商品价格, 价格被修改后扣减失败
+     * @param status 在售状态码
+     * @return 影响行数, 0 表示条件不满足
+     */
+    @Update("UPDATE product SET stock = stock - #{quantity} " +
+            "WHERE id = #{id} AND stock >= #{quantity} AND status = #{status} AND price = #{price} AND stock_shards = 0")
+    int deductStock(@Param("id") Long id,
+                    @Param("quantity") int quantity,
+                    @Param("price") BigDecimal price,
+                    @Param("status") int status);
+
+    /**
+     * 按ID升序批量查询商品并施加数据行锁, 多个事务按相同顺序加锁, 不会互相死锁
+     * @param ids 商品ID, 不能为空
+     * @return 存在的商品列表, 按ID升序
+     */
+    @Select("<script>" +
+            "SELECT * FROM product WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach> " +
+            "ORDER BY id FOR UPDATE" +
+            "</script>")
+    List<Product> selectBatchForUpdate(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 全文检索指定状态的商品, 按相关度降序排列
+     * @param keyword 检索关键字, 布尔模式下为布尔表达式
+     * @param booleanMode true 布尔模式, false 自然语言模式
+     * @param status 商品状态码
+     * @param offset 跳过的记录数
+     * @param size 返回的最大记录数
+     * @return 商品列表
+     */
+    @Select("<script>" +
+            "SELECT * FROM product " +
+            "WHERE status = #{status} AND " + MATCH_AGAINST + " " +
+            "ORDER BY " + MATCH_AGAINST + " DESC, id DESC " +
+            "LIMIT #{offset}, #{size}" +
+            "</script>")
+    List<Product> searchFullText(@Param("keyword") String keyword,
+                                 @Param("booleanMode") boolean booleanMode,
+                                 @Param("status") int status,
+                                 @Param("offset") long offset,
+                                 @Param("size") long size);
+
+    /**
+     * 统计全文检索命中的商品数量
+     * @param keyword 检索关键字, 布尔模式下为布尔表达式
+     * @param booleanMode true 布尔模式, false 自然语言模式
+     * @param status 商品状态码
+     * @return 命中数量
+     */
+    @Select("<script>" +
+            "SELECT COUNT(*) FROM product " +
+            "WHERE status = #{status} AND " + MATCH_AGAINST +
+            "</script>")
+    long countFullText(@Param("keyword") String keyword,
+                       @Param("booleanMode") boolean booleanMode,
+                       @Param("status") int status);
 }
@@ -0,0 +1,66 @@
+package online.store.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import online.store.pojo.ProductStockShard;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 商品库存分片Mapper接口
+ */
+public interface ProductStockShardMapper extends BaseMapper<ProductStockShard> {
+
+    /**
+     * 查询库存不少于指定数量的分片序号 (快照读, 不加锁)
+     * @param productId 商品ID
+     * @param quantity 需要的数量
+     * @return 分片序号列表
+     */
+    @Select("SELECT shard_no FROM product_stock_shard WHERE product_id = #{productId} AND stock >= #{quantity}")
+    List<Integer> selectAvailableShardNos(@Param("productId") Long productId, @Param("quantity") int quantity);
+
+    /**
+     * 带条件扣减分片库存, 分片库存不足时不扣减
+     * @param productId 商品ID
+     * @param shardNo 分片序号
+     * @param quantity 扣减数量
+     * @return 影响行数, 0 表示库存不足
+     */
+    @Update("UPDATE product_stock_shard SET stock = stock - #{quantity} " +
+            "WHERE product_id = #{productId} AND shard_no = #{shardNo} AND stock >= #{quantity}")
+    int deduct(@Param("productId") Long productId, @Param("shardNo") int shardNo, @Param("quantity") int quantity);
+
+    /**
+     * 按分片序号升序查询商品的全部分片并施加数据行锁
+     * @param productId 商品ID
+     * @return 分片列表
+     */
+    @Select("SELECT * FROM product_stock_shard WHERE product_id = #{productId} ORDER BY shard_no FOR UPDATE")
+    List<ProductStockShard> selectByProductForUpdate(@Param("productId") Long productId);
+
+    /**
+     * 删除商品的全部分片
+     * @param productId 商品ID
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM product_stock_shard WHERE product_id = #{productId}")
+    int deleteByProduct(@Param("productId") Long productId);
+
+    /**
+     * 批量写入分片
+     * @param shards 分片列表, 不能为空
+     * @return 影响行数
+     */
+    @Insert("<script>" +
+            "INSERT INTO product_stock_shard (product_id, shard_no, stock) VALUES " +
+            "<foreach collection='shards' item='shard' separator=','>" +
+            "(#{shard.productId}, #{shard.shardNo}, #{shard.stock})" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("shards") List<ProductStockShard> shards);
+}
@@ -30,4 +30,11 @@ public interface RoleMapper extends BaseMapper<Role> {
             "WHERE ur.user_id = #{userId}")
     List<Role> selectRolesByUserId(@Param("userId") Long userId);
 
+    /**
+     * 查询角色表版本 (行数与最后更新时间), 用于判断角色缓存是否需要重新加载
+     * @return 版本字符串
+     */
+    @Select("SELECT CONCAT(COUNT(*), ':', IFNULL(MAX(updated_time), '')) FROM role")
+    String selectVersion();
+
 }
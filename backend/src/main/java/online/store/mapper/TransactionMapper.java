@@ -2,9 +2,54 @@ package online.store.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import online.store.pojo.Transaction;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * 交易数据Mapper接口
  */
 public interface TransactionMapper extends BaseMapper<Transaction> {
+
+    /**
+     * 查询用户尚未计入余额的流水并施加数据行锁, 读取最新提交的数据
+     * @param userId 用户ID
+     * @return 未计入余额的流水
+     */
+    @Select("SELECT * FROM `transaction` WHERE applied = 0 AND user_id = #{userId} FOR UPDATE")
+    List<Transaction> selectUnappliedForUpdate(@Param("userId") Long userId);
+
+    /**
+     * 将流水标记为已计入余额
+     * @param ids 流水ID, 不能为空
+     * @return 影响行数
+     */
+    @Update("<script>" +
+            "UPDATE `transaction` SET applied = 1 WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int markApplied(@Param("ids") Collection<Long> ids);
+
+    /**
+     * 查询存在未计入余额流水的用户
+     * @param limit 最多返回的用户数
+     * @return 用户ID列表
+     */
+    @Select("SELECT DISTINCT user_id FROM `transaction` WHERE applied = 0 LIMIT #{limit}")
+    List<Long> selectUnappliedUserIds(@Param("limit") int limit);
+
+    /**
+     * 查询用户当前余额: user.balance 加上未计入余额的流水 (消费为负)
+     * <p>单条语句在同一个一致性读视图中读取两张表, 与任何实例上并发的合并既不会重复计算也不会遗漏</p>
+     * @param userId 用户ID
+     * @return 当前余额, 用户不存在时为 null
+     */
+    @Select("SELECT u.balance + COALESCE((SELECT SUM(CASE WHEN t.type = 2 THEN -t.amount ELSE t.amount END) " +
+            "FROM `transaction` t WHERE t.applied = 0 AND t.user_id = u.id), 0) " +
+            "FROM `user` u WHERE u.id = #{userId}")
+    BigDecimal selectLedgerBalance(@Param("userId") Long userId);
 }
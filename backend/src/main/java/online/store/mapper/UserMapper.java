@@ -4,7 +4,11 @@ import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import online.store.pojo.User;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -20,6 +24,21 @@ public interface UserMapper extends BaseMapper<User> {
     @Select("SELECT * FROM `user` WHERE username = #{username}")
     User selectByUsername(@Param("username") String username);
 
+    /**
+     * 查询用户名或邮箱已被使用的用户, 用于批量导入时一次性校验唯一性
+     * @param usernames 用户名, 不能为空
+     * @param emails 邮箱, 可以为空
+     * @return 仅包含用户名和邮箱的 User 对象
+     */
+    @Select("<script>" +
+            "SELECT username, email FROM `user` WHERE username IN " +
+            "<foreach collection='usernames' item='username' open='(' separator=',' close=')'>#{username}</foreach>" +
+            "<if test='emails != null and !emails.isEmpty()'>" +
+            " OR email IN <foreach collection='emails' item='email' open='(' separator=',' close=')'>#{email}</foreach>" +
+            "</if>" +
+            "</script>")
+    List<User> selectExisting(@Param("usernames") Collection<String> usernames, @Param("emails") Collection<String> emails);
+
     /**
      * 数据行锁, 确保事务一致
      * @param username 正在修改信息的用户名
@@ -28,4 +47,30 @@ public interface UserMapper extends BaseMapper<User> {
     @Select("SELECT * FROM user WHERE username = #{username} FOR UPDATE")
     Optional<User> selectByUsernameForUpdate(String username);
 
+    /**
+     * 根据用户ID查询并施加数据行锁
+     * @param id 用户ID
+     * @return Optional对象
+     */
+    @Select("SELECT * FROM user WHERE id = #{id} FOR UPDATE")
+    Optional<User> selectByIdForUpdate(Long id);
+
+    /**
+     * 带条件扣减余额: 余额充足时才扣减, 由单条语句保证原子性, 无需事先加锁
+     * @param id 用户ID
+     * @param amount 扣减金额
+     * @return 影响行数, 0 表示余额不足
+     */
+    @Update("UPDATE `user` SET balance = balance - #{amount} WHERE id = #{id} AND balance >= #{amount}")
+    int deductBalance(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    /**
+     * 增加余额 (金额可为负), 用于合并账本流水
+     * @param id 用户ID
+     * @param amount 增加的金额
+     * @return 影响行数
+     */
+    @Update("UPDATE `user` SET balance = balance + #{amount} WHERE id = #{id}")
+    int addBalance(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
 }
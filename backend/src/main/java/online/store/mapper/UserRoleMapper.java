@@ -2,9 +2,21 @@ package online.store.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import online.store.pojo.UserRole;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 /**
  * 用户 - 角色 关系Mapper接口
  */
 public interface UserRoleMapper extends BaseMapper<UserRole> {
+
+    /**
+     * 查询用户拥有的角色ID, 只访问 user_role 主键索引
+     * @param userId 用户ID
+     * @return 按角色ID升序的角色ID列表
+     */
+    @Select("SELECT role_id FROM user_role WHERE user_id = #{userId} ORDER BY role_id")
+    List<Long> selectRoleIdsByUserId(@Param("userId") Long userId);
 }
@@ -0,0 +1,72 @@
+package online.store.pojo;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import online.store.enums.AuditEventType;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 审计事件实体类
+ * 只追加不修改, 因此不继承 BaseEntity (没有 updated_time)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@TableName("audit_event")
+public class AuditEvent implements Serializable {
+
+    /**
+     * 事件ID
+     */
+    @TableId
+    private Long id;
+
+    /**
+     * 类型: 1-订单已支付, 2-余额已充值
+     */
+    private AuditEventType type;
+
+    /**
+     * 用户ID
+     */
+    @TableField("user_id")
+    private Long userId;
+
+    /**
+     * 用户名
+     */
+    private String username;
+
+    /**
+     * 业务单号: 订单号或充值流水号
+     */
+    private String reference;
+
+    /**
+     * 金额
+     */
+    private BigDecimal amount;
+
+    /**
+     * 事件发生后的用户余额, 未知时为 null
+     */
+    private BigDecimal balance;
+
+    /**
+     * 事件详情
+     */
+    private String detail;
+
+    /**
+     * 事件发生时间 (业务事务中的时间, 而非写入时间)
+     */
+    @TableField("occurred_time")
+    private LocalDateTime occurredTime;
+}
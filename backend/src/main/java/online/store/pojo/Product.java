@@ -69,6 +69,13 @@ public class Product extends BaseEntity {
     @Schema(description = "商品库存", example = "1")
     private Integer stock;
 
+    /**
+     * 库存分片数, 0 表示不分片; 大于0时库存保存在 product_stock_shard 表, stock 为各分片合计
+     */
+    @Schema(description = "库存分片数, 0表示不分片", example = "0", accessMode = Schema.AccessMode.READ_ONLY)
+    @TableField(value = "stock_shards")
+    private Integer stockShards;
+
     /**
      * 商品分类id
      */
@@ -0,0 +1,34 @@
+package online.store.pojo;
+
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 商品库存分片实体类
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@TableName("`product_stock_shard`")
+public class ProductStockShard {
+
+    /**
+     * 商品ID
+     */
+    @TableField("product_id")
+    private Long productId;
+
+    /**
+     * 分片序号, 从0开始
+     */
+    @TableField("shard_no")
+    private Integer shardNo;
+
+    /**
+     * 分片库存
+     */
+    private Integer stock;
+}
@@ -57,4 +57,10 @@ public class Transaction extends BaseEntity {
      */
     private String remark;
 
+    /**
+     * 是否已计入用户余额
+     * 账本模式下充值流水先以 false 写入, 由合并任务计入 user.balance 后置为 true
+     */
+    private Boolean applied;
+
 }
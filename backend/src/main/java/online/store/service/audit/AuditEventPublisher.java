@@ -0,0 +1,228 @@
+package online.store.service.audit;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import online.store.common.metrics.BusinessMetrics;
+import online.store.common.utils.MpscRingBuffer;
+import online.store.common.utils.WorkerThreads;
+import online.store.config.AuditConfig;
+import online.store.enums.AuditEventType;
+import online.store.mapper.AuditEventMapper;
+import online.store.pojo.AuditEvent;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 审计事件发布
+ * <p>业务事务中只构造事件对象, 事务提交后才放入无锁环形缓冲区, 回滚的事务不产生事件;
+ * 后台写入线程批量取出事件写入本地审计文件和/或 audit_event 表, 审计不占用业务事务的持锁时间</p>
+ * <p>缓冲区满时丢弃新事件并计数, 不阻塞业务请求</p>
+ */
+@Slf4j
+@Service
+public class AuditEventPublisher implements SmartLifecycle {
+
+    private final AuditEventMapper auditEventMapper;
+
+    private final ObjectMapper objectMapper;
+
+    private final AuditConfig auditConfig;
+
+    private final Environment environment;
+
+    private final BusinessMetrics businessMetrics;
+
+    private final MpscRingBuffer<AuditEvent> buffer;
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private volatile boolean running = false;
+
+    private Thread writer;
+
+    public AuditEventPublisher(AuditEventMapper auditEventMapper, ObjectMapper objectMapper,
+                               AuditConfig auditConfig, Environment environment, BusinessMetrics businessMetrics) {
+        this.auditEventMapper = auditEventMapper;
+        this.objectMapper = objectMapper;
+        this.auditConfig = auditConfig;
+        this.environment = environment;
+        this.businessMetrics = businessMetrics;
+        this.buffer = new MpscRingBuffer<>(auditConfig.getBufferSize());
+    }
+
+    /**
+     * 发布订单支付事件
+     * @param orderNo 订单号
+     * @param userId 用户ID
+     * @param username 用户名
+     * @param amount 订单金额
+     * @param balance 支付后余额, 未知时为 null
+     * @param detail 事件详情
+     */
+    public void orderPaid(String orderNo, Long userId, String username, BigDecimal amount, BigDecimal balance, String detail) {
+        publish(AuditEventType.ORDER_PAID, orderNo, userId, username, amount, balance, detail);
+    }
+
+    /**
+     * 发布余额充值事件
+     * @param transactionId 充值流水号
+     * @param userId 用户ID
+     * @param username 用户名
+     * @param amount 充值金额
+     * @param balance 充值后余额
+     */
+    public void balanceRecharged(long transactionId, Long userId, String username, BigDecimal amount, BigDecimal balance) {
+        publish(AuditEventType.BALANCE_RECHARGED, String.valueOf(transactionId), userId, username, amount, balance, null);
+    }
+
+    /**
+     * 构造事件; 当前线程有事务时在提交后入队并计入业务指标, 否则立即入队并计入
+     */
+    private void publish(AuditEventType type, String reference, Long userId, String username,
+                         BigDecimal amount, BigDecimal balance, String detail) {
+        AuditEvent event = new AuditEvent(null, type, userId, username, reference, amount, balance, detail, LocalDateTime.now());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    committed(event);
+                }
+            });
+        } else {
+            committed(event);
+        }
+    }
+
+    private void committed(AuditEvent event) {
+        switch (event.getType()) {
+            case ORDER_PAID -> businessMetrics.orderCreated();
+            case BALANCE_RECHARGED -> businessMetrics.recharged();
+        }
+        if (running) {
+            enqueue(event);
+        }
+    }
+
+    private void enqueue(AuditEvent event) {
+        if (!buffer.offer(event)) {
+            long count = dropped.incrementAndGet();
+            if (count % 1000 == 1) {
+                log.warn("审计缓冲区已满, 已丢弃 {} 个事件", count);
+            }
+        }
+    }
+
+    /**
+     * 写入线程: 批量取出事件, 缓冲区为空时短暂等待
+     */
+    private void runWriter() {
+        AuditFileWriter file = auditConfig.isFileEnabled()
+                ? new AuditFileWriter(Path.of(auditConfig.getDirectory()), auditConfig.getMaxFileSize().toBytes())
+                : null;
+        List<AuditEvent> batch = new ArrayList<>(auditConfig.getBatchSize());
+        long idleNanos = auditConfig.getFlushInterval().toNanos();
+        try {
+            while (running || !buffer.isEmpty()) {
+                if (buffer.drainTo(batch, auditConfig.getBatchSize()) == 0) {
+                    LockSupport.parkNanos(idleNanos);
+                    continue;
+                }
+                writeBatch(file, batch);
+                batch.clear();
+            }
+        } finally {
+            closeQuietly(file);
+        }
+    }
+
+    /**
+     * 写入一批事件, 某个目标写入失败不影响另一个目标
+     */
+    private void writeBatch(AuditFileWriter file, List<AuditEvent> batch) {
+        if (auditConfig.isTableEnabled()) {
+            try {
+                auditEventMapper.insert(batch);
+            } catch (RuntimeException e) {
+                log.warn("审计事件写入数据库失败, 共 {} 个: {}", batch.size(), e.getMessage());
+            }
+        }
+        if (file != null) {
+            try {
+                List<String> lines = new ArrayList<>(batch.size());
+                for (AuditEvent event : batch) {
+                    lines.add(objectMapper.writeValueAsString(event));
+                }
+                file.write(lines);
+            } catch (JsonProcessingException e) {
+                log.warn("审计事件序列化失败: {}", e.getMessage());
+            } catch (IOException e) {
+                log.warn("审计事件写入文件失败, 共 {} 个: {}", batch.size(), e.getMessage());
+            }
+        }
+        written.addAndGet(batch.size());
+    }
+
+    private static void closeQuietly(AuditFileWriter file) {
+        if (file == null) {
+            return;
+        }
+        try {
+            file.close();
+        } catch (IOException e) {
+            log.warn("关闭审计文件失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!auditConfig.isEnabled()) {
+            return;
+        }
+        running = true;
+        writer = WorkerThreads.start(environment, "audit-writer", this::runWriter);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        // 停止受理新事件, 写入线程写完缓冲区中的事件后退出
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        log.info("审计写入线程已停止, 共写入 {} 个事件, 丢弃 {} 个", written.get(), dropped.get());
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * 晚于 Web 服务器和下单流水线等组件停止, 停机过程中产生的事件仍能写出
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,87 @@
+package online.store.service.audit;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 按日期和大小滚动的审计文件, 只由审计写入线程使用, 非线程安全
+ * <p>当天第一个文件为 audit-日期.log, 超过大小上限后依次为 audit-日期.1.log、audit-日期.2.log ...</p>
+ */
+class AuditFileWriter implements Closeable {
+
+    private final Path directory;
+
+    private final long maxFileSize;
+
+    private BufferedWriter writer;
+
+    private LocalDate date;
+
+    private int index;
+
+    private long size;
+
+    AuditFileWriter(Path directory, long maxFileSize) {
+        this.directory = directory;
+        this.maxFileSize = maxFileSize;
+    }
+
+    /**
+     * 追加一批已序列化的事件并刷盘
+     * @param lines 每个元素为一行 JSON
+     */
+    void write(List<String> lines) throws IOException {
+        for (String line : lines) {
+            byte[] bytes = (line + '\n').getBytes(StandardCharsets.UTF_8);
+            roll(bytes.length);
+            writer.write(line);
+            writer.newLine();
+            size += bytes.length;
+        }
+        writer.flush();
+    }
+
+    /**
+     * 日期变化或写入后超过大小上限时切换到下一个文件
+     */
+    private void roll(int pending) throws IOException {
+        LocalDate today = LocalDate.now();
+        if (writer != null && today.equals(date) && (size == 0 || size + pending <= maxFileSize)) {
+            return;
+        }
+        close();
+        if (!today.equals(date)) {
+            date = today;
+            index = 0;
+        } else {
+            index++;
+        }
+        Files.createDirectories(directory);
+        // 重启后跳过当天已写满的文件
+        Path file = fileOf(date, index);
+        while (Files.exists(file) && Files.size(file) >= maxFileSize) {
+            file = fileOf(date, ++index);
+        }
+        writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        size = Files.size(file);
+    }
+
+    private Path fileOf(LocalDate date, int index) {
+        return directory.resolve(index == 0 ? "audit-" + date + ".log" : "audit-" + date + "." + index + ".log");
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package online.store.service.auth;
+
+import lombok.extern.slf4j.Slf4j;
+import online.store.common.exception.ServiceBusyException;
+import online.store.config.PasswordHashConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 密码哈希服务
+ * <p>BCrypt 计算在专用的有界线程池中执行, 线程数少于 CPU 核数, 登录高峰时 CPU 不会被哈希计算占满;
+ * 等待队列满或等待超时时直接拒绝 (503), 请求线程不会长时间阻塞</p>
+ * <p>记录哈希耗时与排队等待时间, 供管理接口查看</p>
+ */
+@Slf4j
+@Service
+public class PasswordHashService implements DisposableBean {
+
+    /**
+     * BCrypt 哈希格式: $2a$10$..., 第二段为成本因子
+     */
+    private static final Pattern BCRYPT_COST = Pattern.compile("^\\$2[abxy]?\\$(\\d{2})\\$");
+
+    /**
+     * 批量哈希遇到队列已满时的重试间隔
+     */
+    private static final long BULK_RETRY_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final PasswordHashConfig config;
+
+    private final ThreadPoolExecutor executor;
+
+    private final Timing hashTiming = new Timing();
+
+    private final Timing queueTiming = new Timing();
+
+    private final LongAdder rejected = new LongAdder();
+
+    public PasswordHashService(PasswordEncoder passwordEncoder, PasswordHashConfig config) {
+        this.passwordEncoder = passwordEncoder;
+        this.config = config;
+        int poolSize = config.getPoolSize() > 0 ? config.getPoolSize()
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getQueueCapacity()),
+                task -> {
+                    Thread thread = new Thread(task, "password-hash-" + threadIndex.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 计算密码哈希
+     * @param rawPassword 明文密码
+     * @return BCrypt 哈希
+     * @throws ServiceBusyException 哈希队列已满或等待超时
+     */
+    public String encode(CharSequence rawPassword) {
+        return call(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * 批量计算密码哈希, 用于批量导入
+     * <p>同时提交的任务数不超过线程数, 不会占满等待队列而使登录请求被拒绝; 队列已满时等待后重试, 调用方阻塞直到全部完成</p>
+     * @param rawPasswords 明文密码
+     * @return 与输入顺序一致的哈希
+     */
+    public List<String> encodeAll(List<? extends CharSequence> rawPasswords) {
+        String[] hashes = new String[rawPasswords.size()];
+        Semaphore inFlight = new Semaphore(executor.getMaximumPoolSize());
+        CountDownLatch done = new CountDownLatch(hashes.length);
+        try {
+            for (int i = 0; i < hashes.length; i++) {
+                int index = i;
+                inFlight.acquire();
+                Runnable task = () -> {
+                    long started = System.nanoTime();
+                    try {
+                        hashes[index] = passwordEncoder.encode(rawPasswords.get(index));
+                    } finally {
+                        hashTiming.record(System.nanoTime() - started);
+                        inFlight.release();
+                        done.countDown();
+                    }
+                };
+                while (true) {
+                    try {
+                        executor.execute(task);
+                        break;
+                    } catch (RejectedExecutionException e) {
+                        // 登录高峰占满了队列, 稍后重试, 批量导入让位于在线请求
+                        LockSupport.parkNanos(BULK_RETRY_NANOS);
+                    }
+                }
+            }
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("请求已中断, 请重试");
+        }
+        for (String hash : hashes) {
+            if (hash == null) {
+                throw new IllegalStateException("密码哈希失败");
+            }
+        }
+        return List.of(hashes);
+    }
+
+    /**
+     * 校验密码
+     * @param rawPassword 明文密码
+     * @param encodedPassword 保存的哈希
+     * @return 是否匹配
+     * @throws ServiceBusyException 哈希队列已满或等待超时
+     */
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return call(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * 保存的哈希是否需要按当前配置的成本因子重新计算
+     * @param encodedPassword 保存的哈希
+     * @return 成本因子与配置不同时为 true
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != config.getStrength();
+    }
+
+    /**
+     * 在哈希线程池中异步重新计算哈希, 队列已满时放弃, 下次登录再试
+     * @param rawPassword 明文密码
+     * @param onHashed 新哈希的回调, 在哈希线程中执行
+     */
+    public void rehashAsync(CharSequence rawPassword, Consumer<String> onHashed) {
+        try {
+            executor.execute(() -> {
+                try {
+                    onHashed.accept(passwordEncoder.encode(rawPassword));
+                } catch (RuntimeException e) {
+                    log.warn("密码重新哈希失败: {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("哈希队列已满, 跳过密码重新哈希");
+        }
+    }
+
+    private <T> T call(Callable<T> task) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                queueTiming.record(started - submitted);
+                try {
+                    return task.call();
+                } finally {
+                    hashTiming.record(System.nanoTime() - started);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceBusyException("登录请求过多, 请稍后重试");
+        }
+        try {
+            return future.get(config.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(false);
+            rejected.increment();
+            throw new ServiceBusyException("登录请求过多, 请稍后重试");
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new ServiceBusyException("请求已中断, 请重试");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * 获取哈希统计快照
+     * @return 哈希次数、耗时、排队时间、拒绝次数及当前队列长度
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(hashTiming.count.sum(), hashTiming.averageMicros(), hashTiming.maxMicros(),
+                queueTiming.averageMicros(), queueTiming.maxMicros(), rejected.sum(), executor.getQueue().size());
+    }
+
+    /**
+     * 哈希统计快照
+     * @param hashes 完成的哈希次数
+     * @param averageHashMicros 平均哈希耗时(微秒)
+     * @param maxHashMicros 最大哈希耗时(微秒)
+     * @param averageQueueMicros 平均排队时间(微秒)
+     * @param maxQueueMicros 最大排队时间(微秒)
+     * @param rejected 队列满或等待超时被拒绝的次数
+     * @param queueDepth 当前排队的请求数
+     */
+    public record Snapshot(long hashes, double averageHashMicros, double maxHashMicros,
+                           double averageQueueMicros, double maxQueueMicros, long rejected, int queueDepth) {
+    }
+
+    /**
+     * 耗时统计
+     */
+    private static final class Timing {
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        double averageMicros() {
+            long n = count.sum();
+            return n == 0 ? 0.0 : totalNanos.sum() / 1000.0 / n;
+        }
+
+        double maxMicros() {
+            return maxNanos.get() / 1000.0;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
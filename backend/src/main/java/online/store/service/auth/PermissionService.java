@@ -6,6 +6,7 @@ public interface PermissionService {
 
     /**
      * 获取当前登录的用户实体
+     * <p>结果来自用户身份缓存, 仅包含ID、用户名、状态和角色; 需要余额等字段时应使用行锁重新查询</p>
      * @return User 实体，如果未登录则返回 null 或抛出异常
      */
     User getCurrentUser();
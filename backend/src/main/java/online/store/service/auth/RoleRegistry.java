@@ -0,0 +1,262 @@
+package online.store.service.auth;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import online.store.common.utils.BoundedExpiringMap;
+import online.store.common.utils.CacheStats;
+import online.store.common.utils.CacheStatsRegistry;
+import online.store.config.RoleCacheConfig;
+import online.store.mapper.RoleMapper;
+import online.store.mapper.UserRoleMapper;
+import online.store.pojo.Role;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 角色注册表
+ * <p>角色表很小且几乎不变, 启动时整表加载到内存, 之后按角色名/角色ID解析角色只是一次 Map 查找;
+ * 定期比对 role 表版本 (行数与最后更新时间), 变化后重新加载</p>
+ * <p>另外按用户ID缓存其角色ID列表 (只查询 user_role 主键索引), 与注册表组合得到用户角色, 不再需要 role 与 user_role 的联表查询</p>
+ * <p>命中次数即避免的数据库查询次数, 见 /api/admin/cache/stats 中的 role 与 user-role;
+ * 用户角色变化后需调用 {@link #evictUser(Long)}</p>
+ */
+@Slf4j
+@Service
+public class RoleRegistry implements MessageListener {
+
+    /**
+     * 角色表重新加载通知频道, 管理员手动重新加载后通知其他实例
+     */
+    private static final String RELOAD_CHANNEL = "role:cache-events";
+
+    private final RoleMapper roleMapper;
+
+    private final UserRoleMapper userRoleMapper;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final RoleCacheConfig roleCacheConfig;
+
+    private final CacheStats roleStats;
+
+    private final CacheStats userRoleStats;
+
+    /**
+     * 用户ID到其角色ID列表的缓存
+     */
+    private final BoundedExpiringMap<Long, long[]> userRoles;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    /**
+     * 当前角色表快照, 未加载时为 null
+     */
+    private volatile Snapshot snapshot;
+
+    public RoleRegistry(RoleMapper roleMapper, UserRoleMapper userRoleMapper,
+                        StringRedisTemplate stringRedisTemplate,
+                        RedisMessageListenerContainer redisMessageListenerContainer,
+                        RoleCacheConfig roleCacheConfig, CacheStatsRegistry cacheStatsRegistry) {
+        this.roleMapper = roleMapper;
+        this.userRoleMapper = userRoleMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.roleCacheConfig = roleCacheConfig;
+        this.roleStats = cacheStatsRegistry.register("role");
+        this.userRoleStats = cacheStatsRegistry.register("user-role");
+        this.userRoles = new BoundedExpiringMap<>(roleCacheConfig::getMaxUsers);
+    }
+
+    /**
+     * 启动时加载角色表并订阅其他实例的重新加载通知; 数据库不可用时在首次使用时再加载
+     */
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(RELOAD_CHANNEL));
+        if (!roleCacheConfig.isEnabled()) {
+            return;
+        }
+        try {
+            reload();
+        } catch (DataAccessException e) {
+            log.warn("启动时加载角色表失败, 将在首次使用时重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 根据角色名称解析角色
+     * @param roleName 角色名称
+     * @return 角色, 不存在时返回 null
+     */
+    public Role getByName(String roleName) {
+        if (!roleCacheConfig.isEnabled()) {
+            return roleMapper.selectByRoleName(roleName);
+        }
+        Snapshot current = snapshot;
+        if (current != null) {
+            roleStats.recordHit();
+            return current.byName().get(roleName);
+        }
+        roleStats.recordMiss();
+        return load().byName().get(roleName);
+    }
+
+    /**
+     * 查询用户拥有的角色
+     * @param userId 用户ID
+     * @return 按角色ID升序的角色列表 (不可修改)
+     */
+    public List<Role> rolesOf(Long userId) {
+        if (!roleCacheConfig.isEnabled()) {
+            return roleMapper.selectRolesByUserId(userId);
+        }
+        long now = System.currentTimeMillis();
+        long[] roleIds = userRoles.get(userId, now);
+        if (roleIds != null) {
+            userRoleStats.recordHit();
+        } else {
+            userRoleStats.recordMiss();
+            long start = System.nanoTime();
+            roleIds = userRoleMapper.selectRoleIdsByUserId(userId).stream().mapToLong(Long::longValue).toArray();
+            userRoleStats.recordLoadTime(System.nanoTime() - start);
+            userRoles.put(userId, roleIds, now + roleCacheConfig.getUserTtl().toMillis());
+        }
+        return resolve(roleIds);
+    }
+
+    /**
+     * 移除用户的角色ID缓存, 用户角色变化后调用
+     * @param userId 用户ID
+     */
+    public void evictUser(Long userId) {
+        userRoles.remove(userId);
+    }
+
+    /**
+     * 重新加载角色表并清空用户角色ID缓存, 通知其他实例同样重新加载
+     * @return 加载的角色数量
+     */
+    public int reloadAll() {
+        int size = reload();
+        userRoles.clear();
+        try {
+            stringRedisTemplate.convertAndSend(RELOAD_CHANNEL, "reload");
+        } catch (DataAccessException e) {
+            log.warn("角色表重新加载通知发送失败, 其他实例将在版本检查时重新加载: {}", e.getMessage());
+        }
+        return size;
+    }
+
+    /**
+     * 定期检查 role 表版本, 变化后重新加载
+     */
+    @Scheduled(initialDelayString = "${auth.role-cache.refresh-interval:60s}",
+            fixedDelayString = "${auth.role-cache.refresh-interval:60s}")
+    public void refreshIfChanged() {
+        if (!roleCacheConfig.isEnabled()) {
+            return;
+        }
+        try {
+            Snapshot current = snapshot;
+            if (current == null || !Objects.equals(current.version(), roleMapper.selectVersion())) {
+                reload();
+            }
+        } catch (DataAccessException e) {
+            log.warn("角色表版本检查失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 收到其他实例的重新加载通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (!roleCacheConfig.isEnabled()) {
+            return;
+        }
+        try {
+            reload();
+            userRoles.clear();
+        } catch (DataAccessException e) {
+            snapshot = null;
+            log.warn("角色表重新加载失败, 将在首次使用时重试: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库加载角色表, 替换当前快照
+     * @return 加载的角色数量
+     */
+    private int reload() {
+        reloadLock.lock();
+        try {
+            // 先读版本再读数据, 加载期间的修改会在下次版本检查时发现
+            String version = roleMapper.selectVersion();
+            List<Role> roles = roleMapper.selectList(null);
+            snapshot = new Snapshot(
+                    roles.stream().collect(Collectors.toUnmodifiableMap(Role::getId, Function.identity())),
+                    roles.stream().collect(Collectors.toUnmodifiableMap(Role::getRoleName, Function.identity())),
+                    version);
+            log.info("角色表已加载, 共 {} 个角色", roles.size());
+            return roles.size();
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * 获取角色表快照, 未加载时加载
+     */
+    private Snapshot load() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            reload();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    /**
+     * 将角色ID转换为角色, 注册表中没有的角色ID (新增角色尚未刷新) 触发一次重新加载
+     */
+    private List<Role> resolve(long[] roleIds) {
+        Snapshot current = load();
+        List<Role> roles = new ArrayList<>(roleIds.length);
+        for (long roleId : roleIds) {
+            Role role = current.byId().get(roleId);
+            if (role == null) {
+                reload();
+                current = snapshot;
+                role = current.byId().get(roleId);
+            }
+            if (role != null) {
+                roles.add(role);
+            } else {
+                log.warn("用户关联的角色 {} 不存在", roleId);
+            }
+        }
+        return List.copyOf(roles);
+    }
+
+    /**
+     * 角色表快照, 不可变
+     */
+    private record Snapshot(Map<Long, Role> byId, Map<String, Role> byName, String version) {
+    }
+}
@@ -0,0 +1,35 @@
+package online.store.service.auth;
+
+import online.store.vo.auth.UserImportResult;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 用户批量导入服务接口
+ * <p>流式读取导入数据, 按批校验、哈希密码并批量写入, 导入的用户角色均为消费者</p>
+ * <p>单行数据校验失败或用户名、邮箱已存在时只跳过该行, 在结果中报告;
+ * 超过单次导入行数上限或数据格式错误时停止读取, 已读取的行照常导入, 结果标记为提前终止</p>
+ */
+public interface UserImportService {
+
+    /**
+     * 从 CSV 导入用户
+     * <p>首行为表头, 列名 username、password、email、phone (不区分大小写, 顺序不限), email 和 phone 可省略</p>
+     * @param input CSV 数据流 (UTF-8)
+     * @return 导入结果
+     * @throws IOException 读取数据失败
+     * @throws IllegalArgumentException 数据为空或表头缺少必需的列
+     */
+    UserImportResult importCsv(InputStream input) throws IOException;
+
+    /**
+     * 从 JSON 导入用户
+     * <p>数据为对象数组, 对象字段与注册接口的请求体相同</p>
+     * @param input JSON 数据流
+     * @return 导入结果
+     * @throws IOException 读取数据失败
+     * @throws IllegalArgumentException 数据不是对象数组
+     */
+    UserImportResult importJson(InputStream input) throws IOException;
+}
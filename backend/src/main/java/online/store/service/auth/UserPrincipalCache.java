@@ -0,0 +1,117 @@
+package online.store.service.auth;
+
+import online.store.common.utils.BoundedExpiringMap;
+import online.store.common.utils.CacheStats;
+import online.store.common.utils.CacheStatsRegistry;
+import online.store.config.PrincipalCacheConfig;
+import online.store.enums.UserStatus;
+import online.store.mapper.UserMapper;
+import online.store.pojo.Role;
+import online.store.pojo.User;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * 用户身份缓存
+ * <p>按用户名缓存用户身份 (ID、用户名、状态、角色), 避免每次请求都查询 user 表和 user_role 关联</p>
+ * <p>余额、密码等可变或敏感字段不缓存, 需要余额的业务仍通过行锁读取最新数据</p>
+ * <p>用户状态或角色变化后需调用 {@link #evict(String)}; 多实例部署时其他实例的缓存在有效期后过期</p>
+ */
+@Service
+public class UserPrincipalCache {
+
+    private final UserMapper userMapper;
+
+    private final RoleRegistry roleRegistry;
+
+    private final PrincipalCacheConfig principalCacheConfig;
+
+    private final CacheStats stats;
+
+    private final BoundedExpiringMap<String, Principal> cache;
+
+    public UserPrincipalCache(UserMapper userMapper, RoleRegistry roleRegistry,
+                              PrincipalCacheConfig principalCacheConfig, CacheStatsRegistry cacheStatsRegistry) {
+        this.userMapper = userMapper;
+        this.roleRegistry = roleRegistry;
+        this.principalCacheConfig = principalCacheConfig;
+        this.stats = cacheStatsRegistry.register("user-principal");
+        this.cache = new BoundedExpiringMap<>(principalCacheConfig::getMaxSize);
+    }
+
+    /**
+     * 获取用户身份, 未命中时从数据库加载
+     * @param username 用户名
+     * @return 仅包含ID、用户名、状态、角色的 User 对象 (每次返回新实例), 用户不存在时返回 null
+     */
+    public User get(String username) {
+        if (!principalCacheConfig.isEnabled()) {
+            return load(username);
+        }
+        Principal principal = cache.get(username);
+        if (principal != null) {
+            stats.recordHit();
+            return principal.toUser();
+        }
+        stats.recordMiss();
+        long start = System.nanoTime();
+        User user = load(username);
+        stats.recordLoadTime(System.nanoTime() - start);
+        if (user != null) {
+            put(user);
+        }
+        return user;
+    }
+
+    /**
+     * 写入用户身份, 登录等已查询出用户和角色的场景可直接预热缓存
+     * @param user 包含角色列表的用户对象
+     */
+    public void put(User user) {
+        if (!principalCacheConfig.isEnabled() || user.getRoles() == null) {
+            return;
+        }
+        Principal principal = new Principal(user.getId(), user.getUsername(), user.getStatus(), List.copyOf(user.getRoles()));
+        cache.put(user.getUsername(), principal, System.currentTimeMillis() + principalCacheConfig.getTtl().toMillis());
+    }
+
+    /**
+     * 移除用户身份缓存, 用户状态或角色变化后调用
+     * @param username 用户名
+     */
+    public void evict(String username) {
+        cache.remove(username);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void evictAll() {
+        cache.clear();
+    }
+
+    private User load(String username) {
+        User user = userMapper.selectByUsername(username);
+        if (user == null) {
+            return null;
+        }
+        user.setRoles(roleRegistry.rolesOf(user.getId()));
+        return user;
+    }
+
+    /**
+     * 缓存的用户身份, 不可变
+     */
+    private record Principal(Long id, String username, UserStatus status, List<Role> roles) {
+
+        User toUser() {
+            User user = new User();
+            user.setId(id);
+            user.setUsername(username);
+            user.setStatus(status);
+            user.setRoles(roles);
+            return user;
+        }
+    }
+}
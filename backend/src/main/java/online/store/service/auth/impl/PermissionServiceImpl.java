@@ -1,34 +1,48 @@
 package online.store.service.auth.impl;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
-import online.store.mapper.ProductMapper;
-import online.store.mapper.RoleMapper;
-import online.store.mapper.UserMapper;
+import online.store.common.utils.CacheStats;
+import online.store.common.utils.CacheStatsRegistry;
 import online.store.pojo.Product;
-import online.store.pojo.Role;
 import online.store.pojo.User;
 import online.store.service.auth.PermissionService;
+import online.store.service.auth.UserPrincipalCache;
+import online.store.service.product.ProductCacheService;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
-
-import java.util.List;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 @Service("ps")
 public class PermissionServiceImpl implements PermissionService {
 
+    /**
+     * 当前请求中已解析的用户, 保存在请求属性中, 同一请求内多次获取当前用户只解析一次
+     */
+    private static final String CURRENT_USER_ATTRIBUTE = PermissionServiceImpl.class.getName() + ".CURRENT_USER";
+
     @Resource
-    private ProductMapper productMapper;
+    private ProductCacheService productCacheService;
 
     @Resource
-    private UserMapper userMapper;
+    private UserPrincipalCache userPrincipalCache;
 
     @Resource
-    private RoleMapper roleMapper;
+    private CacheStatsRegistry cacheStatsRegistry;
+
+    private CacheStats requestStats;
+
+    @PostConstruct
+    public void init() {
+        requestStats = cacheStatsRegistry.register("user-principal-request");
+    }
 
     /**
      * 获取当前登录用户信息
-     * @return 当前登录用户对象
+     * <p>先查找当前请求中已解析的用户, 再查找用户身份缓存, 均未命中才查询数据库</p>
+     * @return 当前登录用户对象, 仅包含ID、用户名、状态、角色
      */
     @Override
     public User getCurrentUser() {
@@ -38,14 +52,22 @@ public class PermissionServiceImpl implements PermissionService {
         }
         // 获取当前用户名
         String currentUsername = authentication.getName();
-        // 从数据库获取完整的 User 对象
-        User currrentUser = userMapper.selectByUsername(currentUsername);
-        // 查询当前用户角色
-        List<Role> roles = roleMapper.selectRolesByUserId(currrentUser.getId());
-        // 查询到的角色列表保存到属性
-        currrentUser.setRoles(roles);
-
-        return currrentUser;
+
+        // 非 Web 线程 (如后台任务) 没有请求上下文, 直接使用用户身份缓存
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null
+                && attributes.getAttribute(CURRENT_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User memo
+                && currentUsername.equals(memo.getUsername())) {
+            requestStats.recordHit();
+            return memo;
+        }
+        requestStats.recordMiss();
+
+        User currentUser = userPrincipalCache.get(currentUsername);
+        if (attributes != null && currentUser != null) {
+            attributes.setAttribute(CURRENT_USER_ATTRIBUTE, currentUser, RequestAttributes.SCOPE_REQUEST);
+        }
+        return currentUser;
     }
 
     private boolean hasRole(String roleName) {
@@ -78,7 +100,7 @@ public class PermissionServiceImpl implements PermissionService {
         if (currentUser == null || !isMerchant()) {
             return false;
         }
-        Product product = productMapper.selectById(productId);
+        Product product = productCacheService.get(productId);
         // 确保商品存在且其商家ID与当前登录用户ID匹配
         return product != null && product.getMerchantId().equals(currentUser.getId());
     }
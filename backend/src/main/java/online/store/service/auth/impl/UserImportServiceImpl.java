@@ -0,0 +1,443 @@
+package online.store.service.auth.impl;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import online.store.config.UserImportConfig;
+import online.store.dto.auth.RegisterRequest;
+import online.store.enums.UserStatus;
+import online.store.mapper.UserMapper;
+import online.store.mapper.UserRoleMapper;
+import online.store.pojo.Role;
+import online.store.pojo.User;
+import online.store.pojo.UserRole;
+import online.store.service.auth.PasswordHashService;
+import online.store.service.auth.RoleRegistry;
+import online.store.service.auth.UserImportService;
+import online.store.vo.auth.UserImportResult;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 用户批量导入实现
+ * <p>每批数据: 逐行校验格式 → 一次 IN 查询校验用户名和邮箱唯一性 → 在密码哈希线程池中并行哈希 →
+ * 一个事务内批量写入 user 和 user_role (rewriteBatchedStatements 下合并为多值 INSERT)。
+ * 批量写入因并发注册等原因违反唯一约束时, 该批改为逐行写入以定位失败的行</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserImportServiceImpl implements UserImportService {
+
+    /**
+     * 导入用户的默认角色
+     */
+    private static final String DEFAULT_ROLE = "consumer";
+
+    private final UserMapper userMapper;
+    private final RoleRegistry roleRegistry;
+    private final UserRoleMapper userRoleMapper;
+    private final PasswordHashService passwordHashService;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final UserImportConfig userImportConfig;
+
+    /**
+     * 一行导入数据
+     * @param line 行号
+     * @param request 用户数据
+     */
+    private record ImportRow(long line, RegisterRequest request) {
+    }
+
+    /**
+     * 按行读取导入数据, 没有更多数据时返回 null
+     */
+    @FunctionalInterface
+    private interface RowSource {
+        ImportRow next() throws IOException;
+    }
+
+    /**
+     * 数据行格式错误, 导入在该行终止
+     */
+    private static final class RowFormatException extends IllegalArgumentException {
+
+        private final long line;
+
+        RowFormatException(long line, String message) {
+            super(message);
+            this.line = line;
+        }
+    }
+
+    @Override
+    public UserImportResult importCsv(InputStream input) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        CsvReader csv = new CsvReader(reader);
+        List<String> header = csv.readRecord();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV 数据为空");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // 去掉 Excel 导出时可能带有的 BOM
+            columns.put(header.get(i).replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("username") || !columns.containsKey("password")) {
+            throw new IllegalArgumentException("CSV 表头必须包含 username 和 password 列");
+        }
+        return importRows(() -> {
+            List<String> record = csv.readRecord();
+            while (record != null && record.size() == 1 && record.getFirst().isBlank()) {
+                record = csv.readRecord();
+            }
+            if (record == null) {
+                return null;
+            }
+            RegisterRequest request = new RegisterRequest();
+            request.setUsername(column(record, columns, "username"));
+            request.setPassword(column(record, columns, "password"));
+            request.setEmail(column(record, columns, "email"));
+            request.setPhone(column(record, columns, "phone"));
+            return new ImportRow(csv.recordLine(), request);
+        });
+    }
+
+    @Override
+    public UserImportResult importJson(InputStream input) throws IOException {
+        JsonParser parser = objectMapper.getFactory().createParser(input);
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("JSON 数据必须是对象数组");
+        }
+        long[] index = {0};
+        try {
+            return importRows(() -> {
+                try {
+                    JsonToken token = parser.nextToken();
+                    if (token == null || token == JsonToken.END_ARRAY) {
+                        return null;
+                    }
+                    if (token != JsonToken.START_OBJECT) {
+                        throw new RowFormatException(index[0] + 1, "JSON 数组第 " + (index[0] + 1) + " 个元素不是对象");
+                    }
+                    return new ImportRow(++index[0], objectMapper.readValue(parser, RegisterRequest.class));
+                } catch (JsonProcessingException e) {
+                    throw new RowFormatException(index[0] + 1, "JSON 数组第 " + (index[0] + 1) + " 个元素格式错误: " + e.getOriginalMessage());
+                }
+            });
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * 分批导入
+     * <p>超过单次导入行数上限或遇到格式错误的行时停止读取: 之前读取的行照常导入,
+     * 返回的结果标记为提前终止, 并在失败明细中报告终止的行和原因</p>
+     */
+    private UserImportResult importRows(RowSource source) throws IOException {
+        long start = System.nanoTime();
+        Role role = roleRegistry.getByName(DEFAULT_ROLE);
+        if (role == null) {
+            throw new IllegalStateException("默认角色 '" + DEFAULT_ROLE + "' 不存在");
+        }
+        Progress progress = new Progress(userImportConfig.getMaxErrors());
+        List<ImportRow> chunk = new ArrayList<>(userImportConfig.getChunkSize());
+        while (true) {
+            ImportRow row;
+            try {
+                row = source.next();
+            } catch (RowFormatException e) {
+                progress.abort(e.line, null, e.getMessage());
+                break;
+            }
+            if (row == null) {
+                break;
+            }
+            if (progress.total >= userImportConfig.getMaxRows()) {
+                progress.abort(row.line(), row.request().getUsername(),
+                        "超过单次导入上限 " + userImportConfig.getMaxRows() + " 行, 该行及之后的数据未导入");
+                break;
+            }
+            progress.total++;
+            chunk.add(row);
+            if (chunk.size() >= userImportConfig.getChunkSize()) {
+                importChunk(chunk, role.getId(), progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, role.getId(), progress);
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        double rowsPerSecond = elapsedMillis == 0 ? progress.imported : progress.imported * 1000.0 / elapsedMillis;
+        log.info("用户批量导入{}: 共 {} 行, 成功 {}, 失败 {}, 耗时 {} ms ({} 行/秒)", progress.aborted ? "提前终止" : "完成",
+                progress.total, progress.imported, progress.failed, elapsedMillis, String.format("%.1f", rowsPerSecond));
+        return new UserImportResult(progress.total, progress.imported, progress.failed, elapsedMillis, rowsPerSecond,
+                progress.aborted, progress.errors);
+    }
+
+    /**
+     * 导入一批数据
+     */
+    private void importChunk(List<ImportRow> chunk, Long roleId, Progress progress) {
+        // 1. 逐行校验格式, 以及与本次导入中之前的行是否重复
+        List<ImportRow> candidates = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            RegisterRequest request = row.request();
+            Set<ConstraintViolation<RegisterRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                progress.fail(row, violations.iterator().next().getMessage());
+            } else if (!progress.usernames.add(request.getUsername())) {
+                progress.fail(row, "用户名在导入数据中重复");
+            } else if (hasEmail(request) && !progress.emails.add(request.getEmail())) {
+                progress.fail(row, "邮箱在导入数据中重复");
+            } else {
+                candidates.add(row);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        // 2. 一次查询校验用户名和邮箱是否已被使用
+        Set<String> usernames = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (ImportRow row : candidates) {
+            usernames.add(row.request().getUsername());
+            if (hasEmail(row.request())) {
+                emails.add(row.request().getEmail());
+            }
+        }
+        Set<String> takenUsernames = new HashSet<>();
+        Set<String> takenEmails = new HashSet<>();
+        for (User existing : userMapper.selectExisting(usernames, emails)) {
+            takenUsernames.add(existing.getUsername());
+            takenEmails.add(existing.getEmail());
+        }
+        List<ImportRow> accepted = new ArrayList<>(candidates.size());
+        for (ImportRow row : candidates) {
+            if (takenUsernames.contains(row.request().getUsername())) {
+                progress.fail(row, "用户名已存在");
+            } else if (hasEmail(row.request()) && takenEmails.contains(row.request().getEmail())) {
+                progress.fail(row, "邮箱已被注册");
+            } else {
+                accepted.add(row);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return;
+        }
+
+        // 3. 并行哈希密码
+        List<String> hashes = passwordHashService.encodeAll(accepted.stream().map(row -> row.request().getPassword()).toList());
+        List<User> users = new ArrayList<>(accepted.size());
+        for (int i = 0; i < accepted.size(); i++) {
+            users.add(buildUser(accepted.get(i).request(), hashes.get(i)));
+        }
+
+        // 4. 一个事务内批量写入; 违反唯一约束时逐行写入定位失败的行
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                userMapper.insert(users);
+                userRoleMapper.insert(users.stream().map(user -> buildUserRole(user.getId(), roleId)).toList());
+            });
+            progress.imported += users.size();
+        } catch (DataIntegrityViolationException e) {
+            log.warn("批量写入用户违反唯一约束, 改为逐行写入: {}", e.getMostSpecificCause().getMessage());
+            for (int i = 0; i < users.size(); i++) {
+                User user = users.get(i);
+                user.setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        userMapper.insert(user);
+                        userRoleMapper.insert(buildUserRole(user.getId(), roleId));
+                    });
+                    progress.imported++;
+                } catch (DataIntegrityViolationException ex) {
+                    progress.fail(accepted.get(i), "用户名或邮箱已存在");
+                }
+            }
+        }
+    }
+
+    private static User buildUser(RegisterRequest request, String passwordHash) {
+        User user = new User();
+        user.setUsername(request.getUsername());
+        user.setPassword(passwordHash);
+        // 未填写的邮箱存为 NULL, uk_email 唯一索引只允许一个空字符串
+        user.setEmail(hasEmail(request) ? request.getEmail() : null);
+        user.setPhone(request.getPhone() == null ? "" : request.getPhone());
+        user.setBalance(BigDecimal.ZERO);
+        user.setStatus(UserStatus.NORMAL);
+        return user;
+    }
+
+    private static UserRole buildUserRole(Long userId, Long roleId) {
+        UserRole userRole = new UserRole();
+        userRole.setUserId(userId);
+        userRole.setRoleId(roleId);
+        return userRole;
+    }
+
+    private static boolean hasEmail(RegisterRequest request) {
+        return request.getEmail() != null && !request.getEmail().isBlank();
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * 导入进度
+     */
+    private static final class Progress {
+
+        private final int maxErrors;
+
+        private final List<UserImportResult.RowError> errors = new ArrayList<>();
+
+        /**
+         * 本次导入已出现的用户名和邮箱, 用于发现导入数据内部的重复
+         */
+        private final Set<String> usernames = new HashSet<>();
+
+        private final Set<String> emails = new HashSet<>();
+
+        private long total;
+
+        private long imported;
+
+        private long failed;
+
+        private boolean aborted;
+
+        Progress(int maxErrors) {
+            this.maxErrors = maxErrors;
+        }
+
+        /**
+         * 导入在指定行终止, 终止原因总是写入失败明细
+         */
+        void abort(long line, String username, String message) {
+            aborted = true;
+            errors.add(new UserImportResult.RowError(line, username, message));
+        }
+
+        void fail(ImportRow row, String message) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(new UserImportResult.RowError(row.line(), row.request().getUsername(), message));
+            }
+        }
+    }
+
+    /**
+     * 简单的 CSV 读取器 (RFC 4180): 字段可用双引号包围, 引号内可包含逗号、换行, 两个双引号表示一个双引号
+     */
+    static final class CsvReader {
+
+        private final BufferedReader reader;
+
+        /**
+         * 已读取的物理行数
+         */
+        private long lineNumber;
+
+        /**
+         * 最近一条记录的起始行号
+         */
+        private long recordLine;
+
+        CsvReader(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        long recordLine() {
+            return recordLine;
+        }
+
+        /**
+         * 读取一条记录
+         * @return 字段列表, 没有更多数据时返回 null
+         */
+        List<String> readRecord() throws IOException {
+            String line = reader.readLine();
+            if (line == null) {
+                return null;
+            }
+            lineNumber++;
+            recordLine = lineNumber;
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int i = 0;
+            while (true) {
+                if (i >= line.length()) {
+                    if (!quoted) {
+                        break;
+                    }
+                    // 引号内的换行
+                    line = reader.readLine();
+                    if (line == null) {
+                        throw new RowFormatException(recordLine, "CSV 第 " + recordLine + " 行的引号未闭合");
+                    }
+                    lineNumber++;
+                    field.append('\n');
+                    i = 0;
+                    continue;
+                }
+                char c = line.charAt(i++);
+                if (quoted) {
+                    if (c == '"') {
+                        if (i < line.length() && line.charAt(i) == '"') {
+                            field.append('"');
+                            i++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+}
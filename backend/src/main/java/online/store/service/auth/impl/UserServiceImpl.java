@@ -1,27 +1,30 @@
 package online.store.service.auth.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import online.store.common.utils.JwtUtil;
 import online.store.common.utils.MaskingUtil;
 import online.store.dto.auth.LoginRequest;
 import online.store.dto.auth.RefreshTokenRequest;
 import online.store.dto.auth.RegisterRequest;
 import online.store.enums.UserStatus;
-import online.store.mapper.RoleMapper;
 import online.store.mapper.UserMapper;
 import online.store.mapper.UserRoleMapper;
 import online.store.pojo.Role;
 import online.store.pojo.User;
 import online.store.pojo.UserRole;
+import online.store.service.auth.PasswordHashService;
+import online.store.service.auth.RoleRegistry;
+import online.store.service.auth.UserPrincipalCache;
 import online.store.service.auth.UserService;
 import online.store.vo.auth.LoginResponse;
 import online.store.vo.auth.RegisterResponse;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -31,19 +34,20 @@ import java.util.Objects;
  * 用户服务实现类
  * 提供注册登录业务逻辑
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements UserService {
 
     /**
-     * 密码编码器, 用于加解密密码
+     * 密码哈希服务, 在专用线程池中计算和校验密码哈希
      */
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashService passwordHashService;
 
     /**
-     * 角色 Mapper, 用于查询角色
+     * 角色注册表, 角色与用户角色解析走内存缓存
      */
-    private final RoleMapper roleMapper;
+    private final RoleRegistry roleRegistry;
 
     /**
      * 用户角色 Mapper, 用于操作用户角色关联表
@@ -55,6 +59,15 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      */
     private final JwtUtil jwtUtil;
 
+    /**
+     * 用户身份缓存, 登录时预热, 角色变化时失效
+     */
+    private final UserPrincipalCache userPrincipalCache;
+
+    /**
+     * 注册时先计算密码哈希, 再开启事务写入, 哈希期间不占用数据库连接
+     */
+    private final TransactionTemplate transactionTemplate;
 
     /**
      * 用户注册
@@ -62,7 +75,6 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
      * @return registerResponse 注册响应数据体, 包含用户ID、用户名、脱敏邮箱、脱敏手机号
      */
     @Override
-    @Transactional
     public RegisterResponse register(RegisterRequest registerRequest) {
         // 检查用户名是否为空
         if (registerRequest.getUsername() == null || registerRequest.getUsername().isEmpty()) {
@@ -82,24 +94,30 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         /* 设置User对象各属性的值 */
         User user = new User();
         user.setUsername(registerRequest.getUsername());
-        user.setPassword(passwordEncoder.encode(registerRequest.getPassword()));
-        user.setEmail(registerRequest.getEmail() == null ? "" : registerRequest.getEmail());
+        user.setPassword(passwordHashService.encode(registerRequest.getPassword()));
+        // 未填写的邮箱存为 NULL, uk_email 唯一索引只允许一个空字符串
+        user.setEmail(registerRequest.getEmail() == null || registerRequest.getEmail().isBlank() ? null : registerRequest.getEmail());
         user.setPhone(registerRequest.getPhone() == null ? "" : registerRequest.getPhone());
         user.setBalance(BigDecimal.ZERO);
         user.setStatus(UserStatus.NORMAL);
 
-        this.save(user); // 保存, 自动填充createdTime, updatedTime 与 id
-
-        /* 设置用户角色, 默认注册用户为消费者 (普通用户) */
-        Role role = roleMapper.selectByRoleName("consumer");
-        if (role == null) {
-            throw new IllegalStateException("默认角色 'consumer' 不存在");
-        } else {
-            UserRole ur = new UserRole();
-            ur.setUserId(user.getId());
-            ur.setRoleId(role.getId());
-            userRoleMapper.insert(ur);
-        }
+        transactionTemplate.executeWithoutResult(status -> {
+            this.save(user); // 保存, 自动填充createdTime, updatedTime 与 id
+
+            /* 设置用户角色, 默认注册用户为消费者 (普通用户) */
+            Role role = roleRegistry.getByName("consumer");
+            if (role == null) {
+                throw new IllegalStateException("默认角色 'consumer' 不存在");
+            } else {
+                UserRole ur = new UserRole();
+                ur.setUserId(user.getId());
+                ur.setRoleId(role.getId());
+                userRoleMapper.insert(ur);
+            }
+        });
+        // 角色已变化, 丢弃可能存在的旧身份缓存
+        roleRegistry.evictUser(user.getId());
+        userPrincipalCache.evict(user.getUsername());
 
         return new RegisterResponse(
                 user.getId(),
@@ -122,16 +140,27 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         if (user == null) {
             throw new IllegalArgumentException("用户不存在, 请注册");
         }
-        if ((!passwordEncoder.matches(loginRequest.getPassword(), user.getPassword())) || (Objects.equals(loginRequest.getPassword(), user.getUsername()))) {
+        if ((!passwordHashService.matches(loginRequest.getPassword(), user.getPassword())) || (Objects.equals(loginRequest.getPassword(), user.getUsername()))) {
             throw new IllegalArgumentException("用户名或密码错误");
         }
         if (user.getStatus() == UserStatus.FROZEN) {
             throw new IllegalArgumentException("用户已被冻结, 请联系管理员");
         }
+        // 成本因子已调整, 登录成功后按新成本异步重新哈希; 以旧哈希为条件更新, 期间密码被修改时放弃
+        if (passwordHashService.needsRehash(user.getPassword())) {
+            String oldHash = user.getPassword();
+            passwordHashService.rehashAsync(loginRequest.getPassword(), newHash -> {
+                if (this.update(new UpdateWrapper<User>().eq("id", user.getId()).eq("password", oldHash).set("password", newHash))) {
+                    log.info("用户 '{}' 的密码已按新成本因子重新哈希", user.getUsername());
+                }
+            });
+        }
 
         // 查询用户角色
-        List<Role> roles = roleMapper.selectRolesByUserId(user.getId());
+        List<Role> roles = roleRegistry.rolesOf(user.getId());
         user.setRoles(roles);
+        // 已查询出用户和角色, 预热身份缓存, 后续请求无需再查询
+        userPrincipalCache.put(user);
 
         // 生成 access token 和 refresh token
         String roleName = roles.isEmpty() ? "consumer" : roles.getFirst().getRoleName();
@@ -171,7 +200,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements Us
         }
 
         // 重新生成 Access Token
-        List<Role> roles = roleMapper.selectRolesByUserId(user.getId());
+        List<Role> roles = roleRegistry.rolesOf(user.getId());
+        user.setRoles(roles);
+        userPrincipalCache.put(user);
         String roleName = roles.isEmpty() ? "consumer" : roles.getFirst().getRoleName();
         String newAccessToken = jwtUtil.generateAccessToken(username, roleName);
 
@@ -0,0 +1,66 @@
+package online.store.service.cart;
+
+import online.store.pojo.CartItem;
+import online.store.vo.cart.CartView;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 购物车服务接口
+ * <p>购物车保存在 Redis Hash 中, 增删改只访问 Redis; 修改过的购物车由 {@link #flush} 定期批量写回 cart_item 表,
+ * Redis 中不存在时从 cart_item 表加载</p>
+ */
+public interface CartService {
+
+    /**
+     * 查询当前用户的购物车
+     * @return 购物车商品及选中商品合计
+     */
+    CartView getCart();
+
+    /**
+     * 向当前用户的购物车添加商品, 商品已存在时累加数量并设为选中
+     * @param productId 商品ID
+     * @param quantity 增加的数量
+     * @throws online.store.common.exception.ProductNotFoundException 商品不存在
+     * @throws online.store.common.exception.ProductNotForSaleException 商品未出售
+     * @throws IllegalArgumentException 购物车商品种类已达上限
+     */
+    void addItem(Long productId, int quantity);
+
+    /**
+     * 修改当前用户购物车中商品的数量或选中状态
+     * @param productId 商品ID
+     * @param quantity 新数量, null 表示不修改
+     * @param selected 是否选中, null 表示不修改
+     * @throws IllegalArgumentException 商品不在购物车中
+     */
+    void updateItem(Long productId, Integer quantity, Boolean selected);
+
+    /**
+     * 从当前用户的购物车移除商品
+     * @param productId 商品ID
+     */
+    void removeItem(Long productId);
+
+    /**
+     * 查询用户购物车中选中的商品, 供结算使用
+     * @param userId 用户ID
+     * @return 选中的商品, 按商品ID升序
+     */
+    List<CartItem> listSelected(Long userId);
+
+    /**
+     * 从用户购物车中移除商品, 结算成功后调用
+     * @param userId 用户ID
+     * @param productIds 商品ID
+     */
+    void removeItems(Long userId, Collection<Long> productIds);
+
+    /**
+     * 将修改过的购物车写回 cart_item 表
+     * @return 本次写回的用户数
+     */
+    int flush();
+}
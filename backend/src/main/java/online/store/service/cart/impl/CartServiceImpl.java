@@ -0,0 +1,347 @@
+package online.store.service.cart.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import online.store.common.exception.ProductNotForSaleException;
+import online.store.common.exception.ProductNotFoundException;
+import online.store.common.exception.ServiceBusyException;
+import online.store.common.exception.UserNotFoundException;
+import online.store.config.CartConfig;
+import online.store.enums.ProductStatus;
+import online.store.enums.SelectedStatus;
+import online.store.mapper.CartItemMapper;
+import online.store.pojo.CartItem;
+import online.store.pojo.Product;
+import online.store.pojo.User;
+import online.store.service.auth.PermissionService;
+import online.store.service.cart.CartService;
+import online.store.service.product.ProductCacheService;
+import online.store.vo.cart.CartItemView;
+import online.store.vo.cart.CartView;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * 基于 Redis Hash 的购物车实现
+ * <p>每个用户对应一个 Hash: field 为商品ID, value 为 "数量:是否选中", 另有 _loaded 标记区分空购物车与未加载;
+ * 修改后将用户ID加入待写回集合, 由定时任务批量写回 cart_item 表 (write-behind)</p>
+ * <p>待写回集合同样保存在 Redis 中, 应用重启不会丢失未写回的修改</p>
+ * <p>同一用户的写回由 Redis 锁串行化: 读取快照到事务提交期间持有锁, 其他实例此时取出该用户会放回待写回集合稍后重试,
+ * 不会出现较旧的快照在较新的快照之后提交</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CartServiceImpl implements CartService {
+
+    private static final String CART_KEY_PREFIX = "cart:items:";
+
+    private static final String DIRTY_KEY = "cart:dirty";
+
+    private static final String FLUSH_LOCK_PREFIX = "cart:flush-lock:";
+
+    private static final String LOADED_FIELD = "_loaded";
+
+    /**
+     * 脚本返回值: 购物车未加载
+     */
+    private static final long RESULT_NOT_LOADED = -1L;
+
+    /**
+     * 脚本返回值: 商品种类已达上限
+     */
+    private static final long RESULT_FULL = -2L;
+
+    /**
+     * 脚本返回值: 商品不在购物车中
+     */
+    private static final long RESULT_ABSENT = -3L;
+
+    private static final RedisScript<Long> LOAD_SCRIPT = RedisScript.of(new ClassPathResource("lua/cart/load.lua"), Long.class);
+    private static final RedisScript<Long> ADD_SCRIPT = RedisScript.of(new ClassPathResource("lua/cart/add.lua"), Long.class);
+    private static final RedisScript<Long> UPDATE_SCRIPT = RedisScript.of(new ClassPathResource("lua/cart/update.lua"), Long.class);
+    private static final RedisScript<Long> REMOVE_SCRIPT = RedisScript.of(new ClassPathResource("lua/cart/remove.lua"), Long.class);
+    private static final RedisScript<Long> UNLOCK_SCRIPT = RedisScript.of(new ClassPathResource("lua/cart/unlock.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final CartItemMapper cartItemMapper;
+
+    private final PermissionService permissionService;
+
+    private final ProductCacheService productCacheService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CartConfig cartConfig;
+
+    @Override
+    public CartView getCart() {
+        Map<Long, CartItem> items = readCart(currentUserId());
+
+        List<CartItemView> views = new ArrayList<>(items.size());
+        int selectedQuantity = 0;
+        BigDecimal selectedAmount = BigDecimal.ZERO;
+        for (CartItem item : items.values()) {
+            Product product = productCacheService.get(item.getProductId());
+            boolean selected = item.getSelected() == SelectedStatus.SELECTED;
+            CartItemView view = new CartItemView(item.getProductId(), null, null, null, null, item.getQuantity(), selected);
+            if (product != null) {
+                view.setProductName(product.getName());
+                view.setImageUrl(product.getImageUrl());
+                view.setPrice(product.getPrice());
+                view.setStatus(product.getStatus());
+                if (selected && product.getStatus() == ProductStatus.ON_SALE) {
+                    selectedQuantity += item.getQuantity();
+                    selectedAmount = selectedAmount.add(product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity())));
+                }
+            }
+            views.add(view);
+        }
+        return new CartView(views, selectedQuantity, selectedAmount);
+    }
+
+    @Override
+    public void addItem(Long productId, int quantity) {
+        Product product = productCacheService.get(productId);
+        if (product == null) {
+            throw new ProductNotFoundException("商品ID: " + productId + " 不存在");
+        }
+        if (product.getStatus() != ProductStatus.ON_SALE) {
+            throw new ProductNotForSaleException("商品 '" + product.getName() + "' 当前未出售");
+        }
+        Long userId = currentUserId();
+        long result = executeLoaded(ADD_SCRIPT, userId, userId, productId, quantity, cartConfig.getMaxItems(), idleTtlSeconds());
+        if (result == RESULT_FULL) {
+            throw new IllegalArgumentException("购物车商品种类已达上限 " + cartConfig.getMaxItems());
+        }
+    }
+
+    @Override
+    public void updateItem(Long productId, Integer quantity, Boolean selected) {
+        if (quantity == null && selected == null) {
+            return;
+        }
+        Long userId = currentUserId();
+        long result = executeLoaded(UPDATE_SCRIPT, userId, userId, productId,
+                quantity == null ? "" : quantity,
+                selected == null ? "" : (selected ? SelectedStatus.SELECTED : SelectedStatus.UNSELECTED).getCode(),
+                idleTtlSeconds());
+        if (result == RESULT_ABSENT) {
+            throw new IllegalArgumentException("商品ID: " + productId + " 不在购物车中");
+        }
+    }
+
+    @Override
+    public void removeItem(Long productId) {
+        removeItems(currentUserId(), List.of(productId));
+    }
+
+    @Override
+    public List<CartItem> listSelected(Long userId) {
+        return readCart(userId).values().stream()
+                .filter(item -> item.getSelected() == SelectedStatus.SELECTED)
+                .toList();
+    }
+
+    @Override
+    public void removeItems(Long userId, Collection<Long> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Object[] args = new Object[productIds.size() + 2];
+        args[0] = userId;
+        args[1] = idleTtlSeconds();
+        int i = 2;
+        for (Long productId : productIds) {
+            args[i++] = productId;
+        }
+        executeLoaded(REMOVE_SCRIPT, userId, args);
+    }
+
+    @Override
+    public int flush() {
+        List<String> userIds;
+        try {
+            userIds = stringRedisTemplate.opsForSet().pop(DIRTY_KEY, cartConfig.getFlushBatchSize());
+        } catch (DataAccessException e) {
+            log.warn("读取待写回购物车失败: {}", e.getMessage());
+            return 0;
+        }
+        if (userIds == null || userIds.isEmpty()) {
+            return 0;
+        }
+        int flushed = 0;
+        for (String userId : userIds) {
+            try {
+                if (flushUser(Long.valueOf(userId))) {
+                    flushed++;
+                } else {
+                    // 其他实例正在写回该用户, 其快照可能早于触发本次写回的修改
+                    requeue(userId);
+                }
+            } catch (RuntimeException e) {
+                log.warn("购物车写回失败, 稍后重试. UserId: {}, 原因: {}", userId, e.getMessage());
+                requeue(userId);
+            }
+        }
+        return flushed;
+    }
+
+    /**
+     * 放回待写回集合, 下一轮重试
+     */
+    private void requeue(String userId) {
+        try {
+            stringRedisTemplate.opsForSet().add(DIRTY_KEY, userId);
+        } catch (DataAccessException e) {
+            log.error("购物车写回失败且无法重新标记, 用户 {} 的修改将在下次修改时写回", userId, e);
+        }
+    }
+
+    /**
+     * 将用户的 Redis 购物车整体写回 cart_item 表
+     * <p>先出队再读取 Redis, 读取之后的修改会重新入队, 不会丢失</p>
+     * @return false 其他实例正在写回该用户, 本次未写回
+     */
+    private boolean flushUser(Long userId) {
+        String lockKey = FLUSH_LOCK_PREFIX + userId;
+        String token = UUID.randomUUID().toString();
+        if (!Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(lockKey, token, cartConfig.getFlushLockTtl()))) {
+            return false;
+        }
+        try {
+            Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(cartKey(userId));
+            if (entries.isEmpty()) {
+                // 购物车已过期, 以数据库为准
+                return true;
+            }
+            List<CartItem> items = new ArrayList<>(parse(userId, entries).values());
+            List<Long> productIds = items.stream().map(CartItem::getProductId).toList();
+            transactionTemplate.executeWithoutResult(status -> {
+                cartItemMapper.deleteExcept(userId, productIds);
+                if (!items.isEmpty()) {
+                    cartItemMapper.upsertBatch(items);
+                }
+            });
+            return true;
+        } finally {
+            try {
+                stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey), token);
+            } catch (DataAccessException e) {
+                // 锁到期后自动释放
+                log.warn("释放购物车写回锁失败. UserId: {}, 原因: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 读取用户购物车, Redis 中不存在时从数据库加载
+     * @return 购物车商品, 按商品ID升序
+     */
+    private Map<Long, CartItem> readCart(Long userId) {
+        try {
+            Map<Object, Object> entries = stringRedisTemplate.opsForHash().entries(cartKey(userId));
+            if (entries.isEmpty()) {
+                load(userId);
+                entries = stringRedisTemplate.opsForHash().entries(cartKey(userId));
+            }
+            return parse(userId, entries);
+        } catch (DataAccessException e) {
+            throw unavailable(e);
+        }
+    }
+
+    /**
+     * 执行购物车脚本, 购物车未加载时从数据库加载后重试一次
+     * @param args 脚本参数, 按脚本约定的顺序排列
+     * @return 脚本返回值
+     */
+    private long executeLoaded(RedisScript<Long> script, Long userId, Object... args) {
+        String[] argv = new String[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argv[i] = String.valueOf(args[i]);
+        }
+        List<String> keys = List.of(cartKey(userId), DIRTY_KEY);
+        try {
+            Long result = stringRedisTemplate.execute(script, keys, (Object[]) argv);
+            if (result != null && result == RESULT_NOT_LOADED) {
+                load(userId);
+                result = stringRedisTemplate.execute(script, keys, (Object[]) argv);
+            }
+            return result == null ? RESULT_NOT_LOADED : result;
+        } catch (DataAccessException e) {
+            throw unavailable(e);
+        }
+    }
+
+    /**
+     * 从 cart_item 表加载用户购物车到 Redis, 其他线程已加载时不覆盖
+     */
+    private void load(Long userId) {
+        List<CartItem> rows = cartItemMapper.selectList(new QueryWrapper<CartItem>().eq("user_id", userId));
+        List<String> argv = new ArrayList<>(rows.size() * 2 + 1);
+        argv.add(String.valueOf(idleTtlSeconds()));
+        for (CartItem row : rows) {
+            argv.add(String.valueOf(row.getProductId()));
+            argv.add(row.getQuantity() + ":" + row.getSelected().getCode());
+        }
+        stringRedisTemplate.execute(LOAD_SCRIPT, List.of(cartKey(userId)), argv.toArray());
+    }
+
+    /**
+     * 解析 Redis 购物车 Hash
+     * @return 购物车商品, 按商品ID升序
+     */
+    private static Map<Long, CartItem> parse(Long userId, Map<Object, Object> entries) {
+        Map<Long, CartItem> items = new TreeMap<>();
+        entries.forEach((field, value) -> {
+            if (LOADED_FIELD.equals(field)) {
+                return;
+            }
+            String text = value.toString();
+            int separator = text.indexOf(':');
+            CartItem item = new CartItem();
+            item.setUserId(userId);
+            item.setProductId(Long.valueOf(field.toString()));
+            item.setQuantity(Integer.valueOf(text.substring(0, separator)));
+            item.setSelected("1".equals(text.substring(separator + 1)) ? SelectedStatus.SELECTED : SelectedStatus.UNSELECTED);
+            items.put(item.getProductId(), item);
+        });
+        return items;
+    }
+
+    private Long currentUserId() {
+        User user = permissionService.getCurrentUser();
+        if (user == null) {
+            throw new UserNotFoundException("无法获取当前用户信息,请检查Token是否有效");
+        }
+        return user.getId();
+    }
+
+    private long idleTtlSeconds() {
+        return cartConfig.getIdleTtl().toSeconds();
+    }
+
+    private static ServiceBusyException unavailable(DataAccessException e) {
+        log.warn("Redis 购物车不可用: {}", e.getMessage());
+        return new ServiceBusyException("购物车服务暂不可用, 请稍后重试");
+    }
+
+    private static String cartKey(Long userId) {
+        return CART_KEY_PREFIX + userId;
+    }
+}
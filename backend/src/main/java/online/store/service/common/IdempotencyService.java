@@ -0,0 +1,202 @@
+package online.store.service.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import online.store.common.exception.BaseException;
+import online.store.common.exception.IdempotencyConflictException;
+import online.store.common.exception.OutcomeUnknownException;
+import online.store.common.exception.ServiceBusyException;
+import online.store.common.exception.UserNotFoundException;
+import online.store.common.utils.JwtUtil;
+import online.store.config.IdempotencyConfig;
+import online.store.pojo.User;
+import online.store.service.auth.PermissionService;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 幂等请求服务
+ * <p>客户端通过 Idempotency-Key 请求头为一次写操作指定唯一键, 超时重试时携带相同的键。
+ * 首次请求以 SET NX 在 Redis 中写入处理中标记, 成功后替换为序列化的响应; 重试直接返回保存的响应, 不再进入事务</p>
+ * <p>键按用户隔离, 并记录请求内容摘要, 相同的键用于内容不同的请求时拒绝。请求确定未生效 (业务校验失败等) 时删除标记,
+ * 允许客户端使用相同的键重试; 结果未知 (等待写入超时、数据库异常等) 时保存为未确认状态, 相同的键不再执行,
+ * 避免写操作实际已生效时重复扣款或充值</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    private static final String KEY_PREFIX = "idempotency:";
+
+    /**
+     * 处理中标记前缀, 格式: P:请求摘要
+     */
+    private static final String PROCESSING = "P:";
+
+    /**
+     * 已完成记录前缀, 格式: D:请求摘要:响应JSON
+     */
+    private static final String DONE = "D:";
+
+    /**
+     * 结果未确认记录前缀, 格式: U:请求摘要
+     */
+    private static final String UNKNOWN = "U:";
+
+    /**
+     * 幂等键允许的字符, 通常为 UUID
+     */
+    private static final Pattern KEY_PATTERN = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final PermissionService permissionService;
+    private final IdempotencyConfig idempotencyConfig;
+
+    /**
+     * 以幂等方式执行写操作
+     * @param scope 接口标识, 不同接口的相同幂等键互不影响
+     * @param idempotencyKey 客户端提供的幂等键, 为空时直接执行
+     * @param request 请求内容, 用于校验重试请求与首次请求一致
+     * @param responseType 响应类型
+     * @param action 实际的写操作
+     * @return 首次请求返回写操作的结果, 重试返回首次请求保存的结果
+     * @throws IdempotencyConflictException 相同幂等键的请求正在处理中, 或幂等键已用于其他请求
+     * @throws ServiceBusyException Redis 不可用, 无法保证幂等
+     */
+    public <T> T execute(String scope, String idempotencyKey, Object request, Class<T> responseType, Supplier<T> action) {
+        if (!idempotencyConfig.isEnabled() || idempotencyKey == null || idempotencyKey.isEmpty()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > idempotencyConfig.getMaxKeyLength() || !KEY_PATTERN.matcher(idempotencyKey).matches()) {
+            throw new IllegalArgumentException("Idempotency-Key 只能包含字母、数字、'-' 和 '_', 且长度不超过 "
+                    + idempotencyConfig.getMaxKeyLength());
+        }
+        User user = permissionService.getCurrentUser();
+        if (user == null) {
+            throw new UserNotFoundException("无法获取当前用户信息,请检查Token是否有效");
+        }
+        String redisKey = KEY_PREFIX + scope + ":" + user.getId() + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+
+        // 1. 重试请求只需一次 GET
+        try {
+            String existing = stringRedisTemplate.opsForValue().get(redisKey);
+            if (existing == null) {
+                Boolean acquired = stringRedisTemplate.opsForValue()
+                        .setIfAbsent(redisKey, PROCESSING + fingerprint, idempotencyConfig.getProcessingTtl());
+                if (!Boolean.TRUE.equals(acquired)) {
+                    existing = stringRedisTemplate.opsForValue().get(redisKey);
+                }
+            }
+            if (existing != null) {
+                return replay(existing, fingerprint, responseType);
+            }
+        } catch (DataAccessException e) {
+            log.warn("幂等键存储不可用, 拒绝请求 {}: {}", redisKey, e.getMessage());
+            throw new ServiceBusyException("系统繁忙, 请稍后重试");
+        }
+
+        // 2. 首次请求: 执行写操作并保存响应; 确定未生效时删除标记允许重试, 结果未知时标记为未确认
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            if (isNotApplied(e)) {
+                release(redisKey);
+            } else {
+                markUnknown(redisKey, fingerprint);
+            }
+            throw e;
+        }
+        try {
+            stringRedisTemplate.opsForValue().set(redisKey,
+                    DONE + fingerprint + ":" + objectMapper.writeValueAsString(response), idempotencyConfig.getTtl());
+        } catch (JsonProcessingException | DataAccessException e) {
+            // 写操作已成功, 不影响本次响应; 标记过期前的重试返回 409, 过期后的重试会再次执行
+            log.warn("保存幂等响应失败 {}: {}", redisKey, e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * 根据已有记录处理重试请求
+     */
+    private <T> T replay(String existing, String fingerprint, Class<T> responseType) {
+        if (existing.startsWith(UNKNOWN)) {
+            if (!existing.substring(UNKNOWN.length()).equals(fingerprint)) {
+                throw new IdempotencyConflictException("Idempotency-Key 已用于其他请求");
+            }
+            throw new IdempotencyConflictException("相同 Idempotency-Key 的请求结果未确认, 请查询订单或余额后使用新的 Idempotency-Key");
+        }
+        if (existing.startsWith(PROCESSING)) {
+            if (!existing.substring(PROCESSING.length()).equals(fingerprint)) {
+                throw new IdempotencyConflictException("Idempotency-Key 已用于其他请求");
+            }
+            throw new IdempotencyConflictException("相同 Idempotency-Key 的请求正在处理中, 请稍后重试");
+        }
+        int separator = existing.indexOf(':', DONE.length());
+        if (!existing.startsWith(DONE) || separator < 0) {
+            throw new IllegalStateException("幂等记录格式错误");
+        }
+        if (!existing.substring(DONE.length(), separator).equals(fingerprint)) {
+            throw new IdempotencyConflictException("Idempotency-Key 已用于其他请求");
+        }
+        try {
+            return objectMapper.readValue(existing.substring(separator + 1), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("幂等响应反序列化失败", e);
+        }
+    }
+
+    /**
+     * 写操作抛出的异常是否保证没有任何写入生效
+     * <p>业务异常 (余额不足、库存不足、队列已满、锁冲突重试耗尽等) 在写入前抛出或已随事务回滚;
+     * 结果未知异常和其他异常 (数据库连接中断、提交失败等) 无法确定</p>
+     */
+    private static boolean isNotApplied(RuntimeException e) {
+        return (e instanceof BaseException && !(e instanceof OutcomeUnknownException))
+                || e instanceof IllegalArgumentException;
+    }
+
+    /**
+     * 将处理中标记替换为未确认状态, 保留时间与已完成记录相同
+     */
+    private void markUnknown(String redisKey, String fingerprint) {
+        try {
+            stringRedisTemplate.opsForValue().set(redisKey, UNKNOWN + fingerprint, idempotencyConfig.getTtl());
+        } catch (DataAccessException e) {
+            // 处理中标记过期前的重试仍返回 409
+            log.warn("保存幂等未确认状态失败 {}: {}", redisKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除处理中标记
+     */
+    private void release(String redisKey) {
+        try {
+            stringRedisTemplate.delete(redisKey);
+        } catch (DataAccessException e) {
+            log.warn("删除幂等键失败 {}: {}", redisKey, e.getMessage());
+        }
+    }
+
+    /**
+     * 请求内容摘要
+     */
+    private String fingerprint(Object request) {
+        try {
+            return JwtUtil.digest(objectMapper.writeValueAsString(request));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("请求序列化失败", e);
+        }
+    }
+}
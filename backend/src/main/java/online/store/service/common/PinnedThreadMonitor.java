@@ -0,0 +1,133 @@
+package online.store.service.common;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import online.store.config.PinningMonitorConfig;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * 虚拟线程钉住监控
+ * <p>虚拟线程在 synchronized 块或本地方法中阻塞时无法让出载体线程 (钉住), 载体线程数量有限, 大量钉住会使吞吐量退化到平台线程水平。
+ * 启用虚拟线程时通过 JFR 事件流订阅 jdk.VirtualThreadPinned 事件, 按调用栈合并统计, 定期输出钉住次数最多的位置</p>
+ * <p>开发调试时也可使用 JVM 参数 -Djdk.tracePinnedThreads=short 直接打印钉住的调用栈</p>
+ */
+@Slf4j
+@Service
+public class PinnedThreadMonitor implements SmartLifecycle {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    /**
+     * 每次输出的钉住位置数量
+     */
+    private static final int REPORT_TOP = 5;
+
+    private final PinningMonitorConfig config;
+    private final Environment environment;
+
+    /**
+     * 钉住统计, 按调用栈索引
+     */
+    private final Map<String, PinnedSite> sites = new ConcurrentHashMap<>();
+
+    private RecordingStream stream;
+
+    private volatile boolean running = false;
+
+    /**
+     * 一个钉住位置的统计
+     */
+    private record PinnedSite(LongAdder count, AtomicLong maxNanos) {
+    }
+
+    public PinnedThreadMonitor(PinningMonitorConfig config, Environment environment) {
+        this.config = config;
+        this.environment = environment;
+    }
+
+    @Override
+    public void start() {
+        if (!config.isEnabled() || !Threading.VIRTUAL.isActive(environment)) {
+            return;
+        }
+        try {
+            stream = new RecordingStream();
+            stream.enable(PINNED_EVENT).withThreshold(config.getThreshold()).withStackTrace();
+            stream.onEvent(PINNED_EVENT, this::record);
+            stream.startAsync();
+            running = true;
+            log.info("虚拟线程钉住监控已启动, 阈值 {}", config.getThreshold());
+        } catch (RuntimeException e) {
+            // JFR 不可用 (如被 JVM 参数禁用) 时不影响启动
+            log.warn("无法启动虚拟线程钉住监控: {}", e.getMessage());
+        }
+    }
+
+    private void record(RecordedEvent event) {
+        String stack = stackOf(event.getStackTrace());
+        long nanos = event.getDuration().toNanos();
+        PinnedSite site = sites.computeIfAbsent(stack, k -> new PinnedSite(new LongAdder(), new AtomicLong()));
+        site.count().increment();
+        site.maxNanos().accumulateAndGet(nanos, Math::max);
+    }
+
+    private String stackOf(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "(无调用栈)";
+        }
+        return stackTrace.getFrames().stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .limit(config.getStackDepth())
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":" + frame.getLineNumber())
+                .collect(Collectors.joining("\n\t<- "));
+    }
+
+    /**
+     * 输出上一周期钉住次数最多的位置并清零
+     */
+    @Scheduled(initialDelayString = "${threads.pinning-monitor.report-interval:1m}",
+            fixedDelayString = "${threads.pinning-monitor.report-interval:1m}")
+    public void report() {
+        if (!running || sites.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<String, PinnedSite>> top = sites.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, PinnedSite> entry) -> entry.getValue().count().sum()).reversed())
+                .limit(REPORT_TOP)
+                .toList();
+        sites.clear();
+        for (Map.Entry<String, PinnedSite> entry : top) {
+            log.warn("虚拟线程钉住 {} 次, 最长 {} ms:\n\t{}", entry.getValue().count().sum(),
+                    entry.getValue().maxNanos().get() / 1_000_000, entry.getKey());
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        stream.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,128 @@
+package online.store.service.common;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import online.store.config.RateLimitConfig;
+import online.store.enums.RateLimitMode;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 限流计数服务
+ * <p>本地模式为令牌桶, 以 GCRA 算法实现: 每个桶只保存一个"理论到达时间", 一次 CAS 完成取令牌, 无锁。
+ * Redis 模式为滑动窗口计数, 由 Lua 脚本原子完成判断与计数, 多实例共享限额</p>
+ * <p>本地令牌桶数量达到上限时, 新的计数键共用同一限额的溢出桶, 直到定时清理释放空间;
+ * 请求线程上不做清理, 大量不同的键不会使每次请求都遍历全部令牌桶</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RateLimiter {
+
+    private static final String KEY_PREFIX = "rate:";
+
+    private static final RedisScript<Long> ACQUIRE_SCRIPT = RedisScript.of(new ClassPathResource("lua/ratelimit/acquire.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final RateLimitConfig rateLimitConfig;
+
+    /**
+     * 本地令牌桶, 值为理论到达时间 (纳秒): 不早于该时间的请求放行
+     */
+    private final Map<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * 令牌桶已满时的溢出桶, 按限额 (容量与周期) 区分, 相同限额的新键共用一个桶
+     */
+    private final Map<String, AtomicLong> overflowBuckets = new ConcurrentHashMap<>();
+
+    private volatile long circuitOpenUntil = 0L;
+
+    /**
+     * 尝试获取一次请求许可
+     * @param key 计数键
+     * @param capacity 每个周期允许的请求数, 也是允许的突发请求数
+     * @param period 周期
+     * @return 0 表示放行, 否则为建议客户端等待的毫秒数
+     */
+    public long acquire(String key, int capacity, Duration period) {
+        if (rateLimitConfig.getMode() == RateLimitMode.REDIS && System.currentTimeMillis() >= circuitOpenUntil) {
+            Long remaining = acquireRedis(key, capacity, period);
+            if (remaining != null) {
+                return remaining >= 0 ? 0L : Math.max(1L, period.toMillis() / capacity);
+            }
+        }
+        return acquireLocal(key, capacity, period);
+    }
+
+    /**
+     * 本地令牌桶 (GCRA): 每个请求使理论到达时间推后一个发放间隔, 理论到达时间超前当前时间不超过一个周期时放行
+     */
+    private long acquireLocal(String key, int capacity, Duration period) {
+        long interval = period.toNanos() / capacity;
+        long tolerance = period.toNanos() - interval;
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= rateLimitConfig.getMaxBuckets()) {
+                bucket = overflowBuckets.computeIfAbsent(capacity + "/" + period, k -> {
+                    log.warn("本地令牌桶数量已达上限 {}, 新的计数键共用溢出桶 {}", rateLimitConfig.getMaxBuckets(), k);
+                    return new AtomicLong(System.nanoTime());
+                });
+            } else {
+                bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(System.nanoTime()));
+            }
+        }
+        while (true) {
+            long now = System.nanoTime();
+            long tat = bucket.get();
+            long start = tat - now < 0 ? now : tat;
+            long ahead = start - now;
+            if (ahead > tolerance) {
+                return Math.max(1L, TimeUnit.NANOSECONDS.toMillis(ahead - tolerance));
+            }
+            if (bucket.compareAndSet(tat, start + interval)) {
+                return 0L;
+            }
+        }
+    }
+
+    /**
+     * Redis 滑动窗口
+     * @return 剩余请求数, 超出限制为 -1, Redis 不可用时为 null
+     */
+    private Long acquireRedis(String key, int capacity, Duration period) {
+        long window = period.toMillis();
+        long now = System.currentTimeMillis();
+        long index = now / window;
+        String redisKey = KEY_PREFIX + key + ":";
+        try {
+            return stringRedisTemplate.execute(ACQUIRE_SCRIPT, List.of(redisKey + index, redisKey + (index - 1)),
+                    String.valueOf(capacity), String.valueOf(window), String.valueOf(now - index * window));
+        } catch (DataAccessException e) {
+            circuitOpenUntil = System.currentTimeMillis() + rateLimitConfig.getCircuitBreakDuration().toMillis();
+            log.warn("Redis 限流不可用, {} 内改用本地令牌桶: {}", rateLimitConfig.getCircuitBreakDuration(), e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 定期清理已回满的本地令牌桶 (含溢出桶), 回满的桶与新建的桶等价
+     */
+    @Scheduled(initialDelay = 60, fixedDelay = 60, timeUnit = TimeUnit.SECONDS)
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.get() - now < 0);
+        overflowBuckets.values().removeIf(bucket -> bucket.get() - now < 0);
+    }
+}
@@ -0,0 +1,287 @@
+package online.store.service.common;
+
+import lombok.extern.slf4j.Slf4j;
+import online.store.config.MetricsConfig;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 慢查询记录
+ * <p>按指纹 (常量替换为 ?、IN 列表与多行 VALUES 折叠后的 SQL) 聚合慢查询的次数、平均耗时、p99 与最大耗时,
+ * 每个指纹用环形缓冲区保留最近的耗时样本</p>
+ * <p>指纹首次出现及之后每隔 explain-interval, 在独立线程上用连接池中的另一个连接执行 EXPLAIN,
+ * 记录执行计划摘要; 出现全表扫描 (type=ALL) 或全索引扫描 (type=index) 时输出告警日志,
+ * 例如商品名称 LIKE '%关键字%' 的查询</p>
+ */
+@Slf4j
+@Service
+public class SlowQueryLog implements DisposableBean {
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.|'')*'");
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bIN\\s*\\(\\s*\\?(?:\\s*,\\s*\\?)*\\s*\\)");
+
+    private static final Pattern VALUES_LIST = Pattern.compile("(?i)\\bVALUES\\s*(\\([^)]*\\))(?:\\s*,\\s*\\([^)]*\\))+");
+
+    private static final int EXPLAIN_TIMEOUT_SECONDS = 5;
+
+    private final DataSource dataSource;
+
+    private final MetricsConfig.SlowQuery config;
+
+    private final ThreadPoolExecutor explainExecutor;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public SlowQueryLog(DataSource dataSource, MetricsConfig metricsConfig) {
+        this.dataSource = dataSource;
+        this.config = metricsConfig.getSlowQuery();
+        this.explainExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(config.getExplainQueueCapacity()),
+                task -> {
+                    Thread thread = new Thread(task, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * 语句耗时是否达到慢查询阈值
+     * @param nanos 语句耗时(纳秒)
+     */
+    public boolean isSlow(long nanos) {
+        return config.isEnabled() && nanos >= config.getThreshold().toNanos();
+    }
+
+    /**
+     * 记录一次慢查询, 需要时异步执行 EXPLAIN
+     * @param statement Mapper 语句ID
+     * @param sql 执行的 SQL (含 ? 占位符)
+     * @param nanos 语句耗时(纳秒)
+     * @param parameters 占位符参数, 只在需要 EXPLAIN 时获取, 获取失败返回 null
+     */
+    public void record(String statement, String sql, long nanos, Supplier<List<Object>> parameters) {
+        String fingerprint = fingerprint(sql);
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(fingerprint);
+        if (entry == null) {
+            if (entries.size() >= config.getMaxFingerprints()) {
+                evictOldest();
+            }
+            entry = entries.computeIfAbsent(fingerprint, key -> {
+                log.warn("新的慢查询 {} ({} ms): {}", statement, TimeUnit.NANOSECONDS.toMillis(nanos), key);
+                return new Entry(statement, key, config.getSamples());
+            });
+        }
+        entry.record(nanos, now);
+        if (config.isExplainEnabled() && isExplainable(sql) && entry.explainDue(now, config.getExplainInterval().toMillis())) {
+            List<Object> values = parameters.get();
+            if (values == null) {
+                return;
+            }
+            Entry target = entry;
+            try {
+                explainExecutor.execute(() -> explain(target, sql, values));
+            } catch (RejectedExecutionException e) {
+                // 队列已满, 下个间隔再执行
+                target.nextExplainAt.set(0);
+            }
+        }
+    }
+
+    /**
+     * 获取慢查询记录, 按累计耗时降序
+     * @return 每个指纹的统计与执行计划摘要
+     */
+    public List<Snapshot> snapshot() {
+        return entries.values().stream()
+                .map(Entry::snapshot)
+                .sorted(Comparator.comparingDouble((Snapshot s) -> s.count() * s.averageMillis()).reversed())
+                .toList();
+    }
+
+    /**
+     * 清空慢查询记录
+     */
+    public void reset() {
+        entries.clear();
+    }
+
+    /**
+     * 在独立连接上执行 EXPLAIN, 记录执行计划摘要
+     */
+    private void explain(Entry entry, String sql, List<Object> parameters) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement ps = connection.prepareStatement("EXPLAIN " + sql)) {
+            ps.setQueryTimeout(EXPLAIN_TIMEOUT_SECONDS);
+            for (int i = 0; i < parameters.size(); i++) {
+                ps.setObject(i + 1, parameters.get(i));
+            }
+            List<String> steps = new ArrayList<>();
+            boolean fullScan = false;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String type = rs.getString("type");
+                    fullScan |= "ALL".equals(type) || "index".equals(type);
+                    String extra = rs.getString("Extra");
+                    steps.add(rs.getString("table") + ": " + type
+                            + " key=" + (rs.getString("key") == null ? "-" : rs.getString("key"))
+                            + " rows=" + rs.getLong("rows")
+                            + (extra == null ? "" : " (" + extra + ")"));
+                }
+            }
+            String plan = String.join("; ", steps);
+            if (fullScan && !entry.fullScan) {
+                log.warn("慢查询存在全表/全索引扫描 {}: {} -> {}", entry.statement, entry.sql, plan);
+            }
+            entry.plan = plan;
+            entry.fullScan = fullScan;
+        } catch (SQLException | RuntimeException e) {
+            log.warn("慢查询 EXPLAIN 失败 {}: {}", entry.statement, e.getMessage());
+        }
+    }
+
+    /**
+     * 淘汰最久未出现的指纹
+     */
+    private void evictOldest() {
+        entries.entrySet().stream()
+                .min(Comparator.comparingLong(e -> e.getValue().lastSeen))
+                .ifPresent(e -> entries.remove(e.getKey(), e.getValue()));
+    }
+
+    private static boolean isExplainable(String sql) {
+        String head = sql.stripLeading();
+        int end = Math.min(head.length(), 6);
+        String command = head.substring(0, end).toUpperCase(Locale.ROOT);
+        return command.equals("SELECT") || command.equals("UPDATE") || command.equals("DELETE");
+    }
+
+    /**
+     * 归一化 SQL: 合并空白, 字符串和数字常量替换为 ?, IN 列表与多行 VALUES 折叠
+     * @param sql 原始 SQL
+     * @return SQL 指纹
+     */
+    static String fingerprint(String sql) {
+        String normalized = WHITESPACE.matcher(sql.strip()).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("IN (?+)");
+        return VALUES_LIST.matcher(normalized).replaceAll("VALUES $1, ...");
+    }
+
+    @Override
+    public void destroy() {
+        explainExecutor.shutdownNow();
+    }
+
+    /**
+     * 慢查询记录
+     * @param statement Mapper 语句ID
+     * @param sql SQL 指纹
+     * @param count 慢查询次数
+     * @param averageMillis 平均耗时(毫秒)
+     * @param p99Millis 最近样本的 p99 耗时(毫秒)
+     * @param maxMillis 最大耗时(毫秒)
+     * @param plan 执行计划摘要, 尚未 EXPLAIN 时为 null
+     * @param fullScan 执行计划是否包含全表或全索引扫描
+     * @param lastSeen 最近一次出现的时间
+     */
+    public record Snapshot(String statement, String sql, long count, double averageMillis, double p99Millis,
+                           double maxMillis, String plan, boolean fullScan, LocalDateTime lastSeen) {
+    }
+
+    /**
+     * 单个指纹的统计, 耗时样本保存在固定大小的环形缓冲区中
+     */
+    private static final class Entry {
+
+        private final String statement;
+
+        private final String sql;
+
+        private final LongAdder count = new LongAdder();
+
+        private final LongAdder totalNanos = new LongAdder();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private final AtomicLongArray samples;
+
+        private final AtomicLong cursor = new AtomicLong();
+
+        private final AtomicLong nextExplainAt = new AtomicLong();
+
+        private volatile long lastSeen;
+
+        private volatile String plan;
+
+        private volatile boolean fullScan;
+
+        Entry(String statement, String sql, int samples) {
+            this.statement = statement;
+            this.sql = sql;
+            this.samples = new AtomicLongArray(Math.max(1, samples));
+        }
+
+        void record(long nanos, long now) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            samples.set((int) (cursor.getAndIncrement() % samples.length()), nanos);
+            lastSeen = now;
+        }
+
+        /**
+         * 是否到了执行 EXPLAIN 的时间, 同一时刻只有一个调用方返回 true
+         */
+        boolean explainDue(long now, long intervalMillis) {
+            long next = nextExplainAt.get();
+            return now >= next && nextExplainAt.compareAndSet(next, now + intervalMillis);
+        }
+
+        Snapshot snapshot() {
+            int filled = (int) Math.min(cursor.get(), samples.length());
+            long[] sorted = new long[filled];
+            for (int i = 0; i < filled; i++) {
+                sorted[i] = samples.get(i);
+            }
+            Arrays.sort(sorted);
+            double p99 = filled == 0 ? 0.0 : sorted[Math.min(filled - 1, (int) Math.ceil(filled * 0.99) - 1)] / 1e6;
+            long n = count.sum();
+            return new Snapshot(statement, sql, n, n == 0 ? 0.0 : totalNanos.sum() / 1e6 / n, p99,
+                    maxNanos.get() / 1e6, plan, fullScan,
+                    LocalDateTime.ofInstant(Instant.ofEpochMilli(lastSeen), ZoneId.systemDefault()));
+        }
+    }
+}
@@ -1,24 +1,112 @@
 package online.store.service.common;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import online.store.common.utils.BoundedExpiringMap;
+import online.store.common.utils.JwtUtil;
+import online.store.config.JwtConfig;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Token 黑名单服务
  * <p>用于将 JWT Token 加入黑名单, 以及检查 Token 是否在黑名单中</p>
- * <p>依赖 Redis 存储黑名单数据</p>
+ * <p>Redis 是黑名单的最终依据, Key 为 Token 的 SHA-256 摘要而非原始 Token; 本地保存一份已吊销摘要的副本 (有容量上限),
+ * 通过 Redis 发布/订阅同步其他实例的新增记录, 同步正常时未吊销的 Token 无需访问 Redis</p>
+ * <p>每次新增记录时递增 Redis 中的版本号并随通知发出, 各实例定期读取版本号, 只有发现遗漏的通知时才全量加载;
+ * 本地副本超出容量上限时未命中的 Token 改为查询 Redis</p>
+ * <p>兼容旧版本以原始 Token 为 Key 的记录: 全量加载时将其迁移为摘要 Key (保留剩余过期时间),
+ * 回退查询 Redis 时同时检查新旧两个 Key, 旧记录全部过期后可移除兼容逻辑</p>
  */
+@Slf4j
 @Service
-public class TokenBlacklistService {
+public class TokenBlacklistService implements MessageListener, SubscriptionListener {
 
     @Resource
     private StringRedisTemplate stringRedisTemplate;
 
+    @Resource
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Resource
+    private JwtConfig jwtConfig;
+
     private static final String BLACKLIST_PREFIX = "jwt:blacklist:";
 
+    /**
+     * 黑名单新增通知频道, 消息格式: Token摘要:过期时间戳(毫秒):版本号
+     */
+    private static final String BLACKLIST_CHANNEL = "jwt:blacklist-events";
+
+    /**
+     * 黑名单版本号, 每次新增记录时递增 (不使用 BLACKLIST_PREFIX, 避免被全量加载扫描到)
+     */
+    private static final String VERSION_KEY = "jwt:blacklist-version";
+
+    /**
+     * 本地已吊销的 Token 摘要, 按 Token 过期时间失效
+     */
+    private final BoundedExpiringMap<String, Boolean> revoked = new BoundedExpiringMap<>(() -> jwtConfig.getBlacklistLocalSize());
+
+    /**
+     * 本地副本是否与 Redis 同步: 已完成全量加载且订阅正常时为 true, 否则回退到查询 Redis
+     */
+    private volatile boolean synced = false;
+
+    /**
+     * 是否已订阅黑名单新增通知
+     */
+    private volatile boolean subscribed = false;
+
+    /**
+     * 本地副本是否完整: 因超出容量上限丢弃过记录时为 false, 未命中的 Token 回退到查询 Redis, 直到全量加载时不再超限
+     */
+    private volatile boolean complete = true;
+
+    /**
+     * 全量加载期间是否丢弃过记录
+     */
+    private final AtomicBoolean dropped = new AtomicBoolean();
+
+    /**
+     * 本地副本已包含的黑名单版本号, 不大于该版本的记录均已加载
+     */
+    private volatile long checkpoint = 0L;
+
+    /**
+     * 已收到但尚未计入 checkpoint 的通知版本号
+     */
+    private final Set<Long> receivedVersions = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 订阅黑名单新增通知, 订阅成功后全量加载 Redis 中的黑名单
+     */
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(BLACKLIST_CHANNEL));
+    }
+
     /**
      * 将 Token 加入黑名单中
      * @param token 要加入黑名单的 JWT 令牌
@@ -27,8 +115,15 @@ public class TokenBlacklistService {
     public void add(String token, long expirationMillis) {
         // 确保至少有1秒的存储时间，避免负数或0
         if (expirationMillis > 0) {
-            String key = BLACKLIST_PREFIX + token;
-            stringRedisTemplate.opsForValue().set(key, "1", expirationMillis, TimeUnit.MILLISECONDS);
+            String digest = JwtUtil.digest(token);
+            long expireAt = System.currentTimeMillis() + expirationMillis;
+            remember(digest, expireAt);
+            stringRedisTemplate.opsForValue().set(BLACKLIST_PREFIX + digest, "1", expirationMillis, TimeUnit.MILLISECONDS);
+            Long version = stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+            if (version != null) {
+                receivedVersions.add(version);
+            }
+            stringRedisTemplate.convertAndSend(BLACKLIST_CHANNEL, digest + ":" + expireAt + ":" + version);
         }
     }
 
@@ -38,7 +133,174 @@ public class TokenBlacklistService {
      * @return 如果 Token 在黑名单中则返回 true, 否则返回 false
      */
     public boolean isBlacklisted(String token) {
-        String key = BLACKLIST_PREFIX + token;
-        return stringRedisTemplate.hasKey(key);
+        String digest = JwtUtil.digest(token);
+        if (revoked.get(digest) != null) {
+            return true;
+        }
+        if (synced && complete) {
+            return false;
+        }
+        // 本地副本可能不完整, 以 Redis 为准; 同时检查尚未迁移的旧版原始 Token Key
+        Long count = stringRedisTemplate.countExistingKeys(List.of(BLACKLIST_PREFIX + digest, BLACKLIST_PREFIX + token));
+        return count != null && count > 0;
+    }
+
+    /**
+     * 接收其他实例的黑名单新增通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String[] parts = body.split(":");
+        if (parts.length < 2 || parts[0].isEmpty()) {
+            return;
+        }
+        try {
+            remember(parts[0], Long.parseLong(parts[1]));
+            // 旧版本实例的通知不带版本号, 也不递增版本号
+            if (parts.length > 2 && !"null".equals(parts[2])) {
+                long version = Long.parseLong(parts[2]);
+                if (version > checkpoint) {
+                    receivedVersions.add(version);
+                }
+            }
+        } catch (NumberFormatException e) {
+            log.warn("忽略格式错误的黑名单通知: {}", body);
+        }
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        // 先订阅再加载, 加载期间的新增记录由通知补齐
+        subscribed = true;
+        reload();
+    }
+
+    @Override
+    public void onChannelUnsubscribed(byte[] channel, long count) {
+        subscribed = false;
+        synced = false;
+        log.warn("黑名单通知订阅已断开, Token 校验改为查询 Redis");
+    }
+
+    /**
+     * 定期读取 Redis 中的黑名单版本号, 与已收到的通知核对, 有遗漏 (订阅异常、消息丢失) 时才全量加载
+     */
+    @Scheduled(initialDelay = 60, fixedDelay = 60, timeUnit = TimeUnit.SECONDS)
+    public synchronized void refresh() {
+        if (!subscribed) {
+            // 订阅恢复后会重新全量加载
+            return;
+        }
+        if (!synced) {
+            // 上次全量加载失败
+            reload();
+            return;
+        }
+        long version;
+        try {
+            version = currentVersion();
+        } catch (DataAccessException e) {
+            log.warn("读取 Token 黑名单版本号失败: {}", e.getMessage());
+            return;
+        }
+        long base = checkpoint;
+        long received = receivedVersions.stream().filter(v -> v > base && v <= version).count();
+        if (version >= base && received == version - base) {
+            checkpoint = version;
+            receivedVersions.removeIf(v -> v <= version);
+            return;
+        }
+        log.warn("Token 黑名单通知有遗漏 (版本号 {} -> {}, 收到 {} 条), 全量加载", base, version, received);
+        reload();
+    }
+
+    /**
+     * 从 Redis 全量加载黑名单, 成功后本地副本视为与 Redis 同步
+     * <p>先读取版本号再扫描, 扫描期间的新增记录由通知补齐</p>
+     */
+    private synchronized void reload() {
+        try {
+            long version = currentVersion();
+            dropped.set(false);
+            List<String> keys = new ArrayList<>();
+            ScanOptions options = ScanOptions.scanOptions().match(BLACKLIST_PREFIX + "*").count(1000).build();
+            try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+                cursor.forEachRemaining(keys::add);
+            }
+            List<Object> ttls = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                for (String key : keys) {
+                    connection.keyCommands().pTtl(key.getBytes(StandardCharsets.UTF_8));
+                }
+                return null;
+            });
+            long now = System.currentTimeMillis();
+            Map<String, Long> loaded = new HashMap<>();
+            Map<String, Long> legacy = new HashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                if (ttls.get(i) instanceof Long ttl && ttl > 0) {
+                    String id = keys.get(i).substring(BLACKLIST_PREFIX.length());
+                    if (isLegacyKey(id)) {
+                        loaded.put(JwtUtil.digest(id), now + ttl);
+                        legacy.put(id, ttl);
+                    } else {
+                        loaded.put(id, now + ttl);
+                    }
+                }
+            }
+            loaded.forEach(this::remember);
+            migrate(legacy);
+            complete = !dropped.get();
+            if (!complete) {
+                log.warn("Token 黑名单共 {} 条记录, 超出本地副本上限 {}, 未命中的 Token 将查询 Redis",
+                        loaded.size(), jwtConfig.getBlacklistLocalSize());
+            }
+            checkpoint = version;
+            receivedVersions.removeIf(v -> v <= version);
+            synced = true;
+            log.debug("已从 Redis 加载 {} 条黑名单记录", loaded.size());
+        } catch (DataAccessException e) {
+            synced = false;
+            log.warn("加载 Token 黑名单失败, Token 校验改为查询 Redis: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 写入本地副本, 因超出容量上限丢弃过记录时本地副本不再完整
+     */
+    private void remember(String digest, long expireAt) {
+        if (revoked.put(digest, Boolean.TRUE, expireAt)) {
+            dropped.set(true);
+            complete = false;
+        }
+    }
+
+    /**
+     * 读取 Redis 中的黑名单版本号, 不存在时为 0
+     */
+    private long currentVersion() {
+        String version = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+        return version == null ? 0L : Long.parseLong(version);
+    }
+
+    /**
+     * 将旧版以原始 Token 为 Key 的记录迁移为摘要 Key, 先写入新 Key 再删除旧 Key
+     * @param legacy 原始 Token 及其剩余过期时间(毫秒)
+     */
+    private void migrate(Map<String, Long> legacy) {
+        if (legacy.isEmpty()) {
+            return;
+        }
+        legacy.forEach((token, ttl) -> stringRedisTemplate.opsForValue()
+                .set(BLACKLIST_PREFIX + JwtUtil.digest(token), "1", ttl, TimeUnit.MILLISECONDS));
+        stringRedisTemplate.delete(legacy.keySet().stream().map(token -> BLACKLIST_PREFIX + token).toList());
+        log.info("已将 {} 条旧版黑名单记录迁移为摘要 Key", legacy.size());
+    }
+
+    /**
+     * 旧版 Key 直接保存原始 JWT (含 '.' 分隔符), 摘要为 Base64URL 编码, 不含 '.'
+     */
+    private static boolean isLegacyKey(String id) {
+        return id.indexOf('.') >= 0;
     }
 }
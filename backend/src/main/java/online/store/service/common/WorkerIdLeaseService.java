@@ -0,0 +1,174 @@
+package online.store.service.common;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import online.store.config.SnowflakeConfig;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntConsumer;
+
+/**
+ * Snowflake 机器ID租约服务
+ * <p>多实例部署时从 Redis 租用 0~1023 中空闲的机器ID (高5位为数据中心ID, 低5位为工作ID), 定期续期, 关闭时释放</p>
+ * <p>记录租约的有效期截止时间 (以发起租用或续期请求的时刻计, 不晚于 Redis 中租约的实际过期时间);
+ * Redis 故障导致无法续期时, ID 生成器在截止时间之后拒绝生成ID, 而不是继续使用可能已被其他实例租走的机器ID</p>
+ * <p>仅在 snowflake.worker-id-source=REDIS 时使用</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WorkerIdLeaseService {
+
+    private static final String LEASE_PREFIX = "snowflake:worker:";
+
+    /**
+     * 可分配的机器ID数量 (5 bits 数据中心ID + 5 bits 工作ID)
+     */
+    public static final int MAX_NODES = 1024;
+
+    private static final RedisScript<Long> RENEW_SCRIPT = RedisScript.of(new ClassPathResource("lua/snowflake/renew.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(new ClassPathResource("lua/snowflake/release.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final SnowflakeConfig snowflakeConfig;
+
+    /**
+     * 当前实例标识, 作为租约的值
+     */
+    private final String instanceToken = UUID.randomUUID().toString();
+
+    /**
+     * 当前持有的机器ID, -1 表示未租用
+     */
+    private volatile int nodeId = -1;
+
+    /**
+     * 当前租约的有效期截止时间 ({@link System#nanoTime()})
+     */
+    private volatile long expiresAt = System.nanoTime();
+
+    /**
+     * 租约丢失后重新分配机器ID时的回调
+     */
+    private volatile IntConsumer reassignListener = id -> { };
+
+    /**
+     * 串行化租用过程; 使用 ReentrantLock 而非 synchronized, 避免 Redis 调用期间钉住虚拟线程
+     */
+    private final ReentrantLock acquireLock = new ReentrantLock();
+
+    /**
+     * 租用一个空闲的机器ID
+     * @return 机器ID (0~1023)
+     * @throws IllegalStateException 所有机器ID均被占用
+     */
+    public int acquire() {
+        return acquire(id -> { });
+    }
+
+    /**
+     * 租用一个空闲的机器ID, 先通知回调再更新有效期, 保证生成器切换到新机器ID之前不会恢复生成
+     */
+    private int acquire(IntConsumer beforeActivate) {
+        acquireLock.lock();
+        try {
+            // 从随机位置开始探测, 减少多个实例同时启动时的冲突
+            int start = ThreadLocalRandom.current().nextInt(MAX_NODES);
+            long ttlMillis = snowflakeConfig.getLeaseTtl().toMillis();
+            for (int i = 0; i < MAX_NODES; i++) {
+                int candidate = (start + i) % MAX_NODES;
+                long requestedAt = System.nanoTime();
+                Boolean leased = stringRedisTemplate.opsForValue()
+                        .setIfAbsent(LEASE_PREFIX + candidate, instanceToken, ttlMillis, TimeUnit.MILLISECONDS);
+                if (Boolean.TRUE.equals(leased)) {
+                    nodeId = candidate;
+                    beforeActivate.accept(candidate);
+                    expiresAt = requestedAt + TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+                    log.info("已租用 Snowflake 机器ID: {}", candidate);
+                    return candidate;
+                }
+            }
+            throw new IllegalStateException("没有空闲的 Snowflake 机器ID");
+        } finally {
+            acquireLock.unlock();
+        }
+    }
+
+    /**
+     * 当前租约的有效期截止时间, 供 ID 生成器在生成ID前检查
+     * @return 截止时间 ({@link System#nanoTime()})
+     */
+    public long expiresAt() {
+        return expiresAt;
+    }
+
+    /**
+     * 注册租约丢失后重新分配机器ID时的回调
+     * @param listener 回调, 参数为新的机器ID
+     */
+    public void onReassign(IntConsumer listener) {
+        this.reassignListener = listener;
+    }
+
+    /**
+     * 定期续期租约, 租约丢失 (如长时间 GC 或 Redis 故障导致过期) 时重新租用新的机器ID
+     */
+    @Scheduled(initialDelayString = "${snowflake.lease-renew-interval:10s}",
+            fixedDelayString = "${snowflake.lease-renew-interval:10s}")
+    public void renew() {
+        int current = nodeId;
+        if (current < 0) {
+            return;
+        }
+        try {
+            long ttlMillis = snowflakeConfig.getLeaseTtl().toMillis();
+            long requestedAt = System.nanoTime();
+            Long renewed = stringRedisTemplate.execute(RENEW_SCRIPT, List.of(LEASE_PREFIX + current),
+                    instanceToken, String.valueOf(ttlMillis));
+            if (renewed != null && renewed == 1L) {
+                expiresAt = requestedAt + TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+                return;
+            }
+            log.warn("Snowflake 机器ID {} 的租约已丢失, 重新租用", current);
+            // 原机器ID可能已被其他实例租用, 重新租用成功前暂停生成ID
+            expiresAt = System.nanoTime();
+            acquire(reassignListener);
+        } catch (DataAccessException e) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(expiresAt - System.nanoTime());
+            if (remainingMillis > 0) {
+                log.warn("Snowflake 机器ID租约续期失败, 机器ID {} 的租约将在 {} ms 后过期: {}", current, remainingMillis, e.getMessage());
+            } else {
+                log.error("Snowflake 机器ID {} 的租约已过期且无法续期, 暂停生成ID: {}", current, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 应用关闭时释放租约, 使机器ID可被其他实例立即复用
+     */
+    @PreDestroy
+    public void release() {
+        int current = nodeId;
+        if (current < 0) {
+            return;
+        }
+        nodeId = -1;
+        try {
+            stringRedisTemplate.execute(RELEASE_SCRIPT, List.of(LEASE_PREFIX + current), instanceToken);
+        } catch (DataAccessException e) {
+            log.warn("释放 Snowflake 机器ID {} 失败, 等待租约过期: {}", current, e.getMessage());
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package online.store.service.order;
 
+import online.store.dto.cart.CartCheckoutRequest;
 import online.store.dto.order.OrderCreateRequest;
 import online.store.vo.order.OrderResponse;
 
@@ -13,12 +14,17 @@ public interface OrderService {
      * 创建订单并完成支付。
      * <p>
      * 这是一个核心的事务方法，它会原子性地完成以下操作：
-     * 1. 悲观锁锁定用户和商品记录，防止并发问题。
+     * 0. 事务开始前在 Redis 中预扣库存，售罄时直接拒绝；事务回滚后释放预扣。
+     * 1. 悲观锁先锁定商品再锁定用户记录（与其他下单路径顺序一致，避免死锁），防止并发问题。
      * 2. 校验商品状态、库存及用户余额。
      * 3. 扣减用户余额和商品库存。
      * 4. 创建订单（Orders）和订单项（OrderItem）记录。
      * 5. 返回创建成功的订单信息。
      * </p>
+     * <p>
+     * 配置 order.lock-mode=OPTIMISTIC 时不加锁读取并校验，以带条件的 UPDATE 原子扣减库存和余额，
+     * 读取后数据被并发修改时回滚并退避重试，重试次数耗尽时抛出 ServiceBusyException。
+     * </p>
      *
      * @param createRequest 包含商品、数量及收货信息的订单创建请求
      * @return 包含订单ID、订单号和支付状态的响应对象
@@ -30,4 +36,49 @@ public interface OrderService {
      * @throws RuntimeException                                   发生并发更新或其他未知异常
      */
     OrderResponse createOrderAndPay(OrderCreateRequest createRequest);
-}
\ No newline at end of file
+
+    /**
+     * 提交订单。
+     * <p>
+     * 启用异步下单时，预扣库存并写入订单日志后立即返回待支付 (PENDING) 状态的订单号，
+     * 扣款、减库存和订单落库由后台工作线程批量完成，结果通过 {@link #getOrderStatus} 查询；
+     * 未启用时等同于 {@link #createOrderAndPay}。
+     * </p>
+     *
+     * @param createRequest 包含商品、数量及收货信息的订单创建请求
+     * @return 异步模式下为待处理订单, 同步模式下为已支付订单
+     * @throws online.store.common.exception.InsufficientStockException 商品库存不足
+     * @throws online.store.common.exception.ServiceBusyException      下单队列已满
+     */
+    OrderResponse submitOrder(OrderCreateRequest createRequest);
+
+    /**
+     * 查询当前用户的订单状态
+     *
+     * @param orderNo 订单号
+     * @return 订单状态, 异步处理失败的订单状态为已取消并附带失败原因
+     * @throws online.store.common.exception.OrderNotFoundException 订单不存在或不属于当前用户
+     */
+    OrderResponse getOrderStatus(String orderNo);
+
+    /**
+     * 结算当前用户购物车中选中的商品, 生成一个包含多个订单项的订单并完成支付。
+     * <p>
+     * 0. 事务开始前按商品ID顺序在 Redis 中预扣库存，任一商品售罄时释放已预扣的库存并拒绝。
+     * 1. 按商品ID升序一次性锁定所有商品，再锁定用户，加锁顺序与其他下单路径一致，避免死锁。
+     * 2. 校验每个商品的状态与库存，以及用户余额是否足够支付总金额。
+     * 3. 批量扣减商品库存，一次性扣减用户余额。
+     * 4. 创建订单，并以一条批量语句写入全部订单项。
+     * 5. 事务提交后从购物车中移除已结算的商品。
+     * </p>
+     *
+     * @param checkoutRequest 收货信息
+     * @return 已支付订单
+     * @throws IllegalArgumentException                                   购物车中没有选中的商品
+     * @throws online.store.common.exception.ProductNotFoundException     商品不存在
+     * @throws online.store.common.exception.ProductNotForSaleException   商品未处于出售状态
+     * @throws online.store.common.exception.InsufficientStockException   商品库存不足
+     * @throws online.store.common.exception.InsufficientBalanceException 用户余额不足
+     */
+    OrderResponse checkoutCart(CartCheckoutRequest checkoutRequest);
+}
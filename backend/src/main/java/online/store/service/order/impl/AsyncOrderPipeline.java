@@ -0,0 +1,483 @@
+package online.store.service.order.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import online.store.common.exception.BaseException;
+import online.store.common.exception.ProductNotFoundException;
+import online.store.common.exception.ServiceBusyException;
+import online.store.common.exception.UserNotFoundException;
+import online.store.common.metrics.BusinessMetrics;
+import online.store.common.utils.WorkerThreads;
+import online.store.config.OrderConfig;
+import online.store.enums.OrderStatus;
+import online.store.mapper.OrderItemMapper;
+import online.store.mapper.OrderMapper;
+import online.store.mapper.ProductMapper;
+import online.store.mapper.UserMapper;
+import online.store.pojo.OrderItem;
+import online.store.pojo.Orders;
+import online.store.pojo.Product;
+import online.store.pojo.ProductStockShard;
+import online.store.pojo.User;
+import online.store.service.audit.AuditEventPublisher;
+import online.store.service.product.ProductCacheService;
+import online.store.service.stock.StockReservationService;
+import online.store.service.stock.StockShardService;
+import online.store.service.transaction.BalanceLedgerService;
+import online.store.vo.order.OrderResponse;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 异步下单流水线
+ * <p>下单请求受理后写入本地日志并进入有界队列, 由工作线程按批次加锁、校验并批量落库</p>
+ * <p>同一批次内先按ID顺序锁定商品, 再按ID顺序锁定用户 (账本模式下先锁定用户账本), 多个工作线程之间不会互相死锁</p>
+ */
+@Slf4j
+@Component
+public class AsyncOrderPipeline implements SmartLifecycle {
+
+    /**
+     * 工作线程拉取订单的等待时间
+     */
+    private static final long POLL_TIMEOUT_MILLIS = 200L;
+
+    /**
+     * 订单因暂时性故障 (锁等待超时、死锁、连接异常等) 落库失败后重新入队的最大次数,
+     * 超过后保留在日志中等待下次启动重放
+     */
+    private static final int MAX_TRANSIENT_RETRIES = 3;
+
+    private final OrderConfig.Async config;
+    private final UserMapper userMapper;
+    private final ProductMapper productMapper;
+    private final OrderMapper orderMapper;
+    private final OrderItemMapper orderItemMapper;
+    private final StockReservationService stockReservationService;
+    private final StockShardService stockShardService;
+    private final ProductCacheService productCacheService;
+    private final BalanceLedgerService balanceLedgerService;
+    private final AuditEventPublisher auditEventPublisher;
+    private final BusinessMetrics businessMetrics;
+    private final TransactionTemplate transactionTemplate;
+    private final Environment environment;
+    private final OrderJournal journal;
+    private final BlockingQueue<PendingOrder> queue;
+
+    /**
+     * 订单处理结果 (含处理中的订单), 按订单号索引, 供状态查询使用
+     */
+    private final Map<String, OrderResult> results = new ConcurrentHashMap<>();
+
+    /**
+     * 因暂时性故障重新入队的订单及其已重试次数
+     */
+    private final Map<String, Integer> retries = new ConcurrentHashMap<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running = false;
+
+    /**
+     * 订单处理结果
+     *
+     * @param userId     下单用户ID
+     * @param response   订单响应
+     * @param finishTime 处理完成时间 (毫秒时间戳), 处理中为 0
+     */
+    private record OrderResult(Long userId, OrderResponse response, long finishTime) {
+    }
+
+    public AsyncOrderPipeline(OrderConfig orderConfig,
+                              UserMapper userMapper,
+                              ProductMapper productMapper,
+                              OrderMapper orderMapper,
+                              OrderItemMapper orderItemMapper,
+                              StockReservationService stockReservationService,
+                              StockShardService stockShardService,
+                              ProductCacheService productCacheService,
+                              BalanceLedgerService balanceLedgerService,
+                              AuditEventPublisher auditEventPublisher,
+                              BusinessMetrics businessMetrics,
+                              TransactionTemplate transactionTemplate,
+                              ObjectMapper objectMapper,
+                              Environment environment) {
+        this.config = orderConfig.getAsync();
+        this.userMapper = userMapper;
+        this.productMapper = productMapper;
+        this.orderMapper = orderMapper;
+        this.orderItemMapper = orderItemMapper;
+        this.stockReservationService = stockReservationService;
+        this.stockShardService = stockShardService;
+        this.productCacheService = productCacheService;
+        this.balanceLedgerService = balanceLedgerService;
+        this.auditEventPublisher = auditEventPublisher;
+        this.businessMetrics = businessMetrics;
+        this.transactionTemplate = transactionTemplate;
+        this.environment = environment;
+        this.journal = new OrderJournal(Path.of(config.getJournalPath()), objectMapper, config.isJournalFsync());
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+    }
+
+    /**
+     * 是否启用异步下单
+     */
+    public boolean isEnabled() {
+        return config.isEnabled() && running;
+    }
+
+    /**
+     * 受理订单: 写入日志后入队
+     * @param order 已完成库存预扣的订单
+     * @throws ServiceBusyException 异步下单未启用或队列已满
+     */
+    public void submit(PendingOrder order) {
+        if (!isEnabled()) {
+            throw new ServiceBusyException("异步下单未启用");
+        }
+        if (queue.remainingCapacity() == 0) {
+            throw new ServiceBusyException("下单人数过多, 请稍后重试");
+        }
+        journal.submitted(order);
+        results.put(order.orderNo(), new OrderResult(order.userId(), pendingResponse(order), 0L));
+        if (!queue.offer(order)) {
+            journal.done(order.orderNo());
+            results.remove(order.orderNo());
+            throw new ServiceBusyException("下单人数过多, 请稍后重试");
+        }
+    }
+
+    /**
+     * 查询内存中的订单处理结果
+     * @param orderNo 订单号
+     * @param userId 当前用户ID, 只能查询自己的订单
+     * @return 处理中或近期处理完毕的订单, 不存在时为空
+     */
+    public Optional<OrderResponse> findResult(String orderNo, Long userId) {
+        OrderResult result = results.get(orderNo);
+        if (result == null || !result.userId().equals(userId)) {
+            return Optional.empty();
+        }
+        return Optional.of(result.response());
+    }
+
+    /**
+     * 清理超过保留时间的处理结果
+     */
+    @Scheduled(fixedDelay = 60, timeUnit = TimeUnit.SECONDS)
+    public void purgeResults() {
+        long expireBefore = System.currentTimeMillis() - config.getResultRetention().toMillis();
+        results.values().removeIf(result -> result.finishTime() > 0 && result.finishTime() < expireBefore);
+    }
+
+    @Override
+    public void start() {
+        // 即使未启用异步下单, 也要处理完上次运行遗留在日志中的订单
+        if (!config.isEnabled() && !journal.hasRecords()) {
+            return;
+        }
+        List<PendingOrder> recovered = journal.open();
+        running = true;
+        for (int i = 0; i < config.getWorkers(); i++) {
+            Thread worker = WorkerThreads.start(environment, "order-worker-" + i, this::runWorker);
+            workers.add(worker);
+        }
+        for (PendingOrder order : recovered) {
+            results.put(order.orderNo(), new OrderResult(order.userId(), pendingResponse(order), 0L));
+            try {
+                queue.put(order);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (!recovered.isEmpty()) {
+            log.info("从订单日志恢复 {} 个未落库的订单", recovered.size());
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        // 停止受理新订单, 工作线程处理完队列中的订单后退出, 未处理的订单保留在日志中
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        workers.clear();
+        journal.close();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void runWorker() {
+        List<PendingOrder> batch = new ArrayList<>(config.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingOrder first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, config.getBatchSize() - 1);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("订单批处理异常", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 处理一批订单: 整批在一个事务中落库, 失败时退化为逐单处理以隔离问题订单
+     */
+    private void processBatch(List<PendingOrder> batch) {
+        // 重启恢复的订单可能在上次运行中已经落库, 跳过这些订单
+        Set<String> persisted = findPersisted(batch);
+        List<PendingOrder> todo = new ArrayList<>(batch.size());
+        for (PendingOrder order : batch) {
+            if (persisted.contains(order.orderNo())) {
+                complete(order, persistedResponse(order), true);
+            } else {
+                todo.add(order);
+            }
+        }
+        if (todo.isEmpty()) {
+            return;
+        }
+
+        try {
+            List<BaseException> rejections = new ArrayList<>();
+            Map<PendingOrder, OrderResponse> outcomes = transactionTemplate.execute(status -> persistBatch(todo, rejections));
+            rejections.forEach(businessMetrics::rejected);
+            outcomes.forEach((order, response) -> complete(order, response, response.getStatus() == OrderStatus.PAID));
+        } catch (RuntimeException e) {
+            log.warn("订单批量落库失败, 改为逐单处理: {}", e.getMessage());
+            for (PendingOrder order : todo) {
+                try {
+                    List<BaseException> rejections = new ArrayList<>();
+                    OrderResponse response = transactionTemplate.execute(status -> persistBatch(List.of(order), rejections)).get(order);
+                    rejections.forEach(businessMetrics::rejected);
+                    complete(order, response, response.getStatus() == OrderStatus.PAID);
+                } catch (RuntimeException ex) {
+                    if (isTransient(ex)) {
+                        retry(order, ex);
+                    } else {
+                        log.error("订单落库失败. OrderNo: {}", order.orderNo(), ex);
+                        complete(order, failedResponse(order, "系统繁忙，下单失败，请重试！"), false);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 暂时性故障: 重新入队, 超过重试次数或队列已满时保留在日志中 (不释放库存预扣), 下次启动时重放
+     */
+    private void retry(PendingOrder order, RuntimeException e) {
+        int attempts = retries.merge(order.orderNo(), 1, Integer::sum);
+        if (attempts <= MAX_TRANSIENT_RETRIES && running && queue.offer(order)) {
+            log.warn("订单落库遇到暂时性故障, 第 {} 次重新入队. OrderNo: {}: {}", attempts, order.orderNo(), e.getMessage());
+            return;
+        }
+        retries.remove(order.orderNo());
+        log.error("订单落库多次失败, 保留在订单日志中等待重放. OrderNo: {}", order.orderNo(), e);
+    }
+
+    /**
+     * 是否为可重试的暂时性故障: 锁等待超时、死锁、查询超时、连接获取失败、账本繁忙等
+     */
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException
+                || e instanceof ServiceBusyException;
+    }
+
+    /**
+     * 在当前事务中锁定、校验并批量写入一批订单
+     * @param rejections 收集校验未通过的原因, 事务提交后由调用方计入指标, 回滚重试时不会重复计数
+     * @return 每个订单的处理结果, 校验未通过的订单状态为已取消
+     */
+    private Map<PendingOrder, OrderResponse> persistBatch(List<PendingOrder> orders, List<BaseException> rejections) {
+        // 1. 按固定顺序加锁: 商品 → 库存分片 → 用户, 各自按ID升序
+        Map<Long, Product> products = new TreeMap<>();
+        orders.stream().map(order -> order.request().getProductId()).collect(Collectors.toCollection(TreeSet::new))
+                .forEach(productId -> productMapper.selectByIdForUpdate(productId).ifPresent(product -> products.put(productId, product)));
+        // 分片库存商品锁定全部分片, 以分片合计作为本批次的可售库存
+        Map<Long, Integer> shardCounts = new TreeMap<>();
+        products.values().stream().filter(stockShardService::isSharded).forEach(product -> {
+            List<ProductStockShard> shards = stockShardService.lockShards(product.getId());
+            if (!shards.isEmpty()) {
+                product.setStock(shards.stream().mapToInt(ProductStockShard::getStock).sum());
+                shardCounts.put(product.getId(), shards.size());
+            }
+        });
+        Set<Long> userIds = orders.stream().map(PendingOrder::userId).collect(Collectors.toCollection(TreeSet::new));
+        if (balanceLedgerService.isEnabled()) {
+            // 账本模式下先锁定用户账本, 将未合并的充值计入余额
+            balanceLedgerService.lockForTransaction(userIds);
+            userIds.forEach(balanceLedgerService::settle);
+        }
+        Map<Long, User> users = new TreeMap<>();
+        userIds.forEach(userId -> userMapper.selectByIdForUpdate(userId).ifPresent(user -> users.put(userId, user)));
+
+        // 2. 依次校验并在内存中扣减, 同一用户或商品的多个订单按受理顺序累计扣减
+        Map<PendingOrder, OrderResponse> outcomes = new LinkedHashMap<>();
+        Set<Product> dirtyProducts = new TreeSet<>((a, b) -> a.getId().compareTo(b.getId()));
+        Set<User> dirtyUsers = new TreeSet<>((a, b) -> a.getId().compareTo(b.getId()));
+        List<Orders> newOrders = new ArrayList<>();
+        List<OrderItem> newItems = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (PendingOrder order : orders) {
+            int quantity = order.request().getQuantity();
+            try {
+                User user = users.get(order.userId());
+                if (user == null) {
+                    throw new UserNotFoundException("用户 '" + order.username() + "' 不存在");
+                }
+                Product product = products.get(order.request().getProductId());
+                if (product == null) {
+                    throw new ProductNotFoundException("商品ID: " + order.request().getProductId() + " 不存在");
+                }
+                OrderServiceImpl.validatePurchase(user, product, quantity);
+
+                BigDecimal totalCost = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+                user.setBalance(user.getBalance().subtract(totalCost));
+                product.setStock(product.getStock() - quantity);
+                dirtyUsers.add(user);
+                dirtyProducts.add(product);
+
+                Orders newOrder = OrderServiceImpl.buildOrder(order.orderNo(), user.getId(), totalCost, order.request(), now);
+                newOrder.setId(order.orderId());
+                newOrders.add(newOrder);
+                newItems.add(OrderServiceImpl.buildOrderItem(newOrder.getId(), product, quantity, totalCost));
+
+                outcomes.put(order, OrderResponse.builder()
+                        .orderId(newOrder.getId())
+                        .orderNo(newOrder.getOrderNo())
+                        .status(newOrder.getStatus())
+                        .totalAmount(newOrder.getTotalAmount())
+                        .newBalance(user.getBalance())
+                        .payTime(newOrder.getPayTime())
+                        .build());
+            } catch (BaseException e) {
+                rejections.add(e);
+                outcomes.put(order, failedResponse(order, e.getMessage()));
+            }
+        }
+
+        // 3. 每个被修改的用户和商品只更新一次, 订单与订单项批量写入
+        if (!dirtyProducts.isEmpty()) {
+            // 分片库存商品按扣减后的合计重新均分, product.stock 同步为合计
+            dirtyProducts.stream()
+                    .filter(product -> shardCounts.containsKey(product.getId()))
+                    .forEach(product -> stockShardService.rewrite(product.getId(), shardCounts.get(product.getId()), product.getStock()));
+            productMapper.updateById(dirtyProducts);
+            userMapper.updateById(dirtyUsers);
+        }
+        if (!newOrders.isEmpty()) {
+            orderMapper.insert(newOrders);
+            orderItemMapper.insert(newItems);
+            balanceLedgerService.recordPurchases(newOrders);
+        }
+        return outcomes;
+    }
+
+    /**
+     * 订单处理完毕: 确认或释放库存预扣, 失效商品缓存, 发布审计事件并保存结果
+     */
+    private void complete(PendingOrder order, OrderResponse response, boolean paid) {
+        if (order.reserved()) {
+            if (paid) {
+                stockReservationService.confirm(order.request().getProductId(), order.request().getQuantity(), true);
+            } else {
+                stockReservationService.release(order.request().getProductId(), order.request().getQuantity(), true);
+            }
+        }
+        if (paid) {
+            productCacheService.evict(order.request().getProductId());
+        }
+        journal.done(order.orderNo());
+        retries.remove(order.orderNo());
+        results.put(order.orderNo(), new OrderResult(order.userId(), response, System.currentTimeMillis()));
+        if (paid) {
+            auditEventPublisher.orderPaid(order.orderNo(), order.userId(), order.username(), response.getTotalAmount(), response.getNewBalance(),
+                    "商品 " + order.request().getProductId() + " x" + order.request().getQuantity() + " (异步下单)");
+        } else {
+            log.info("订单处理失败! OrderNo: {}, User: '{}', Reason: {}", order.orderNo(), order.username(), response.getFailReason());
+        }
+    }
+
+    private Set<String> findPersisted(List<PendingOrder> batch) {
+        List<String> orderNos = batch.stream().map(PendingOrder::orderNo).toList();
+        return orderMapper.selectList(new QueryWrapper<Orders>().select("order_no").in("order_no", orderNos))
+                .stream()
+                .map(Orders::getOrderNo)
+                .collect(Collectors.toSet());
+    }
+
+    private static OrderResponse pendingResponse(PendingOrder order) {
+        return OrderResponse.builder()
+                .orderId(order.orderId())
+                .orderNo(order.orderNo())
+                .status(OrderStatus.PENDING)
+                .build();
+    }
+
+    private static OrderResponse persistedResponse(PendingOrder order) {
+        return OrderResponse.builder()
+                .orderId(order.orderId())
+                .orderNo(order.orderNo())
+                .status(OrderStatus.PAID)
+                .build();
+    }
+
+    private static OrderResponse failedResponse(PendingOrder order, String reason) {
+        return OrderResponse.builder()
+                .orderId(order.orderId())
+                .orderNo(order.orderNo())
+                .status(OrderStatus.CANCELLED)
+                .failReason(reason)
+                .build();
+    }
+}
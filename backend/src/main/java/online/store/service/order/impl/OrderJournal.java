@@ -0,0 +1,211 @@
+package online.store.service.order.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 异步下单的本地追加日志
+ * <p>每行一条 JSON 记录: SUBMIT 表示订单已受理, DONE 表示订单已处理完毕 (成功或失败)</p>
+ * <p>重启后只有 SUBMIT 而没有 DONE 的订单会被重新入队; 当所有订单都已处理完毕时截断日志</p>
+ */
+@Slf4j
+class OrderJournal implements Closeable {
+
+    private static final String TYPE_SUBMIT = "SUBMIT";
+    private static final String TYPE_DONE = "DONE";
+
+    /**
+     * 所有订单处理完毕且日志超过此大小时截断
+     */
+    private static final long TRUNCATE_THRESHOLD_BYTES = 1024 * 1024;
+
+    private final Path path;
+
+    private final ObjectMapper objectMapper;
+
+    private final boolean fsync;
+
+    /**
+     * 使用 ReentrantLock 而非 synchronized, 避免文件 I/O 期间钉住虚拟线程
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private FileChannel channel;
+
+    /**
+     * 已受理但尚未处理完毕的订单数量
+     */
+    private int pendingCount;
+
+    OrderJournal(Path path, ObjectMapper objectMapper, boolean fsync) {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        this.fsync = fsync;
+    }
+
+    /**
+     * 日志记录
+     *
+     * @param type    记录类型
+     * @param orderNo 订单号
+     * @param order   受理的订单, 仅 SUBMIT 记录包含
+     */
+    record Entry(String type, String orderNo, PendingOrder order) {
+    }
+
+    /**
+     * 读取日志中尚未处理完毕的订单, 并以这些订单重写日志后打开
+     * @return 待恢复的订单, 按受理顺序排列
+     */
+    List<PendingOrder> open() {
+        lock.lock();
+        try {
+            Map<String, PendingOrder> pending = new LinkedHashMap<>();
+            if (Files.exists(path)) {
+                try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        Entry entry;
+                        try {
+                            entry = objectMapper.readValue(line, Entry.class);
+                        } catch (IOException e) {
+                            // 进程崩溃时最后一行可能写入不完整, 跳过
+                            log.warn("订单日志存在无法解析的记录, 已跳过: {}", e.getMessage());
+                            continue;
+                        }
+                        if (TYPE_SUBMIT.equals(entry.type())) {
+                            pending.put(entry.orderNo(), entry.order());
+                        } else {
+                            pending.remove(entry.orderNo());
+                        }
+                    }
+                }
+            }
+            List<PendingOrder> recovered = new ArrayList<>(pending.values());
+            rewrite(recovered);
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            pendingCount = recovered.size();
+            return recovered;
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开订单日志失败: " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 日志文件是否存在记录 (可能包含尚未处理完毕的订单), 不打开日志
+     */
+    boolean hasRecords() {
+        if (!Files.exists(path)) {
+            return false;
+        }
+        try {
+            return Files.size(path) > 0;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 记录订单已受理
+     */
+    void submitted(PendingOrder order) {
+        lock.lock();
+        try {
+            write(new Entry(TYPE_SUBMIT, order.orderNo(), order));
+            pendingCount++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 记录订单已处理完毕, 所有订单处理完毕时截断过大的日志
+     */
+    void done(String orderNo) {
+        lock.lock();
+        try {
+            write(new Entry(TYPE_DONE, orderNo, null));
+            pendingCount--;
+            if (pendingCount <= 0 && channel.size() > TRUNCATE_THRESHOLD_BYTES) {
+                channel.truncate(0);
+                pendingCount = 0;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("截断订单日志失败: " + path, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (channel != null) {
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException e) {
+            log.warn("关闭订单日志失败: {}", e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(Entry entry) {
+        if (channel == null) {
+            throw new IllegalStateException("订单日志未打开或已关闭: " + path);
+        }
+        try {
+            byte[] line = (objectMapper.writeValueAsString(entry) + "\n").getBytes(StandardCharsets.UTF_8);
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入订单日志失败: " + path, e);
+        }
+    }
+
+    /**
+     * 以给定订单重写日志 (先写临时文件再原子替换)
+     */
+    private void rewrite(List<PendingOrder> orders) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        List<String> lines = new ArrayList<>(orders.size());
+        for (PendingOrder order : orders) {
+            lines.add(objectMapper.writeValueAsString(new Entry(TYPE_SUBMIT, order.orderNo(), order)));
+        }
+        Files.write(temp, lines, StandardCharsets.UTF_8);
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
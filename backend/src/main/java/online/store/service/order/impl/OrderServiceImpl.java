@@ -1,85 +1,359 @@
 package online.store.service.order.impl;
 
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import online.store.common.bulkhead.ConnectionBudget;
+import online.store.common.bulkhead.ConnectionBudgets;
 import online.store.common.exception.*;
 import online.store.common.utils.SnowflakeIdGenerator;
+import online.store.config.OrderConfig;
+import online.store.dto.cart.CartCheckoutRequest;
 import online.store.dto.order.OrderCreateRequest;
+import online.store.enums.OrderLockMode;
 import online.store.enums.OrderStatus;
 import online.store.enums.ProductStatus;
 import online.store.mapper.OrderItemMapper;
 import online.store.mapper.OrderMapper;
 import online.store.mapper.ProductMapper;
 import online.store.mapper.UserMapper;
+import online.store.pojo.CartItem;
 import online.store.pojo.OrderItem;
 import online.store.pojo.Orders;
 import online.store.pojo.Product;
 import online.store.pojo.User;
+import online.store.service.audit.AuditEventPublisher;
 import online.store.service.auth.PermissionService;
+import online.store.service.cart.CartService;
 import online.store.service.order.OrderService;
+import online.store.service.product.ProductCacheService;
+import online.store.service.stock.StockReservationService;
+import online.store.service.stock.StockShardService;
+import online.store.service.transaction.BalanceLedgerService;
 import online.store.vo.order.OrderResponse;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+    /**
+     * 下单事务因死锁或锁等待超时回滚后的最大执行次数
+     */
+    private static final int MAX_LOCK_ATTEMPTS = 3;
+
+    /**
+     * 死锁回滚后重试前的最长随机等待时间
+     */
+    private static final long LOCK_RETRY_BACKOFF_NANOS = 5_000_000L;
+
     private final UserMapper userMapper;
     private final PermissionService permissionService;
     private final ProductMapper productMapper;
     private final OrderMapper orderMapper;
     private final OrderItemMapper orderItemMapper;
     private final SnowflakeIdGenerator snowflakeIdGenerator;
+    private final StockReservationService stockReservationService;
+    private final ProductCacheService productCacheService;
+    private final TransactionTemplate transactionTemplate;
+    private final AsyncOrderPipeline asyncOrderPipeline;
+    private final CartService cartService;
+    private final OrderConfig orderConfig;
+    private final StockShardService stockShardService;
+    private final BalanceLedgerService balanceLedgerService;
+    private final AuditEventPublisher auditEventPublisher;
+    private final ConnectionBudgets connectionBudgets;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OrderResponse submitOrder(OrderCreateRequest orderCreateRequest) {
+        if (!asyncOrderPipeline.isEnabled()) {
+            // 内部调用不经过代理, 显式占用写预算
+            return connectionBudgets.call(ConnectionBudgets.WRITE, () -> createOrderAndPay(orderCreateRequest));
+        }
+        User user = permissionService.getCurrentUser();
+        if (user == null) {
+            throw new UserNotFoundException("无法获取当前用户信息,请检查Token是否有效");
+        }
+        Long productId = orderCreateRequest.getProductId();
+        int quantity = orderCreateRequest.getQuantity();
+
+        // 受理前预扣库存, 售罄请求不会进入队列; 预扣由流水线持有, 订单在重试或日志中等待时不会被对账清零
+        boolean reserved = stockReservationService.reserve(productId, quantity, true);
+        PendingOrder pendingOrder = new PendingOrder(snowflakeIdGenerator.nextId(), generateOrderNo(),
+                user.getId(), user.getUsername(), orderCreateRequest, reserved, LocalDateTime.now());
+        try {
+            asyncOrderPipeline.submit(pendingOrder);
+        } catch (RuntimeException e) {
+            if (reserved) {
+                stockReservationService.release(productId, quantity, true);
+            }
+            throw e;
+        }
+        return OrderResponse.builder()
+                .orderId(pendingOrder.orderId())
+                .orderNo(pendingOrder.orderNo())
+                .status(OrderStatus.PENDING)
+                .build();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OrderResponse getOrderStatus(String orderNo) {
+        User user = permissionService.getCurrentUser();
+        if (user == null) {
+            throw new UserNotFoundException("无法获取当前用户信息,请检查Token是否有效");
+        }
+        // 处理中或近期处理完毕的异步订单直接从内存返回
+        return asyncOrderPipeline.findResult(orderNo, user.getId())
+                .orElseGet(() -> {
+                    Orders order = orderMapper.selectOne(new QueryWrapper<Orders>()
+                            .eq("order_no", orderNo)
+                            .eq("user_id", user.getId()));
+                    if (order == null) {
+                        throw new OrderNotFoundException("订单 '" + orderNo + "' 不存在");
+                    }
+                    return OrderResponse.builder()
+                            .orderId(order.getId())
+                            .orderNo(order.getOrderNo())
+                            .status(order.getStatus())
+                            .totalAmount(order.getTotalAmount())
+                            .payTime(order.getPayTime())
+                            .build();
+                });
+    }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    @Transactional(rollbackFor = Exception.class)
+    @ConnectionBudget(ConnectionBudgets.WRITE)
     public OrderResponse createOrderAndPay(OrderCreateRequest orderCreateRequest) {
-        // 1. 获取当前用户和目标商品，并施加行级写锁，防止并发问题
+        Long productId = orderCreateRequest.getProductId();
+        int quantity = orderCreateRequest.getQuantity();
+
+        // 0. 在事务外预扣 Redis 库存, 售罄请求直接拒绝, 不占用数据库连接和行锁
+        boolean reserved = stockReservationService.reserve(productId, quantity);
+        try {
+            OrderResponse response;
+            if (stockShardService.isSharded(productCacheService.get(productId))) {
+                // 热点商品库存分片, 不锁商品行; 缓存可能已过期, 事务中以数据库中的商品为准
+                response = executeWithLockRetry(status -> doCreateOrderSharded(orderCreateRequest));
+            } else if (orderConfig.getLockMode() == OrderLockMode.OPTIMISTIC) {
+                response = createOrderOptimistic(orderCreateRequest);
+            } else {
+                response = executeWithLockRetry(status -> doCreateOrderAndPay(orderCreateRequest));
+            }
+            if (reserved) {
+                stockReservationService.confirm(productId, quantity);
+            }
+            // 事务已提交, 商品库存已变化
+            productCacheService.evict(productId);
+            return response;
+        } catch (RuntimeException e) {
+            // 事务已回滚, 补偿预扣的库存
+            if (reserved) {
+                stockReservationService.release(productId, quantity);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 分片库存商品下单事务主体, 由 {@link #createOrderAndPay} 在事务中调用
+     * <p>不锁商品行, 只锁定被选中的库存分片和当前用户; 商品已关闭分片时改走悲观锁路径</p>
+     */
+    private OrderResponse doCreateOrderSharded(OrderCreateRequest orderCreateRequest) {
+        // 1. 快照读商品价格和状态, 库存以分片为准
+        Product product = productMapper.selectById(orderCreateRequest.getProductId());
+        if (product == null) {
+            throw new ProductNotFoundException("商品ID: " + orderCreateRequest.getProductId() + " 不存在");
+        }
+        validateOnSale(product);
+        int quantity = orderCreateRequest.getQuantity();
+
+        // 2. 扣减分片库存, 再锁定用户扣减余额; 商品已关闭分片或没有分片行时改走悲观锁路径
+        if (!stockShardService.isSharded(product) || !stockShardService.deduct(product.getId(), quantity)) {
+            return doCreateOrderAndPay(orderCreateRequest);
+        }
         User user = getCurrentUserForUpdate();
+        BigDecimal totalCost = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+        validateBalance(user, totalCost);
+        user.setBalance(user.getBalance().subtract(totalCost));
+        userMapper.updateById(user);
+
+        // 3. 创建订单和订单项
+        Orders newOrder = buildOrder(generateOrderNo(), user.getId(), totalCost, orderCreateRequest, LocalDateTime.now());
+        orderMapper.insert(newOrder);
+        balanceLedgerService.recordPurchases(List.of(newOrder));
+        orderItemMapper.insert(buildOrderItem(newOrder.getId(), product, quantity, totalCost));
+
+        auditEventPublisher.orderPaid(newOrder.getOrderNo(), user.getId(), user.getUsername(), totalCost, user.getBalance(),
+                "商品 '" + product.getName() + "' x" + quantity + " (分片库存)");
+
+        return OrderResponse.builder()
+                .orderId(newOrder.getId())
+                .orderNo(newOrder.getOrderNo())
+                .status(newOrder.getStatus())
+                .totalAmount(newOrder.getTotalAmount())
+                .newBalance(user.getBalance())
+                .payTime(newOrder.getPayTime())
+                .build();
+    }
+
+    /**
+     * 乐观并发下单: 每次尝试都是独立事务, 读取后商品或余额被并发修改、或发生锁冲突时退避重试
+     * @throws ServiceBusyException 重试次数耗尽
+     */
+    private OrderResponse createOrderOptimistic(OrderCreateRequest orderCreateRequest) {
+        OrderConfig.Optimistic config = orderConfig.getOptimistic();
+        long backoffNanos = config.getBackoff().toNanos();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> doCreateOrderOptimistic(orderCreateRequest));
+            } catch (OptimisticConflictException | PessimisticLockingFailureException e) {
+                if (attempt >= config.getMaxAttempts()) {
+                    log.warn("乐观下单重试 {} 次后仍然冲突. Product: {}, 原因: {}",
+                            attempt, orderCreateRequest.getProductId(), e.getMessage());
+                    throw new ServiceBusyException("系统繁忙，下单失败，请重试！(并发冲突)");
+                }
+                // 指数退避并加入随机抖动, 避免冲突的请求同时重试
+                LockSupport.parkNanos(backoffNanos + ThreadLocalRandom.current().nextLong(backoffNanos + 1));
+                backoffNanos <<= 1;
+            }
+        }
+    }
+
+    /**
+     * 乐观并发下单事务主体, 由 {@link #createOrderOptimistic} 在事务中调用
+     * <p>不加锁读取商品和用户并校验, 再以带条件的 UPDATE 原子扣减库存和余额; 条件不满足说明读取后数据已变化, 回滚后重试,
+     * 重试时重新读取的数据会给出真实的失败原因 (库存不足、余额不足等)</p>
+     */
+    private OrderResponse doCreateOrderOptimistic(OrderCreateRequest orderCreateRequest) {
+        // 1. 读取目标商品 (不加锁), 提前拒绝不满足条件的请求
+        User principal = permissionService.getCurrentUser();
+        if (principal == null) {
+            throw new UserNotFoundException("无法获取当前用户信息,请检查Token是否有效");
+        }
+        Product product = productMapper.selectById(orderCreateRequest.getProductId());
+        if (product == null) {
+            throw new ProductNotFoundException("商品ID: " + orderCreateRequest.getProductId() + " 不存在");
+        }
+        if (stockShardService.isSharded(product)) {
+            // 读取缓存后开启了库存分片, product.stock 不再准确
+            return doCreateOrderSharded(orderCreateRequest);
+        }
+        int quantity = orderCreateRequest.getQuantity();
+        validateProduct(product, quantity);
+        BigDecimal totalCost = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+
+        // 2. 带条件原子扣减库存, 加锁顺序与其他下单路径一致: 商品行 → 账本锁 → 用户行
+        if (productMapper.deductStock(product.getId(), quantity, product.getPrice(), ProductStatus.ON_SALE.getCode()) == 0) {
+            throw new OptimisticConflictException("商品 " + product.getId() + " 的库存、状态或价格已变化");
+        }
+
+        // 3. 账本模式下先将未合并的充值计入余额, 再读取余额校验并带条件扣减
+        settleLedger(principal.getId());
+        User user = userMapper.selectById(principal.getId());
+        if (user == null) {
+            throw new UserNotFoundException("用户 '" + principal.getUsername() + "' 不存在");
+        }
+        validateBalance(user, totalCost);
+        if (userMapper.deductBalance(user.getId(), totalCost) == 0) {
+            throw new OptimisticConflictException("用户 " + user.getId() + " 的余额已变化");
+        }
+
+        // 4. 创建订单和订单项
+        LocalDateTime now = LocalDateTime.now();
+        Orders newOrder = buildOrder(generateOrderNo(), user.getId(), totalCost, orderCreateRequest, now);
+        orderMapper.insert(newOrder);
+        balanceLedgerService.recordPurchases(List.of(newOrder));
+        orderItemMapper.insert(buildOrderItem(newOrder.getId(), product, quantity, totalCost));
+
+        // 扣减后的余额可能包含并发的充值, 在本事务内重新读取
+        BigDecimal newBalance = userMapper.selectById(user.getId()).getBalance();
+        auditEventPublisher.orderPaid(newOrder.getOrderNo(), user.getId(), user.getUsername(), totalCost, newBalance,
+                "商品 '" + product.getName() + "' x" + quantity);
+
+        return OrderResponse.builder()
+                .orderId(newOrder.getId())
+                .orderNo(newOrder.getOrderNo())
+                .status(newOrder.getStatus())
+                .totalAmount(newOrder.getTotalAmount())
+                .newBalance(newBalance)
+                .payTime(newOrder.getPayTime())
+                .build();
+    }
+
+    /**
+     * 带条件的扣减语句未命中, 读取后数据已被并发修改, 需要重试
+     */
+    private static final class OptimisticConflictException extends RuntimeException {
+        OptimisticConflictException(String message) {
+            super(message, null, false, false);
+        }
+    }
+
+    /**
+     * 下单事务主体, 由 {@link #createOrderAndPay} 在事务中调用
+     */
+    private OrderResponse doCreateOrderAndPay(OrderCreateRequest orderCreateRequest) {
+        // 1. 获取目标商品和当前用户，并施加行级写锁，防止并发问题
+        // 先锁商品再锁用户, 与购物车结算和异步下单流水线的加锁顺序一致, 避免死锁
         Product product = productMapper.selectByIdForUpdate(orderCreateRequest.getProductId())
                 .orElseThrow(() -> new ProductNotFoundException("商品ID: " + orderCreateRequest.getProductId() + " 不存在"));
 
-        // 2. 业务校验
-        validatePurchase(user, product, orderCreateRequest.getQuantity());
-
-        // 3. 计算金额
+        // 2. 扣减库存 (商品 → 分片 → 用户的加锁顺序), 再锁定用户校验余额
+        boolean productDirty = deductLockedStock(product, orderCreateRequest.getQuantity());
+        User user = getCurrentUserForUpdate();
         BigDecimal totalCost = product.getPrice().multiply(BigDecimal.valueOf(orderCreateRequest.getQuantity()));
+        validateBalance(user, totalCost);
 
-        // 4. 更新用户余额和商品库存
+        // 3. 更新用户余额和商品库存
         user.setBalance(user.getBalance().subtract(totalCost));
-        product.setStock(product.getStock() - orderCreateRequest.getQuantity());
 
         int userUpdateCount = userMapper.updateById(user);
-        int productUpdateCount = productMapper.updateById(product);
+        int productUpdateCount = productDirty ? productMapper.updateById(product) : 1;
 
         // 并发冲突检测：如果更新的行数为0，说明记录已被其他事务修改，抛出异常以回滚
         if (userUpdateCount == 0 || productUpdateCount == 0) {
-            throw new RuntimeException("系统繁忙，下单失败，请重试！(并发冲突)");
+            throw new ServiceBusyException("系统繁忙，下单失败，请重试！(并发冲突)");
         }
 
         // 5. 创建订单和订单项
         LocalDateTime now = LocalDateTime.now();
 
         // 5.1 创建订单主记录 (Orders)
-        Orders newOrder = buildOrder(user.getId(), totalCost, orderCreateRequest, now);
+        Orders newOrder = buildOrder(generateOrderNo(), user.getId(), totalCost, orderCreateRequest, now);
         orderMapper.insert(newOrder);
+        balanceLedgerService.recordPurchases(List.of(newOrder));
 
         // 5.2 创建订单项记录 (OrderItem)
         OrderItem newOrderItem = buildOrderItem(newOrder.getId(), product, orderCreateRequest.getQuantity(), totalCost);
         orderItemMapper.insert(newOrderItem);
 
-        // TODO: 日志记录
-        log.info("订单创建成功! OrderNo: {}, User: '{}', Product: '{}' x{}, Cost: {}",
-                newOrder.getOrderNo(), user.getUsername(), product.getName(), orderCreateRequest.getQuantity(), totalCost);
+        // 审计事件在事务提交后由后台线程写出
+        auditEventPublisher.orderPaid(newOrder.getOrderNo(), user.getId(), user.getUsername(), totalCost, user.getBalance(),
+                "商品 '" + product.getName() + "' x" + orderCreateRequest.getQuantity());
 
         // 6. 构建并返回响应
         return OrderResponse.builder()
@@ -93,17 +367,178 @@ public class OrderServiceImpl implements OrderService {
     }
 
     /**
-     * 校验购买条件：商品状态、库存、用户余额
+     * {@inheritDoc}
      */
-    private void validatePurchase(User user, Product product, Integer quantity) {
-        if (product.getStatus() != ProductStatus.ON_SALE) {
-            throw new ProductNotForSaleException("商品 '" + product.getName() + "' 当前未出售");
+    @Override
+    @ConnectionBudget(ConnectionBudgets.WRITE)
+    public OrderResponse checkoutCart(CartCheckoutRequest checkoutRequest) {
+        User currentUser = permissionService.getCurrentUser();
+        if (currentUser == null) {
+            throw new UserNotFoundException("无法获取当前用户信息,请检查Token是否有效");
+        }
+        List<CartItem> items = cartService.listSelected(currentUser.getId());
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("购物车中没有选中的商品");
+        }
+
+        // 0. 在事务外按商品ID顺序预扣 Redis 库存, 任一商品售罄时释放已预扣的部分
+        List<CartItem> reserved = new ArrayList<>(items.size());
+        OrderResponse response;
+        try {
+            for (CartItem item : items) {
+                if (stockReservationService.reserve(item.getProductId(), item.getQuantity())) {
+                    reserved.add(item);
+                }
+            }
+            response = executeWithLockRetry(status -> doCheckoutCart(items, checkoutRequest));
+        } catch (RuntimeException e) {
+            // 事务已回滚, 补偿预扣的库存
+            reserved.forEach(item -> stockReservationService.release(item.getProductId(), item.getQuantity()));
+            throw e;
+        }
+
+        // 事务已提交, 商品库存已变化
+        reserved.forEach(item -> stockReservationService.confirm(item.getProductId(), item.getQuantity()));
+        List<Long> productIds = items.stream().map(CartItem::getProductId).toList();
+        productIds.forEach(productCacheService::evict);
+        try {
+            cartService.removeItems(currentUser.getId(), productIds);
+        } catch (ServiceBusyException e) {
+            log.warn("订单 {} 已支付, 但从购物车移除已结算商品失败: {}", response.getOrderNo(), e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * 购物车结算事务主体, 由 {@link #checkoutCart} 在事务中调用
+     * @param items 选中的购物车商品, 按商品ID升序
+     */
+    private OrderResponse doCheckoutCart(List<CartItem> items, CartCheckoutRequest checkoutRequest) {
+        // 1. 按商品ID升序一次性锁定全部商品, 用户在扣减库存后锁定
+        Map<Long, Product> products = productMapper.selectBatchForUpdate(items.stream().map(CartItem::getProductId).toList())
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        // 2. 校验商品并计算金额, 分片库存商品直接扣减分片 (商品 → 分片的加锁顺序)
+        BigDecimal totalCost = BigDecimal.ZERO;
+        List<OrderItem> newItems = new ArrayList<>(items.size());
+        List<Product> dirtyProducts = new ArrayList<>(items.size());
+        for (CartItem item : items) {
+            Product product = products.get(item.getProductId());
+            if (product == null) {
+                throw new ProductNotFoundException("商品ID: " + item.getProductId() + " 不存在");
+            }
+            if (deductLockedStock(product, item.getQuantity())) {
+                dirtyProducts.add(product);
+            }
+            BigDecimal subtotal = product.getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+            totalCost = totalCost.add(subtotal);
+            newItems.add(buildOrderItem(null, product, item.getQuantity(), subtotal));
+        }
+        User user = getCurrentUserForUpdate();
+        validateBalance(user, totalCost);
+
+        // 3. 批量扣减库存, 一次性扣减余额
+        user.setBalance(user.getBalance().subtract(totalCost));
+        if (!dirtyProducts.isEmpty()) {
+            productMapper.updateById(dirtyProducts);
+        }
+        if (userMapper.updateById(user) == 0) {
+            throw new ServiceBusyException("系统繁忙，下单失败，请重试！(并发冲突)");
+        }
+
+        // 4. 创建订单, 订单项批量写入 (rewriteBatchedStatements 下合并为一条多值 INSERT)
+        LocalDateTime now = LocalDateTime.now();
+        Orders newOrder = buildOrder(generateOrderNo(), user.getId(), totalCost,
+                checkoutRequest.getAddress(), checkoutRequest.getConsignee(), checkoutRequest.getPhone(), now);
+        orderMapper.insert(newOrder);
+        balanceLedgerService.recordPurchases(List.of(newOrder));
+        newItems.forEach(item -> item.setOrderId(newOrder.getId()));
+        orderItemMapper.insert(newItems);
+
+        auditEventPublisher.orderPaid(newOrder.getOrderNo(), user.getId(), user.getUsername(), totalCost, user.getBalance(),
+                "购物车结算, 共 " + newItems.size() + " 种商品");
+
+        return OrderResponse.builder()
+                .orderId(newOrder.getId())
+                .orderNo(newOrder.getOrderNo())
+                .status(newOrder.getStatus())
+                .totalAmount(newOrder.getTotalAmount())
+                .newBalance(user.getBalance())
+                .payTime(newOrder.getPayTime())
+                .build();
+    }
+
+    /**
+     * 扣减已锁定商品的库存: 分片商品扣减分片, 否则扣减 product.stock, 由调用方写回商品行
+     * <p>是否分片以加锁读取的商品行为准, 缓存中的商品可能已过期, 或在读取缓存后开启了分片</p>
+     * @return true 扣减的是 product.stock, 需要写回商品行
+     */
+    private boolean deductLockedStock(Product product, int quantity) {
+        if (stockShardService.isSharded(product)) {
+            validateOnSale(product);
+            // 标记为分片但没有分片行时, 库存仍在 product.stock 中
+            if (stockShardService.deduct(product.getId(), quantity)) {
+                return false;
+            }
+        }
+        validateProduct(product, quantity);
+        product.setStock(product.getStock() - quantity);
+        return true;
+    }
+
+    /**
+     * 在事务中执行下单, 因死锁或锁等待超时回滚时重新执行整个事务
+     * <p>分片库存扣减时, 带条件 UPDATE 未命中的分片仍持有行锁, 随后锁定全部分片的两个订单可能互相等待,
+     * InnoDB 检测到死锁后回滚其中一个事务</p>
+     * @throws ServiceBusyException 重试次数耗尽
+     */
+    private <T> T executeWithLockRetry(TransactionCallback<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(action);
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= MAX_LOCK_ATTEMPTS) {
+                    log.warn("下单事务执行 {} 次后仍然锁冲突: {}", attempt, e.getMessage());
+                    throw new ServiceBusyException("系统繁忙，下单失败，请重试！(并发冲突)");
+                }
+                LockSupport.parkNanos(1 + ThreadLocalRandom.current().nextLong(LOCK_RETRY_BACKOFF_NANOS));
+            }
         }
+    }
+
+    /**
+     * 校验购买条件：商品状态、库存、用户余额
+     */
+    static void validatePurchase(User user, Product product, Integer quantity) {
+        validateProduct(product, quantity);
+        validateBalance(user, product.getPrice().multiply(BigDecimal.valueOf(quantity)));
+    }
+
+    /**
+     * 校验商品状态和库存
+     */
+    static void validateProduct(Product product, Integer quantity) {
+        validateOnSale(product);
         if (product.getStock() < quantity) {
             throw new InsufficientStockException(String.format("商品 '%s' 库存不足. 当前库存: %d, 需求: %d",
                     product.getName(), product.getStock(), quantity));
         }
-        BigDecimal totalCost = product.getPrice().multiply(BigDecimal.valueOf(quantity));
+    }
+
+    /**
+     * 校验商品是否在售
+     */
+    static void validateOnSale(Product product) {
+        if (product.getStatus() != ProductStatus.ON_SALE) {
+            throw new ProductNotForSaleException("商品 '" + product.getName() + "' 当前未出售");
+        }
+    }
+
+    /**
+     * 校验用户余额是否足够支付
+     */
+    static void validateBalance(User user, BigDecimal totalCost) {
         if (user.getBalance().compareTo(totalCost) < 0) {
             throw new InsufficientBalanceException(String.format("账户余额不足. 当前余额: %s, 需要: %s",
                     user.getBalance(), totalCost));
@@ -113,16 +548,24 @@ public class OrderServiceImpl implements OrderService {
     /**
      * 构造订单对象
      */
-    private Orders buildOrder(Long userId, BigDecimal totalAmount, OrderCreateRequest request, LocalDateTime payTime) {
+    static Orders buildOrder(String orderNo, Long userId, BigDecimal totalAmount, OrderCreateRequest request, LocalDateTime payTime) {
+        return buildOrder(orderNo, userId, totalAmount, request.getAddress(), request.getConsignee(), request.getPhone(), payTime);
+    }
+
+    /**
+     * 构造订单对象
+     */
+    static Orders buildOrder(String orderNo, Long userId, BigDecimal totalAmount,
+                             String address, String consignee, String phone, LocalDateTime payTime) {
         Orders order = new Orders();
-        order.setOrderNo(generateOrderNo());
+        order.setOrderNo(orderNo);
         order.setUserId(userId);
         order.setTotalAmount(totalAmount);
         order.setPayAmount(totalAmount); // 在此简单模型中，支付金额等于总金额
         order.setStatus(OrderStatus.PAID); // 因为是立即扣款，所以直接设置为已支付
-        order.setAddress(request.getAddress());
-        order.setConsignee(request.getConsignee());
-        order.setPhone(request.getPhone());
+        order.setAddress(address);
+        order.setConsignee(consignee);
+        order.setPhone(phone);
         order.setPayTime(payTime);
         return order;
     }
@@ -130,7 +573,7 @@ public class OrderServiceImpl implements OrderService {
     /**
      * 构造订单项对象
      */
-    private OrderItem buildOrderItem(Long orderId, Product product, Integer quantity, BigDecimal subtotal) {
+    static OrderItem buildOrderItem(Long orderId, Product product, Integer quantity, BigDecimal subtotal) {
         OrderItem item = new OrderItem();
         item.setOrderId(orderId);
         item.setProductId(product.getId());
@@ -151,14 +594,27 @@ public class OrderServiceImpl implements OrderService {
         return timestamp + snowflakeSuffix;
     }
 
+    /**
+     * 账本模式下锁定用户账本, 将未合并的充值流水计入余额, 之后读取的余额是准确的
+     * <p>必须在锁定用户行之前调用</p>
+     */
+    private void settleLedger(Long userId) {
+        if (balanceLedgerService.isEnabled()) {
+            balanceLedgerService.lockForTransaction(List.of(userId));
+            balanceLedgerService.settle(userId);
+        }
+    }
+
     /**
      * 获取当前登录的用户并锁定记录
      */
     private User getCurrentUserForUpdate() {
-        String username = permissionService.getCurrentUser().getUsername();
+        User principal = permissionService.getCurrentUser();
+        String username = principal.getUsername();
         if (username == null) {
             throw new UserNotFoundException("无法获取当前用户信息,请检查Token是否有效");
         }
+        settleLedger(principal.getId());
         return userMapper.selectByUsernameForUpdate(username)
                 .orElseThrow(() -> new UserNotFoundException("用户 '" + username + "' 不存在"));
     }
@@ -0,0 +1,25 @@
+package online.store.service.order.impl;
+
+import online.store.dto.order.OrderCreateRequest;
+
+import java.time.LocalDateTime;
+
+/**
+ * 已受理、等待落库的订单
+ *
+ * @param orderId     预先分配的订单ID
+ * @param orderNo     订单号
+ * @param userId      下单用户ID
+ * @param username    下单用户名
+ * @param request     原始下单请求
+ * @param reserved    是否已在 Redis 中预扣库存 (由流水线持有, 结束时以 held = true 确认或释放)
+ * @param submitTime  受理时间
+ */
+record PendingOrder(Long orderId,
+                    String orderNo,
+                    Long userId,
+                    String username,
+                    OrderCreateRequest request,
+                    boolean reserved,
+                    LocalDateTime submitTime) {
+}
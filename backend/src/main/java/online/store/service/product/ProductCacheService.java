@@ -0,0 +1,25 @@
+package online.store.service.product;
+
+import online.store.pojo.Product;
+
+/**
+ * 商品缓存服务接口
+ * <p>两级缓存: 本地 LRU 缓存 + Redis 缓存, 数据库为最终依据</p>
+ * <p>商品被修改、删除或库存变化后需调用 {@link #evict}, 其他实例通过 Redis 发布/订阅同步失效本地缓存</p>
+ */
+public interface ProductCacheService {
+
+    /**
+     * 查询商品, 依次查找本地缓存、Redis 缓存和数据库
+     * <p>同一商品的并发未命中只有一个线程加载, 不存在的商品ID也会被短暂缓存</p>
+     * @param productId 商品ID
+     * @return 商品对象副本, 调用方可以修改, 商品不存在时返回 null
+     */
+    Product get(Long productId);
+
+    /**
+     * 使商品缓存失效
+     * @param productId 商品ID
+     */
+    void evict(Long productId);
+}
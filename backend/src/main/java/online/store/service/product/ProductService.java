@@ -4,7 +4,10 @@ import com.baomidou.mybatisplus.core.metadata.IPage;
 import com.baomidou.mybatisplus.extension.service.IService;
 import online.store.dto.product.ProductCreate;
 import online.store.dto.product.ProductUpdate;
+import online.store.enums.ProductSearchMode;
+import online.store.enums.ProductSort;
 import online.store.pojo.Product;
+import online.store.vo.product.ProductCursorPage;
 import online.store.vo.product.ProductDetail;
 import online.store.vo.product.ProductPublic;
 
@@ -18,5 +21,7 @@ public interface ProductService extends IService<Product> {
 
     Object getProductById(Long productId);
 
-    IPage<ProductPublic> listProductsPublic(int pageNum, int pageSize, String keyword);
+    IPage<ProductPublic> listProductsPublic(int pageNum, int pageSize, String keyword, ProductSearchMode searchMode);
+
+    ProductCursorPage listProductsByCursor(ProductSort sort, int size, String cursor, boolean withTotal);
 }
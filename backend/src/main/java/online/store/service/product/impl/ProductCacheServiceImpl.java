@@ -0,0 +1,276 @@
+package online.store.service.product.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import online.store.common.utils.CacheStats;
+import online.store.common.utils.CacheStatsRegistry;
+import online.store.config.ProductCacheConfig;
+import online.store.mapper.ProductMapper;
+import online.store.pojo.Product;
+import online.store.service.product.ProductCacheService;
+import org.springframework.beans.BeanUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商品两级缓存实现
+ * <p>本地缓存为按访问顺序淘汰的 LRU, Redis 中以 JSON 保存商品, 不存在的商品以空字符串占位</p>
+ * <p>缓存中的商品对象不直接返回, 每次 {@link #get} 返回独立副本, 调用方修改不会污染缓存</p>
+ */
+@Slf4j
+@Service
+public class ProductCacheServiceImpl implements ProductCacheService, MessageListener {
+
+    private static final String CACHE_KEY_PREFIX = "product:cache:";
+
+    /**
+     * 商品缓存失效通知频道, 消息内容为商品ID
+     */
+    private static final String INVALIDATION_CHANNEL = "product:cache-events";
+
+    /**
+     * Redis 中不存在商品的占位值
+     */
+    private static final String NULL_VALUE = "";
+
+    private final ProductMapper productMapper;
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private final ObjectMapper objectMapper;
+
+    private final ProductCacheConfig productCacheConfig;
+
+    private final CacheStats localStats;
+
+    private final CacheStats redisStats;
+
+    /**
+     * 本地 LRU 缓存, value 为 null 的条目表示商品不存在
+     */
+    private final Map<Long, LocalEntry> localCache;
+
+    /**
+     * 正在加载的商品, 同一商品的并发未命中共享同一次加载
+     * <p>加载期间该商品被失效时标记为过期, 加载结果不再写入本地缓存和 Redis, 避免旧数据覆盖失效</p>
+     */
+    private final Map<Long, Load> loading = new ConcurrentHashMap<>();
+
+    /**
+     * Redis 熔断截止时间 (毫秒时间戳)
+     */
+    private volatile long circuitOpenUntil = 0L;
+
+    public ProductCacheServiceImpl(ProductMapper productMapper,
+                                   StringRedisTemplate stringRedisTemplate,
+                                   RedisMessageListenerContainer redisMessageListenerContainer,
+                                   ObjectMapper objectMapper,
+                                   ProductCacheConfig productCacheConfig,
+                                   CacheStatsRegistry cacheStatsRegistry) {
+        this.productMapper = productMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.redisMessageListenerContainer = redisMessageListenerContainer;
+        this.objectMapper = objectMapper;
+        this.productCacheConfig = productCacheConfig;
+        this.localStats = cacheStatsRegistry.register("product-local");
+        this.redisStats = cacheStatsRegistry.register("product-redis");
+        int maxSize = productCacheConfig.getLocalMaxSize();
+        this.localCache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, LocalEntry> eldest) {
+                return size() > maxSize;
+            }
+        });
+    }
+
+    /**
+     * 订阅其他实例的商品缓存失效通知
+     */
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(INVALIDATION_CHANNEL));
+    }
+
+    @Override
+    public Product get(Long productId) {
+        if (!productCacheConfig.isEnabled()) {
+            return productMapper.selectById(productId);
+        }
+        LocalEntry entry = localCache.get(productId);
+        if (entry != null && entry.expireAt() > System.currentTimeMillis()) {
+            localStats.recordHit();
+            return copyOf(entry.product());
+        }
+        localStats.recordMiss();
+
+        Load current = new Load();
+        Load existing = loading.putIfAbsent(productId, current);
+        if (existing != null) {
+            return copyOf(join(existing.future));
+        }
+        try {
+            Product product = load(productId, current);
+            if (!current.stale) {
+                long ttl = (product == null ? productCacheConfig.getNullTtl() : productCacheConfig.getLocalTtl()).toMillis();
+                localCache.put(productId, new LocalEntry(product, System.currentTimeMillis() + ttl));
+            }
+            current.future.complete(product);
+            return copyOf(product);
+        } catch (RuntimeException e) {
+            current.future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(productId, current);
+        }
+    }
+
+    @Override
+    public void evict(Long productId) {
+        if (!productCacheConfig.isEnabled()) {
+            return;
+        }
+        invalidateLocal(productId);
+        try {
+            stringRedisTemplate.delete(CACHE_KEY_PREFIX + productId);
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, String.valueOf(productId));
+        } catch (DataAccessException e) {
+            tripCircuit();
+            log.warn("商品 {} 的 Redis 缓存失效失败, 等待缓存过期: {}", productId, e.getMessage());
+        }
+    }
+
+    /**
+     * 接收其他实例的商品缓存失效通知
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            invalidateLocal(Long.valueOf(new String(message.getBody(), StandardCharsets.UTF_8)));
+        } catch (NumberFormatException e) {
+            log.warn("忽略格式错误的商品缓存失效通知");
+        }
+    }
+
+    private void invalidateLocal(Long productId) {
+        Load inFlight = loading.get(productId);
+        if (inFlight != null) {
+            inFlight.stale = true;
+        }
+        localCache.remove(productId);
+    }
+
+    /**
+     * 从 Redis 或数据库加载商品, 数据库结果回填 Redis
+     * <p>回填使用 SET NX, 不覆盖其他加载已写入的值; 回填前后检查本次加载是否已被失效,
+     * 失效发生在回填之后时删除刚写入的值. 本实例的失效先标记过期再删除 Redis 键, 因此回填不会留下旧数据</p>
+     */
+    private Product load(Long productId, Load current) {
+        String key = CACHE_KEY_PREFIX + productId;
+        boolean redisAvailable = System.currentTimeMillis() >= circuitOpenUntil;
+        if (redisAvailable) {
+            try {
+                String cached = stringRedisTemplate.opsForValue().get(key);
+                if (cached != null) {
+                    redisStats.recordHit();
+                    return NULL_VALUE.equals(cached) ? null : objectMapper.readValue(cached, Product.class);
+                }
+            } catch (DataAccessException e) {
+                tripCircuit();
+                redisAvailable = false;
+                log.debug("读取商品 {} 的 Redis 缓存失败, 改为查询数据库: {}", productId, e.getMessage());
+            } catch (JsonProcessingException e) {
+                log.warn("商品 {} 的 Redis 缓存格式错误, 改为查询数据库: {}", productId, e.getMessage());
+            }
+        }
+        redisStats.recordMiss();
+
+        long start = System.nanoTime();
+        Product product = productMapper.selectById(productId);
+        redisStats.recordLoadTime(System.nanoTime() - start);
+
+        if (!redisAvailable || current.stale) {
+            return product;
+        }
+        try {
+            if (product == null) {
+                stringRedisTemplate.opsForValue().setIfAbsent(key, NULL_VALUE,
+                        productCacheConfig.getNullTtl().toMillis(), TimeUnit.MILLISECONDS);
+            } else {
+                long ttl = productCacheConfig.getRedisTtl().toMillis();
+                ttl += ThreadLocalRandom.current().nextLong(ttl / 10 + 1);
+                stringRedisTemplate.opsForValue().setIfAbsent(key, objectMapper.writeValueAsString(product), ttl, TimeUnit.MILLISECONDS);
+            }
+            if (current.stale) {
+                stringRedisTemplate.delete(key);
+            }
+        } catch (DataAccessException | JsonProcessingException e) {
+            log.debug("写入商品 {} 的 Redis 缓存失败: {}", productId, e.getMessage());
+        }
+        return product;
+    }
+
+    /**
+     * Redis 故障时熔断, 熔断期间只使用本地缓存和数据库
+     */
+    private void tripCircuit() {
+        circuitOpenUntil = System.currentTimeMillis() + productCacheConfig.getCircuitBreakDuration().toMillis();
+    }
+
+    /**
+     * 复制商品对象, 缓存中的实例只在本类内部持有
+     */
+    private static Product copyOf(Product product) {
+        if (product == null) {
+            return null;
+        }
+        Product copy = new Product();
+        BeanUtils.copyProperties(product, copy);
+        return copy;
+    }
+
+    private static Product join(CompletableFuture<Product> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record LocalEntry(Product product, long expireAt) {
+    }
+
+    /**
+     * 一次进行中的加载
+     */
+    private static final class Load {
+
+        private final CompletableFuture<Product> future = new CompletableFuture<>();
+
+        /**
+         * 加载期间商品是否被失效
+         */
+        private volatile boolean stale;
+    }
+}
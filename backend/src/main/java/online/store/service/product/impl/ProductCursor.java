@@ -0,0 +1,52 @@
+package online.store.service.product.impl;
+
+import online.store.enums.ProductSort;
+import online.store.pojo.Product;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/**
+ * 商品游标分页位置: 上一页最后一条记录的排序值与ID, 以及已返回的商品数量
+ * <p>序列化格式: 排序方式|排序值|商品ID|已返回数量</p>
+ *
+ * @param sort  排序方式
+ * @param value 排序值 (created_time 为 LocalDateTime, price 为 BigDecimal)
+ * @param id    商品ID
+ * @param seen  已返回的商品数量
+ */
+record ProductCursor(ProductSort sort, Object value, long id, int seen) {
+
+    private static final String SEPARATOR = "|";
+
+    static ProductCursor of(ProductSort sort, Product product, int seen) {
+        Object value = "price".equals(sort.getColumn()) ? product.getPrice() : product.getCreatedTime();
+        return new ProductCursor(sort, value, product.getId(), seen);
+    }
+
+    String format() {
+        String text = value instanceof BigDecimal price ? price.toPlainString() : value.toString();
+        return String.join(SEPARATOR, sort.name(), text, String.valueOf(id), String.valueOf(seen));
+    }
+
+    /**
+     * 解析游标内容
+     * @param text 游标内容
+     * @param expected 当前请求的排序方式, 游标必须由相同排序方式生成
+     * @return 游标位置
+     * @throws IllegalArgumentException 游标格式错误或排序方式不一致
+     */
+    static ProductCursor parse(String text, ProductSort expected) {
+        String[] parts = text.split("\\|");
+        if (parts.length != 4 || !expected.name().equals(parts[0])) {
+            throw new IllegalArgumentException("分页游标与排序方式不匹配");
+        }
+        try {
+            Object value = "price".equals(expected.getColumn()) ? new BigDecimal(parts[1]) : LocalDateTime.parse(parts[1]);
+            return new ProductCursor(expected, value, Long.parseLong(parts[2]), Integer.parseInt(parts[3]));
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("无效的分页游标", e);
+        }
+    }
+}
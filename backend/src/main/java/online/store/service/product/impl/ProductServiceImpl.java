@@ -6,21 +6,39 @@ import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
 import jakarta.annotation.Resource;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import online.store.common.bulkhead.ConnectionBudget;
+import online.store.common.bulkhead.ConnectionBudgets;
+import online.store.config.ProductSearchConfig;
 import online.store.dto.product.ProductCreate;
 import online.store.dto.product.ProductUpdate;
+import online.store.common.utils.CursorCodec;
+import online.store.enums.ProductSearchMode;
+import online.store.enums.ProductSort;
 import online.store.enums.ProductStatus;
 import online.store.mapper.ProductMapper;
 import online.store.pojo.Product;
 import online.store.pojo.User;
 import online.store.service.auth.PermissionService;
+import online.store.service.product.ProductCacheService;
 import online.store.service.product.ProductService;
+import online.store.service.stock.StockReservationService;
+import online.store.service.stock.StockShardService;
+import online.store.vo.product.ProductCursorPage;
 import online.store.vo.product.ProductDetail;
 import online.store.vo.product.ProductPublic;
 import org.springframework.beans.BeanUtils;
+import org.springframework.dao.DataAccessException;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> implements ProductService {
@@ -28,6 +46,36 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
     @Resource
     private PermissionService permissionService;
 
+    @Resource
+    private StockReservationService stockReservationService;
+
+    @Resource
+    private ProductCacheService productCacheService;
+
+    @Resource
+    private ProductSearchConfig productSearchConfig;
+
+    @Resource
+    private CursorCodec cursorCodec;
+
+    @Resource
+    private StockShardService stockShardService;
+
+    /**
+     * 未登录用户最多可查看的商品数量
+     */
+    private static final int ANONYMOUS_LIMIT = 100;
+
+    /**
+     * MySQL 错误码: 找不到与列匹配的 FULLTEXT 索引
+     */
+    private static final int ER_FT_MATCHING_KEY_NOT_FOUND = 1191;
+
+    /**
+     * MySQL 错误码: 表的存储引擎不支持 FULLTEXT 索引
+     */
+    private static final int ER_TABLE_CANT_HANDLE_FT = 1214;
+
     /**
      * 创建商品
      * @param productCreate 商品创建请求数据对象
@@ -69,6 +117,15 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
 
         BeanUtils.copyProperties(productUpdate, product);
         this.updateById(product);
+        // 分片库存商品以新库存为准重新均分到各分片
+        if (productUpdate.getStock() != null && stockShardService.isSharded(product)) {
+            stockShardService.redistribute(productId);
+        }
+        productCacheService.evict(productId);
+        // 库存或状态变更后, 以数据库为准刷新 Redis 预扣库存
+        if (productUpdate.getStock() != null || productUpdate.getStatus() != null) {
+            stockReservationService.refresh(productId);
+        }
 
         ProductDetail vo = new ProductDetail();
         BeanUtils.copyProperties(this.getById(productId), vo); // 重新查询以获取最新数据
@@ -85,6 +142,8 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
         if (!this.removeById(productId)) {
             throw new IllegalArgumentException("商品不存在或删除失败");
         }
+        productCacheService.evict(productId);
+        stockReservationService.evict(productId);
     }
 
     /**
@@ -94,7 +153,7 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
      */
     @Override
     public Object getProductById(Long productId) {
-        Product product = this.getById(productId);
+        Product product = productCacheService.get(productId);
         if (product == null) {
             return null;
         }
@@ -114,13 +173,29 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
 
     /**
      * 在售商品查询结果分页
+     * <p>有关键字时优先使用全文索引检索并按相关度排序, 关键字过短或全文索引不可用时退回 LIKE 查询</p>
      * @param pageNum 当前页数
      * @param pageSize 分页大小
      * @param keyword 关键字
+     * @param searchMode 搜索模式, 为 null 时使用配置的默认模式
      * @return 分页结果
      */
     @Override
-    public IPage<ProductPublic> listProductsPublic(int pageNum, int pageSize, String keyword) {
+    @ConnectionBudget(ConnectionBudgets.READ)
+    public IPage<ProductPublic> listProductsPublic(int pageNum, int pageSize, String keyword, ProductSearchMode searchMode) {
+        boolean anonymous = permissionService.getCurrentUser() == null;
+
+        if (StringUtils.hasText(keyword)) {
+            String trimmed = keyword.trim();
+            ProductSearchMode mode = searchMode != null ? searchMode : productSearchConfig.getMode();
+            if (mode != ProductSearchMode.LIKE && trimmed.codePointCount(0, trimmed.length()) >= productSearchConfig.getMinKeywordLength()) {
+                IPage<ProductPublic> result = searchFullText(pageNum, pageSize, trimmed, mode == ProductSearchMode.BOOLEAN, anonymous);
+                if (result != null) {
+                    return result;
+                }
+            }
+        }
+
         Page<Product> page = new Page<>(pageNum, pageSize);
         QueryWrapper<Product> queryWrapper = new QueryWrapper<>();
 
@@ -131,24 +206,137 @@ public class ProductServiceImpl extends ServiceImpl<ProductMapper, Product> impl
             queryWrapper.and(wrapper -> wrapper.like("name", keyword).or().like("description", keyword));
         }
 
-        // 未登录用户只能看到前100个商品
-        if (permissionService.getCurrentUser() == null) {
-            // 限制查询范围, example: 限制总数
-            queryWrapper.last("LIMIT 100");
-            // 注意: MyBatis-Plus的分页会先count, 再limit。直接用last("LIMIT 100") 可能导致count不准, 在Controller层限制pageSize
-            // TODO: 自定义一个分页查询
-            if(pageNum * pageSize > 100) {
-                return new Page<ProductPublic>(pageNum, pageSize).setRecords(java.util.Collections.emptyList()).setTotal(100);
-            }
+        // 未登录用户只能看到前100个商品: 超出范围的页直接返回空, 总数按上限截断
+        if (anonymous && (long) pageNum * pageSize > ANONYMOUS_LIMIT) {
+            return new Page<ProductPublic>(pageNum, pageSize).setRecords(Collections.emptyList()).setTotal(ANONYMOUS_LIMIT);
         }
 
         Page<Product> productPage = this.page(page, queryWrapper);
+        if (anonymous) {
+            productPage.setTotal(Math.min(productPage.getTotal(), ANONYMOUS_LIMIT));
+        }
 
         // 转换成VO
-        return productPage.convert(product -> {
-            ProductPublic vo = new ProductPublic();
-            BeanUtils.copyProperties(product, vo);
-            return vo;
-        });
+        return productPage.convert(ProductServiceImpl::toPublic);
+    }
+
+    /**
+     * 在售商品游标分页
+     * <p>按 (排序列, id) 定位上一页最后一条记录之后的数据, 查询耗时与翻页深度无关, 默认不统计总数</p>
+     * @param sort 排序方式
+     * @param size 每页数量
+     * @param cursor 上一页返回的游标, 首页为 null
+     * @param withTotal 是否统计在售商品总数
+     * @return 游标分页结果
+     */
+    @Override
+    @ConnectionBudget(ConnectionBudgets.READ)
+    public ProductCursorPage listProductsByCursor(ProductSort sort, int size, String cursor, boolean withTotal) {
+        boolean anonymous = permissionService.getCurrentUser() == null;
+
+        QueryWrapper<Product> queryWrapper = new QueryWrapper<Product>().eq("status", ProductStatus.ON_SALE);
+        int seen = 0;
+        if (StringUtils.hasText(cursor)) {
+            ProductCursor position = ProductCursor.parse(cursorCodec.decode(cursor), sort);
+            seen = position.seen();
+            String column = sort.getColumn();
+            // 展开为 OR 条件, 便于 MySQL 在 (status, 排序列) 索引上做范围扫描
+            if (sort.isAscending()) {
+                queryWrapper.and(w -> w.gt(column, position.value())
+                        .or(o -> o.eq(column, position.value()).gt("id", position.id())));
+            } else {
+                queryWrapper.and(w -> w.lt(column, position.value())
+                        .or(o -> o.eq(column, position.value()).lt("id", position.id())));
+            }
+        }
+
+        // 未登录用户只能看到前100个商品, 已浏览数量记录在游标中
+        int limit = anonymous ? Math.min(size, ANONYMOUS_LIMIT - seen) : size;
+        List<Product> products = Collections.emptyList();
+        if (limit > 0) {
+            queryWrapper.orderBy(true, sort.isAscending(), sort.getColumn())
+                    .orderBy(true, sort.isAscending(), "id")
+                    .last("LIMIT " + (limit + 1));
+            products = this.baseMapper.selectList(queryWrapper);
+        }
+
+        boolean hasMore = products.size() > limit;
+        if (hasMore) {
+            products = products.subList(0, limit);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            Product last = products.getLast();
+            nextCursor = cursorCodec.encode(ProductCursor.of(sort, last, seen + products.size()).format());
+        }
+
+        Long total = null;
+        if (withTotal) {
+            long count = this.count(new QueryWrapper<Product>().eq("status", ProductStatus.ON_SALE));
+            total = anonymous ? Math.min(count, ANONYMOUS_LIMIT) : count;
+        }
+        return new ProductCursorPage(products.stream().map(ProductServiceImpl::toPublic).toList(), nextCursor, hasMore, total);
+    }
+
+    /**
+     * 全文检索在售商品, 按相关度降序分页
+     * @return 分页结果, 全文索引不可用或关键字无法构成检索条件时返回 null, 由调用方退回 LIKE 查询
+     */
+    private IPage<ProductPublic> searchFullText(int pageNum, int pageSize, String keyword, boolean booleanMode, boolean anonymous) {
+        if (anonymous && (long) pageNum * pageSize > ANONYMOUS_LIMIT) {
+            return new Page<ProductPublic>(pageNum, pageSize).setRecords(Collections.emptyList()).setTotal(ANONYMOUS_LIMIT);
+        }
+        String expression = booleanMode ? toBooleanExpression(keyword) : keyword;
+        if (expression == null) {
+            return null;
+        }
+        int status = ProductStatus.ON_SALE.getCode();
+        long offset = (long) (Math.max(pageNum, 1) - 1) * pageSize;
+        try {
+            long total = this.baseMapper.countFullText(expression, booleanMode, status);
+            List<Product> products = total > offset
+                    ? this.baseMapper.searchFullText(expression, booleanMode, status, offset, pageSize)
+                    : Collections.emptyList();
+            Page<ProductPublic> page = new Page<>(pageNum, pageSize, anonymous ? Math.min(total, ANONYMOUS_LIMIT) : total);
+            return page.setRecords(products.stream().map(ProductServiceImpl::toPublic).toList());
+        } catch (DataAccessException e) {
+            // 全文索引不存在 (如未执行迁移脚本) 时退回 LIKE 查询; MySQL 1191 不会被翻译为 BadSqlGrammarException, 需按错误码判断
+            if (!isFullTextUnavailable(e)) {
+                throw e;
+            }
+            log.warn("商品全文检索不可用, 退回 LIKE 查询: {}", e.getMostSpecificCause().getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 异常是否由全文索引不可用引起: 缺少匹配的 FULLTEXT 索引 (1191) 或存储引擎不支持全文索引 (1214)
+     */
+    private static boolean isFullTextUnavailable(DataAccessException e) {
+        return e.getMostSpecificCause() instanceof SQLException sqlException
+                && (sqlException.getErrorCode() == ER_FT_MATCHING_KEY_NOT_FOUND
+                || sqlException.getErrorCode() == ER_TABLE_CANT_HANDLE_FT);
+    }
+
+    /**
+     * 将关键字转换为布尔模式表达式: 按空白切分, 每个词作为必须出现的短语
+     * @return 布尔表达式, 没有可用的词时返回 null
+     */
+    private String toBooleanExpression(String keyword) {
+        List<String> terms = new ArrayList<>();
+        for (String term : keyword.split("\\s+")) {
+            // 去除布尔模式运算符, 避免用户输入改变检索语义
+            String cleaned = term.replaceAll("[+\\-<>()~*\"@]", "");
+            if (cleaned.codePointCount(0, cleaned.length()) >= productSearchConfig.getMinKeywordLength()) {
+                terms.add("+\"" + cleaned + "\"");
+            }
+        }
+        return terms.isEmpty() ? null : String.join(" ", terms);
+    }
+
+    private static ProductPublic toPublic(Product product) {
+        ProductPublic vo = new ProductPublic();
+        BeanUtils.copyProperties(product, vo);
+        return vo;
     }
 }
@@ -0,0 +1,85 @@
+package online.store.service.stock;
+
+/**
+ * 库存预扣服务接口
+ * <p>在 Redis 中为每个商品维护可售库存计数, 下单前原子预扣, 售罄请求无需访问数据库即可拒绝</p>
+ * <p>数据库 product.stock 仍是库存的最终依据, Redis 计数由对账任务异步校正</p>
+ */
+public interface StockReservationService {
+
+    /**
+     * 预扣商品库存
+     * @param productId 商品ID
+     * @param quantity 预扣数量
+     * @return true 已在 Redis 中预扣, 订单结束后需调用 {@link #confirm} 或 {@link #release};
+     *         false 预扣层不可用 (未启用或 Redis 故障), 由数据库行锁保证库存正确
+     * @throws online.store.common.exception.InsufficientStockException 商品库存不足
+     * @throws online.store.common.exception.ProductNotFoundException 商品不存在
+     */
+    boolean reserve(Long productId, int quantity);
+
+    /**
+     * 预扣商品库存, 预扣由异步下单流水线持有
+     * <p>流水线中的订单可能在重试或订单日志中等待较长时间, 对账不会将这部分预扣视为残留数据清零;
+     * 订单结束后需以 held = true 调用 {@link #confirm(Long, int, boolean)} 或 {@link #release(Long, int, boolean)}</p>
+     * @param productId 商品ID
+     * @param quantity 预扣数量
+     * @param held 是否由异步下单流水线持有
+     * @return 同 {@link #reserve(Long, int)}
+     */
+    boolean reserve(Long productId, int quantity, boolean held);
+
+    /**
+     * 确认预扣, 订单事务提交后调用
+     * @param productId 商品ID
+     * @param quantity 预扣数量
+     */
+    void confirm(Long productId, int quantity);
+
+    /**
+     * 确认预扣, 订单事务提交后调用
+     * @param productId 商品ID
+     * @param quantity 预扣数量
+     * @param held 预扣时是否由异步下单流水线持有
+     */
+    void confirm(Long productId, int quantity, boolean held);
+
+    /**
+     * 释放预扣, 订单事务回滚后调用, 补偿 Redis 库存
+     * @param productId 商品ID
+     * @param quantity 预扣数量
+     */
+    void release(Long productId, int quantity);
+
+    /**
+     * 释放预扣, 订单事务回滚后调用, 补偿 Redis 库存
+     * @param productId 商品ID
+     * @param quantity 预扣数量
+     * @param held 预扣时是否由异步下单流水线持有
+     */
+    void release(Long productId, int quantity, boolean held);
+
+    /**
+     * 以数据库库存为准刷新商品的 Redis 库存, 商品库存或状态被修改后调用
+     * @param productId 商品ID
+     */
+    void refresh(Long productId);
+
+    /**
+     * 移除商品的 Redis 库存, 商品删除后调用
+     * @param productId 商品ID
+     */
+    void evict(Long productId);
+
+    /**
+     * 从 product 表预热在售商品库存, 已存在的计数不会被覆盖
+     */
+    void warmUp();
+
+    /**
+     * 对账: 比较 Redis 库存与数据库库存, 在无预扣进行时校正偏差;
+     * 预扣数量在整个对账周期内无变化时视为残留数据清零, 异步下单流水线持有的预扣除外
+     * @return 检测到偏差的商品数量
+     */
+    int reconcile();
+}
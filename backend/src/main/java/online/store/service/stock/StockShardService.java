@@ -0,0 +1,69 @@
+package online.store.service.stock;
+
+import online.store.pojo.Product;
+import online.store.pojo.ProductStockShard;
+
+import java.util.List;
+
+/**
+ * 热点商品库存分片服务接口
+ * <p>开启分片的商品 (product.stock_shards &gt; 0) 库存拆分保存在 product_stock_shard 表的多行中,
+ * 下单随机选择一个库存充足的分片扣减, 并发订单分散到不同的行锁上; product.stock 为各分片合计, 由 {@link #rebalance} 定期同步</p>
+ * <p>加锁顺序: 商品 → 分片 (按序号升序) → 用户账本锁 → 用户, 与其他下单路径一致</p>
+ */
+public interface StockShardService {
+
+    /**
+     * 商品是否开启了库存分片
+     * @param product 商品, 可以为 null
+     * @return 是否分片
+     */
+    boolean isSharded(Product product);
+
+    /**
+     * 在当前事务中扣减分片库存
+     * <p>随机选择一个库存充足的分片扣减, 失败时尝试其他分片; 没有单个分片足够时锁定全部分片合并扣减</p>
+     * @param productId 商品ID
+     * @param quantity 扣减数量
+     * @return true 已扣减; false 商品没有分片 (已关闭分片), 调用方应改为扣减 product.stock
+     * @throws online.store.common.exception.InsufficientStockException 各分片库存合计不足
+     * @throws org.springframework.dao.PessimisticLockingFailureException 与其他订单互相等待分片行锁, 事务已被回滚, 调用方应重新执行整个事务
+     */
+    boolean deduct(Long productId, int quantity);
+
+    /**
+     * 在当前事务中按分片序号升序锁定商品的全部分片
+     * @param productId 商品ID
+     * @return 分片列表, 商品未分片时为空
+     */
+    List<ProductStockShard> lockShards(Long productId);
+
+    /**
+     * 在当前事务中将商品库存重新均分到指定数量的分片, 调用方需已锁定商品和分片
+     * @param productId 商品ID
+     * @param shardCount 分片数
+     * @param totalStock 库存合计
+     */
+    void rewrite(Long productId, int shardCount, int totalStock);
+
+    /**
+     * 修改商品的库存分片数, 库存合计不变
+     * @param productId 商品ID
+     * @param shardCount 分片数, 0 表示关闭分片, 库存合并回 product.stock
+     * @throws online.store.common.exception.ProductNotFoundException 商品不存在
+     * @throws IllegalArgumentException 分片数超出范围
+     */
+    void reshard(Long productId, int shardCount);
+
+    /**
+     * 商品库存被直接修改后, 以 product.stock 为准重新均分到各分片
+     * @param productId 商品ID
+     */
+    void redistribute(Long productId);
+
+    /**
+     * 再平衡: 同步 product.stock 为各分片合计, 并在分片库存明显不均时重新均分
+     * @return 库存合计或分片发生变化的商品数量
+     */
+    int rebalance();
+}
@@ -0,0 +1,334 @@
+package online.store.service.stock.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import online.store.common.exception.InsufficientStockException;
+import online.store.common.exception.ProductNotFoundException;
+import online.store.config.StockReservationConfig;
+import online.store.enums.ProductStatus;
+import online.store.mapper.ProductMapper;
+import online.store.pojo.Product;
+import online.store.service.stock.StockReservationService;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 基于 Redis Lua 脚本的库存预扣实现
+ * <p>每个商品对应一个 Hash: available 可售库存, inflight 已预扣但订单尚未落库的数量,
+ * held 其中由异步下单流水线持有的数量, seq 预扣序号</p>
+ * <p>Redis 故障时短暂熔断, 期间下单退回数据库行锁路径, 不影响库存正确性</p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationServiceImpl implements StockReservationService {
+
+    private static final String STOCK_KEY_PREFIX = "stock:reservation:";
+
+    private static final String FIELD_AVAILABLE = "available";
+    private static final String FIELD_INFLIGHT = "inflight";
+    private static final String FIELD_SEQ = "seq";
+    private static final String FIELD_HELD = "held";
+
+    /**
+     * 预扣脚本返回值: 库存未加载
+     */
+    private static final long RESULT_NOT_LOADED = -1L;
+
+    /**
+     * 预扣脚本返回值: 库存不足
+     */
+    private static final long RESULT_INSUFFICIENT = -2L;
+
+    private static final RedisScript<Long> RESERVE_SCRIPT = RedisScript.of(new ClassPathResource("lua/stock/reserve.lua"), Long.class);
+    private static final RedisScript<Long> CONFIRM_SCRIPT = RedisScript.of(new ClassPathResource("lua/stock/confirm.lua"), Long.class);
+    private static final RedisScript<Long> RELEASE_SCRIPT = RedisScript.of(new ClassPathResource("lua/stock/release.lua"), Long.class);
+    private static final RedisScript<Long> REFRESH_SCRIPT = RedisScript.of(new ClassPathResource("lua/stock/refresh.lua"), Long.class);
+    private static final RedisScript<Long> RECONCILE_SCRIPT = RedisScript.of(new ClassPathResource("lua/stock/reconcile.lua"), Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    private final ProductMapper productMapper;
+
+    private final StockReservationConfig stockReservationConfig;
+
+    /**
+     * 上一轮对账时仍有未落库预扣的商品快照 (inflight:seq), 两轮不变则视为残留预扣
+     */
+    private final Map<Long, String> pendingSnapshots = new ConcurrentHashMap<>();
+
+    /**
+     * Redis 熔断截止时间 (毫秒时间戳)
+     */
+    private volatile long circuitOpenUntil = 0L;
+
+    @Override
+    public boolean reserve(Long productId, int quantity) {
+        return reserve(productId, quantity, false);
+    }
+
+    @Override
+    public boolean reserve(Long productId, int quantity, boolean held) {
+        if (!isAvailable()) {
+            return false;
+        }
+        Long remaining = executeScript(RESERVE_SCRIPT, productId, quantity, flag(held));
+        if (remaining != null && remaining == RESULT_NOT_LOADED) {
+            // 首次访问该商品, 按需从数据库加载库存后重试
+            Product product = productMapper.selectById(productId);
+            if (product == null) {
+                throw new ProductNotFoundException("商品ID: " + productId + " 不存在");
+            }
+            if (executeScript(REFRESH_SCRIPT, productId, product.getStock(), 1) == null) {
+                return false;
+            }
+            remaining = executeScript(RESERVE_SCRIPT, productId, quantity, flag(held));
+        }
+        if (remaining == null) {
+            return false;
+        }
+        if (remaining == RESULT_INSUFFICIENT) {
+            throw new InsufficientStockException(String.format("商品ID: %d 库存不足, 需求: %d", productId, quantity));
+        }
+        return remaining >= 0;
+    }
+
+    @Override
+    public void confirm(Long productId, int quantity) {
+        confirm(productId, quantity, false);
+    }
+
+    @Override
+    public void confirm(Long productId, int quantity, boolean held) {
+        if (executeScript(CONFIRM_SCRIPT, productId, quantity, flag(held)) == null) {
+            log.warn("确认库存预扣失败, 等待对账校正. ProductId: {}, Quantity: {}", productId, quantity);
+        }
+    }
+
+    @Override
+    public void release(Long productId, int quantity) {
+        release(productId, quantity, false);
+    }
+
+    @Override
+    public void release(Long productId, int quantity, boolean held) {
+        if (executeScript(RELEASE_SCRIPT, productId, quantity, flag(held)) == null) {
+            log.warn("释放库存预扣失败, 等待对账校正. ProductId: {}, Quantity: {}", productId, quantity);
+        }
+    }
+
+    @Override
+    public void refresh(Long productId) {
+        if (!stockReservationConfig.isEnabled()) {
+            return;
+        }
+        Product product = productMapper.selectById(productId);
+        if (product == null) {
+            evict(productId);
+            return;
+        }
+        executeScript(REFRESH_SCRIPT, productId, product.getStock(), 0);
+    }
+
+    @Override
+    public void evict(Long productId) {
+        if (!stockReservationConfig.isEnabled()) {
+            return;
+        }
+        try {
+            stringRedisTemplate.delete(stockKey(productId));
+            pendingSnapshots.remove(productId);
+        } catch (DataAccessException e) {
+            tripCircuit(e);
+        }
+    }
+
+    @Override
+    public void warmUp() {
+        if (!stockReservationConfig.isEnabled() || !stockReservationConfig.isWarmUp()) {
+            return;
+        }
+        int batchSize = stockReservationConfig.getWarmUpBatchSize();
+        long lastId = 0L;
+        int loaded = 0;
+        try {
+            while (true) {
+                // 按主键分批读取, 避免深分页
+                List<Product> products = productMapper.selectList(new QueryWrapper<Product>()
+                        .select("id", "stock")
+                        .eq("status", ProductStatus.ON_SALE)
+                        .gt("id", lastId)
+                        .orderByAsc("id")
+                        .last("LIMIT " + batchSize));
+                if (products.isEmpty()) {
+                    break;
+                }
+                // 仅初始化不存在的计数, 不覆盖其他实例正在使用的库存
+                stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (Product product : products) {
+                        initIfAbsent(connection, product);
+                    }
+                    return null;
+                });
+                loaded += products.size();
+                lastId = products.getLast().getId();
+                if (products.size() < batchSize) {
+                    break;
+                }
+            }
+            log.info("库存预热完成, 共加载 {} 个在售商品", loaded);
+        } catch (Exception e) {
+            log.warn("库存预热失败, 商品库存将在首次下单时按需加载: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public int reconcile() {
+        if (!isAvailable()) {
+            return 0;
+        }
+        int drifted = 0;
+        ScanOptions options = ScanOptions.scanOptions().match(STOCK_KEY_PREFIX + "*").count(1000).build();
+        try (Cursor<String> cursor = stringRedisTemplate.scan(options)) {
+            List<Long> batch = new ArrayList<>();
+            while (cursor.hasNext()) {
+                batch.add(Long.valueOf(cursor.next().substring(STOCK_KEY_PREFIX.length())));
+                if (batch.size() >= stockReservationConfig.getWarmUpBatchSize()) {
+                    drifted += reconcileBatch(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                drifted += reconcileBatch(batch);
+            }
+        } catch (DataAccessException e) {
+            tripCircuit(e);
+        }
+        return drifted;
+    }
+
+    /**
+     * 对一批商品进行对账
+     * <p>先读取 Redis 快照再读取数据库库存, 校正时要求快照之后没有新的预扣、确认或释放, 避免覆盖并发订单的扣减</p>
+     * <p>残留预扣清零时保留异步下单流水线持有的部分 (held), 这些订单仍在重试或订单日志中等待落库</p>
+     * @param productIds 商品ID列表
+     * @return 已校正的商品数量
+     */
+    private int reconcileBatch(List<Long> productIds) {
+        List<Object> states = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (Long productId : productIds) {
+                connection.hashCommands().hMGet(bytes(stockKey(productId)),
+                        bytes(FIELD_AVAILABLE), bytes(FIELD_INFLIGHT), bytes(FIELD_SEQ), bytes(FIELD_HELD));
+            }
+            return null;
+        });
+
+        Map<Long, Integer> dbStocks = productMapper.selectList(new QueryWrapper<Product>()
+                        .select("id", "stock")
+                        .in("id", productIds))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Product::getStock, (a, b) -> a));
+
+        int drifted = 0;
+        for (int i = 0; i < productIds.size(); i++) {
+            Long productId = productIds.get(i);
+            Integer dbStock = dbStocks.get(productId);
+            if (dbStock == null) {
+                // 商品已被删除
+                evict(productId);
+                continue;
+            }
+            List<?> state = (List<?>) states.get(i);
+            if (state == null || state.get(2) == null) {
+                continue;
+            }
+            String inflight = Objects.toString(state.get(1), "0");
+            String seq = state.get(2).toString();
+
+            boolean stale = false;
+            if (!"0".equals(inflight)) {
+                String snapshot = inflight + ":" + seq;
+                stale = snapshot.equals(pendingSnapshots.put(productId, snapshot));
+            } else {
+                pendingSnapshots.remove(productId);
+            }
+
+            Long result = executeScript(RECONCILE_SCRIPT, productId, seq, inflight, dbStock, flag(stale));
+            if (result != null && result == 1L) {
+                drifted++;
+                pendingSnapshots.remove(productId);
+                log.warn("库存对账: 商品 {} 的 Redis 库存 (available={}, inflight={}, held={}) 与数据库库存 {} 不一致, 已校正",
+                        productId, state.get(0), inflight, Objects.toString(state.get(3), "0"), dbStock);
+            }
+        }
+        return drifted;
+    }
+
+    /**
+     * 在管道中初始化商品库存计数, 已存在的字段不会被覆盖
+     */
+    private void initIfAbsent(RedisConnection connection, Product product) {
+        byte[] key = bytes(stockKey(product.getId()));
+        connection.hashCommands().hSetNX(key, bytes(FIELD_AVAILABLE), bytes(String.valueOf(product.getStock())));
+        connection.hashCommands().hSetNX(key, bytes(FIELD_INFLIGHT), bytes("0"));
+        connection.hashCommands().hSetNX(key, bytes(FIELD_SEQ), bytes("0"));
+    }
+
+    /**
+     * 执行库存脚本
+     * @return 脚本返回值, Redis 故障时返回 null
+     */
+    private Long executeScript(RedisScript<Long> script, Long productId, Object... args) {
+        String[] argv = new String[args.length];
+        for (int i = 0; i < args.length; i++) {
+            argv[i] = String.valueOf(args[i]);
+        }
+        try {
+            return stringRedisTemplate.execute(script, List.of(stockKey(productId)), (Object[]) argv);
+        } catch (DataAccessException e) {
+            tripCircuit(e);
+            return null;
+        }
+    }
+
+    private boolean isAvailable() {
+        return stockReservationConfig.isEnabled() && System.currentTimeMillis() >= circuitOpenUntil;
+    }
+
+    /**
+     * Redis 故障时熔断, 熔断期间下单直接走数据库
+     */
+    private void tripCircuit(DataAccessException e) {
+        circuitOpenUntil = System.currentTimeMillis() + stockReservationConfig.getCircuitBreakDuration().toMillis();
+        log.warn("Redis 库存预扣不可用, {} 内下单改由数据库保证库存: {}",
+                stockReservationConfig.getCircuitBreakDuration(), e.getMessage());
+    }
+
+    private static int flag(boolean value) {
+        return value ? 1 : 0;
+    }
+
+    private static String stockKey(Long productId) {
+        return STOCK_KEY_PREFIX + productId;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
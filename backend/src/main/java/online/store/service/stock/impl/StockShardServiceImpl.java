@@ -0,0 +1,184 @@
+package online.store.service.stock.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import online.store.common.exception.InsufficientStockException;
+import online.store.common.exception.ProductNotFoundException;
+import online.store.config.StockShardConfig;
+import online.store.mapper.ProductMapper;
+import online.store.mapper.ProductStockShardMapper;
+import online.store.pojo.Product;
+import online.store.pojo.ProductStockShard;
+import online.store.service.product.ProductCacheService;
+import online.store.service.stock.StockShardService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基于 product_stock_shard 表的库存分片实现
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockShardServiceImpl implements StockShardService {
+
+    private final ProductStockShardMapper productStockShardMapper;
+
+    private final ProductMapper productMapper;
+
+    private final ProductCacheService productCacheService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final StockShardConfig stockShardConfig;
+
+    @Override
+    public boolean isSharded(Product product) {
+        return product != null && product.getStockShards() != null && product.getStockShards() > 0;
+    }
+
+    @Override
+    public boolean deduct(Long productId, int quantity) {
+        // 快照读找出库存充足的分片, 只对这些分片加锁扣减, 避免锁住已售罄的分片
+        List<Integer> candidates = productStockShardMapper.selectAvailableShardNos(productId, quantity);
+        int size = candidates.size();
+        int start = size > 1 ? ThreadLocalRandom.current().nextInt(size) : 0;
+        for (int i = 0; i < size; i++) {
+            if (productStockShardMapper.deduct(productId, candidates.get((start + i) % size), quantity) == 1) {
+                return true;
+            }
+        }
+
+        // 没有单个分片足够 (或被并发订单抢先): 按序号升序锁定全部分片合并扣减;
+        // 上面未命中的分片仍持有行锁, 两个订单可能互相等待, InnoDB 回滚其中一个事务后由下单方重试
+        List<ProductStockShard> shards = productStockShardMapper.selectByProductForUpdate(productId);
+        if (shards.isEmpty()) {
+            return false;
+        }
+        int total = shards.stream().mapToInt(ProductStockShard::getStock).sum();
+        if (total < quantity) {
+            throw new InsufficientStockException(String.format("商品ID: %d 库存不足. 当前库存: %d, 需求: %d",
+                    productId, total, quantity));
+        }
+        int remaining = quantity;
+        for (ProductStockShard shard : shards) {
+            int take = Math.min(shard.getStock(), remaining);
+            if (take > 0) {
+                productStockShardMapper.deduct(productId, shard.getShardNo(), take);
+                remaining -= take;
+            }
+            if (remaining == 0) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public List<ProductStockShard> lockShards(Long productId) {
+        return productStockShardMapper.selectByProductForUpdate(productId);
+    }
+
+    @Override
+    public void rewrite(Long productId, int shardCount, int totalStock) {
+        productStockShardMapper.deleteByProduct(productId);
+        if (shardCount <= 0) {
+            return;
+        }
+        // 余数分给序号靠前的分片
+        List<ProductStockShard> shards = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new ProductStockShard(productId, i, totalStock / shardCount + (i < totalStock % shardCount ? 1 : 0)));
+        }
+        productStockShardMapper.insertBatch(shards);
+    }
+
+    @Override
+    public void reshard(Long productId, int shardCount) {
+        if (shardCount < 0 || shardCount > stockShardConfig.getMaxShards()) {
+            throw new IllegalArgumentException("分片数必须在 0 到 " + stockShardConfig.getMaxShards() + " 之间");
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            Product product = productMapper.selectByIdForUpdate(productId)
+                    .orElseThrow(() -> new ProductNotFoundException("商品ID: " + productId + " 不存在"));
+            List<ProductStockShard> shards = lockShards(productId);
+            int total = shards.isEmpty() ? product.getStock() : shards.stream().mapToInt(ProductStockShard::getStock).sum();
+            rewrite(productId, shardCount, total);
+            productMapper.update(new UpdateWrapper<Product>()
+                    .eq("id", productId)
+                    .set("stock", total)
+                    .set("stock_shards", shardCount));
+            log.info("商品 {} 库存分片数调整为 {}, 库存合计: {}", productId, shardCount, total);
+        });
+        productCacheService.evict(productId);
+    }
+
+    @Override
+    public void redistribute(Long productId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Product product = productMapper.selectByIdForUpdate(productId).orElse(null);
+            if (!isSharded(product)) {
+                return;
+            }
+            lockShards(productId);
+            rewrite(productId, product.getStockShards(), product.getStock());
+        });
+    }
+
+    @Override
+    public int rebalance() {
+        List<Long> productIds = productMapper.selectObjs(new QueryWrapper<Product>()
+                        .select("id")
+                        .gt("stock_shards", 0))
+                .stream()
+                .map(id -> ((Number) id).longValue())
+                .toList();
+        int changed = 0;
+        for (Long productId : productIds) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> rebalance(productId)))) {
+                    productCacheService.evict(productId);
+                    changed++;
+                }
+            } catch (RuntimeException e) {
+                log.warn("商品 {} 库存分片再平衡失败: {}", productId, e.getMessage());
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 在当前事务中再平衡单个商品
+     * @return product.stock 或分片是否发生变化
+     */
+    private boolean rebalance(Long productId) {
+        Product product = productMapper.selectByIdForUpdate(productId).orElse(null);
+        if (!isSharded(product)) {
+            return false;
+        }
+        List<ProductStockShard> shards = lockShards(productId);
+        int shardCount = product.getStockShards();
+        int total = shards.stream().mapToInt(ProductStockShard::getStock).sum();
+
+        // 分片数与配置不符, 或有分片库存明显低于平均值时重新均分
+        boolean skewed = shards.size() != shardCount;
+        int floor = (int) (total / shardCount * stockShardConfig.getRebalanceThreshold());
+        for (ProductStockShard shard : shards) {
+            skewed |= shard.getStock() < floor;
+        }
+        if (skewed) {
+            rewrite(productId, shardCount, total);
+        }
+        boolean drifted = product.getStock() != total;
+        if (drifted) {
+            productMapper.update(new UpdateWrapper<Product>().eq("id", productId).set("stock", total));
+        }
+        return skewed || drifted;
+    }
+}
@@ -0,0 +1,66 @@
+package online.store.service.transaction;
+
+import online.store.pojo.Orders;
+import online.store.pojo.Transaction;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 余额账本服务接口
+ * <p>账本模式下充值只向 transaction 表追加 applied=0 的流水, 多个请求的流水由写入线程合并为一条多值 INSERT 组提交,
+ * 不锁用户行; user.balance 是定期合并的余额快照, 当前余额 = 快照 + 未合并流水</p>
+ * <p>扣减余额的事务必须先调用 {@link #lockForTransaction} 和 {@link #settle} 将未合并流水计入快照, 再锁定用户行校验余额</p>
+ */
+public interface BalanceLedgerService {
+
+    /**
+     * 是否启用账本模式
+     */
+    boolean isEnabled();
+
+    /**
+     * 追加一条流水并等待组提交完成
+     * @param entry 流水, applied 会被置为 false
+     * @throws online.store.common.exception.ServiceBusyException 写入队列已满或写入失败, 流水未写入
+     * @throws online.store.common.exception.OutcomeUnknownException 等待超时或被中断, 流水可能仍会写入
+     */
+    void append(Transaction entry);
+
+    /**
+     * 查询用户当前余额: 余额快照 + 已提交但尚未合并的流水 (包括其他实例写入的)
+     * @param userId 用户ID
+     * @return 当前余额, 用户不存在时为 null
+     */
+    BigDecimal balanceOf(Long userId);
+
+    /**
+     * 在当前事务中锁定用户账本, 事务结束时释放; 期间该用户的流水不会被写入或合并
+     * <p>必须在锁定用户行之前调用, 多个用户按固定顺序加锁</p>
+     * @param userIds 用户ID
+     * @throws IllegalStateException 当前没有活动事务
+     * @throws online.store.common.exception.ServiceBusyException 等待账本锁超时
+     */
+    void lockForTransaction(Collection<Long> userIds);
+
+    /**
+     * 在当前事务中将用户未合并的流水计入 user.balance, 调用方需已通过 {@link #lockForTransaction} 锁定账本
+     * <p>未启用账本模式时同样计入, 关闭账本模式前写入的流水不会丢失</p>
+     * @param userId 用户ID
+     * @return 计入的金额, 没有未合并流水时为 0
+     */
+    BigDecimal settle(Long userId);
+
+    /**
+     * 在当前事务中为已扣款的订单批量写入消费流水, 未启用账本模式时不写入
+     * @param orders 已支付订单
+     */
+    void recordPurchases(List<Orders> orders);
+
+    /**
+     * 合并未计入余额的流水, 未启用账本模式时同样合并遗留的流水
+     * @return 本次合并的用户数
+     */
+    int compact();
+}
@@ -13,11 +13,13 @@ public interface PaymentService {
     /**
      * 为当前登录用户账户进行充值。
      * 整个操作在事务中进行，并使用行锁保证并发安全。
+     * 启用余额账本 (payment.ledger.enabled) 时只追加充值流水, 多个充值请求合并为一次提交, 余额由账本合并任务计入。
      *
      * @param rechargeRequest 包含充值金额的请求对象
      * @return 包含充值详情和最新余额的响应对象
      * @throws online.store.common.exception.UserNameNotFoundException 如果当前登录用户不存在抛出异常
      * @throws IllegalArgumentException 充值金额无效 (如非正数)
+     * @throws online.store.common.exception.ServiceBusyException 账本模式下写入队列已满或等待提交超时
      */
     RechargeResponse rechargeAccount(RechargeRequest rechargeRequest);
 
@@ -0,0 +1,367 @@
+package online.store.service.transaction.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import online.store.common.exception.OutcomeUnknownException;
+import online.store.common.exception.ServiceBusyException;
+import online.store.common.utils.WorkerThreads;
+import online.store.config.LedgerConfig;
+import online.store.enums.TransactionStatus;
+import online.store.enums.TransactionType;
+import online.store.mapper.TransactionMapper;
+import online.store.mapper.UserMapper;
+import online.store.pojo.Orders;
+import online.store.pojo.Transaction;
+import online.store.service.transaction.BalanceLedgerService;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessResourceUsageException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 组提交余额账本实现
+ * <p>充值流水进入有界队列, 写入线程每次取出队列中积累的全部流水, 在一个事务中以一条批量 INSERT 写入
+ * (rewriteBatchedStatements 下合并为多值 INSERT), 一次提交 (一次刷盘) 完成一组充值</p>
+ * <p>每个用户的账本由分段锁保护, 写入线程提交流水、合并任务与扣款事务计入快照都在持有账本锁时完成。
+ * 加锁顺序为 商品行 → 账本锁 → 用户行, 与所有下单路径一致; 账本锁在 InnoDB 之外, 死锁无法被数据库检测, 因此等待有超时</p>
+ * <p>当前余额由一条语句从 user.balance 与未合并流水计算, 以数据库为准, 多实例部署时各实例看到的余额一致</p>
+ * <p>组提交在 INSERT 阶段因个别流水的数据错误 (如用户已删除违反外键) 失败时, 改为逐条写入, 只有出错的流水失败;
+ * INSERT 已执行而提交阶段失败 (连接断开、COMMIT 异常) 时流水可能已经写入, 等待的充值请求得到结果未知异常,
+ * 幂等键保留, 避免客户端重试导致重复充值</p>
+ */
+@Slf4j
+@Service
+public class BalanceLedgerServiceImpl implements BalanceLedgerService, SmartLifecycle {
+
+    /**
+     * 账本分段锁数量
+     */
+    private static final int LOCK_STRIPES = 1024;
+
+    /**
+     * 写入线程拉取流水的等待时间
+     */
+    private static final long POLL_TIMEOUT_MILLIS = 200L;
+
+    private final LedgerConfig ledgerConfig;
+    private final TransactionMapper transactionMapper;
+    private final UserMapper userMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Environment environment;
+    private final BlockingQueue<PendingEntry> queue;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    private Thread writer;
+
+    private volatile boolean running = false;
+
+    /**
+     * 等待组提交的流水
+     */
+    record PendingEntry(Transaction entry, CompletableFuture<Void> committed) {
+    }
+
+    /**
+     * 流水 INSERT 已执行, 事务提交阶段失败, 流水可能已经写入
+     */
+    private static final class CommitOutcomeUnknownException extends RuntimeException {
+
+        CommitOutcomeUnknownException(RuntimeException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+
+    public BalanceLedgerServiceImpl(LedgerConfig ledgerConfig,
+                                    TransactionMapper transactionMapper,
+                                    UserMapper userMapper,
+                                    TransactionTemplate transactionTemplate,
+                                    Environment environment) {
+        this.ledgerConfig = ledgerConfig;
+        this.transactionMapper = transactionMapper;
+        this.userMapper = userMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.environment = environment;
+        this.queue = new ArrayBlockingQueue<>(ledgerConfig.getQueueCapacity());
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ledgerConfig.isEnabled();
+    }
+
+    @Override
+    public void append(Transaction entry) {
+        if (!running) {
+            throw new ServiceBusyException("余额账本未启用");
+        }
+        entry.setApplied(false);
+        PendingEntry pending = new PendingEntry(entry, new CompletableFuture<>());
+        if (!queue.offer(pending)) {
+            throw new ServiceBusyException("充值请求过多, 请稍后重试");
+        }
+        try {
+            pending.committed().get(ledgerConfig.getWriteTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 流水可能仍会写入, 由调用方查询余额确认
+            throw new OutcomeUnknownException("充值处理超时, 请稍后查询余额确认");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof CommitOutcomeUnknownException) {
+                throw new OutcomeUnknownException("充值提交结果未知, 请稍后查询余额确认");
+            }
+            // 失败发生在 INSERT 阶段, 事务已回滚, 流水一定没有写入
+            throw new ServiceBusyException("充值失败, 请稍后重试");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OutcomeUnknownException("充值被中断, 请稍后查询余额确认");
+        }
+    }
+
+    @Override
+    public BigDecimal balanceOf(Long userId) {
+        return transactionMapper.selectLedgerBalance(userId);
+    }
+
+    @Override
+    public void lockForTransaction(Collection<Long> userIds) {
+        if (!isEnabled()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("锁定用户账本需要在事务中进行");
+        }
+        List<ReentrantLock> acquired = new ArrayList<>();
+        long timeoutNanos = ledgerConfig.getLockTimeout().toNanos();
+        try {
+            for (int stripe : stripesOf(userIds)) {
+                if (!locks[stripe].tryLock(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                    throw new ServiceBusyException("账户繁忙, 请稍后重试");
+                }
+                acquired.add(locks[stripe]);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired.reversed().forEach(ReentrantLock::unlock);
+            throw new ServiceBusyException("请求已中断, 请重试");
+        } catch (RuntimeException e) {
+            acquired.reversed().forEach(ReentrantLock::unlock);
+            throw e;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                acquired.reversed().forEach(ReentrantLock::unlock);
+            }
+        });
+    }
+
+    @Override
+    public BigDecimal settle(Long userId) {
+        // 不检查是否启用: 关闭账本模式前写入的流水仍需计入余额
+        List<Transaction> entries = transactionMapper.selectUnappliedForUpdate(userId);
+        BigDecimal amount = BigDecimal.ZERO;
+        for (Transaction entry : entries) {
+            amount = amount.add(signed(entry));
+        }
+        if (!entries.isEmpty()) {
+            userMapper.addBalance(userId, amount);
+            transactionMapper.markApplied(entries.stream().map(Transaction::getId).toList());
+        }
+        return amount;
+    }
+
+    @Override
+    public void recordPurchases(List<Orders> orders) {
+        if (!isEnabled() || orders.isEmpty()) {
+            return;
+        }
+        List<Transaction> entries = new ArrayList<>(orders.size());
+        for (Orders order : orders) {
+            Transaction entry = new Transaction();
+            entry.setUserId(order.getUserId());
+            entry.setOrderId(order.getId());
+            entry.setAmount(order.getPayAmount());
+            entry.setType(TransactionType.PURCHASE);
+            entry.setStatus(TransactionStatus.SUCCESS);
+            entry.setRemark("订单[" + order.getOrderNo() + "]余额支付");
+            // 扣款已直接计入 user.balance
+            entry.setApplied(true);
+            entries.add(entry);
+        }
+        transactionMapper.insert(entries);
+    }
+
+    @Override
+    public int compact() {
+        // 关闭账本模式后仍合并遗留的未合并流水, 否则这些充值永远不会计入余额
+        List<Long> userIds = transactionMapper.selectUnappliedUserIds(ledgerConfig.getCompactBatchSize());
+        int compacted = 0;
+        for (Long userId : userIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    lockForTransaction(List.of(userId));
+                    settle(userId);
+                });
+                compacted++;
+            } catch (RuntimeException e) {
+                log.warn("合并用户 {} 的账本流水失败: {}", userId, e.getMessage());
+            }
+        }
+        return compacted;
+    }
+
+    /**
+     * 写入线程: 取出队列中积累的流水, 一个事务写入后统一通知等待的充值请求
+     */
+    private void runWriter() {
+        List<PendingEntry> batch = new ArrayList<>(ledgerConfig.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEntry first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                // 上一组提交期间到达的请求合并为一组
+                queue.drainTo(batch, ledgerConfig.getBatchSize() - 1);
+                writeBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 组提交一批流水
+     */
+    void writeBatch(List<PendingEntry> batch) {
+        List<Long> userIds = batch.stream().map(pending -> pending.entry().getUserId()).toList();
+        List<ReentrantLock> acquired = new ArrayList<>();
+        for (int stripe : stripesOf(userIds)) {
+            locks[stripe].lock();
+            acquired.add(locks[stripe]);
+        }
+        try {
+            RuntimeException error = write(batch.stream().map(PendingEntry::entry).toList());
+            if (error == null) {
+                batch.forEach(pending -> pending.committed().complete(null));
+                return;
+            }
+            if (batch.size() == 1 || !isEntryError(error)) {
+                log.error("账本流水组提交失败, 共 {} 条", batch.size(), error);
+                batch.forEach(pending -> pending.committed().completeExceptionally(error));
+                return;
+            }
+            // 个别流水的数据错误导致整批回滚, 逐条写入以隔离出错的流水
+            log.warn("账本流水组提交失败, 改为逐条写入: {}", error.getMessage());
+            for (PendingEntry pending : batch) {
+                RuntimeException entryError = write(List.of(pending.entry()));
+                if (entryError == null) {
+                    pending.committed().complete(null);
+                } else {
+                    log.error("账本流水写入失败. TransactionNo: {}, UserId: {}", pending.entry().getTransactionNo(), pending.entry().getUserId(), entryError);
+                    pending.committed().completeExceptionally(entryError);
+                }
+            }
+        } finally {
+            acquired.reversed().forEach(ReentrantLock::unlock);
+        }
+    }
+
+    /**
+     * 在一个事务中写入流水
+     * @return 成功时返回 null; INSERT 已执行而提交失败时返回 {@link CommitOutcomeUnknownException}, 否则返回原异常 (事务已回滚)
+     */
+    private RuntimeException write(List<Transaction> entries) {
+        boolean[] inserted = {false};
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                transactionMapper.insert(entries);
+                inserted[0] = true;
+            });
+            return null;
+        } catch (RuntimeException e) {
+            return inserted[0] ? new CommitOutcomeUnknownException(e) : e;
+        }
+    }
+
+    /**
+     * 是否为个别流水的数据错误 (约束冲突、数据格式错误), 逐条重试可以隔离;
+     * 连接故障等整体性错误逐条重试只会逐条等待超时, 直接整批失败
+     */
+    private static boolean isEntryError(RuntimeException e) {
+        return e instanceof DataIntegrityViolationException || e instanceof InvalidDataAccessResourceUsageException;
+    }
+
+    /**
+     * 用户对应的分段锁序号, 去重并升序排列, 保证多个锁的加锁顺序一致
+     */
+    private static Set<Integer> stripesOf(Collection<Long> userIds) {
+        Set<Integer> stripes = new TreeSet<>();
+        for (Long userId : userIds) {
+            stripes.add(stripe(userId));
+        }
+        return stripes;
+    }
+
+    private static int stripe(Long userId) {
+        return Math.floorMod(Long.hashCode(userId), LOCK_STRIPES);
+    }
+
+    /**
+     * 流水对余额的影响: 消费为负, 充值和退款为正
+     */
+    private static BigDecimal signed(Transaction entry) {
+        return entry.getType() == TransactionType.PURCHASE ? entry.getAmount().negate() : entry.getAmount();
+    }
+
+    @Override
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        running = true;
+        writer = WorkerThreads.start(environment, "ledger-writer", this::runWriter);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        // 停止受理新流水, 写入线程写完队列中的流水后退出
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
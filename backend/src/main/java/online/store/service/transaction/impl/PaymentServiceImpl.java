@@ -2,7 +2,7 @@ package online.store.service.transaction.impl;
 
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
+import online.store.common.bulkhead.ConnectionBudgets;
 import online.store.common.exception.*;
 import online.store.common.utils.SnowflakeIdGenerator;
 import online.store.dto.transaction.RechargeRequest;
@@ -13,18 +13,18 @@ import online.store.mapper.TransactionMapper;
 import online.store.mapper.UserMapper;
 import online.store.pojo.Transaction;
 import online.store.pojo.User;
+import online.store.service.audit.AuditEventPublisher;
 import online.store.service.auth.PermissionService;
+import online.store.service.transaction.BalanceLedgerService;
 import online.store.service.transaction.PaymentService;
 import online.store.vo.transaction.RechargeResponse;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.text.NumberFormat;
+import java.math.RoundingMode;
 import java.time.LocalDateTime;
 
-//TODO: 日志记录
-@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PaymentServiceImpl implements PaymentService {
@@ -35,10 +35,25 @@ public class PaymentServiceImpl implements PaymentService {
     private final PermissionService permissionService;
     private final SnowflakeIdGenerator snowflakeIdGenerator;
     private final TransactionMapper transactionMapper;
+    private final BalanceLedgerService balanceLedgerService;
+    private final AuditEventPublisher auditEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final ConnectionBudgets connectionBudgets;
 
     @Override
-    @Transactional(rollbackFor = Exception.class)
     public RechargeResponse rechargeAccount(RechargeRequest rechargeRequest) {
+        if (balanceLedgerService.isEnabled()) {
+            // 账本模式在组提交线程上写库, 请求线程只等待结果而不持有连接, 不占用写预算
+            return rechargeByLedger(rechargeRequest);
+        }
+        return connectionBudgets.call(ConnectionBudgets.WRITE,
+                () -> transactionTemplate.execute(status -> doRechargeAccount(rechargeRequest)));
+    }
+
+    /**
+     * 充值事务主体, 由 {@link #rechargeAccount} 在事务中调用: 锁定用户行, 更新余额并写入充值流水
+     */
+    private RechargeResponse doRechargeAccount(RechargeRequest rechargeRequest) {
         BigDecimal amount = rechargeRequest.getAmount();
 
         User user = getCurrentUserForUpdate();
@@ -49,11 +64,39 @@ public class PaymentServiceImpl implements PaymentService {
 
         long transactionId = snowflakeIdGenerator.nextId();
 
-        //TODO: 日志记录
-        log.info("充值成功! 流水号 {}, 用户 '{}' 充值成功。金额: {}, 最新余额: {}", transactionId, user.getUsername(), amount, user.getBalance());
+        // 审计事件在事务提交后由后台线程写出
+        auditEventPublisher.balanceRecharged(transactionId, user.getId(), user.getUsername(), amount, user.getBalance());
 
         //TODO: 充值失败设置状态和备注及输出信息
         //TODO: 充值状态为处理中的逻辑判定和处理
+        transactionMapper.insert(buildRecharge(transactionId, user, amount));
+
+        return new RechargeResponse(transactionId, amount, user.getBalance(), LocalDateTime.now());
+    }
+
+    /**
+     * 账本模式充值: 只追加充值流水, 与其他充值请求组提交, 不锁用户行
+     */
+    private RechargeResponse rechargeByLedger(RechargeRequest rechargeRequest) {
+        BigDecimal amount = rechargeRequest.getAmount();
+        User user = permissionService.getCurrentUser();
+        if (user == null || user.getId() == null) {
+            throw new UserNotFoundException("无法获取当前用户信息,请检查Token是否有效");
+        }
+
+        long transactionId = snowflakeIdGenerator.nextId();
+        balanceLedgerService.append(buildRecharge(transactionId, user, amount));
+        BigDecimal balance = balanceLedgerService.balanceOf(user.getId());
+
+        auditEventPublisher.balanceRecharged(transactionId, user.getId(), user.getUsername(), amount, balance);
+
+        return new RechargeResponse(transactionId, amount, balance, LocalDateTime.now());
+    }
+
+    /**
+     * 构造充值流水
+     */
+    private static Transaction buildRecharge(long transactionId, User user, BigDecimal amount) {
         Transaction transaction = new Transaction();
         transaction.setId(transactionId);
         transaction.setUserId(user.getId());
@@ -62,11 +105,8 @@ public class PaymentServiceImpl implements PaymentService {
         transaction.setType(TransactionType.RECHARGE);
         transaction.setStatus(TransactionStatus.SUCCESS);
         transaction.setTransactionNo(null); // 第三方交易号留空
-        transaction.setRemark(String.format("用户[%s]充值[%s]元成功", user.getUsername(), NumberFormat.getCurrencyInstance().format(amount)));
-
-        transactionMapper.insert(transaction);
-
-        return new RechargeResponse(transactionId, amount, user.getBalance(), LocalDateTime.now());
+        transaction.setRemark(String.format("用户[%s]充值[%s]元成功", user.getUsername(), amount.setScale(2, RoundingMode.HALF_UP).toPlainString()));
+        return transaction;
     }
 
     /**
@@ -0,0 +1,38 @@
+package online.store.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import online.store.config.CartConfig;
+import online.store.service.cart.CartService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 购物车写回任务
+ * <p>定期将 Redis 中修改过的购物车批量写回 cart_item 表</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CartFlushTask {
+
+    private final CartService cartService;
+
+    private final CartConfig cartConfig;
+
+    /**
+     * 写回修改过的购物车, 单批处理满时立即继续下一批
+     */
+    @Scheduled(initialDelayString = "${cart.flush-interval:5s}", fixedDelayString = "${cart.flush-interval:5s}")
+    public void flush() {
+        int total = 0;
+        int flushed;
+        do {
+            flushed = cartService.flush();
+            total += flushed;
+        } while (flushed > 0 && flushed >= cartConfig.getFlushBatchSize());
+        if (total > 0) {
+            log.debug("购物车写回完成, 共 {} 个用户", total);
+        }
+    }
+}
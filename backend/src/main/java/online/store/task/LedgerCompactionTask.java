@@ -0,0 +1,35 @@
+package online.store.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import online.store.service.transaction.BalanceLedgerService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 余额账本合并任务
+ * <p>定期将未计入余额的充值流水合并到 user.balance 快照; 关闭账本模式后仍执行, 合并关闭前写入的流水</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerCompactionTask {
+
+    private final BalanceLedgerService balanceLedgerService;
+
+    /**
+     * 合并未计入余额的流水
+     */
+    @Scheduled(initialDelayString = "${payment.ledger.compact-interval:5s}",
+            fixedDelayString = "${payment.ledger.compact-interval:5s}")
+    public void compact() {
+        try {
+            int compacted = balanceLedgerService.compact();
+            if (compacted > 0) {
+                log.debug("账本合并完成, 共 {} 个用户", compacted);
+            }
+        } catch (Exception e) {
+            log.warn("账本合并失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package online.store.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis 订阅启动任务
+ * <p>应用启动后启动 Redis 消息监听容器; 启动时 Redis 不可用则定期重试, 不影响应用启动</p>
+ * <p>启动成功后的断线重连由监听容器自身负责</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisSubscriptionTask implements ApplicationRunner {
+
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+
+    private volatile boolean started = false;
+
+    /**
+     * 应用启动完成后启动监听容器
+     * @param args 启动参数
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        ensureStarted();
+    }
+
+    /**
+     * 监听容器未能启动时定期重试
+     */
+    @Scheduled(initialDelay = 30, fixedDelay = 30, timeUnit = TimeUnit.SECONDS)
+    public void ensureStarted() {
+        if (started) {
+            return;
+        }
+        try {
+            redisMessageListenerContainer.start();
+            started = true;
+            log.info("Redis 消息订阅已启动");
+        } catch (RuntimeException e) {
+            // 复位容器状态以便下次重试
+            redisMessageListenerContainer.stop();
+            log.warn("Redis 消息订阅启动失败, 稍后重试: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package online.store.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import online.store.service.stock.StockReservationService;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 库存预扣后台任务
+ * <p>启动时预热在售商品库存, 并定期与数据库 product.stock 对账</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockReservationTask implements ApplicationRunner {
+
+    private final StockReservationService stockReservationService;
+
+    /**
+     * 应用启动完成后预热库存
+     * @param args 启动参数
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        stockReservationService.warmUp();
+    }
+
+    /**
+     * 定期对账, 校正 Redis 库存与数据库库存的偏差
+     */
+    @Scheduled(initialDelayString = "${stock.reservation.reconcile-interval:60s}",
+            fixedDelayString = "${stock.reservation.reconcile-interval:60s}")
+    public void reconcile() {
+        int drifted = stockReservationService.reconcile();
+        if (drifted > 0) {
+            log.info("库存对账完成, 校正 {} 个商品", drifted);
+        }
+    }
+}
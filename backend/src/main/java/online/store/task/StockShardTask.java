@@ -0,0 +1,35 @@
+package online.store.task;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import online.store.service.stock.StockShardService;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 库存分片再平衡任务
+ * <p>定期将分片库存合计同步到 product.stock, 并在分片库存明显不均时重新均分</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockShardTask {
+
+    private final StockShardService stockShardService;
+
+    /**
+     * 再平衡全部分片库存商品
+     */
+    @Scheduled(initialDelayString = "${stock.shard.rebalance-interval:30s}",
+            fixedDelayString = "${stock.shard.rebalance-interval:30s}")
+    public void rebalance() {
+        try {
+            int changed = stockShardService.rebalance();
+            if (changed > 0) {
+                log.debug("库存分片再平衡完成, {} 个商品发生变化", changed);
+            }
+        } catch (Exception e) {
+            log.warn("库存分片再平衡失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package online.store.vo.auth;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 用户批量导入结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(name = "UserImportResult VO", description = "用户批量导入结果")
+public class UserImportResult {
+
+    @Schema(description = "读取的数据行数", example = "1000")
+    private long total;
+
+    @Schema(description = "成功导入的用户数", example = "998")
+    private long imported;
+
+    @Schema(description = "失败的行数", example = "2")
+    private long failed;
+
+    @Schema(description = "导入耗时(毫秒)", example = "5230")
+    private long elapsedMillis;
+
+    @Schema(description = "每秒导入的用户数", example = "190.8")
+    private double rowsPerSecond;
+
+    @Schema(description = "是否提前终止: 超过单次导入行数上限或遇到格式错误的行时停止读取, 之前的行已导入, 终止的行和原因见失败明细", example = "false")
+    private boolean aborted;
+
+    @Schema(description = "失败行的明细, 超出上限的部分不返回")
+    private List<RowError> errors;
+
+    /**
+     * 失败行
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+
+        @Schema(description = "行号: CSV 为文件行号 (含表头), JSON 为数组下标 (从1开始)", example = "12")
+        private long line;
+
+        @Schema(description = "用户名", example = "alice")
+        private String username;
+
+        @Schema(description = "失败原因", example = "用户名已存在")
+        private String message;
+    }
+}
@@ -0,0 +1,43 @@
+package online.store.vo.cart;
+
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import online.store.enums.ProductStatus;
+
+import java.math.BigDecimal;
+
+/**
+ * 购物车商品项
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(name = "CartItemVO", description = "购物车商品项")
+public class CartItemView {
+
+    @Schema(description = "商品ID", example = "19018317219")
+    @JsonSerialize(using = ToStringSerializer.class) // 避免前端 long 类型导致前端Javascript精度丢失问题
+    private Long productId;
+
+    @Schema(description = "商品名称, 商品已删除时为空", example = "华为 Mate 60 Pro")
+    private String productName;
+
+    @Schema(description = "商品图片URL", example = "https://example.com/images/mate60pro.jpg")
+    private String imageUrl;
+
+    @Schema(description = "商品当前价格", example = "7999.00")
+    private BigDecimal price;
+
+    @Schema(description = "商品状态, 非在售商品无法结算")
+    private ProductStatus status;
+
+    @Schema(description = "购买数量", example = "1")
+    private Integer quantity;
+
+    @Schema(description = "是否选中")
+    private boolean selected;
+}
@@ -0,0 +1,28 @@
+package online.store.vo.cart;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 购物车
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(name = "CartVO", description = "购物车")
+public class CartView {
+
+    @Schema(description = "购物车商品, 按商品ID升序")
+    private List<CartItemView> items;
+
+    @Schema(description = "选中的在售商品总数量", example = "3")
+    private int selectedQuantity;
+
+    @Schema(description = "选中的在售商品按当前价格计算的总金额", example = "15998.00")
+    private BigDecimal selectedAmount;
+}
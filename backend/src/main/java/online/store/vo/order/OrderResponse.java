@@ -1,5 +1,6 @@
 package online.store.vo.order;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -39,4 +40,8 @@ public class OrderResponse {
 
     @Schema(description = "支付时间")
     private LocalDateTime payTime;
+
+    @Schema(description = "订单处理失败原因, 仅异步下单失败时返回", example = "账户余额不足")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String failReason;
 }
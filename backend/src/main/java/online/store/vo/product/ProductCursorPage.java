@@ -0,0 +1,32 @@
+package online.store.vo.product;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 商品游标分页结果
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Schema(name = "ProductCursorPageVO", description = "商品游标分页结果")
+public class ProductCursorPage {
+
+    @Schema(description = "当前页商品")
+    private List<ProductPublic> records;
+
+    @Schema(description = "下一页游标, 没有更多数据时为空", example = "Y3JlYXRlZF90aW1lfDIwMjUtMDktMDdUMTc6MDI6MDB8MTAwMXwxMA.q1w2e3r4t5y6u7i8o9p0aa")
+    private String nextCursor;
+
+    @Schema(description = "是否还有下一页")
+    private boolean hasMore;
+
+    @Schema(description = "在售商品总数, 仅在请求时要求返回总数时提供")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long total;
+}
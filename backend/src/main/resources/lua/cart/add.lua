@@ -0,0 +1,18 @@
+-- 向购物车添加商品, 已存在时累加数量并设为选中
+-- KEYS[1]: 用户购物车 Hash; KEYS[2]: 待写回用户集合
+-- ARGV[1]: 用户ID; ARGV[2]: 商品ID; ARGV[3]: 增加数量; ARGV[4]: 最多商品种类数; ARGV[5]: 空闲过期时间(秒)
+-- 返回: >0 添加后的数量; -1 购物车未加载; -2 商品种类已达上限
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+local current = redis.call('HGET', KEYS[1], ARGV[2])
+local quantity = tonumber(ARGV[3])
+if current then
+    quantity = quantity + tonumber(string.match(current, '^(%d+)'))
+elseif redis.call('HLEN', KEYS[1]) - 1 >= tonumber(ARGV[4]) then
+    return -2
+end
+redis.call('HSET', KEYS[1], ARGV[2], quantity .. ':1')
+redis.call('EXPIRE', KEYS[1], tonumber(ARGV[5]))
+redis.call('SADD', KEYS[2], ARGV[1])
+return quantity
@@ -0,0 +1,13 @@
+-- 从数据库加载购物车, 已加载时不覆盖
+-- KEYS[1]: 用户购物车 Hash (field 商品ID, value 数量:是否选中)
+-- ARGV[1]: 空闲过期时间(秒); ARGV[2..]: 商品ID, 数量:是否选中 交替排列
+-- 返回: 1 已加载; 0 购物车已存在
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+redis.call('HSET', KEYS[1], '_loaded', '1')
+for i = 2, #ARGV, 2 do
+    redis.call('HSET', KEYS[1], ARGV[i], ARGV[i + 1])
+end
+redis.call('EXPIRE', KEYS[1], tonumber(ARGV[1]))
+return 1
@@ -0,0 +1,16 @@
+-- 从购物车移除商品
+-- KEYS[1]: 用户购物车 Hash; KEYS[2]: 待写回用户集合
+-- ARGV[1]: 用户ID; ARGV[2]: 空闲过期时间(秒); ARGV[3..]: 商品ID
+-- 返回: >=0 移除的商品种类数; -1 购物车未加载
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+local removed = 0
+for i = 3, #ARGV do
+    removed = removed + redis.call('HDEL', KEYS[1], ARGV[i])
+end
+redis.call('EXPIRE', KEYS[1], tonumber(ARGV[2]))
+if removed > 0 then
+    redis.call('SADD', KEYS[2], ARGV[1])
+end
+return removed
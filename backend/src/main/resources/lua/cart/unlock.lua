@@ -0,0 +1,7 @@
+-- 释放购物车写回锁, 仅当锁仍属于当前写回时删除
+-- KEYS[1]: 写回锁 Key
+-- ARGV[1]: 加锁时写入的标识
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
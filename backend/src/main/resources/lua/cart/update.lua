@@ -0,0 +1,22 @@
+-- 修改购物车商品的数量或选中状态
+-- KEYS[1]: 用户购物车 Hash; KEYS[2]: 待写回用户集合
+-- ARGV[1]: 用户ID; ARGV[2]: 商品ID; ARGV[3]: 新数量, 空串表示不变; ARGV[4]: 选中状态 1/0, 空串表示不变; ARGV[5]: 空闲过期时间(秒)
+-- 返回: 1 已修改; -1 购物车未加载; -3 商品不在购物车中
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+local current = redis.call('HGET', KEYS[1], ARGV[2])
+if not current then
+    return -3
+end
+local quantity, selected = string.match(current, '^(%d+):(%d)$')
+if ARGV[3] ~= '' then
+    quantity = ARGV[3]
+end
+if ARGV[4] ~= '' then
+    selected = ARGV[4]
+end
+redis.call('HSET', KEYS[1], ARGV[2], quantity .. ':' .. selected)
+redis.call('EXPIRE', KEYS[1], tonumber(ARGV[5]))
+redis.call('SADD', KEYS[2], ARGV[1])
+return 1
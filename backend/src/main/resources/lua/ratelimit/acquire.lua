@@ -0,0 +1,17 @@
+-- 滑动窗口限流: 以上一个固定窗口的计数按剩余比例加权, 近似最近一个周期内的请求数
+-- KEYS[1]: 当前窗口计数, KEYS[2]: 上一个窗口计数
+-- ARGV[1]: 每个周期允许的请求数, ARGV[2]: 周期(毫秒), ARGV[3]: 当前窗口已经过的毫秒数
+-- 返回: >=0 放行后的剩余请求数; -1 超出限制
+local limit = tonumber(ARGV[1])
+local window = tonumber(ARGV[2])
+local elapsed = tonumber(ARGV[3])
+local current = tonumber(redis.call('GET', KEYS[1]) or '0')
+local previous = tonumber(redis.call('GET', KEYS[2]) or '0')
+local estimated = previous * (window - elapsed) / window + current
+if estimated + 1 > limit then
+    return -1
+end
+redis.call('INCR', KEYS[1])
+-- 下一个窗口仍需读取本窗口的计数
+redis.call('PEXPIRE', KEYS[1], window * 2)
+return math.floor(limit - estimated - 1)
@@ -0,0 +1,7 @@
+-- 释放机器ID租约, 仅当租约仍属于当前实例时删除
+-- KEYS[1]: 租约 Key
+-- ARGV[1]: 实例标识
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('DEL', KEYS[1])
+end
+return 0
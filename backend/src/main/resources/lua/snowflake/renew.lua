@@ -0,0 +1,8 @@
+-- 续期机器ID租约, 仅当租约仍属于当前实例时生效
+-- KEYS[1]: 租约 Key
+-- ARGV[1]: 实例标识
+-- ARGV[2]: 租约时长 (毫秒)
+if redis.call('GET', KEYS[1]) == ARGV[1] then
+    return redis.call('PEXPIRE', KEYS[1], ARGV[2])
+end
+return 0
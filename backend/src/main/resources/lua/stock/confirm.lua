@@ -0,0 +1,15 @@
+-- 确认预扣 (订单事务已提交, 数据库库存已扣减)
+-- KEYS[1]: 商品库存 Hash
+-- ARGV[1]: 预扣数量
+-- ARGV[2]: 1 - 预扣由异步下单流水线持有
+-- 对账可能已将残留预扣清零, inflight 与 held 不会减为负数
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+local quantity = tonumber(ARGV[1])
+local state = redis.call('HMGET', KEYS[1], 'inflight', 'held')
+redis.call('HSET', KEYS[1], 'inflight', math.max(tonumber(state[1] or '0') - quantity, 0))
+if ARGV[2] == '1' then
+    redis.call('HSET', KEYS[1], 'held', math.max(tonumber(state[2] or '0') - quantity, 0))
+end
+return 1
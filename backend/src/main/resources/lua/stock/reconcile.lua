@@ -0,0 +1,27 @@
+-- 库存对账校正
+-- KEYS[1]: 商品库存 Hash
+-- ARGV[1]: 读取数据库库存前的预扣序号快照
+-- ARGV[2]: 读取数据库库存前的 inflight 快照
+-- ARGV[3]: 数据库库存
+-- ARGV[4]: 1 - 预扣数量在整个对账周期内无变化, 视为残留数据清零; 0 - 仅在无未落库预扣时校正
+-- 异步下单流水线持有的预扣 (held) 在订单落库或释放前始终保留, 不会被清零
+-- 返回: -1 期间有新的预扣、确认或释放, 或仍有未落库预扣, 放弃校正; 0 无偏差; 1 已校正
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+local state = redis.call('HMGET', KEYS[1], 'available', 'inflight', 'seq', 'held')
+local inflight = tonumber(state[2] or '0')
+if state[3] ~= ARGV[1] or inflight ~= tonumber(ARGV[2]) then
+    return -1
+end
+if inflight ~= 0 and ARGV[4] ~= '1' then
+    return -1
+end
+-- 流水线持有的订单尚未落库, 数据库库存仍包含这部分数量
+local held = math.min(tonumber(state[4] or '0'), inflight)
+local available = math.max(tonumber(ARGV[3]) - held, 0)
+if inflight == held and tonumber(state[1]) == available then
+    return 0
+end
+redis.call('HSET', KEYS[1], 'available', available, 'inflight', held)
+return 1
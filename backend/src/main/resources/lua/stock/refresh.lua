@@ -0,0 +1,15 @@
+-- 以数据库库存为准重置可售库存, 已预扣未落库的数量仍从中扣除
+-- KEYS[1]: 商品库存 Hash
+-- ARGV[1]: 数据库库存
+-- ARGV[2]: 1 - 仅在未加载时初始化; 0 - 强制刷新
+if ARGV[2] == '1' and redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+local inflight = tonumber(redis.call('HGET', KEYS[1], 'inflight') or '0')
+local available = tonumber(ARGV[1]) - inflight
+if available < 0 then
+    available = 0
+end
+redis.call('HSET', KEYS[1], 'available', available, 'inflight', inflight)
+redis.call('HSETNX', KEYS[1], 'seq', 0)
+return 1
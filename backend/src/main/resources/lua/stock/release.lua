@@ -0,0 +1,18 @@
+-- 释放预扣 (订单事务回滚, 库存补偿)
+-- KEYS[1]: 商品库存 Hash
+-- ARGV[1]: 预扣数量
+-- ARGV[2]: 1 - 预扣由异步下单流水线持有
+-- 对账已清零的部分已按数据库库存重置了 available, 只补偿仍计入 inflight 的数量
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+local quantity = tonumber(ARGV[1])
+local state = redis.call('HMGET', KEYS[1], 'inflight', 'held')
+local inflight = tonumber(state[1] or '0')
+local restored = math.min(quantity, inflight)
+redis.call('HINCRBY', KEYS[1], 'available', restored)
+redis.call('HSET', KEYS[1], 'inflight', inflight - restored)
+if ARGV[2] == '1' then
+    redis.call('HSET', KEYS[1], 'held', math.max(tonumber(state[2] or '0') - quantity, 0))
+end
+return 1
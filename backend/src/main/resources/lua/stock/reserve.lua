@@ -0,0 +1,20 @@
+-- 库存预扣
+-- KEYS[1]: 商品库存 Hash (available 可售库存, inflight 已预扣未落库数量, held 其中由异步下单流水线持有的数量, seq 预扣序号)
+-- ARGV[1]: 预扣数量
+-- ARGV[2]: 1 - 预扣由异步下单流水线持有, 订单可能在重试或订单日志中等待较长时间, 对账不会将其视为残留预扣
+-- 返回: >=0 预扣后剩余库存; -1 库存未加载; -2 库存不足
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+local available = tonumber(redis.call('HGET', KEYS[1], 'available'))
+local quantity = tonumber(ARGV[1])
+if available < quantity then
+    return -2
+end
+redis.call('HINCRBY', KEYS[1], 'available', -quantity)
+redis.call('HINCRBY', KEYS[1], 'inflight', quantity)
+if ARGV[2] == '1' then
+    redis.call('HINCRBY', KEYS[1], 'held', quantity)
+end
+redis.call('HINCRBY', KEYS[1], 'seq', 1)
+return available - quantity
@@ -0,0 +1,108 @@
+-- 商品搜索基准测试: 生成 100 万条商品数据, 对比 LIKE 模糊匹配与全文索引检索的查询耗时
+-- 运行: mysql -uroot -p < product-search-benchmark.sql
+-- 要求: MySQL 8.0.18+ (EXPLAIN ANALYZE), 数据在独立的 store_benchmark 库中生成, 不影响业务库
+-- 各查询与 ProductServiceImpl.listProductsPublic 实际执行的 SQL 一致 (第1页, 每页10条), 耗时见 EXPLAIN ANALYZE 输出的 actual time
+
+CREATE DATABASE IF NOT EXISTS `store_benchmark`
+    DEFAULT CHARACTER SET `utf8mb4`
+    COLLATE `utf8mb4_unicode_ci`;
+
+USE `store_benchmark`;
+
+-- 与 store.product 结构相同, 去掉外键; 全文索引在数据导入后创建, 加快导入
+DROP TABLE IF EXISTS `product`;
+CREATE TABLE `product` (
+                           `id` BIGINT UNSIGNED NOT NULL AUTO_INCREMENT COMMENT '商品ID',
+                           `name` VARCHAR(200) NOT NULL COMMENT '商品名称',
+                           `description` TEXT COMMENT '商品描述',
+                           `image_url` VARCHAR(512) NULL DEFAULT NULL COMMENT '商品主图URL',
+                           `price` DECIMAL(15,2) NOT NULL DEFAULT 0.00 COMMENT '售价',
+                           `cost_price` DECIMAL(15,2) NOT NULL DEFAULT 0.00 COMMENT '成本价',
+                           `stock` INT NOT NULL DEFAULT 0 COMMENT '库存数量',
+                           `category_id` INT NOT NULL DEFAULT 0 COMMENT '分类ID',
+                           `status` TINYINT NOT NULL DEFAULT 1 COMMENT '状态: 1-在售, 2-下架, 3-缺货',
+                           `merchant_id` BIGINT UNSIGNED NOT NULL COMMENT '商家ID',
+                           `created_time` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+                           `updated_time` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+                           PRIMARY KEY (`id`),
+                           KEY `idx_merchant_id` (`merchant_id`),
+                           KEY `idx_category` (`category_id`),
+                           KEY `idx_status` (`status`),
+                           KEY `idx_price` (`price`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='商品表 (基准测试)';
+
+-- 0~9 数字表, 6 次笛卡尔积得到 0~999999
+DROP TEMPORARY TABLE IF EXISTS `digits`;
+CREATE TEMPORARY TABLE `digits` (`d` TINYINT NOT NULL PRIMARY KEY);
+INSERT INTO `digits` VALUES (0), (1), (2), (3), (4), (5), (6), (7), (8), (9);
+
+-- 生成 100 万条商品: 品牌 x 品类组合出名称, 约 90% 在售
+-- 其中每 10 万条有 1 条名称包含稀有词 "限量典藏", 用于对比低命中关键字
+INSERT INTO `product` (`name`, `description`, `price`, `cost_price`, `stock`, `category_id`, `status`, `merchant_id`)
+SELECT CONCAT(ELT(1 + t.n % 12, '华为', '小米', '苹果', '联想', '索尼', '戴尔', '三星', '荣耀', 'OPPO', 'vivo', '飞利浦', '美的'),
+              ELT(1 + (t.n DIV 12) % 10, '手机', '笔记本电脑', '蓝牙耳机', '平板电脑', '智能手表', '显示器', '机械键盘', '移动电源', '电饭煲', '空气净化器'),
+              IF(t.n % 100000 = 0, ' 限量典藏版', ''),
+              ' ', LPAD(t.n, 7, '0')),
+       CONCAT('型号 ', t.n, ', ',
+              ELT(1 + (t.n DIV 120) % 8, '旗舰新品, 支持快充', '轻薄便携, 长续航', '高清大屏, 护眼模式', '降噪音效, 佩戴舒适',
+                  '性能强劲, 散热出色', '智能互联, 语音控制', '经典配色, 做工精致', '节能环保, 静音运行')),
+       ROUND(10 + (t.n % 9990), 2),
+       ROUND(5 + (t.n % 9990) * 0.8, 2),
+       t.n % 500,
+       1 + (t.n DIV 12) % 10,
+       IF(t.n % 10 = 0, 2, 1),
+       1 + t.n % 1000
+FROM (SELECT a.d + b.d * 10 + c.d * 100 + e.d * 1000 + f.d * 10000 + g.d * 100000 AS n
+      FROM `digits` a, `digits` b, `digits` c, `digits` e, `digits` f, `digits` g) t;
+
+ALTER TABLE `product` ADD FULLTEXT KEY `ft_name_desc` (`name`, `description`) WITH PARSER ngram;
+ANALYZE TABLE `product`;
+
+-- ========== 高频关键字: 蓝牙耳机 (约 10 万条命中) ==========
+
+-- LIKE 模糊匹配 (当前实现): 统计总数需全表扫描
+EXPLAIN ANALYZE
+SELECT COUNT(*) FROM product
+WHERE status = 1 AND (name LIKE '%蓝牙耳机%' OR description LIKE '%蓝牙耳机%');
+
+EXPLAIN ANALYZE
+SELECT * FROM product
+WHERE status = 1 AND (name LIKE '%蓝牙耳机%' OR description LIKE '%蓝牙耳机%')
+LIMIT 0, 10;
+
+-- 全文检索 自然语言模式
+EXPLAIN ANALYZE
+SELECT COUNT(*) FROM product
+WHERE status = 1 AND MATCH(name, description) AGAINST('蓝牙耳机' IN NATURAL LANGUAGE MODE);
+
+EXPLAIN ANALYZE
+SELECT * FROM product
+WHERE status = 1 AND MATCH(name, description) AGAINST('蓝牙耳机' IN NATURAL LANGUAGE MODE)
+ORDER BY MATCH(name, description) AGAINST('蓝牙耳机' IN NATURAL LANGUAGE MODE) DESC, id DESC
+LIMIT 0, 10;
+
+-- 全文检索 布尔模式
+EXPLAIN ANALYZE
+SELECT COUNT(*) FROM product
+WHERE status = 1 AND MATCH(name, description) AGAINST('+"蓝牙耳机"' IN BOOLEAN MODE);
+
+EXPLAIN ANALYZE
+SELECT * FROM product
+WHERE status = 1 AND MATCH(name, description) AGAINST('+"蓝牙耳机"' IN BOOLEAN MODE)
+ORDER BY MATCH(name, description) AGAINST('+"蓝牙耳机"' IN BOOLEAN MODE) DESC, id DESC
+LIMIT 0, 10;
+
+-- ========== 低频关键字: 限量典藏 (10 条命中) ==========
+
+-- LIKE 模糊匹配 (当前实现): 命中少时即使只取第1页也要扫描几乎整张表
+EXPLAIN ANALYZE
+SELECT * FROM product
+WHERE status = 1 AND (name LIKE '%限量典藏%' OR description LIKE '%限量典藏%')
+LIMIT 0, 10;
+
+-- 全文检索 布尔模式
+EXPLAIN ANALYZE
+SELECT * FROM product
+WHERE status = 1 AND MATCH(name, description) AGAINST('+"限量典藏"' IN BOOLEAN MODE)
+ORDER BY MATCH(name, description) AGAINST('+"限量典藏"' IN BOOLEAN MODE) DESC, id DESC
+LIMIT 0, 10;
@@ -0,0 +1,18 @@
+USE `store`;
+
+-- 审计事件表: 订单支付、余额充值等事件在业务事务提交后由后台线程批量写入 (audit.table-enabled=true)
+-- 只追加, 不设外键, 写入不与业务表加锁
+CREATE TABLE `audit_event` (
+                               `id` BIGINT UNSIGNED NOT NULL COMMENT '事件ID',
+                               `type` TINYINT NOT NULL COMMENT '类型: 1-订单已支付, 2-余额已充值',
+                               `user_id` BIGINT UNSIGNED NOT NULL COMMENT '用户ID',
+                               `username` VARCHAR(50) NOT NULL DEFAULT '' COMMENT '用户名',
+                               `reference` VARCHAR(64) NOT NULL DEFAULT '' COMMENT '业务单号: 订单号或充值流水号',
+                               `amount` DECIMAL(15,2) NOT NULL COMMENT '金额',
+                               `balance` DECIMAL(15,2) DEFAULT NULL COMMENT '事件发生后的用户余额',
+                               `detail` VARCHAR(500) DEFAULT NULL COMMENT '事件详情',
+                               `occurred_time` TIMESTAMP(3) NOT NULL COMMENT '事件发生时间',
+                               PRIMARY KEY (`id`),
+                               KEY `idx_user_time` (`user_id`, `occurred_time`),
+                               KEY `idx_reference` (`reference`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='审计事件表';
@@ -0,0 +1,8 @@
+USE `store`;
+
+-- 商品全文索引改用 ngram 分词器, 支持中文商品名称与描述的全文检索
+-- 默认 InnoDB 分词器按空格和标点切词, 对连续的中文文本无效
+-- ngram 分词长度由服务器参数 ngram_token_size 控制 (默认2), 需与 product.search.min-keyword-length 保持一致
+ALTER TABLE `product`
+    DROP INDEX `ft_name_desc`,
+    ADD FULLTEXT KEY `ft_name_desc` (`name`, `description`) WITH PARSER ngram;
@@ -0,0 +1,8 @@
+USE `store`;
+
+-- 商品游标分页 (GET /api/products/cursor) 所需的联合索引
+-- 查询形如 WHERE status = 1 AND (created_time < ? OR (created_time = ? AND id < ?)) ORDER BY created_time DESC, id DESC LIMIT n
+-- InnoDB 二级索引隐含主键, (status, 排序列) 索引即覆盖 (status, 排序列, id), 可沿索引顺序扫描且无需 filesort
+ALTER TABLE `product`
+    ADD KEY `idx_status_created_time` (`status`, `created_time`),
+    ADD KEY `idx_status_price` (`status`, `price`);
@@ -0,0 +1,15 @@
+USE `store`;
+
+-- 热点商品库存分片: 库存拆分到 product_stock_shard 表的多行, 并发下单随机选择分片扣减
+-- product.stock_shards 为 0 的商品不受影响, 通过 PUT /api/admin/products/{id}/stock-shards 开启
+ALTER TABLE `product`
+    ADD COLUMN `stock_shards` TINYINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '库存分片数: 0-不分片, 大于0时库存保存在 product_stock_shard 表' AFTER `stock`;
+
+CREATE TABLE IF NOT EXISTS `product_stock_shard` (
+                                       `product_id` BIGINT UNSIGNED NOT NULL COMMENT '商品ID',
+                                       `shard_no` TINYINT UNSIGNED NOT NULL COMMENT '分片序号, 从0开始',
+                                       `stock` INT NOT NULL DEFAULT 0 COMMENT '分片库存',
+                                       `updated_time` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+                                       PRIMARY KEY (`product_id`, `shard_no`),
+                                       CONSTRAINT `fk_stock_shard_product` FOREIGN KEY (`product_id`) REFERENCES `product` (`id`) ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='商品库存分片表';
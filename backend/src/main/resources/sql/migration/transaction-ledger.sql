@@ -0,0 +1,7 @@
+USE `store`;
+
+-- 余额账本模式 (payment.ledger.enabled=true): 充值只追加 applied=0 的流水, 由合并任务定期计入 user.balance
+-- 已有流水均已计入余额, 默认值为 1
+ALTER TABLE `transaction`
+    ADD COLUMN `applied` TINYINT NOT NULL DEFAULT 1 COMMENT '是否已计入 user.balance: 1-是, 0-否 (账本模式下待合并的充值)' AFTER `remark`,
+    ADD KEY `idx_applied_user` (`applied`, `user_id`);
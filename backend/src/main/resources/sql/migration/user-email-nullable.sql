@@ -0,0 +1,8 @@
+USE `store`;
+
+-- 未填写的邮箱存为 NULL: uk_email 唯一索引允许多个 NULL, 但只允许一个空字符串,
+-- 否则第二个未填写邮箱的用户注册或导入时会违反唯一约束
+ALTER TABLE `user`
+    MODIFY COLUMN `email` VARCHAR(100) NULL DEFAULT NULL COMMENT '邮箱, 未填写时为 NULL';
+
+UPDATE `user` SET `email` = NULL WHERE `email` = '';
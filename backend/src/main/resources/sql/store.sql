@@ -23,7 +23,7 @@ CREATE TABLE `user` (
                         `id` BIGINT UNSIGNED NOT NULL AUTO_INCREMENT COMMENT '用户ID',
                         `username` VARCHAR(50) NOT NULL COMMENT '用户名',
                         `password` VARCHAR(255) NOT NULL COMMENT '加密密码',
-                        `email` VARCHAR(100) NOT NULL DEFAULT '' COMMENT '邮箱',
+                        `email` VARCHAR(100) NULL DEFAULT NULL COMMENT '邮箱, 未填写时为 NULL',
                         `phone` VARCHAR(20) NOT NULL DEFAULT '' COMMENT '手机号',
                         `balance` DECIMAL(15,2) NOT NULL DEFAULT 0.00 COMMENT '账户余额',
                         `status` TINYINT NOT NULL DEFAULT 1 COMMENT '状态: 1-正常, 0-冻结',
@@ -59,7 +59,8 @@ CREATE TABLE `product` (
                            `image_url` VARCHAR(512) NULL DEFAULT NULL COMMENT '商品主图URL',
                            `price` DECIMAL(15,2) NOT NULL DEFAULT 0.00 COMMENT '售价',
                            `cost_price` DECIMAL(15,2) NOT NULL DEFAULT 0.00 COMMENT '成本价',
-                           `stock` INT NOT NULL DEFAULT 0 COMMENT '库存数量',
+                           `stock` INT NOT NULL DEFAULT 0 COMMENT '库存数量, 分片库存商品为各分片合计 (由再平衡任务定期同步)',
+                           `stock_shards` TINYINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '库存分片数: 0-不分片, 大于0时库存保存在 product_stock_shard 表',
                            `category_id` INT NOT NULL DEFAULT 0 COMMENT '分类ID',
                            `status` TINYINT NOT NULL DEFAULT 1 COMMENT '状态: 1-在售, 2-下架, 3-缺货',
                            `merchant_id` BIGINT UNSIGNED NOT NULL COMMENT '商家ID',
@@ -70,10 +71,23 @@ CREATE TABLE `product` (
                            KEY `idx_category` (`category_id`),
                            KEY `idx_status` (`status`),
                            KEY `idx_price` (`price`),
-                           FULLTEXT KEY `ft_name_desc` (`name`, `description`),
+                           KEY `idx_status_created_time` (`status`, `created_time`),
+                           KEY `idx_status_price` (`status`, `price`),
+                           FULLTEXT KEY `ft_name_desc` (`name`, `description`) WITH PARSER ngram,
                            CONSTRAINT `fk_product_merchant` FOREIGN KEY (`merchant_id`) REFERENCES `user` (`id`) ON DELETE CASCADE ON UPDATE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='商品表';
 
+-- 商品库存分片表: 热点商品的库存拆分为多行, 并发下单分散到不同行, 避免单行锁成为瓶颈
+DROP TABLE IF EXISTS `product_stock_shard`;
+CREATE TABLE `product_stock_shard` (
+                                       `product_id` BIGINT UNSIGNED NOT NULL COMMENT '商品ID',
+                                       `shard_no` TINYINT UNSIGNED NOT NULL COMMENT '分片序号, 从0开始',
+                                       `stock` INT NOT NULL DEFAULT 0 COMMENT '分片库存',
+                                       `updated_time` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+                                       PRIMARY KEY (`product_id`, `shard_no`),
+                                       CONSTRAINT `fk_stock_shard_product` FOREIGN KEY (`product_id`) REFERENCES `product` (`id`) ON DELETE CASCADE ON UPDATE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='商品库存分片表';
+
 -- 购物车表
 DROP TABLE IF EXISTS `cart_item`;
 CREATE TABLE `cart_item` (
@@ -145,17 +159,36 @@ CREATE TABLE `transaction` (
                                `status` TINYINT NOT NULL DEFAULT 1 COMMENT '状态: 1-成功, 2-失败, 3-处理中',
                                `transaction_no` VARCHAR(64) NOT NULL DEFAULT '' COMMENT '第三方交易号',
                                `remark` VARCHAR(200) NOT NULL DEFAULT '' COMMENT '交易备注',
+                               `applied` TINYINT NOT NULL DEFAULT 1 COMMENT '是否已计入 user.balance: 1-是, 0-否 (账本模式下待合并的充值)',
                                `created_time` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
                                `updated_time` TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
                                PRIMARY KEY (`id`),
                                KEY `idx_user_id` (`user_id`),
                                KEY `idx_order_id` (`order_id`),
                                KEY `idx_type` (`type`),
+                               KEY `idx_applied_user` (`applied`, `user_id`),
                                KEY `idx_created_time` (`created_time`),
                                CONSTRAINT `fk_transaction_user` FOREIGN KEY (`user_id`) REFERENCES `user` (`id`) ON DELETE CASCADE ON UPDATE CASCADE,
                                CONSTRAINT `fk_transaction_order` FOREIGN KEY (`order_id`) REFERENCES `orders` (`id`) ON DELETE CASCADE ON UPDATE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='交易流水表';
 
+-- 审计事件表 (audit.table-enabled=true 时由后台线程批量写入, 只追加, 不设外键)
+DROP TABLE IF EXISTS `audit_event`;
+CREATE TABLE `audit_event` (
+                               `id` BIGINT UNSIGNED NOT NULL COMMENT '事件ID',
+                               `type` TINYINT NOT NULL COMMENT '类型: 1-订单已支付, 2-余额已充值',
+                               `user_id` BIGINT UNSIGNED NOT NULL COMMENT '用户ID',
+                               `username` VARCHAR(50) NOT NULL DEFAULT '' COMMENT '用户名',
+                               `reference` VARCHAR(64) NOT NULL DEFAULT '' COMMENT '业务单号: 订单号或充值流水号',
+                               `amount` DECIMAL(15,2) NOT NULL COMMENT '金额',
+                               `balance` DECIMAL(15,2) DEFAULT NULL COMMENT '事件发生后的用户余额',
+                               `detail` VARCHAR(500) DEFAULT NULL COMMENT '事件详情',
+                               `occurred_time` TIMESTAMP(3) NOT NULL COMMENT '事件发生时间',
+                               PRIMARY KEY (`id`),
+                               KEY `idx_user_time` (`user_id`, `occurred_time`),
+                               KEY `idx_reference` (`reference`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='审计事件表';
+
 -- 消息表 (拓展功能时再创建)
 -- DROP TABLE IF EXISTS `message`;
 -- CREATE TABLE `message` (
@@ -0,0 +1,81 @@
+package online.store.common.utils;
+
+import online.store.config.JwtConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CursorCodecTest {
+
+    private static final String SECRET = "0123456789abcdef0123456789abcdef";
+
+    private CursorCodec codec;
+
+    private static CursorCodec codec(String secret) {
+        JwtConfig jwtConfig = new JwtConfig();
+        jwtConfig.setSecret(secret);
+        CursorCodec codec = new CursorCodec(jwtConfig);
+        codec.init();
+        return codec;
+    }
+
+    @BeforeEach
+    void setUp() {
+        codec = codec(SECRET);
+    }
+
+    @Test
+    void roundTrips() {
+        String payload = "createTime=2026-01-01T00:00:00,id=42";
+        assertEquals(payload, codec.decode(codec.encode(payload)));
+    }
+
+    @Test
+    void rejectsTamperedPayload() {
+        String cursor = codec.encode("id=42");
+        String signature = cursor.substring(cursor.indexOf('.'));
+        String forged = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("id=1".getBytes(StandardCharsets.UTF_8)) + signature;
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(forged));
+    }
+
+    @Test
+    void rejectsTamperedSignature() {
+        String cursor = codec.encode("id=42");
+        char last = cursor.charAt(cursor.length() - 1);
+        String forged = cursor.substring(0, cursor.length() - 1) + (last == 'A' ? 'B' : 'A');
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(forged));
+    }
+
+    @Test
+    void rejectsCursorSignedWithAnotherSecret() {
+        String cursor = codec("fedcba9876543210fedcba9876543210").encode("id=42");
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(cursor));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> codec.decode("no-separator"));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode(".abc"));
+        assertThrows(IllegalArgumentException.class, () -> codec.decode("!!!.###"));
+    }
+
+    @Test
+    void signatureIsNotKeyedWithJwtSecretDirectly() throws Exception {
+        String cursor = codec.encode("id=42");
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] direct = Arrays.copyOf(mac.doFinal("id=42".getBytes(StandardCharsets.UTF_8)), 16);
+        assertNotEquals(Base64.getUrlEncoder().withoutPadding().encodeToString(direct),
+                cursor.substring(cursor.indexOf('.') + 1));
+    }
+}
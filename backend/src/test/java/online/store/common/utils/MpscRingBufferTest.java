@@ -0,0 +1,114 @@
+package online.store.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MpscRingBufferTest {
+
+    @Test
+    void roundsCapacityUpToPowerOfTwo() {
+        assertEquals(1, new MpscRingBuffer<>(1).capacity());
+        assertEquals(4, new MpscRingBuffer<>(3).capacity());
+        assertEquals(8, new MpscRingBuffer<>(8).capacity());
+        assertThrows(IllegalArgumentException.class, () -> new MpscRingBuffer<>(0));
+    }
+
+    @Test
+    void rejectsOfferWhenFull() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer(i));
+        }
+        assertFalse(buffer.offer(4));
+        assertEquals(4, buffer.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(1, buffer.drainTo(drained, 1));
+        assertTrue(buffer.offer(4));
+        assertFalse(buffer.offer(5));
+    }
+
+    @Test
+    void keepsFifoOrderAcrossWraparound() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        List<Integer> drained = new ArrayList<>();
+        int next = 0;
+        // 每轮写入 3 个取出 2 个, 写入位置多次绕回起点
+        for (int round = 0; round < 10; round++) {
+            while (buffer.offer(next)) {
+                next++;
+            }
+            buffer.drainTo(drained, 2);
+        }
+        buffer.drainTo(drained, Integer.MAX_VALUE);
+        assertTrue(buffer.isEmpty());
+        assertEquals(next, drained.size());
+        for (int i = 0; i < drained.size(); i++) {
+            assertEquals(i, drained.get(i));
+        }
+    }
+
+    @Test
+    void drainsNothingWhenEmpty() {
+        MpscRingBuffer<String> buffer = new MpscRingBuffer<>(2);
+        List<String> drained = new ArrayList<>();
+        assertEquals(0, buffer.drainTo(drained, 10));
+        assertThrows(NullPointerException.class, () -> buffer.offer(null));
+    }
+
+    @Test
+    void concurrentProducersLoseNothingAndKeepPerProducerOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 5_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (long i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(new long[]{producer, i})) {
+                        Thread.yield();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+
+        long[] nextExpected = new long[producers];
+        List<long[]> batch = new ArrayList<>();
+        int received = 0;
+        while (received < producers * perProducer) {
+            batch.clear();
+            buffer.drainTo(batch, 32);
+            for (long[] element : batch) {
+                int producer = (int) element[0];
+                assertEquals(nextExpected[producer], element[1]);
+                nextExpected[producer]++;
+            }
+            received += batch.size();
+            if (batch.isEmpty()) {
+                Thread.yield();
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertTrue(buffer.isEmpty());
+    }
+}
@@ -0,0 +1,129 @@
+package online.store.common.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long START = 1_800_000_000_000L;
+
+    private static final long TWEPOCH = 1757235720000L;
+
+    /**
+     * 时钟由测试控制的生成器
+     */
+    private static final class ManualClockGenerator extends SnowflakeIdGenerator {
+
+        private volatile long now;
+
+        ManualClockGenerator(long maxClockSkewMillis) {
+            super(3, 7, maxClockSkewMillis);
+            this.now = START;
+        }
+
+        @Override
+        protected long timeGen() {
+            return now;
+        }
+    }
+
+    private static long timestampOf(long id) {
+        return (id >>> 22) + TWEPOCH;
+    }
+
+    private static long sequenceOf(long id) {
+        return id & 4095;
+    }
+
+    @Test
+    void encodesTimestampNodeAndSequence() {
+        ManualClockGenerator generator = new ManualClockGenerator(5);
+        long id = generator.nextId();
+        assertEquals(START, timestampOf(id));
+        assertEquals(0, sequenceOf(id));
+        assertEquals(3, (id >>> 12) & 31);
+        assertEquals(7, (id >>> 17) & 31);
+    }
+
+    @Test
+    void sequenceRolloverBorrowsNextMillisecond() {
+        ManualClockGenerator generator = new ManualClockGenerator(5);
+        long previous = -1;
+        for (int i = 0; i < 4096; i++) {
+            long id = generator.nextId();
+            assertEquals(START, timestampOf(id));
+            assertEquals(i, sequenceOf(id));
+            assertTrue(id > previous);
+            previous = id;
+        }
+        long borrowed = generator.nextId();
+        assertEquals(START + 1, timestampOf(borrowed));
+        assertEquals(0, sequenceOf(borrowed));
+        assertTrue(borrowed > previous);
+    }
+
+    @Test
+    void sequenceRolloverWaitsForClockWhenBorrowLimitReached() throws Exception {
+        ManualClockGenerator generator = new ManualClockGenerator(0);
+        for (int i = 0; i < 4096; i++) {
+            generator.nextId();
+        }
+        CompletableFuture<Long> next = CompletableFuture.supplyAsync(generator::nextId);
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertFalse(next.isDone());
+
+        generator.now = START + 1;
+        long id = next.get(5, TimeUnit.SECONDS);
+        assertEquals(START + 1, timestampOf(id));
+        assertEquals(0, sequenceOf(id));
+    }
+
+    @Test
+    void smallClockRollbackKeepsLastTimestamp() {
+        ManualClockGenerator generator = new ManualClockGenerator(5);
+        long before = generator.nextId();
+        generator.now = START - 3;
+        long after = generator.nextId();
+        assertEquals(START, timestampOf(after));
+        assertTrue(after > before);
+    }
+
+    @Test
+    void largeClockRollbackIsRejected() {
+        ManualClockGenerator generator = new ManualClockGenerator(5);
+        generator.nextId();
+        generator.now = START - 6;
+        assertThrows(IllegalStateException.class, generator::nextId);
+    }
+
+    @Test
+    void batchSpansMillisecondsWithoutDuplicates() {
+        ManualClockGenerator generator = new ManualClockGenerator(5);
+        long[] ids = generator.nextIds(5000);
+        assertEquals(5000, ids.length);
+        for (int i = 1; i < ids.length; i++) {
+            assertTrue(ids[i] > ids[i - 1]);
+        }
+        assertEquals(START + 1, timestampOf(ids[ids.length - 1]));
+        assertTrue(generator.nextId() > ids[ids.length - 1]);
+    }
+
+    @Test
+    void expiredNodeLeaseRefusesToGenerate() {
+        ManualClockGenerator generator = new ManualClockGenerator(5);
+        long[] deadline = {System.nanoTime() + TimeUnit.MINUTES.toNanos(1)};
+        generator.setNodeDeadline(() -> deadline[0]);
+        generator.nextId();
+
+        deadline[0] = System.nanoTime();
+        assertThrows(IllegalStateException.class, generator::nextId);
+        assertThrows(IllegalStateException.class, () -> generator.nextIds(2));
+    }
+}
@@ -0,0 +1,62 @@
+package online.store.service.auth.impl;
+
+import online.store.service.auth.impl.UserImportServiceImpl.CsvReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvReaderTest {
+
+    private static CsvReader reader(String csv) {
+        return new CsvReader(new BufferedReader(new StringReader(csv)));
+    }
+
+    @Test
+    void splitsPlainFieldsAndKeepsEmptyOnes() throws IOException {
+        CsvReader csv = reader("username,password,email\nalice,secret,\n,,\n");
+        assertEquals(List.of("username", "password", "email"), csv.readRecord());
+        assertEquals(List.of("alice", "secret", ""), csv.readRecord());
+        assertEquals(List.of("", "", ""), csv.readRecord());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    void handlesQuotedCommasAndEscapedQuotes() throws IOException {
+        CsvReader csv = reader("\"a,b\",\"say \"\"hi\"\"\",\"\"\n");
+        assertEquals(List.of("a,b", "say \"hi\"", ""), csv.readRecord());
+    }
+
+    @Test
+    void quotedFieldMaySpanLinesAndRecordLineIsItsFirstLine() throws IOException {
+        CsvReader csv = reader("h1,h2\n\"line1\nline2\",x\nnext,y\n");
+        csv.readRecord();
+        assertEquals(List.of("line1\nline2", "x"), csv.readRecord());
+        assertEquals(2, csv.recordLine());
+        assertEquals(List.of("next", "y"), csv.readRecord());
+        assertEquals(4, csv.recordLine());
+    }
+
+    @Test
+    void lastLineWithoutNewlineIsRead() throws IOException {
+        CsvReader csv = reader("a,b");
+        assertEquals(List.of("a", "b"), csv.readRecord());
+        assertNull(csv.readRecord());
+    }
+
+    @Test
+    void unclosedQuoteReportsStartingLine() throws IOException {
+        CsvReader csv = reader("h\nok\n\"never closed\nstill open\n");
+        csv.readRecord();
+        csv.readRecord();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, csv::readRecord);
+        assertTrue(e.getMessage().contains("3"), e.getMessage());
+    }
+}
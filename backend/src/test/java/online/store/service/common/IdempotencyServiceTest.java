@@ -0,0 +1,112 @@
+package online.store.service.common;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import online.store.common.exception.IdempotencyConflictException;
+import online.store.common.exception.InsufficientBalanceException;
+import online.store.common.exception.OutcomeUnknownException;
+import online.store.config.IdempotencyConfig;
+import online.store.pojo.User;
+import online.store.service.auth.PermissionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 幂等键状态转换测试, Redis 以内存 Map 代替
+ */
+class IdempotencyServiceTest {
+
+    private static final String KEY = "idempotency:recharge:7:key-1";
+
+    private final Map<String, String> redis = new HashMap<>();
+
+    private IdempotencyService idempotencyService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(values.get(anyString())).thenAnswer(invocation -> redis.get(invocation.<String>getArgument(0)));
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenAnswer(invocation ->
+                redis.putIfAbsent(invocation.getArgument(0), invocation.getArgument(1)) == null);
+        doAnswer(invocation -> redis.put(invocation.getArgument(0), invocation.getArgument(1)))
+                .when(values).set(anyString(), anyString(), any(Duration.class));
+
+        StringRedisTemplate template = mock(StringRedisTemplate.class);
+        when(template.opsForValue()).thenReturn(values);
+        when(template.delete(ArgumentMatchers.<String>any())).thenAnswer(invocation ->
+                redis.remove(invocation.<String>getArgument(0)) != null);
+
+        User user = new User();
+        user.setId(7L);
+        PermissionService permissionService = mock(PermissionService.class);
+        when(permissionService.getCurrentUser()).thenReturn(user);
+
+        idempotencyService = new IdempotencyService(template, new ObjectMapper(), permissionService, new IdempotencyConfig());
+    }
+
+    private String recharge(String amount, RuntimeException failure) {
+        return idempotencyService.execute("recharge", "key-1", Map.of("amount", amount), String.class, () -> {
+            if (failure != null) {
+                throw failure;
+            }
+            return "ok-" + amount;
+        });
+    }
+
+    @Test
+    void replaysSavedResponse() {
+        assertEquals("ok-10", recharge("10", null));
+        assertTrue(redis.get(KEY).startsWith("D:"));
+        // 重试不再执行写操作
+        assertEquals("ok-10", recharge("10", new IllegalStateException("不应执行")));
+    }
+
+    @Test
+    void businessExceptionReleasesKey() {
+        assertThrows(InsufficientBalanceException.class, () -> recharge("10", new InsufficientBalanceException("余额不足")));
+        assertTrue(redis.isEmpty());
+        // 确定未生效, 相同的键可以重试
+        assertEquals("ok-10", recharge("10", null));
+    }
+
+    @Test
+    void outcomeUnknownMarksKeyUnknown() {
+        assertThrows(OutcomeUnknownException.class, () -> recharge("10", new OutcomeUnknownException("超时")));
+        assertTrue(redis.get(KEY).startsWith("U:"));
+        AtomicInteger executed = new AtomicInteger();
+        assertThrows(IdempotencyConflictException.class, () -> idempotencyService.execute("recharge", "key-1",
+                Map.of("amount", "10"), String.class, () -> "ok-" + executed.incrementAndGet()));
+        assertEquals(0, executed.get());
+    }
+
+    @Test
+    void unexpectedRuntimeExceptionMarksKeyUnknown() {
+        assertThrows(IllegalStateException.class, () -> recharge("10", new IllegalStateException("连接中断")));
+        assertTrue(redis.get(KEY).startsWith("U:"));
+        assertThrows(IdempotencyConflictException.class, () -> recharge("10", null));
+    }
+
+    @Test
+    void sameKeyWithDifferentRequestIsConflict() {
+        assertEquals("ok-10", recharge("10", null));
+        IdempotencyConflictException e = assertThrows(IdempotencyConflictException.class, () -> recharge("20", null));
+        assertTrue(e.getMessage().contains("其他请求"), e.getMessage());
+    }
+}
@@ -0,0 +1,90 @@
+package online.store.service.common;
+
+import online.store.config.RateLimitConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 本地模式 (GCRA 令牌桶) 测试, 不访问 Redis
+ */
+class RateLimiterTest {
+
+    private static final Duration HOUR = Duration.ofHours(1);
+
+    private RateLimitConfig config;
+
+    private RateLimiter rateLimiter;
+
+    @BeforeEach
+    void setUp() {
+        config = new RateLimitConfig();
+        rateLimiter = new RateLimiter(null, config);
+    }
+
+    @Test
+    void allowsBurstUpToCapacityThenReportsWaitForNextToken() {
+        for (int i = 0; i < 4; i++) {
+            assertEquals(0L, rateLimiter.acquire("k", 4, HOUR));
+        }
+        long wait = rateLimiter.acquire("k", 4, HOUR);
+        // 发放间隔为 15 分钟, 刚用完突发额度时需等待约一个间隔
+        assertTrue(wait > TimeUnit.MINUTES.toMillis(14) && wait <= TimeUnit.MINUTES.toMillis(15), "wait=" + wait);
+    }
+
+    @Test
+    void rejectedRequestsDoNotConsumeTokens() {
+        assertEquals(0L, rateLimiter.acquire("k", 1, HOUR));
+        long first = rateLimiter.acquire("k", 1, HOUR);
+        long second = rateLimiter.acquire("k", 1, HOUR);
+        assertTrue(first > 0 && second > 0);
+        assertTrue(second <= first);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() throws InterruptedException {
+        Duration period = Duration.ofSeconds(1);
+        assertEquals(0L, rateLimiter.acquire("k", 2, period));
+        assertEquals(0L, rateLimiter.acquire("k", 2, period));
+        assertTrue(rateLimiter.acquire("k", 2, period) > 0);
+
+        TimeUnit.MILLISECONDS.sleep(600);
+        assertEquals(0L, rateLimiter.acquire("k", 2, period));
+        assertTrue(rateLimiter.acquire("k", 2, period) > 0);
+    }
+
+    @Test
+    void keysAreIndependent() {
+        assertEquals(0L, rateLimiter.acquire("a", 1, HOUR));
+        assertTrue(rateLimiter.acquire("a", 1, HOUR) > 0);
+        assertEquals(0L, rateLimiter.acquire("b", 1, HOUR));
+    }
+
+    @Test
+    void newKeysShareOverflowBucketWhenFull() {
+        config.setMaxBuckets(1);
+        assertEquals(0L, rateLimiter.acquire("a", 1, HOUR));
+        assertEquals(0L, rateLimiter.acquire("b", 1, HOUR));
+        assertTrue(rateLimiter.acquire("c", 1, HOUR) > 0);
+        // 不同限额使用不同的溢出桶
+        assertEquals(0L, rateLimiter.acquire("c", 2, HOUR));
+    }
+
+    @Test
+    void sweepRemovesOnlyRefilledBuckets() throws InterruptedException {
+        config.setMaxBuckets(1);
+        assertEquals(0L, rateLimiter.acquire("short", 1, Duration.ofMillis(20)));
+        assertEquals(0L, rateLimiter.acquire("overflow", 1, HOUR));
+        TimeUnit.MILLISECONDS.sleep(40);
+
+        rateLimiter.evictIdle();
+        assertEquals(0L, rateLimiter.acquire("long", 1, HOUR));
+        // 溢出桶尚未回满, 清理后仍然限流
+        assertTrue(rateLimiter.acquire("other", 1, HOUR) > 0);
+    }
+}
@@ -0,0 +1,42 @@
+package online.store.service.common;
+
+import org.junit.jupiter.api.Test;
+
+import static online.store.service.common.SlowQueryLog.fingerprint;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SlowQueryLogTest {
+
+    @Test
+    void replacesLiteralsAndCollapsesWhitespace() {
+        assertEquals("SELECT * FROM product WHERE id = ? AND name = ?",
+                fingerprint("  SELECT *\n  FROM product\tWHERE id = 42 AND name = 'abc'  "));
+    }
+
+    @Test
+    void keepsDigitsInsideIdentifiers() {
+        assertEquals("SELECT c1 FROM t2 WHERE price > ? LIMIT ?",
+                fingerprint("SELECT c1 FROM t2 WHERE price > 9.99 LIMIT 10"));
+    }
+
+    @Test
+    void handlesQuotesInsideStringLiterals() {
+        assertEquals("SELECT id FROM user WHERE name = ? OR name = ?",
+                fingerprint("SELECT id FROM user WHERE name = 'O''Brien' OR name = 'it\\'s'"));
+    }
+
+    @Test
+    void collapsesInListsOfAnyLength() {
+        String expected = "SELECT * FROM orders WHERE id IN (?+)";
+        assertEquals(expected, fingerprint("SELECT * FROM orders WHERE id IN (1)"));
+        assertEquals(expected, fingerprint("SELECT * FROM orders WHERE id in (1, 2, 3)"));
+        assertEquals(expected, fingerprint("SELECT * FROM orders WHERE id IN (?,?,?,?)"));
+    }
+
+    @Test
+    void foldsMultiRowValues() {
+        assertEquals("INSERT INTO user_role (user_id, role_id) VALUES (?, ?), ...",
+                fingerprint("INSERT INTO user_role (user_id, role_id) VALUES (1, 2), (3, 2), (5, 2)"));
+        assertEquals("INSERT INTO t (a) VALUES (?)", fingerprint("INSERT INTO t (a) VALUES (7)"));
+    }
+}
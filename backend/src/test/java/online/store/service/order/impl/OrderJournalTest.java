@@ -0,0 +1,104 @@
+package online.store.service.order.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import online.store.dto.order.OrderCreateRequest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderJournalTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @TempDir
+    Path dir;
+
+    private static PendingOrder order(long id) {
+        OrderCreateRequest request = new OrderCreateRequest();
+        request.setProductId(100 + id);
+        request.setQuantity((int) id);
+        request.setAddress("地址" + id);
+        request.setConsignee("收货人");
+        request.setPhone("13800000000");
+        return new PendingOrder(id, "NO" + id, 10L, "user", request, id % 2 == 0,
+                LocalDateTime.of(2026, 1, 1, 12, 0, 0));
+    }
+
+    private OrderJournal journal() {
+        return new OrderJournal(dir.resolve("orders.journal"), objectMapper, false);
+    }
+
+    @Test
+    void replaysOnlyUnfinishedOrdersInSubmitOrder() {
+        OrderJournal journal = journal();
+        assertTrue(journal.open().isEmpty());
+        journal.submitted(order(1));
+        journal.submitted(order(2));
+        journal.submitted(order(3));
+        journal.done("NO2");
+        journal.close();
+
+        OrderJournal reopened = journal();
+        assertTrue(reopened.hasRecords());
+        List<PendingOrder> recovered = reopened.open();
+        assertEquals(List.of(order(1), order(3)), recovered);
+        reopened.close();
+    }
+
+    @Test
+    void reopenCompactsJournalToPendingOrders() throws IOException {
+        OrderJournal journal = journal();
+        journal.open();
+        journal.submitted(order(1));
+        journal.submitted(order(2));
+        journal.done("NO1");
+        journal.close();
+
+        journal().open();
+        List<String> lines = Files.readAllLines(dir.resolve("orders.journal"), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.getFirst().contains("\"NO2\""));
+    }
+
+    @Test
+    void skipsTornLastLine() throws IOException {
+        OrderJournal journal = journal();
+        journal.open();
+        journal.submitted(order(1));
+        journal.close();
+        Files.writeString(dir.resolve("orders.journal"), "{\"type\":\"SUBMIT\",\"orderNo\":\"NO2\",\"ord",
+                StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertEquals(List.of(order(1)), journal().open());
+    }
+
+    @Test
+    void doneForEveryOrderLeavesNothingToReplay() {
+        OrderJournal journal = journal();
+        journal.open();
+        journal.submitted(order(1));
+        journal.done("NO1");
+        journal.close();
+
+        assertTrue(journal().open().isEmpty());
+    }
+
+    @Test
+    void missingJournalHasNoRecordsAndRejectsWritesUntilOpened() {
+        OrderJournal journal = journal();
+        assertFalse(journal.hasRecords());
+        assertThrows(IllegalStateException.class, () -> journal.submitted(order(1)));
+    }
+}
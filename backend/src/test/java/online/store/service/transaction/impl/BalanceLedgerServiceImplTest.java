@@ -0,0 +1,206 @@
+package online.store.service.transaction.impl;
+
+import online.store.common.exception.OutcomeUnknownException;
+import online.store.common.exception.ServiceBusyException;
+import online.store.config.LedgerConfig;
+import online.store.mapper.TransactionMapper;
+import online.store.mapper.UserMapper;
+import online.store.pojo.Transaction;
+import online.store.service.transaction.impl.BalanceLedgerServiceImpl.PendingEntry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class BalanceLedgerServiceImplTest {
+
+    private LedgerConfig config;
+
+    private TransactionMapper transactionMapper;
+
+    private StubTransactionManager transactionManager;
+
+    private BalanceLedgerServiceImpl ledger;
+
+    /**
+     * 只记录提交, 可以模拟提交阶段失败的事务管理器
+     */
+    private static final class StubTransactionManager implements PlatformTransactionManager {
+
+        private volatile RuntimeException commitFailure;
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+            if (commitFailure != null) {
+                throw commitFailure;
+            }
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+
+    private static Transaction entry(long userId) {
+        Transaction entry = new Transaction();
+        entry.setUserId(userId);
+        return entry;
+    }
+
+    private static PendingEntry pending(long userId) {
+        return new PendingEntry(entry(userId), new CompletableFuture<>());
+    }
+
+    private void onInsert(InsertAction action) {
+        doAnswer(invocation -> {
+            Collection<Transaction> entries = invocation.getArgument(0);
+            action.run(entries);
+            return List.of();
+        }).when(transactionMapper).insert(ArgumentMatchers.<Collection<Transaction>>any());
+    }
+
+    private interface InsertAction {
+        void run(Collection<Transaction> entries) throws Exception;
+    }
+
+    @BeforeEach
+    void setUp() {
+        config = new LedgerConfig();
+        config.setEnabled(true);
+        transactionMapper = mock(TransactionMapper.class);
+        transactionManager = new StubTransactionManager();
+        ledger = new BalanceLedgerServiceImpl(config, transactionMapper, mock(UserMapper.class),
+                new TransactionTemplate(transactionManager), new MockEnvironment());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (ledger.isRunning()) {
+            ledger.stop();
+        }
+    }
+
+    @Test
+    void appendReturnsAfterGroupCommit() {
+        ledger.start();
+        ledger.append(entry(1L));
+        verify(transactionMapper).insert(ArgumentMatchers.<Collection<Transaction>>any());
+    }
+
+    @Test
+    void insertFailureIsRetryableBusy() {
+        onInsert(entries -> {
+            throw new DataIntegrityViolationException("fk");
+        });
+        ledger.start();
+        ServiceBusyException e = assertThrows(ServiceBusyException.class, () -> ledger.append(entry(1L)));
+        // INSERT 阶段失败时事务已回滚, 不是结果未知
+        assertFalse(e instanceof OutcomeUnknownException);
+    }
+
+    @Test
+    void commitFailureAfterInsertIsOutcomeUnknown() {
+        transactionManager.commitFailure = new TransactionSystemException("connection lost during commit");
+        ledger.start();
+        assertThrows(OutcomeUnknownException.class, () -> ledger.append(entry(1L)));
+    }
+
+    @Test
+    void timeoutIsOutcomeUnknown() {
+        CountDownLatch release = new CountDownLatch(1);
+        onInsert(entries -> release.await());
+        config.setWriteTimeout(Duration.ofMillis(50));
+        ledger.start();
+        try {
+            assertThrows(OutcomeUnknownException.class, () -> ledger.append(entry(1L)));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void interruptIsOutcomeUnknownAndKeepsInterruptFlag() {
+        CountDownLatch release = new CountDownLatch(1);
+        onInsert(entries -> release.await());
+        ledger.start();
+        try {
+            Thread.currentThread().interrupt();
+            assertThrows(OutcomeUnknownException.class, () -> ledger.append(entry(1L)));
+            assertTrue(Thread.interrupted());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void dataErrorInBatchFailsOnlyOffendingEntry() throws Exception {
+        onInsert(entries -> {
+            if (entries.stream().anyMatch(entry -> entry.getUserId() == 2L)) {
+                throw new DataIntegrityViolationException("fk");
+            }
+        });
+        List<PendingEntry> batch = List.of(pending(1L), pending(2L), pending(3L));
+        ledger.writeBatch(batch);
+
+        assertNull(batch.get(0).committed().get());
+        assertNull(batch.get(2).committed().get());
+        ExecutionException e = assertThrows(ExecutionException.class, () -> batch.get(1).committed().get());
+        assertInstanceOf(DataIntegrityViolationException.class, e.getCause());
+        // 整批一次 + 逐条三次
+        verify(transactionMapper, times(4)).insert(ArgumentMatchers.<Collection<Transaction>>any());
+    }
+
+    @Test
+    void resourceFailureFailsWholeBatchWithoutPerEntryRetry() {
+        onInsert(entries -> {
+            throw new DataAccessResourceFailureException("db down");
+        });
+        List<PendingEntry> batch = List.of(pending(1L), pending(2L));
+        ledger.writeBatch(batch);
+
+        batch.forEach(pending -> assertTrue(pending.committed().isCompletedExceptionally()));
+        verify(transactionMapper, times(1)).insert(ArgumentMatchers.<Collection<Transaction>>any());
+    }
+
+    @Test
+    void commitFailureFailsWholeBatchWithoutPerEntryRetry() {
+        transactionManager.commitFailure = new TransactionSystemException("connection lost during commit");
+        List<PendingEntry> batch = List.of(pending(1L), pending(2L));
+        ledger.writeBatch(batch);
+
+        // 提交结果未知, 逐条重试可能重复写入
+        batch.forEach(pending -> assertTrue(pending.committed().isCompletedExceptionally()));
+        verify(transactionMapper, times(1)).insert(ArgumentMatchers.<Collection<Transaction>>any());
+    }
+}